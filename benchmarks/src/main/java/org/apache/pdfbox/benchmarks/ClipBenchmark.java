@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.util.Charsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the rendering of a table-like page which clips every cell to its bounds, as many
+ * generated reports do. With {@code rotated} the page is drawn rotated, so that the cell clips
+ * are no axis-aligned rectangles any more.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ClipBenchmark
+{
+    private static final int COLUMNS = 20;
+    private static final int ROWS = 40;
+
+    @Param({ "false", "true" })
+    public boolean rotated;
+
+    private PDDocument document;
+    private PDFRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void createDocument() throws IOException
+    {
+        PDRectangle box = PDRectangle.A4;
+        float cellWidth = (box.getWidth() - 80) / COLUMNS;
+        float cellHeight = (box.getHeight() - 80) / ROWS;
+        StringBuilder sb = new StringBuilder();
+        if (rotated)
+        {
+            sb.append("0.9659 0.2588 -0.2588 0.9659 120 -60 cm\n");
+        }
+        for (int row = 0; row < ROWS; row++)
+        {
+            for (int column = 0; column < COLUMNS; column++)
+            {
+                float x = 40 + column * cellWidth;
+                float y = 40 + row * cellHeight;
+                sb.append(String.format(Locale.US,
+                        "q %.2f %.2f %.2f %.2f re W n %.2f g %.2f %.2f %.2f %.2f re f Q\n",
+                        x, y, cellWidth, cellHeight, (row + column) % 10 / 10f,
+                        x - 5, y - 5, cellWidth + 10, cellHeight + 10));
+            }
+        }
+
+        document = new PDDocument();
+        PDPage page = new PDPage(box);
+        document.addPage(page);
+        PDStream contents = new PDStream(document);
+        OutputStream out = contents.createOutputStream();
+        out.write(sb.toString().getBytes(Charsets.US_ASCII));
+        out.close();
+        page.setContents(contents);
+        renderer = new PDFRenderer(document);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException
+    {
+        document.close();
+    }
+
+    @Benchmark
+    public BufferedImage renderPage() throws IOException
+    {
+        return renderer.renderImageWithDPI(0, 72, ImageType.RGB);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.util.Charsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the tokenization of a content stream made of path construction operators, token by
+ * token and operator by operator, and the processing of the same stream by a graphics stream
+ * engine which only counts the path segments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ContentStreamBenchmark
+{
+    @Param({ "50000" })
+    public int operatorCount;
+
+    private byte[] content;
+    private PDDocument document;
+    private PDPage page;
+
+    @Setup(Level.Trial)
+    public void createContent() throws IOException
+    {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        sb.append("q 1 0 0 1 0.5 0.5 cm\n");
+        for (int i = 0; i < operatorCount; i++)
+        {
+            switch (i % 4)
+            {
+                case 0:
+                    sb.append(String.format(Locale.US, "%.2f %.2f m\n",
+                            random.nextFloat() * 600, random.nextFloat() * 800));
+                    break;
+                case 1:
+                case 2:
+                    sb.append(String.format(Locale.US, "%.2f %.2f l\n",
+                            random.nextFloat() * 600, random.nextFloat() * 800));
+                    break;
+                default:
+                    sb.append(String.format(Locale.US, "%.3f %.3f %.3f %.3f %.3f %.3f c S\n",
+                            random.nextFloat() * 600, random.nextFloat() * 800,
+                            random.nextFloat() * 600, random.nextFloat() * 800,
+                            random.nextFloat() * 600, random.nextFloat() * 800));
+                    break;
+            }
+        }
+        sb.append("Q\n");
+        content = sb.toString().getBytes(Charsets.US_ASCII);
+
+        document = new PDDocument();
+        page = new PDPage();
+        document.addPage(page);
+        PDStream stream = new PDStream(document);
+        OutputStream out = stream.createOutputStream();
+        out.write(content);
+        out.close();
+        page.setContents(stream);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException
+    {
+        document.close();
+    }
+
+    @Benchmark
+    public int parseTokens() throws IOException
+    {
+        PDFStreamParser parser = new PDFStreamParser(content);
+        int count = 0;
+        Object token;
+        while ((token = parser.parseNextToken()) != null)
+        {
+            if (token instanceof Operator)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int parseOperators() throws IOException
+    {
+        PDFStreamParser parser = new PDFStreamParser(content);
+        OperandStack operands = new OperandStack();
+        int count = 0;
+        while (parser.parseNextOperator(operands) != null)
+        {
+            operands.clear();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int processPage() throws IOException
+    {
+        SegmentCounter counter = new SegmentCounter(page);
+        counter.processPage(page);
+        return counter.segments;
+    }
+
+    /**
+     * A graphics stream engine which counts the path segments instead of drawing them.
+     */
+    private static final class SegmentCounter extends PDFGraphicsStreamEngine
+    {
+        private final Point2D.Float currentPoint = new Point2D.Float();
+        private int segments;
+
+        SegmentCounter(PDPage page)
+        {
+            super(page);
+        }
+
+        @Override
+        public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3)
+        {
+            segments += 4;
+        }
+
+        @Override
+        public void drawImage(PDImage pdImage)
+        {
+        }
+
+        @Override
+        public void clip(int windingRule)
+        {
+        }
+
+        @Override
+        public void moveTo(float x, float y)
+        {
+            currentPoint.setLocation(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y)
+        {
+            currentPoint.setLocation(x, y);
+            segments++;
+        }
+
+        @Override
+        public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3)
+        {
+            currentPoint.setLocation(x3, y3);
+            segments++;
+        }
+
+        @Override
+        public Point2D getCurrentPoint()
+        {
+            return currentPoint;
+        }
+
+        @Override
+        public void closePath()
+        {
+        }
+
+        @Override
+        public void endPath()
+        {
+        }
+
+        @Override
+        public void strokePath()
+        {
+        }
+
+        @Override
+        public void fillPath(int windingRule)
+        {
+        }
+
+        @Override
+        public void fillAndStrokePath(int windingRule)
+        {
+        }
+
+        @Override
+        public void shadingFill(COSName shadingName)
+        {
+        }
+    }
+}
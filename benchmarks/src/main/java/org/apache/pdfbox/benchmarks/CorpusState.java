@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state holding one generated corpus document, both as bytes and as a file on disk.
+ */
+@State(Scope.Benchmark)
+public class CorpusState
+{
+    /**
+     * The kind of corpus document, see {@link SyntheticCorpus.Kind}.
+     */
+    @Param({ "PAGES", "FONTS", "IMAGES", "DEEP_TREE" })
+    public SyntheticCorpus.Kind kind;
+
+    /**
+     * The number of pages of the corpus document.
+     */
+    @Param({ "50" })
+    public int pageCount;
+
+    byte[] bytes;
+    File file;
+
+    @Setup(Level.Trial)
+    public void createCorpus() throws IOException
+    {
+        bytes = SyntheticCorpus.create(kind, pageCount);
+        file = File.createTempFile("pdfbox-benchmark-" + kind, ".pdf");
+        FileOutputStream fos = new FileOutputStream(file);
+        try
+        {
+            fos.write(bytes);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(fos);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCorpus()
+    {
+        if (file != null)
+        {
+            file.delete();
+        }
+    }
+}
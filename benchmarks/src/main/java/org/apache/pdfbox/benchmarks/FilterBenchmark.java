@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the FlateDecode filter, once without a predictor and once with the PNG predictor
+ * which is commonly used for images and cross reference streams.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class FilterBenchmark
+{
+    private static final int COLORS = 3;
+
+    @Param({ "2480" })
+    public int columns;
+
+    @Param({ "512" })
+    public int rows;
+
+    private Filter flate;
+    private byte[] encoded;
+    private COSDictionary plainParameters;
+    private COSDictionary predictorParameters;
+
+    @Setup(Level.Trial)
+    public void encode() throws IOException
+    {
+        flate = FilterFactory.INSTANCE.getFilter(COSName.FLATE_DECODE);
+
+        byte[] raw = SyntheticCorpus.createPredictedRaster(columns, rows, COLORS);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DeflaterOutputStream out = new DeflaterOutputStream(baos);
+        out.write(raw);
+        out.close();
+        encoded = baos.toByteArray();
+
+        plainParameters = new COSDictionary();
+
+        COSDictionary decodeParms = new COSDictionary();
+        decodeParms.setInt(COSName.PREDICTOR, 15);
+        decodeParms.setInt(COSName.COLORS, COLORS);
+        decodeParms.setInt(COSName.BITS_PER_COMPONENT, 8);
+        decodeParms.setInt(COSName.COLUMNS, columns);
+        predictorParameters = new COSDictionary();
+        predictorParameters.setItem(COSName.DECODE_PARMS, decodeParms);
+    }
+
+    @Benchmark
+    public int flateDecode() throws IOException
+    {
+        return decode(plainParameters);
+    }
+
+    @Benchmark
+    public int flateDecodeWithPredictor() throws IOException
+    {
+        return decode(predictorParameters);
+    }
+
+    private int decode(COSDictionary parameters) throws IOException
+    {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(encoded.length * 2);
+        flate.decode(new ByteArrayInputStream(encoded), decoded, parameters, 0);
+        return decoded.size();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures random access to the pages of a loaded document, as done by viewers and when
+ * resolving outline and link destinations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageTreeBenchmark
+{
+    /**
+     * One loaded document and a random sequence of page indexes.
+     */
+    @State(Scope.Thread)
+    public static class PageTreeState
+    {
+        PDDocument document;
+        PDPage[] pages;
+        int[] indexes;
+        int next;
+
+        @Setup(Level.Trial)
+        public void load(CorpusState corpus) throws IOException
+        {
+            document = PDDocument.load(corpus.bytes);
+            int count = document.getNumberOfPages();
+            pages = new PDPage[count];
+            for (int i = 0; i < count; i++)
+            {
+                pages[i] = document.getPage(i);
+            }
+            Random random = new Random(count);
+            indexes = new int[1024];
+            for (int i = 0; i < indexes.length; i++)
+            {
+                indexes[i] = random.nextInt(count);
+            }
+        }
+
+        int nextIndex()
+        {
+            next = (next + 1) % indexes.length;
+            return indexes[next];
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public PDPage getPage(PageTreeState state)
+    {
+        return state.document.getPage(state.nextIndex());
+    }
+
+    @Benchmark
+    public int indexOf(PageTreeState state)
+    {
+        return state.document.getPages().indexOf(state.pages[state.nextIndex()]);
+    }
+}
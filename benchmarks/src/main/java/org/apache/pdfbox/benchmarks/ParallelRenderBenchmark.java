@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures rendering all pages of one shared document with
+ * {@link PDFRenderer#renderImages(int, int, float, ImageType, java.util.concurrent.Executor,
+ * RenderCallback)} using a varying number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelRenderBenchmark
+{
+    /**
+     * One loaded document and a thread pool, shared by all invocations of a trial.
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelRendererState
+    {
+        @Param({ "1", "2", "4", "8" })
+        public int threads;
+
+        @Param({ "72" })
+        public float dpi;
+
+        PDDocument document;
+        PDFRenderer renderer;
+        ExecutorService executor;
+
+        @Setup(Level.Trial)
+        public void load(CorpusState corpus) throws IOException
+        {
+            document = PDDocument.load(corpus.bytes);
+            renderer = new PDFRenderer(document);
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public void renderDocument(ParallelRendererState state, final Blackhole blackhole)
+            throws IOException
+    {
+        state.renderer.renderImages(0, state.document.getNumberOfPages(), state.dpi,
+                ImageType.RGB, state.executor, new RenderCallback()
+        {
+            @Override
+            public void pageRendered(int pageIndex, BufferedImage image)
+            {
+                blackhole.consume(image);
+            }
+        });
+    }
+}
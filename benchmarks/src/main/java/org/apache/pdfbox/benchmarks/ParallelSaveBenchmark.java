@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a full save which compresses all streams of the document with
+ * {@link COSWriter#setStreamCompressionExecutor(java.util.concurrent.Executor)}, using a varying
+ * number of threads, 0 meaning on the writing thread. The streams of the corpus documents are
+ * stored uncompressed for this.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelSaveBenchmark
+{
+    /**
+     * The uncompressed corpus document and a thread pool, shared by all invocations of a trial.
+     */
+    @State(Scope.Benchmark)
+    public static class UncompressedState
+    {
+        @Param({ "0", "1", "2", "4", "8" })
+        public int threads;
+
+        byte[] bytes;
+        ExecutorService pool;
+        Executor executor;
+
+        @Setup(Level.Trial)
+        public void decompress(CorpusState corpus) throws IOException
+        {
+            PDDocument document = PDDocument.load(corpus.bytes);
+            try
+            {
+                for (COSObject object : document.getDocument().getObjects())
+                {
+                    COSBase base = object.getObject();
+                    if (base instanceof COSStream &&
+                        COSName.FLATE_DECODE.equals(((COSStream) base).getFilters()))
+                    {
+                        decompress((COSStream) base);
+                    }
+                }
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                document.save(baos);
+                bytes = baos.toByteArray();
+            }
+            finally
+            {
+                document.close();
+            }
+            if (threads > 0)
+            {
+                pool = Executors.newFixedThreadPool(threads);
+                executor = pool;
+            }
+            else
+            {
+                // compresses every stream on the writing thread, as the serial baseline
+                executor = new Executor()
+                {
+                    @Override
+                    public void execute(Runnable command)
+                    {
+                        command.run();
+                    }
+                };
+            }
+        }
+
+        private static void decompress(COSStream stream) throws IOException
+        {
+            InputStream input = stream.createInputStream();
+            byte[] data;
+            try
+            {
+                data = IOUtils.toByteArray(input);
+            }
+            finally
+            {
+                input.close();
+            }
+            stream.removeItem(COSName.FILTER);
+            stream.removeItem(COSName.DECODE_PARMS);
+            OutputStream output = stream.createRawOutputStream();
+            try
+            {
+                output.write(data);
+            }
+            finally
+            {
+                output.close();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close()
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * A freshly loaded uncompressed document for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class DocumentState
+    {
+        PDDocument document;
+
+        @Setup(Level.Invocation)
+        public void load(UncompressedState uncompressed) throws IOException
+        {
+            document = PDDocument.load(uncompressed.bytes);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public int save(UncompressedState uncompressed, DocumentState state) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        COSWriter writer = new COSWriter(baos);
+        try
+        {
+            writer.setStreamCompressionExecutor(uncompressed.executor);
+            writer.write(state.document);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return baos.size();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures extracting the text of one shared document with
+ * {@link PDFTextStripper#getText(PDDocument, java.util.concurrent.Executor)} using a varying
+ * number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelTextExtractionBenchmark
+{
+    /**
+     * One loaded document and a thread pool, shared by all invocations of a trial.
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelStripperState
+    {
+        @Param({ "1", "2", "4", "8" })
+        public int threads;
+
+        @Param({ "false", "true" })
+        public boolean sortByPosition;
+
+        PDDocument document;
+        ExecutorService executor;
+
+        @Setup(Level.Trial)
+        public void load(CorpusState corpus) throws IOException
+        {
+            document = PDDocument.load(corpus.bytes);
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public String getText(ParallelStripperState state) throws IOException
+    {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(state.sortByPosition);
+        return stripper.getText(state.document, state.executor);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link PDDocument#load} which runs the COSParser over the whole file. The
+ * "touchPages" variant also dereferences every page, which triggers the lazy object parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParseBenchmark
+{
+    @Benchmark
+    public int loadFromFile(CorpusState corpus) throws IOException
+    {
+        PDDocument document = PDDocument.load(corpus.file);
+        try
+        {
+            return document.getNumberOfPages();
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public int loadFromMemoryMappedFile(CorpusState corpus) throws IOException
+    {
+        PDDocument document = PDDocument.load(corpus.file,
+                MemoryUsageSetting.setupMainMemoryOnly().setUseMemoryMappedInput(true));
+        try
+        {
+            return document.getNumberOfPages();
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public int loadFromStreamTempFile(CorpusState corpus) throws IOException
+    {
+        PDDocument document = PDDocument.load(new ByteArrayInputStream(corpus.bytes),
+                MemoryUsageSetting.setupTempFileOnly());
+        try
+        {
+            return document.getNumberOfPages();
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public void loadAndTouchPages(CorpusState corpus, Blackhole blackhole) throws IOException
+    {
+        PDDocument document = PDDocument.load(corpus.bytes);
+        try
+        {
+            for (PDPage page : document.getPages())
+            {
+                blackhole.consume(page.getResources());
+                InputStream contents = page.getContents();
+                try
+                {
+                    blackhole.consume(contents);
+                }
+                finally
+                {
+                    if (contents != null)
+                    {
+                        contents.close();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link PDFRenderer#renderImageWithDPI(int, float, ImageType)}. Every invocation
+ * renders the next page of the document, so the result is the average time per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RenderBenchmark
+{
+    /**
+     * One loaded document and its renderer, shared by all invocations of a trial.
+     */
+    @State(Scope.Thread)
+    public static class RendererState
+    {
+        @Param({ "72", "300" })
+        public float dpi;
+
+        PDDocument document;
+        PDFRenderer renderer;
+        int pageIndex;
+
+        @Setup(Level.Trial)
+        public void load(CorpusState corpus) throws IOException
+        {
+            document = PDDocument.load(corpus.bytes);
+            renderer = new PDFRenderer(document);
+        }
+
+        int nextPage()
+        {
+            int index = pageIndex;
+            pageIndex = (pageIndex + 1) % document.getNumberOfPages();
+            return index;
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage renderPage(RendererState state) throws IOException
+    {
+        return state.renderer.renderImageWithDPI(state.nextPage(), state.dpi, ImageType.RGB);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdfwriter.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a full save through {@link COSWriter#write(PDDocument)}. The document is loaded again
+ * before every invocation, because saving changes the state of the COS objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SaveBenchmark
+{
+    /**
+     * A freshly loaded document for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class DocumentState
+    {
+        PDDocument document;
+
+        @Setup(Level.Invocation)
+        public void load(CorpusState corpus) throws IOException
+        {
+            document = PDDocument.load(corpus.bytes);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException
+        {
+            document.close();
+        }
+    }
+
+    @Benchmark
+    public int save(DocumentState state) throws IOException
+    {
+        return save(state.document, CompressParameters.NO_COMPRESSION);
+    }
+
+    /**
+     * Saves with object streams and an xref stream; the returned size shows the savings.
+     */
+    @Benchmark
+    public int saveCompressed(DocumentState state) throws IOException
+    {
+        return save(state.document, CompressParameters.DEFAULT_COMPRESSION);
+    }
+
+    private static int save(PDDocument document, CompressParameters compressParameters)
+            throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        COSWriter writer = new COSWriter(baos, compressParameters);
+        try
+        {
+            writer.write(document);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return baos.size();
+    }
+}
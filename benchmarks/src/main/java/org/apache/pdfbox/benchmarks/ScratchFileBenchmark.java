@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.OffHeapPagePool;
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.ScratchFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures contention on a single {@link ScratchFile} shared by many threads, as it happens when
+ * the streams of one document are buffered while merging or rendering in parallel. Every
+ * invocation writes a buffer of a few pages, reads it back and releases its pages.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class ScratchFileBenchmark
+{
+    /**
+     * The scratch file shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedScratchFile
+    {
+        @Param({ "MAIN_MEMORY", "OFF_HEAP", "TEMP_FILE", "MIXED" })
+        public String mode;
+
+        ScratchFile scratchFile;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException
+        {
+            MemoryUsageSetting setting;
+            if ("MAIN_MEMORY".equals(mode))
+            {
+                setting = MemoryUsageSetting.setupMainMemoryOnly();
+            }
+            else if ("OFF_HEAP".equals(mode))
+            {
+                setting = MemoryUsageSetting.setupMainMemoryOnly().setOffHeapPagePool(
+                        new OffHeapPagePool(64 * 1024 * 1024));
+            }
+            else if ("TEMP_FILE".equals(mode))
+            {
+                setting = MemoryUsageSetting.setupTempFileOnly();
+            }
+            else
+            {
+                setting = MemoryUsageSetting.setupMixed(1024 * 1024);
+            }
+            scratchFile = new ScratchFile(setting);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException
+        {
+            scratchFile.close();
+        }
+    }
+
+    /**
+     * The data written by one thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadData
+    {
+        @Param({ "65536" })
+        public int bufferSize;
+
+        byte[] data;
+        byte[] readBuffer;
+
+        @Setup(Level.Trial)
+        public void create()
+        {
+            data = new byte[bufferSize];
+            for (int i = 0; i < data.length; i++)
+            {
+                data[i] = (byte) i;
+            }
+            readBuffer = new byte[bufferSize];
+        }
+    }
+
+    @Benchmark
+    public int writeAndRead(SharedScratchFile shared, ThreadData threadData) throws IOException
+    {
+        RandomAccess buffer = shared.scratchFile.createBuffer();
+        try
+        {
+            buffer.write(threadData.data);
+            buffer.seek(0);
+            int total = 0;
+            int count;
+            while ((count = buffer.read(threadData.readBuffer, total,
+                    threadData.readBuffer.length - total)) > 0)
+            {
+                total += count;
+            }
+            return total;
+        }
+        finally
+        {
+            buffer.close();
+        }
+    }
+}
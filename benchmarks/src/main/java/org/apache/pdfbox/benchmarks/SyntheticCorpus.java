@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+/**
+ * Generates the synthetic PDF documents the benchmarks run against. All documents are created
+ * with a fixed random seed so that every run works on exactly the same bytes.
+ */
+public final class SyntheticCorpus
+{
+    /**
+     * The kinds of documents in the corpus.
+     */
+    public enum Kind
+    {
+        /** Many pages with a moderate amount of text and vector graphics. */
+        PAGES,
+        /** Few pages, each one using many different embedded fonts. */
+        FONTS,
+        /** Few pages, each one painting a big lossless image. */
+        IMAGES,
+        /** Many pages organized in a deep, narrow page tree instead of a flat one. */
+        DEEP_TREE
+    }
+
+    private static final String FONT_RESOURCE =
+            "org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf";
+
+    private static final String[] WORDS = { "lorem", "ipsum", "dolor", "sit", "amet",
+        "consectetur", "adipiscing", "elit", "sed", "do", "eiusmod", "tempor", "incididunt",
+        "ut", "labore", "et", "dolore", "magna", "aliqua", "PDFBox", "0123456789" };
+
+    private static final long SEED = 0x5EEDL;
+
+    private SyntheticCorpus()
+    {
+    }
+
+    /**
+     * Creates a document of the given kind and returns its serialized bytes.
+     *
+     * @param kind the kind of document
+     * @param pageCount the number of pages
+     * @return the PDF file as a byte array
+     * @throws IOException if the document could not be created
+     */
+    public static byte[] create(Kind kind, int pageCount) throws IOException
+    {
+        PDDocument document = new PDDocument();
+        try
+        {
+            Random random = new Random(SEED);
+            switch (kind)
+            {
+                case PAGES:
+                    addTextPages(document, random, pageCount, 1);
+                    break;
+                case FONTS:
+                    addTextPages(document, random, pageCount, 24);
+                    break;
+                case IMAGES:
+                    addImagePages(document, random, pageCount);
+                    break;
+                case DEEP_TREE:
+                    addTextPages(document, random, pageCount, 1);
+                    deepenPageTree(document, 2);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown corpus kind: " + kind);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    /**
+     * Creates deterministic pseudo random data, as found in scanned images, and encodes it with
+     * the PNG "Sub" predictor so that it has to be decoded with /Predictor 11 or higher.
+     *
+     * @param columns the number of pixels in a row
+     * @param rows the number of rows
+     * @param colors the number of 8 bit color components per pixel
+     * @return the predicted data, not yet compressed
+     */
+    public static byte[] createPredictedRaster(int columns, int rows, int colors)
+    {
+        Random random = new Random(SEED);
+        int rowLength = columns * colors;
+        byte[] line = new byte[rowLength];
+        byte[] result = new byte[(rowLength + 1) * rows];
+        int pos = 0;
+        for (int y = 0; y < rows; y++)
+        {
+            // smooth gradient with some noise, like a scanned page
+            for (int x = 0; x < rowLength; x++)
+            {
+                line[x] = (byte) ((x + y) / 4 + random.nextInt(8));
+            }
+            result[pos++] = 1; // PNG "Sub"
+            for (int x = 0; x < rowLength; x++)
+            {
+                int left = x >= colors ? line[x - colors] : 0;
+                result[pos++] = (byte) (line[x] - left);
+            }
+        }
+        return result;
+    }
+
+    private static void addTextPages(PDDocument document, Random random, int pageCount,
+                                     int fontCount) throws IOException
+    {
+        List<PDFont> fonts = loadFonts(document, fontCount);
+        for (int i = 0; i < pageCount; i++)
+        {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(document, page);
+            try
+            {
+                drawGrid(contents, page.getMediaBox());
+                contents.beginText();
+                contents.newLineAtOffset(50, 780);
+                contents.setLeading(14);
+                for (int line = 0; line < 50; line++)
+                {
+                    contents.setFont(fonts.get(line % fonts.size()), 10 + line % 3);
+                    contents.showText(randomSentence(random, 12));
+                    contents.newLine();
+                }
+                contents.endText();
+            }
+            finally
+            {
+                contents.close();
+            }
+        }
+    }
+
+    private static void drawGrid(PDPageContentStream contents, PDRectangle box)
+            throws IOException
+    {
+        contents.setLineWidth(0.25f);
+        for (float x = 40; x < box.getWidth() - 40; x += 20)
+        {
+            contents.moveTo(x, 40);
+            contents.lineTo(x, box.getHeight() - 40);
+        }
+        for (float y = 40; y < box.getHeight() - 40; y += 20)
+        {
+            contents.moveTo(40, y);
+            contents.lineTo(box.getWidth() - 40, y);
+        }
+        contents.stroke();
+    }
+
+    private static void addImagePages(PDDocument document, Random random, int pageCount)
+            throws IOException
+    {
+        for (int i = 0; i < pageCount; i++)
+        {
+            // a letter page scanned at 150 dpi
+            BufferedImage bim = new BufferedImage(1275, 1650, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < bim.getHeight(); y++)
+            {
+                for (int x = 0; x < bim.getWidth(); x++)
+                {
+                    int noise = random.nextInt(16);
+                    int r = (x / 5 + noise) & 0xFF;
+                    int g = (y / 7 + noise) & 0xFF;
+                    int b = ((x + y) / 11 + noise) & 0xFF;
+                    bim.setRGB(x, y, (r << 16) | (g << 8) | b);
+                }
+            }
+            PDImageXObject image = LosslessFactory.createFromImage(document, bim);
+
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(document, page);
+            try
+            {
+                PDRectangle box = page.getMediaBox();
+                contents.drawImage(image, 0, 0, box.getWidth(), box.getHeight());
+            }
+            finally
+            {
+                contents.close();
+            }
+        }
+    }
+
+    /**
+     * Loads the same TrueType font several times, which results in distinct embedded font
+     * programs that all have to be parsed separately, like in documents merged from many sources.
+     */
+    private static List<PDFont> loadFonts(PDDocument document, int count) throws IOException
+    {
+        List<PDFont> fonts = new ArrayList<PDFont>(count);
+        for (int i = 0; i < count; i++)
+        {
+            InputStream is = PDDocument.class.getClassLoader().getResourceAsStream(FONT_RESOURCE);
+            if (is == null)
+            {
+                throw new IOException("Error loading resource: " + FONT_RESOURCE);
+            }
+            try
+            {
+                fonts.add(PDType0Font.load(document, is));
+            }
+            finally
+            {
+                IOUtils.closeQuietly(is);
+            }
+        }
+        return fonts;
+    }
+
+    private static String randomSentence(Random random, int wordCount)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < wordCount; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Replaces the flat page tree created by {@link PDDocument#addPage(PDPage)} with a balanced
+     * tree where each intermediate node has the given number of kids.
+     */
+    private static void deepenPageTree(PDDocument document, int fanOut)
+    {
+        COSDictionary root = document.getPages().getCOSObject();
+        COSArray kids = (COSArray) root.getDictionaryObject(COSName.KIDS);
+        List<COSDictionary> level = new ArrayList<COSDictionary>();
+        for (int i = 0; i < kids.size(); i++)
+        {
+            level.add((COSDictionary) kids.getObject(i));
+        }
+        while (level.size() > fanOut)
+        {
+            List<COSDictionary> parents = new ArrayList<COSDictionary>();
+            for (int i = 0; i < level.size(); i += fanOut)
+            {
+                COSDictionary node = new COSDictionary();
+                node.setItem(COSName.TYPE, COSName.PAGES);
+                COSArray nodeKids = new COSArray();
+                int count = 0;
+                for (int j = i; j < Math.min(i + fanOut, level.size()); j++)
+                {
+                    COSDictionary kid = level.get(j);
+                    kid.setItem(COSName.PARENT, node);
+                    nodeKids.add(kid);
+                    count += COSName.PAGES.equals(kid.getCOSName(COSName.TYPE)) ?
+                            kid.getInt(COSName.COUNT) : 1;
+                }
+                node.setItem(COSName.KIDS, nodeKids);
+                node.setInt(COSName.COUNT, count);
+                parents.add(node);
+            }
+            level = parents;
+        }
+        COSArray rootKids = new COSArray();
+        for (COSDictionary kid : level)
+        {
+            kid.setItem(COSName.PARENT, root);
+            rootKids.add(kid);
+        }
+        root.setItem(COSName.KIDS, rootKids);
+    }
+}
@@ -22,20 +22,20 @@ import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.contentstream.operator.state.EmptyGraphicsStackException;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
-import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSString;
 import org.apache.pdfbox.filter.MissingImageReaderException;
 import org.apache.pdfbox.pdfparser.PDFStreamParser;
@@ -72,6 +72,10 @@ public abstract class PDFStreamEngine
 {
     private static final Log LOG = LogFactory.getLog(PDFStreamEngine.class);
 
+    // engine classes which override processOperator(Operator, List)
+    private static final Map<Class<?>, Boolean> LIST_DISPATCH_CLASSES =
+            new ConcurrentHashMap<Class<?>, Boolean>();
+
     private final Map<String, OperatorProcessor> operators = new HashMap<String, OperatorProcessor>(80);
 
     private Matrix textMatrix;
@@ -458,26 +462,51 @@ public abstract class PDFStreamEngine
      */
     private void processStreamOperators(PDContentStream contentStream) throws IOException
     {
-        List<COSBase> arguments = new ArrayList<COSBase>();
+        // subclasses which override the List based method must see every operator there
+        boolean listDispatch = overridesListDispatch(getClass());
+        OperandStack operands = new OperandStack();
         PDFStreamParser parser = new PDFStreamParser(contentStream);
-        Object token = parser.parseNextToken();
-        while (token != null)
+        Operator operator = parser.parseNextOperator(operands);
+        while (operator != null)
         {
-            if (token instanceof COSObject)
+            if (listDispatch)
             {
-                arguments.add(((COSObject) token).getObject());
+                processOperator(operator, operands.asList());
             }
-            else if (token instanceof Operator)
+            else
             {
-                processOperator((Operator) token, arguments);
-                arguments = new ArrayList<COSBase>();
+                processOperator(operator, operands);
             }
-            else
+            operands.clear();
+            operator = parser.parseNextOperator(operands);
+        }
+    }
+
+    /**
+     * Returns true if the given engine class overrides {@link #processOperator(Operator, List)}.
+     */
+    private static boolean overridesListDispatch(Class<?> engineClass)
+    {
+        Boolean overrides = LIST_DISPATCH_CLASSES.get(engineClass);
+        if (overrides == null)
+        {
+            overrides = Boolean.FALSE;
+            for (Class<?> c = engineClass; c != PDFStreamEngine.class; c = c.getSuperclass())
             {
-                arguments.add((COSBase) token);
+                try
+                {
+                    c.getDeclaredMethod("processOperator", Operator.class, List.class);
+                    overrides = Boolean.TRUE;
+                    break;
+                }
+                catch (NoSuchMethodException e)
+                {
+                    // not declared in this class
+                }
             }
-            token = parser.parseNextToken();
+            LIST_DISPATCH_CLASSES.put(engineClass, overrides);
         }
+        return overrides;
     }
 
     /**
@@ -825,6 +854,36 @@ public abstract class PDFStreamEngine
         }
     }
 
+    /**
+     * This is used to handle an operation with the operands as read by the parser. The operands
+     * are only converted to COS objects if the operator processor needs them.
+     *
+     * @param operator The operation to perform.
+     * @param operands The operands, only valid during this call.
+     * @throws IOException If there is an error processing the operation.
+     */
+    protected void processOperator(Operator operator, OperandStack operands) throws IOException
+    {
+        String name = operator.getName();
+        OperatorProcessor processor = operators.get(name);
+        if (processor != null)
+        {
+            processor.setContext(this);
+            try
+            {
+                processor.process(operator, operands);
+            }
+            catch (IOException e)
+            {
+                operatorException(operator, operands.asList(), e);
+            }
+        }
+        else
+        {
+            unsupportedOperator(operator, operands.asList());
+        }
+    }
+
     /**
      * Called when an unsupported operator is encountered.
      *
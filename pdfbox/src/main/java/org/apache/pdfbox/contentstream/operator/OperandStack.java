@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.contentstream.operator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+
+/**
+ * The operands of a content stream operator. Numbers are kept in primitive slots and names are
+ * interned by the parser, so that the operands of the most frequent operators, e.g. the path
+ * construction operators, don't cost any allocation. Other operands are held as COS objects.
+ *
+ * <p>The stack is reused for all operators of a content stream, so its contents are only valid
+ * while an operator is being processed. {@link #asList()} creates COS objects for the operands,
+ * for the {@code List<COSBase>} based API.
+ */
+public final class OperandStack
+{
+    private static final byte INTEGER = 0;
+    private static final byte REAL = 1;
+    private static final byte OBJECT = 2;
+
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    static
+    {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+        {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private int size;
+    private byte[] types = new byte[16];
+    private float[] floats = new float[16];
+    private long[] longs = new long[16];
+    private int[] scales = new int[16];
+    // operands which are objects, or numbers which have been converted to COS objects
+    private COSBase[] objects = new COSBase[16];
+
+    /**
+     * Returns the number of operands.
+     *
+     * @return the number of operands
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Removes all operands.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            objects[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds an integer operand.
+     *
+     * @param value the value
+     */
+    public void pushInteger(long value)
+    {
+        int i = grow();
+        types[i] = INTEGER;
+        longs[i] = value;
+        floats[i] = value;
+    }
+
+    /**
+     * Adds a real operand, given as an unscaled value and a scale like {@link BigDecimal}, e.g.
+     * 12.50 is 1250 with a scale of 2.
+     *
+     * @param unscaledValue the unscaled value
+     * @param scale the number of fraction digits, 0 to 18
+     * @throws IllegalArgumentException if the scale is out of range
+     */
+    public void pushReal(long unscaledValue, int scale)
+    {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length)
+        {
+            throw new IllegalArgumentException("Scale out of range: " + scale);
+        }
+        int i = grow();
+        types[i] = REAL;
+        longs[i] = unscaledValue;
+        scales[i] = scale;
+        floats[i] = (float) (unscaledValue / POWERS_OF_TEN[scale]);
+    }
+
+    /**
+     * Adds an operand which is a COS object, e.g. a name, a string or an array.
+     *
+     * @param object the operand, may be null
+     */
+    public void push(COSBase object)
+    {
+        int i = grow();
+        types[i] = OBJECT;
+        objects[i] = object;
+    }
+
+    private int grow()
+    {
+        if (size == types.length)
+        {
+            int capacity = size * 2;
+            byte[] newTypes = new byte[capacity];
+            System.arraycopy(types, 0, newTypes, 0, size);
+            types = newTypes;
+            float[] newFloats = new float[capacity];
+            System.arraycopy(floats, 0, newFloats, 0, size);
+            floats = newFloats;
+            long[] newLongs = new long[capacity];
+            System.arraycopy(longs, 0, newLongs, 0, size);
+            longs = newLongs;
+            int[] newScales = new int[capacity];
+            System.arraycopy(scales, 0, newScales, 0, size);
+            scales = newScales;
+            COSBase[] newObjects = new COSBase[capacity];
+            System.arraycopy(objects, 0, newObjects, 0, size);
+            objects = newObjects;
+        }
+        return size++;
+    }
+
+    /**
+     * Indicates whether the operand at the given index is a number.
+     *
+     * @param index the index of the operand
+     * @return true if the operand is an integer or a real number
+     */
+    public boolean isNumber(int index)
+    {
+        checkIndex(index);
+        return types[index] != OBJECT || objects[index] instanceof COSNumber;
+    }
+
+    /**
+     * Indicates whether all operands from the given index on are numbers.
+     *
+     * @param from the index of the first operand to check
+     * @param count the number of operands to check
+     * @return true if all of these operands are numbers
+     */
+    public boolean areNumbers(int from, int count)
+    {
+        for (int i = from; i < from + count; i++)
+        {
+            if (!isNumber(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of a number operand as a float.
+     *
+     * @param index the index of the operand
+     * @return the value
+     * @throws ClassCastException if the operand is not a number
+     */
+    public float getFloat(int index)
+    {
+        checkIndex(index);
+        if (types[index] != OBJECT)
+        {
+            return floats[index];
+        }
+        return ((COSNumber) objects[index]).floatValue();
+    }
+
+    /**
+     * Returns the value of a number operand as an int, real numbers are truncated.
+     *
+     * @param index the index of the operand
+     * @return the value
+     * @throws ClassCastException if the operand is not a number
+     */
+    public int getInt(int index)
+    {
+        checkIndex(index);
+        switch (types[index])
+        {
+            case INTEGER:
+                return (int) longs[index];
+            case REAL:
+                return (int) floats[index];
+            default:
+                return ((COSNumber) objects[index]).intValue();
+        }
+    }
+
+    /**
+     * Returns a name operand.
+     *
+     * @param index the index of the operand
+     * @return the name, or null if the operand is not a name
+     */
+    public COSName getName(int index)
+    {
+        checkIndex(index);
+        if (types[index] == OBJECT && objects[index] instanceof COSName)
+        {
+            return (COSName) objects[index];
+        }
+        return null;
+    }
+
+    /**
+     * Returns an operand as a COS object. Numbers are converted once, further calls return the
+     * same object.
+     *
+     * @param index the index of the operand
+     * @return the operand, may be null
+     * @throws IOException if a number can't be converted
+     */
+    public COSBase get(int index) throws IOException
+    {
+        checkIndex(index);
+        COSBase object = objects[index];
+        if (object == null && types[index] != OBJECT)
+        {
+            if (types[index] == INTEGER)
+            {
+                object = COSInteger.get(longs[index]);
+            }
+            else
+            {
+                object = new COSFloat(toPlainString(longs[index], scales[index]));
+            }
+            objects[index] = object;
+        }
+        return object;
+    }
+
+    /**
+     * Returns the operands as a list of COS objects, as expected by
+     * {@link OperatorProcessor#process(Operator, List)}. The list is a copy, except that an empty
+     * stack returns an immutable empty list.
+     *
+     * @return the operands
+     * @throws IOException if a number can't be converted
+     */
+    public List<COSBase> asList() throws IOException
+    {
+        if (size == 0)
+        {
+            return Collections.emptyList();
+        }
+        List<COSBase> list = new ArrayList<COSBase>(size);
+        for (int i = 0; i < size; i++)
+        {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Formats a real number given as unscaled value and scale, like BigDecimal.toPlainString().
+     */
+    private static String toPlainString(long unscaledValue, int scale)
+    {
+        String digits = Long.toString(Math.abs(unscaledValue));
+        StringBuilder sb = new StringBuilder(digits.length() + scale + 3);
+        if (unscaledValue < 0)
+        {
+            sb.append('-');
+        }
+        int integerDigits = digits.length() - scale;
+        if (integerDigits > 0)
+        {
+            sb.append(digits, 0, integerDigits).append('.').append(digits, integerDigits,
+                    digits.length());
+        }
+        else
+        {
+            sb.append("0.");
+            for (int i = integerDigits; i < 0; i++)
+            {
+                sb.append('0');
+            }
+            sb.append(digits);
+        }
+        return sb.toString();
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("OperandStack[");
+        for (int i = 0; i < size; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            switch (types[i])
+            {
+                case INTEGER:
+                    sb.append(longs[i]);
+                    break;
+                case REAL:
+                    sb.append(toPlainString(longs[i], scales[i]));
+                    break;
+                default:
+                    sb.append(objects[i]);
+                    break;
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -64,6 +64,20 @@ public abstract class OperatorProcessor
      */
     public abstract void process(Operator operator, List<COSBase> operands) throws IOException;
 
+    /**
+     * Process the operator with the operands as read by the content stream parser. The default
+     * implementation converts the operands to COS objects and calls
+     * {@link #process(Operator, List)}, frequently used operators override it to avoid this.
+     *
+     * @param operator the operator to process
+     * @param operands the operands to use when processing, only valid during this call
+     * @throws IOException if the operator cannot be processed
+     */
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        process(operator, operands.asList());
+    }
+
     /**
      * Returns the name of this operator, e.g. "BI".
      */
@@ -20,6 +20,7 @@ import java.awt.geom.Point2D;
 import java.io.IOException;
 import java.util.List;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
@@ -47,13 +48,29 @@ public final class AppendRectangleToPath extends GraphicsOperatorProcessor
         COSNumber y = (COSNumber) operands.get(1);
         COSNumber w = (COSNumber) operands.get(2);
         COSNumber h = (COSNumber) operands.get(3);
+        appendRectangle(x.floatValue(), y.floatValue(), w.floatValue(), h.floatValue());
+    }
 
-        float x1 = x.floatValue();
-        float y1 = y.floatValue();
+    @Override
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        if (operands.size() < 4)
+        {
+            throw new MissingOperandException(operator, operands.asList());
+        }
+        if (!operands.areNumbers(0, operands.size()))
+        {
+            return;
+        }
+        appendRectangle(operands.getFloat(0), operands.getFloat(1),
+                operands.getFloat(2), operands.getFloat(3));
+    }
 
+    private void appendRectangle(float x1, float y1, float w, float h) throws IOException
+    {
         // create a pair of coordinates for the transformation
-        float x2 = w.floatValue() + x1;
-        float y2 = h.floatValue() + y1;
+        float x2 = w + x1;
+        float y2 = h + y1;
 
         Point2D p0 = context.transformedPoint(x1, y1);
         Point2D p1 = context.transformedPoint(x2, y1);
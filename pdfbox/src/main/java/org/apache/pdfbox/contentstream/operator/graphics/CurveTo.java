@@ -22,6 +22,7 @@ import java.awt.geom.Point2D;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
@@ -53,10 +54,37 @@ public class CurveTo extends GraphicsOperatorProcessor
         COSNumber y2 = (COSNumber)operands.get(3);
         COSNumber x3 = (COSNumber)operands.get(4);
         COSNumber y3 = (COSNumber)operands.get(5);
+        curveTo(x1.floatValue(), y1.floatValue(), x2.floatValue(), y2.floatValue(),
+                x3.floatValue(), y3.floatValue());
+    }
 
-        Point2D.Float point1 = context.transformedPoint(x1.floatValue(), y1.floatValue());
-        Point2D.Float point2 = context.transformedPoint(x2.floatValue(), y2.floatValue());
-        Point2D.Float point3 = context.transformedPoint(x3.floatValue(), y3.floatValue());
+    @Override
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        if (getClass() != CurveTo.class)
+        {
+            // subclasses may override the List based method
+            process(operator, operands.asList());
+            return;
+        }
+        if (operands.size() < 6)
+        {
+            throw new MissingOperandException(operator, operands.asList());
+        }
+        if (!operands.areNumbers(0, operands.size()))
+        {
+            return;
+        }
+        curveTo(operands.getFloat(0), operands.getFloat(1), operands.getFloat(2),
+                operands.getFloat(3), operands.getFloat(4), operands.getFloat(5));
+    }
+
+    private void curveTo(float x1, float y1, float x2, float y2, float x3, float y3)
+            throws IOException
+    {
+        Point2D.Float point1 = context.transformedPoint(x1, y1);
+        Point2D.Float point2 = context.transformedPoint(x2, y2);
+        Point2D.Float point3 = context.transformedPoint(x3, y3);
 
         if (context.getCurrentPoint() == null)
         {
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.List;
 import java.awt.geom.Point2D;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
@@ -47,9 +48,28 @@ public final class CurveToReplicateFinalPoint extends GraphicsOperatorProcessor
         COSNumber y1 = (COSNumber)operands.get(1);
         COSNumber x3 = (COSNumber)operands.get(2);
         COSNumber y3 = (COSNumber)operands.get(3);
+        curveTo(x1.floatValue(), y1.floatValue(), x3.floatValue(), y3.floatValue());
+    }
+
+    @Override
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        if (operands.size() < 4)
+        {
+            throw new MissingOperandException(operator, operands.asList());
+        }
+        if (!operands.areNumbers(0, operands.size()))
+        {
+            return;
+        }
+        curveTo(operands.getFloat(0), operands.getFloat(1),
+                operands.getFloat(2), operands.getFloat(3));
+    }
 
-        Point2D.Float point1 = context.transformedPoint(x1.floatValue(), y1.floatValue());
-        Point2D.Float point3 = context.transformedPoint(x3.floatValue(), y3.floatValue());
+    private void curveTo(float x1, float y1, float x3, float y3) throws IOException
+    {
+        Point2D.Float point1 = context.transformedPoint(x1, y1);
+        Point2D.Float point3 = context.transformedPoint(x3, y3);
 
         context.curveTo(point1.x, point1.y,
                         point3.x, point3.y,
@@ -23,6 +23,7 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
@@ -51,11 +52,36 @@ public class CurveToReplicateInitialPoint extends GraphicsOperatorProcessor
         COSNumber y2 = (COSNumber)operands.get(1);
         COSNumber x3 = (COSNumber)operands.get(2);
         COSNumber y3 = (COSNumber)operands.get(3);
+        curveTo(x2.floatValue(), y2.floatValue(), x3.floatValue(), y3.floatValue());
+    }
 
+    @Override
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        if (getClass() != CurveToReplicateInitialPoint.class)
+        {
+            // subclasses may override the List based method
+            process(operator, operands.asList());
+            return;
+        }
+        if (operands.size() < 4)
+        {
+            throw new MissingOperandException(operator, operands.asList());
+        }
+        if (!operands.areNumbers(0, operands.size()))
+        {
+            return;
+        }
+        curveTo(operands.getFloat(0), operands.getFloat(1),
+                operands.getFloat(2), operands.getFloat(3));
+    }
+
+    private void curveTo(float x2, float y2, float x3, float y3) throws IOException
+    {
         Point2D currentPoint = context.getCurrentPoint();
 
-        Point2D.Float point2 = context.transformedPoint(x2.floatValue(), y2.floatValue());
-        Point2D.Float point3 = context.transformedPoint(x3.floatValue(), y3.floatValue());
+        Point2D.Float point2 = context.transformedPoint(x2, y2);
+        Point2D.Float point3 = context.transformedPoint(x3, y3);
 
         if (currentPoint == null)
         {
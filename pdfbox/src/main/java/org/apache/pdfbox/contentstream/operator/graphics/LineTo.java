@@ -23,6 +23,7 @@ import java.awt.geom.Point2D;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
@@ -56,8 +57,32 @@ public class LineTo extends GraphicsOperatorProcessor
         // append straight line segment from the current point to the point
         COSNumber x = (COSNumber) base0;
         COSNumber y = (COSNumber) base1;
+        lineTo(x.floatValue(), y.floatValue());
+    }
 
-        Point2D.Float pos = context.transformedPoint(x.floatValue(), y.floatValue());
+    @Override
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        if (getClass() != LineTo.class)
+        {
+            // subclasses may override the List based method
+            process(operator, operands.asList());
+            return;
+        }
+        if (operands.size() < 2)
+        {
+            throw new MissingOperandException(operator, operands.asList());
+        }
+        if (!operands.isNumber(0) || !operands.isNumber(1))
+        {
+            return;
+        }
+        lineTo(operands.getFloat(0), operands.getFloat(1));
+    }
+
+    private void lineTo(float x, float y) throws IOException
+    {
+        Point2D.Float pos = context.transformedPoint(x, y);
 
         if (context.getCurrentPoint() == null)
         {
@@ -20,6 +20,7 @@ import java.awt.geom.Point2D;
 import java.io.IOException;
 import java.util.List;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
@@ -51,7 +52,26 @@ public final class MoveTo extends GraphicsOperatorProcessor
         }
         COSNumber x = (COSNumber) base0;
         COSNumber y = (COSNumber) base1;
-        Point2D.Float pos = context.transformedPoint(x.floatValue(), y.floatValue());
+        moveTo(x.floatValue(), y.floatValue());
+    }
+
+    @Override
+    public void process(Operator operator, OperandStack operands) throws IOException
+    {
+        if (operands.size() < 2)
+        {
+            throw new MissingOperandException(operator, operands.asList());
+        }
+        if (!operands.isNumber(0) || !operands.isNumber(1))
+        {
+            return;
+        }
+        moveTo(operands.getFloat(0), operands.getFloat(1));
+    }
+
+    private void moveTo(float x, float y) throws IOException
+    {
+        Point2D.Float pos = context.transformedPoint(x, y);
         context.moveTo(pos.x, pos.y);
     }
 
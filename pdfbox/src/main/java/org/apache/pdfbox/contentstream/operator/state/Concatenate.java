@@ -19,6 +19,7 @@ package org.apache.pdfbox.contentstream.operator.state;
 import java.util.List;
 import java.io.IOException;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
@@ -59,6 +60,31 @@ public class Concatenate extends OperatorProcessor
         context.getGraphicsState().getCurrentTransformationMatrix().concatenate(matrix);
     }
 
+    @Override
+    public void process(Operator operator, OperandStack arguments) throws IOException
+    {
+        if (getClass() != Concatenate.class)
+        {
+            // subclasses may override the List based method
+            process(operator, arguments.asList());
+            return;
+        }
+        if (arguments.size() < 6)
+        {
+            throw new MissingOperandException(operator, arguments.asList());
+        }
+        if (!arguments.areNumbers(0, arguments.size()))
+        {
+            return;
+        }
+
+        Matrix matrix = new Matrix(arguments.getFloat(0), arguments.getFloat(1),
+                arguments.getFloat(2), arguments.getFloat(3),
+                arguments.getFloat(4), arguments.getFloat(5));
+
+        context.getGraphicsState().getCurrentTransformationMatrix().concatenate(matrix);
+    }
+
     @Override
     public String getName()
     {
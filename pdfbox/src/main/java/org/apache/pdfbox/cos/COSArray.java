@@ -34,6 +34,9 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     private final List<COSBase> objects = new ArrayList<COSBase>();
     private boolean needToBeUpdated;
 
+    // set by every change, see COSObject#markAsParsed()
+    private boolean modified;
+
     /**
      * Constructor.
      */
@@ -50,6 +53,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void add( COSBase object )
     {
         objects.add( object );
+        modified = true;
     }
 
     /**
@@ -60,6 +64,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void add( COSObjectable object )
     {
         objects.add( object.getCOSObject() );
+        modified = true;
     }
 
     /**
@@ -72,6 +77,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void add( int i, COSBase object)
     {
         objects.add( i, object );
+        modified = true;
     }
 
     /**
@@ -80,6 +86,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void clear()
     {
         objects.clear();
+        modified = true;
     }
 
     /**
@@ -90,6 +97,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void removeAll( Collection<COSBase> objectsList )
     {
         objects.removeAll( objectsList );
+        modified = true;
     }
 
     /**
@@ -100,6 +108,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void retainAll( Collection<COSBase> objectsList )
     {
         objects.retainAll( objectsList );
+        modified = true;
     }
 
     /**
@@ -110,6 +119,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void addAll( Collection<COSBase> objectsList )
     {
         objects.addAll( objectsList );
+        modified = true;
     }
 
     /**
@@ -122,6 +132,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
         if( objectList != null )
         {
             objects.addAll( objectList.objects );
+            modified = true;
         }
     }
 
@@ -135,6 +146,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void addAll( int i, Collection<COSBase> objectList )
     {
         objects.addAll( i, objectList );
+        modified = true;
     }
 
     /**
@@ -146,6 +158,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void set( int index, COSBase object )
     {
         objects.set( index, object );
+        modified = true;
     }
 
     /**
@@ -157,6 +170,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     public void set( int index, int intVal )
     {
         objects.set( index, COSInteger.get(intVal) );
+        modified = true;
     }
 
     /**
@@ -173,6 +187,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
             base = object.getCOSObject();
         }
         objects.set( index, base );
+        modified = true;
     }
 
     /**
@@ -363,6 +378,7 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
      */
     public COSBase remove( int i )
     {
+        modified = true;
         return objects.remove( i );
     }
 
@@ -376,7 +392,9 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
      */
     public boolean remove( COSBase o )
     {
-        return objects.remove( o );
+        boolean removed = objects.remove( o );
+        modified |= removed;
+        return removed;
     }
 
     /**
@@ -425,7 +443,28 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     @Override
     public Iterator<COSBase> iterator()
     {
-        return objects.iterator();
+        final Iterator<COSBase> iterator = objects.iterator();
+        return new Iterator<COSBase>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public COSBase next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                iterator.remove();
+                modified = true;
+            }
+        };
     }
 
     /**
@@ -527,6 +566,20 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
       needToBeUpdated = flag;
     }
 
+    /**
+     * Returns true if this array has been changed since {@link #setModified(boolean)} was last
+     * called with false.
+     */
+    boolean isModified()
+    {
+        return modified;
+    }
+
+    void setModified(boolean modified)
+    {
+        this.modified = modified;
+    }
+
     /**
      * This will take an COSArray of numbers and convert it to a float[].
      *
@@ -557,7 +610,8 @@ public class COSArray extends COSBase implements Iterable<COSBase>, COSUpdateInf
     }
 
     /**
-     *  Return contents of COSArray as a Java List.
+     *  Return contents of COSArray as a Java List. The list is a copy, changes to it don't change
+     *  this array, use the methods of this class for that.
      *
      *  @return the COSArray as List
      */
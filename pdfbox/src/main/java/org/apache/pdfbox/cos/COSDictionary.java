@@ -18,10 +18,13 @@ package org.apache.pdfbox.cos;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +46,9 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
     private static final String PATH_SEPARATOR = "/";
     private boolean needToBeUpdated;
 
+    // set by every change, see COSObject#markAsParsed()
+    private boolean modified;
+
     /**
      * The name-value pairs of this dictionary. The pairs are kept in the order they were added to the dictionary.
      */
@@ -179,6 +185,7 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
     public void clear()
     {
         items.clear();
+        modified = true;
     }
 
     /**
@@ -272,6 +279,7 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
         else
         {
             items.put(key, value);
+            modified = true;
         }
     }
 
@@ -1311,6 +1319,7 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
     public void removeItem(COSName key)
     {
         items.remove(key);
+        modified = true;
     }
 
     /**
@@ -1346,7 +1355,7 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
      */
     public Set<COSName> keySet()
     {
-        return items.keySet();
+        return new ItemSet<COSName>(items.keySet());
     }
 
     /**
@@ -1358,7 +1367,21 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
      */
     public Set<Map.Entry<COSName, COSBase>> entrySet()
     {
-        return items.entrySet();
+        return new ItemSet<Map.Entry<COSName, COSBase>>(items.entrySet())
+        {
+            @Override
+            public Iterator<Map.Entry<COSName, COSBase>> iterator()
+            {
+                return new ItemIterator<Map.Entry<COSName, COSBase>>(items.entrySet().iterator())
+                {
+                    @Override
+                    public Map.Entry<COSName, COSBase> next()
+                    {
+                        return new ItemEntry(super.next());
+                    }
+                };
+            }
+        };
     }
 
     /**
@@ -1368,7 +1391,137 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
      */
     public Collection<COSBase> getValues()
     {
-        return items.values();
+        final Collection<COSBase> values = items.values();
+        return new AbstractCollection<COSBase>()
+        {
+            @Override
+            public Iterator<COSBase> iterator()
+            {
+                return new ItemIterator<COSBase>(values.iterator());
+            }
+
+            @Override
+            public int size()
+            {
+                return values.size();
+            }
+
+            @Override
+            public boolean contains(Object o)
+            {
+                return values.contains(o);
+            }
+        };
+    }
+
+    /**
+     * A view of the keys or entries of this dictionary. Changes through the view mark this
+     * dictionary as modified, see {@link #isModified()}.
+     */
+    private class ItemSet<E> extends AbstractSet<E>
+    {
+        private final Set<E> set;
+
+        ItemSet(Set<E> set)
+        {
+            this.set = set;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return new ItemIterator<E>(set.iterator());
+        }
+
+        @Override
+        public int size()
+        {
+            return set.size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return set.contains(o instanceof ItemEntry ? ((ItemEntry) o).entry : o);
+        }
+    }
+
+    private class ItemIterator<E> implements Iterator<E>
+    {
+        private final Iterator<E> iterator;
+
+        ItemIterator(Iterator<E> iterator)
+        {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next()
+        {
+            return iterator.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            iterator.remove();
+            modified = true;
+        }
+    }
+
+    private final class ItemEntry implements Map.Entry<COSName, COSBase>
+    {
+        private final Map.Entry<COSName, COSBase> entry;
+
+        ItemEntry(Map.Entry<COSName, COSBase> entry)
+        {
+            this.entry = entry;
+        }
+
+        @Override
+        public COSName getKey()
+        {
+            return entry.getKey();
+        }
+
+        @Override
+        public COSBase getValue()
+        {
+            return entry.getValue();
+        }
+
+        @Override
+        public COSBase setValue(COSBase value)
+        {
+            COSBase oldValue = entry.setValue(value);
+            modified = true;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof ItemEntry ? entry.equals(((ItemEntry) obj).entry) :
+                    entry.equals(obj);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return entry.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return entry.toString();
+        }
     }
 
     /**
@@ -1397,6 +1550,20 @@ public class COSDictionary extends COSBase implements COSUpdateInfo
       needToBeUpdated = flag;
     }
 
+    /**
+     * Returns true if this dictionary has been changed since {@link #setModified(boolean)} was
+     * last called with false.
+     */
+    boolean isModified()
+    {
+        return modified;
+    }
+
+    void setModified(boolean modified)
+    {
+        this.modified = modified;
+    }
+
     /**
      * This will add all of the dictionarys keys/values to this dictionary. Only called when adding keys to a trailer
      * that already exists.
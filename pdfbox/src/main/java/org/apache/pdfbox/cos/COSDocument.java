@@ -83,6 +83,11 @@ public class COSDocument extends COSBase implements Closeable
 
     private ScratchFile scratchFile;
 
+    /**
+     * The parser which parses objects on demand, null if all objects are parsed when loading.
+     */
+    private ICOSParser parser;
+
     /**
      * Constructor. Uses main memory to buffer PDF streams.
      */
@@ -135,6 +140,22 @@ public class COSDocument extends COSBase implements Closeable
         return stream;
     }
 
+    /**
+     * Sets the parser which parses the objects of this document on demand, for this and all
+     * objects which are added to the pool later. Not for public use. Only COSParser should call
+     * this method.
+     *
+     * @param parser the parser of this document
+     */
+    public void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
+        for (COSObject object : getObjects())
+        {
+            object.setParser(parser);
+        }
+    }
+
     /**
      * This will get the first dictionary object by type.
      *
@@ -145,7 +166,8 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject getObjectByType(COSName type) throws IOException
     {
-        for( COSObject object : objectPool.values() )
+        // iterate over a copy, objects which are parsed on demand may add to the pool
+        for( COSObject object : getObjects() )
         {
             COSBase realObject = object.getObject();
             if( realObject instanceof COSDictionary )
@@ -200,7 +222,7 @@ public class COSDocument extends COSBase implements Closeable
     public List<COSObject> getObjectsByType( COSName type ) throws IOException
     {
         List<COSObject> retval = new ArrayList<COSObject>();
-        for( COSObject object : objectPool.values() )
+        for( COSObject object : getObjects() )
         {
             COSBase realObject = object.getObject();
             if( realObject instanceof COSDictionary )
@@ -240,7 +262,12 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObjectKey getKey(COSBase object)
     {
-        for (Map.Entry<COSObjectKey, COSObject> entry : objectPool.entrySet())
+        Map<COSObjectKey, COSObject> objects;
+        synchronized (objectPool)
+        {
+            objects = new HashMap<COSObjectKey, COSObject>(objectPool);
+        }
+        for (Map.Entry<COSObjectKey, COSObject> entry : objects.entrySet())
         {
             if (entry.getValue().getObject() == object)
             {
@@ -255,7 +282,7 @@ public class COSDocument extends COSBase implements Closeable
      */
     public void print()
     {
-        for( COSObject object : objectPool.values() )
+        for( COSObject object : getObjects() )
         {
             System.out.println( object);
         }
@@ -382,7 +409,10 @@ public class COSDocument extends COSBase implements Closeable
      */
     public List<COSObject> getObjects()
     {
-        return new ArrayList<COSObject>(objectPool.values());
+        synchronized (objectPool)
+        {
+            return new ArrayList<COSObject>(objectPool.values());
+        }
     }
 
     /**
@@ -435,6 +465,11 @@ public class COSDocument extends COSBase implements Closeable
             {
                 for (COSObject object : list) 
                 {
+                    if (object.isObjectNull())
+                    {
+                        // not parsed, or dropped again, don't parse it just to close it
+                        continue;
+                    }
                     COSBase cosObject = object.getObject();
                     if (cosObject instanceof COSStream)
                     {
@@ -535,23 +570,27 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject getObjectFromPool(COSObjectKey key) throws IOException
     {
-        COSObject obj = null;
-        if( key != null )
-        {
-            obj = objectPool.get(key);
-        }
-        if (obj == null)
+        synchronized (objectPool)
         {
-            // this was a forward reference, make "proxy" object
-            obj = new COSObject(null);
+            COSObject obj = null;
             if( key != null )
             {
-                obj.setObjectNumber(key.getNumber());
-                obj.setGenerationNumber(key.getGeneration());
-                objectPool.put(key, obj);
+                obj = objectPool.get(key);
             }
+            if (obj == null)
+            {
+                // this was a forward reference, make "proxy" object
+                obj = new COSObject(null);
+                obj.setParser(parser);
+                if( key != null )
+                {
+                    obj.setObjectNumber(key.getNumber());
+                    obj.setGenerationNumber(key.getGeneration());
+                    objectPool.put(key, obj);
+                }
+            }
+            return obj;
         }
-        return obj;
     }
 
     /**
@@ -561,7 +600,10 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject removeObject(COSObjectKey key)
     {
-        return objectPool.remove(key);
+        synchronized (objectPool)
+        {
+            return objectPool.remove(key);
+        }
     }
 
     /**
@@ -28,7 +28,30 @@ import java.math.BigDecimal;
  */
 public class COSFloat extends COSNumber
 {
-    private BigDecimal value;
+    // mantissas below these limits and powers of ten are exact, so dividing them is exact as well
+    private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+    private static final float[] FLOAT_POWERS_OF_TEN = new float[11];
+    private static final double[] DOUBLE_POWERS_OF_TEN = new double[23];
+
+    static
+    {
+        FLOAT_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < FLOAT_POWERS_OF_TEN.length; i++)
+        {
+            FLOAT_POWERS_OF_TEN[i] = FLOAT_POWERS_OF_TEN[i - 1] * 10;
+        }
+        DOUBLE_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < DOUBLE_POWERS_OF_TEN.length; i++)
+        {
+            DOUBLE_POWERS_OF_TEN[i] = DOUBLE_POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private float value;
+    // the exact value of the text, NaN if it hasn't been computed yet
+    private double doubleValue;
+    // the text to be written, created on demand for values which weren't parsed
     private String valueAsString;
 
     /**
@@ -38,14 +61,14 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( float aFloat )
     {
-        // use a BigDecimal as intermediate state to avoid 
-        // a floating point string representation of the float value
-        value = new BigDecimal(String.valueOf(aFloat));
-        valueAsString = removeNullDigits(value.toPlainString());
+        // there is no negative zero in the text representation
+        value = aFloat == 0 ? 0 : aFloat;
+        doubleValue = Double.NaN;
     }
 
     /**
-     * Constructor.
+     * Constructor. The given text is written back as it is, unless it is a malformed number which
+     * had to be repaired, then the repaired text is written.
      *
      * @param aFloat The primitive float object that this object wraps.
      *
@@ -53,41 +76,200 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( String aFloat ) throws IOException
     {
-        try
+        parse(aFloat);
+        checkMinMaxValues();
+    }
+
+    /**
+     * Parses the text of a real number without going through BigDecimal. Malformed numbers are
+     * repaired the way other readers do, the repaired text is written back then:
+     * <ul>
+     * <li>repeated leading signs, e.g. --16.33 (PDFBOX-4289)</li>
+     * <li>a minus after the leading zeros of the fraction, e.g. 0.00-35095424 (PDFBOX-2990,
+     * PDFBOX-3369, PDFBOX-3500)</li>
+     * <li>anything after a second decimal point or after a misplaced sign, e.g. 1.2.3 or 4-</li>
+     * </ul>
+     */
+    private void parse(String text) throws IOException
+    {
+        int length = text.length();
+        int pos = 0;
+        boolean negative = false;
+        while (pos < length && (text.charAt(pos) == '-' || text.charAt(pos) == '+'))
         {
-            valueAsString = aFloat; 
-            value = new BigDecimal( valueAsString );
-            checkMinMaxValues();
+            negative |= text.charAt(pos) == '-';
+            pos++;
         }
-        catch( NumberFormatException e )
+        boolean repaired = pos > 1;
+        int start = pos;
+        int embeddedMinus = -1;
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean dotRead = false;
+        boolean tooLong = false;
+        while (pos < length)
         {
-            if (aFloat.matches("^0\\.0*\\-\\d+"))
+            char c = text.charAt(pos);
+            if (isDigit(c))
             {
-                // PDFBOX-2990 has 0.00000-33917698
-                // PDFBOX-3369 has 0.00-35095424
-                // PDFBOX-3500 has 0.-262
-                try
+                if (mantissa != 0 || c != '0')
                 {
-                    valueAsString = "-" + valueAsString.replaceFirst("\\-", "");
-                    value = new BigDecimal(valueAsString);
-                    checkMinMaxValues();
+                    if (significantDigits == 18)
+                    {
+                        tooLong = true;
+                        break;
+                    }
+                    significantDigits++;
+                    mantissa = mantissa * 10 + (c - '0');
                 }
-                catch (NumberFormatException e2)
+                digits++;
+                if (dotRead)
                 {
-                    throw new IOException("Error expected floating point number actual='" + aFloat + "'", e2);
+                    scale++;
                 }
             }
+            else if (c == '.' && !dotRead)
+            {
+                dotRead = true;
+            }
+            else if (c == '-' && dotRead && mantissa == 0 && !negative && embeddedMinus == -1 &&
+                     pos + 1 < length && isDigit(text.charAt(pos + 1)))
+            {
+                negative = true;
+                embeddedMinus = pos;
+                repaired = true;
+            }
+            else
+            {
+                break;
+            }
+            pos++;
+        }
+        if (tooLong)
+        {
+            // the mantissa is too long to be exact, skip the remaining digits
+            while (pos < length &&
+                   (isDigit(text.charAt(pos)) || text.charAt(pos) == '.' && !dotRead))
+            {
+                dotRead |= text.charAt(pos) == '.';
+                pos++;
+            }
+        }
+        if (digits == 0)
+        {
+            throw new IOException("Error expected floating point number actual='" + text + "'");
+        }
+        boolean exponentRead = false;
+        if (pos < length && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E'))
+        {
+            int expPos = pos + 1;
+            if (expPos < length && (text.charAt(expPos) == '-' || text.charAt(expPos) == '+'))
+            {
+                expPos++;
+            }
+            int expStart = expPos;
+            while (expPos < length && isDigit(text.charAt(expPos)))
+            {
+                expPos++;
+            }
+            if (expPos > expStart)
+            {
+                exponentRead = true;
+                pos = expPos;
+            }
+        }
+        int end = pos;
+        // whatever follows is ignored, but it has to look like a part of a number
+        for (; pos < length; pos++)
+        {
+            char c = text.charAt(pos);
+            if (!isDigit(c) && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E')
+            {
+                throw new IOException("Error expected floating point number actual='" + text + "'");
+            }
+        }
+        repaired |= end < length;
+
+        String cleanText = null;
+        if (repaired)
+        {
+            cleanText = cleanText(text, start, end, negative, embeddedMinus);
+        }
+        if (tooLong || exponentRead)
+        {
+            String number = cleanText != null ? cleanText : text;
+            try
+            {
+                doubleValue = Double.parseDouble(number);
+                value = Float.parseFloat(number);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("Error expected floating point number actual='" + text + "'",
+                        e);
+            }
+        }
+        else
+        {
+            if (mantissa < MAX_EXACT_DOUBLE_MANTISSA && scale < DOUBLE_POWERS_OF_TEN.length)
+            {
+                doubleValue = mantissa / DOUBLE_POWERS_OF_TEN[scale];
+            }
             else
             {
-                throw new IOException("Error expected floating point number actual='" + aFloat + "'", e);
+                doubleValue = Math.abs(Double.parseDouble(cleanText != null ? cleanText : text));
             }
+            if (mantissa < MAX_EXACT_FLOAT_MANTISSA && scale < FLOAT_POWERS_OF_TEN.length)
+            {
+                value = mantissa / FLOAT_POWERS_OF_TEN[scale];
+            }
+            else
+            {
+                value = Math.abs(Float.parseFloat(cleanText != null ? cleanText : text));
+            }
+            if (negative)
+            {
+                doubleValue = -doubleValue;
+                value = -value;
+            }
+        }
+        if (doubleValue == 0)
+        {
+            // there is no negative zero in the text representation
+            value = 0;
+            doubleValue = 0;
         }
+        valueAsString = cleanText != null ? cleanText : text;
     }
-    
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static String cleanText(String text, int start, int end, boolean negative,
+                                    int embeddedMinus)
+    {
+        StringBuilder sb = new StringBuilder(end - start + 1);
+        if (negative)
+        {
+            sb.append('-');
+        }
+        for (int i = start; i < end; i++)
+        {
+            if (i != embeddedMinus)
+            {
+                sb.append(text.charAt(i));
+            }
+        }
+        return sb.toString();
+    }
+
     private void checkMinMaxValues()
     {
-        float floatValue = value.floatValue();
-        double doubleValue = value.doubleValue();
+        float floatValue = value;
         boolean valueReplaced = false;
         // check for huge values
         if (floatValue == Float.NEGATIVE_INFINITY  || floatValue == Float.POSITIVE_INFINITY )
@@ -111,8 +293,9 @@ public class COSFloat extends COSNumber
         }
         if (valueReplaced)
         {
-            value = new BigDecimal(floatValue);
-            valueAsString = removeNullDigits(value.toPlainString());
+            value = floatValue;
+            doubleValue = floatValue;
+            valueAsString = removeNullDigits(new BigDecimal(floatValue).toPlainString());
         }
     }
     
@@ -129,6 +312,20 @@ public class COSFloat extends COSNumber
         return plainStringValue;
     }
 
+    /**
+     * Returns the text which is written for this number.
+     */
+    private String getValueAsString()
+    {
+        if (valueAsString == null)
+        {
+            // use a BigDecimal as intermediate state to avoid 
+            // a floating point string representation of the float value
+            valueAsString = removeNullDigits(new BigDecimal(String.valueOf(value)).toPlainString());
+        }
+        return valueAsString;
+    }
+
     /**
      * The value of the float object that this one wraps.
      *
@@ -137,7 +334,7 @@ public class COSFloat extends COSNumber
     @Override
     public float floatValue()
     {
-        return value.floatValue();
+        return value;
     }
 
     /**
@@ -148,7 +345,11 @@ public class COSFloat extends COSNumber
     @Override
     public double doubleValue()
     {
-        return value.doubleValue();
+        if (Double.isNaN(doubleValue))
+        {
+            doubleValue = Double.parseDouble(String.valueOf(value));
+        }
+        return doubleValue;
     }
 
     /**
@@ -159,7 +360,7 @@ public class COSFloat extends COSNumber
     @Override
     public long longValue()
     {
-        return value.longValue();
+        return (long) doubleValue();
     }
 
     /**
@@ -170,7 +371,7 @@ public class COSFloat extends COSNumber
     @Override
     public int intValue()
     {
-        return value.intValue();
+        return (int) doubleValue();
     }
 
     /**
@@ -180,7 +381,7 @@ public class COSFloat extends COSNumber
     public boolean equals( Object o )
     {
         return o instanceof COSFloat && 
-                Float.floatToIntBits(((COSFloat)o).value.floatValue()) == Float.floatToIntBits(value.floatValue());
+                Float.floatToIntBits(((COSFloat)o).value) == Float.floatToIntBits(value);
     }
 
     /**
@@ -189,7 +390,7 @@ public class COSFloat extends COSNumber
     @Override
     public int hashCode()
     {
-        return value.hashCode();
+        return Float.floatToIntBits(value);
     }
 
     /**
@@ -198,7 +399,7 @@ public class COSFloat extends COSNumber
     @Override
     public String toString()
     {
-        return "COSFloat{" + valueAsString + "}";
+        return "COSFloat{" + getValueAsString() + "}";
     }
 
     /**
@@ -222,6 +423,6 @@ public class COSFloat extends COSNumber
      */
     public void writePDF( OutputStream output ) throws IOException
     {
-        output.write(valueAsString.getBytes("ISO-8859-1"));
+        output.write(getValueAsString().getBytes("ISO-8859-1"));
     }
 }
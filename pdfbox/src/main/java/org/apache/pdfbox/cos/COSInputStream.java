@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.pdfbox.filter.DecodeOptions;
 import org.apache.pdfbox.filter.DecodeResult;
 import org.apache.pdfbox.filter.Filter;
 import org.apache.pdfbox.io.RandomAccess;
@@ -39,17 +40,19 @@ import org.apache.pdfbox.io.ScratchFile;
 public final class COSInputStream extends FilterInputStream
 {
     /**
-     * Creates a new COSInputStream from an encoded input stream.
+     * Creates a new COSInputStream from an encoded input stream. The decode options are given to
+     * the last filter only, as only an image filter can use them.
      *
      * @param filters Filters to be applied.
      * @param parameters Filter parameters.
      * @param in Encoded input stream.
      * @param scratchFile Scratch file to use, or null.
+     * @param options Decode options for the last filter.
      * @return Decoded stream.
      * @throws IOException If the stream could not be read.
      */
     static COSInputStream create(List<Filter> filters, COSDictionary parameters, InputStream in,
-                                 ScratchFile scratchFile) throws IOException
+                                 ScratchFile scratchFile, DecodeOptions options) throws IOException
     {
         List<DecodeResult> results = new ArrayList<DecodeResult>();
         InputStream input = in;
@@ -62,11 +65,13 @@ public final class COSInputStream extends FilterInputStream
             // apply filters
             for (int i = 0; i < filters.size(); i++)
             {
+                DecodeOptions filterOptions = i == filters.size() - 1 ? options : DecodeOptions.DEFAULT;
                 if (scratchFile != null)
                 {
                     // scratch file
                     final RandomAccess buffer = scratchFile.createBuffer();
-                    DecodeResult result = filters.get(i).decode(input, new RandomAccessOutputStream(buffer), parameters, i);
+                    DecodeResult result = filters.get(i).decode(input, new RandomAccessOutputStream(buffer), parameters, i,
+                            filterOptions);
                     results.add(result);
                     input = new RandomAccessInputStream(buffer)
                     {
@@ -81,7 +86,7 @@ public final class COSInputStream extends FilterInputStream
                 {
                     // in-memory
                     ByteArrayOutputStream output = new ByteArrayOutputStream();
-                    DecodeResult result = filters.get(i).decode(input, output, parameters, i);
+                    DecodeResult result = filters.get(i).decode(input, output, parameters, i, filterOptions);
                     results.add(result);
                     input = new ByteArrayInputStream(output.toByteArray());
                 }
@@ -17,16 +17,33 @@
 package org.apache.pdfbox.cos;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * This class represents a PDF object.
  *
+ * <p>If the document is loaded with a limit for the parsed objects, the value of an indirect
+ * object is parsed on the first call of {@link #getObject()} and it may be dropped again later,
+ * to be parsed once more when it is needed. Values which have been changed or replaced since
+ * they were parsed are never dropped, and a dropped value which is still in use elsewhere is
+ * returned again instead of being parsed once more.
+ *
  * @author Ben Litchfield
  * 
  */
 public class COSObject extends COSBase implements COSUpdateInfo
 {
-    private COSBase baseObject;
+    private static final Log LOG = LogFactory.getLog(COSObject.class);
+
+    // volatile, as the value may be parsed or dropped by another thread
+    private volatile COSBase baseObject;
+    private ICOSParser parser;
+    // true if the value is as parsed, so that it may be dropped
+    private boolean parsedObject;
+    // the value which has been dropped, as long as it is in use elsewhere
+    private WeakReference<COSBase> droppedObject;
     private long objectNumber;
     private int generationNumber;
     private boolean needToBeUpdated;
@@ -54,9 +71,10 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getDictionaryObject( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getDictionaryObject( key );
+            retval = ((COSDictionary)object).getDictionaryObject( key );
         }
         return retval;
     }
@@ -71,21 +89,54 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getItem( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getItem( key );
+            retval = ((COSDictionary)object).getItem( key );
         }
         return retval;
     }
 
     /**
-     * This will get the object that this object encapsulates.
+     * This will get the object that this object encapsulates. If it hasn't been parsed yet and the
+     * document is loaded on demand, it is parsed now.
      *
      * @return The encapsulated object.
      */
     public COSBase getObject()
     {
-        return baseObject;
+        COSBase object = baseObject;
+        if (object == null && parser != null)
+        {
+            try
+            {
+                object = parser.dereferenceCOSObject(this);
+            }
+            catch (IOException e)
+            {
+                LOG.error("Can't dereference " + this, e);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Returns true if this object has no value at the moment, i.e. it hasn't been parsed yet or
+     * its value has been dropped. Unlike {@link #getObject()} this never parses the object.
+     *
+     * @return true if the value of this object is null
+     */
+    public boolean isObjectNull()
+    {
+        return baseObject == null;
+    }
+
+    /**
+     * Sets the parser which parses the value of this object on demand.
+     */
+    void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
     }
 
     /**
@@ -98,6 +149,129 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public final void setObject( COSBase object ) throws IOException
     {
         baseObject = object;
+        parsedObject = false;
+        droppedObject = null;
+    }
+
+    /**
+     * Remembers that the current value of this object has just been parsed, so that it may be
+     * dropped again by {@link #dropObject()}. Not for public use. Only COSParser should call this
+     * method.
+     */
+    public void markAsParsed()
+    {
+        parsedObject = true;
+        clearModified(baseObject);
+    }
+
+    /**
+     * Drops the value of this object, unless it has been changed or replaced since it was parsed
+     * or it is marked to be updated. A dropped value is kept weakly, see
+     * {@link #restoreDroppedObject()}. Not for public use. Only COSParser should call this method.
+     *
+     * @return true if the value has been dropped
+     */
+    public boolean dropObject()
+    {
+        COSBase object = baseObject;
+        if (!parsedObject || object == null || needToBeUpdated)
+        {
+            return false;
+        }
+        if (object instanceof COSUpdateInfo && ((COSUpdateInfo) object).isNeedToBeUpdated() ||
+            isModified(object))
+        {
+            // keep it for good, it would be parsed without the changes
+            parsedObject = false;
+            return false;
+        }
+        droppedObject = new WeakReference<COSBase>(object);
+        baseObject = null;
+        return true;
+    }
+
+    /**
+     * Sets the dropped value of this object again if it is still in use elsewhere, e.g. by a
+     * wrapper of the PD model. Not for public use. Only COSParser should call this method.
+     *
+     * @return the value, or null if it has been collected or there is none
+     */
+    public COSBase restoreDroppedObject()
+    {
+        WeakReference<COSBase> dropped = droppedObject;
+        COSBase object = dropped != null ? dropped.get() : null;
+        if (object != null)
+        {
+            droppedObject = null;
+            baseObject = object;
+        }
+        return object;
+    }
+
+    private static boolean isModified(COSBase base)
+    {
+        if (base instanceof COSDictionary)
+        {
+            COSDictionary dictionary = (COSDictionary) base;
+            if (dictionary.isModified())
+            {
+                return true;
+            }
+            for (COSBase value : dictionary.getValues())
+            {
+                if (isModified(value))
+                {
+                    return true;
+                }
+            }
+        }
+        else if (base instanceof COSArray)
+        {
+            COSArray array = (COSArray) base;
+            if (array.isModified())
+            {
+                return true;
+            }
+            for (int i = 0; i < array.size(); i++)
+            {
+                if (isModified(array.get(i)))
+                {
+                    return true;
+                }
+            }
+        }
+        else if (base instanceof COSString)
+        {
+            return ((COSString) base).isModified();
+        }
+        // indirect objects are checked on their own
+        return false;
+    }
+
+    private static void clearModified(COSBase base)
+    {
+        if (base instanceof COSDictionary)
+        {
+            COSDictionary dictionary = (COSDictionary) base;
+            dictionary.setModified(false);
+            for (COSBase value : dictionary.getValues())
+            {
+                clearModified(value);
+            }
+        }
+        else if (base instanceof COSArray)
+        {
+            COSArray array = (COSArray) base;
+            array.setModified(false);
+            for (int i = 0; i < array.size(); i++)
+            {
+                clearModified(array.get(i));
+            }
+        }
+        else if (base instanceof COSString)
+        {
+            ((COSString) base).setModified(false);
+        }
     }
 
     /**
@@ -155,7 +329,8 @@ public class COSObject extends COSBase implements COSUpdateInfo
     @Override
     public Object accept( ICOSVisitor visitor ) throws IOException
     {
-        return getObject() != null ? getObject().accept( visitor ) : COSNull.NULL.accept( visitor );
+        COSBase object = getObject();
+        return object != null ? object.accept( visitor ) : COSNull.NULL.accept( visitor );
     }
     
     /**
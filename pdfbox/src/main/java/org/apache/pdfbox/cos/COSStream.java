@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.filter.DecodeOptions;
 import org.apache.pdfbox.filter.Filter;
 import org.apache.pdfbox.filter.FilterFactory;
 import org.apache.pdfbox.io.IOUtils;
@@ -151,6 +152,20 @@ public class COSStream extends COSDictionary implements Closeable
      * @throws IOException If the stream could not be read.
      */
     public COSInputStream createInputStream() throws IOException
+    {
+        return createSubsampledInputStream(DecodeOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new InputStream which reads the decoded stream data, using the given options for
+     * an image filter. Check {@link DecodeOptions#isFilterSubsampled()} afterwards to know
+     * whether the options have been applied.
+     *
+     * @param options the decode options
+     * @return InputStream containing decoded stream data.
+     * @throws IOException If the stream could not be read.
+     */
+    public COSInputStream createSubsampledInputStream(DecodeOptions options) throws IOException
     {
         checkClosed();
         if (isWriting)
@@ -159,7 +174,7 @@ public class COSStream extends COSDictionary implements Closeable
         }
         ensureRandomAccessExists(true);
         InputStream input = new RandomAccessInputStream(randomAccess);
-        return COSInputStream.create(getFilterList(), this, input, scratchFile);
+        return COSInputStream.create(getFilterList(), this, input, scratchFile, options);
     }
 
     /**
@@ -95,6 +95,8 @@ public final class COSString extends COSBase
 
     private byte[] bytes;
     private boolean forceHexForm;
+    // set by every change, see COSObject#markAsParsed()
+    private boolean modified;
 
     /**
      * Creates a new PDF string from a byte array. This method can be used to read a string from
@@ -158,6 +160,7 @@ public final class COSString extends COSBase
     public void setValue(byte[] value)
     {
         bytes = value.clone();
+        modified = true;
     }
 
     /**
@@ -169,6 +172,21 @@ public final class COSString extends COSBase
     public void setForceHexForm(boolean value)
     {
         this.forceHexForm = value;
+        modified = true;
+    }
+
+    /**
+     * Returns true if this string has been changed since {@link #setModified(boolean)} was last
+     * called with false.
+     */
+    boolean isModified()
+    {
+        return modified;
+    }
+
+    void setModified(boolean modified)
+    {
+        this.modified = modified;
     }
 
     /**
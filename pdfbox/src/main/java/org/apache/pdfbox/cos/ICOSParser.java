@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.cos;
+
+import java.io.IOException;
+
+/**
+ * A parser which loads indirect objects on demand, see {@link COSObject#getObject()}.
+ */
+public interface ICOSParser
+{
+    /**
+     * Parses the given indirect object and sets its value, unless it already has one. This may be
+     * called by several threads at the same time.
+     *
+     * @param obj the indirect object to be parsed
+     * @return the value of the object, or null if it couldn't be found
+     * @throws IOException if the object couldn't be parsed
+     */
+    COSBase dereferenceCOSObject(COSObject obj) throws IOException;
+}
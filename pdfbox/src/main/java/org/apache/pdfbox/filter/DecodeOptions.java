@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.filter;
+
+import java.awt.Rectangle;
+
+/**
+ * Options which an image filter may use to decode only a part of an image, or the image at a
+ * lower resolution. Filters which can't do this ignore the options and decode the whole image,
+ * the caller has to check {@link #isFilterSubsampled()} to know which data it got.
+ */
+public final class DecodeOptions
+{
+    /**
+     * Default options, i.e. the whole image at full resolution.
+     */
+    public static final DecodeOptions DEFAULT = new DecodeOptions(null, 1);
+
+    private final Rectangle sourceRegion;
+    private final int subsampling;
+    private boolean filterSubsampled;
+
+    /**
+     * Constructor.
+     *
+     * @param sourceRegion the part of the image to decode in image pixel coordinates, or null for
+     * the whole image
+     * @param subsampling the subsampling factor, i.e. only every n-th row and column is decoded
+     * @throws IllegalArgumentException if the subsampling factor is less than 1
+     */
+    public DecodeOptions(Rectangle sourceRegion, int subsampling)
+    {
+        if (subsampling < 1)
+        {
+            throw new IllegalArgumentException("subsampling must be at least 1: " + subsampling);
+        }
+        this.sourceRegion = sourceRegion != null ? new Rectangle(sourceRegion) : null;
+        this.subsampling = subsampling;
+    }
+
+    /**
+     * Returns the part of the image to decode in image pixel coordinates.
+     *
+     * @return the source region, or null for the whole image
+     */
+    public Rectangle getSourceRegion()
+    {
+        return sourceRegion != null ? new Rectangle(sourceRegion) : null;
+    }
+
+    /**
+     * Returns the subsampling factor, 1 for full resolution.
+     *
+     * @return the subsampling factor
+     */
+    public int getSubsampling()
+    {
+        return subsampling;
+    }
+
+    /**
+     * Returns true if these options don't ask for anything but the whole image at full
+     * resolution.
+     *
+     * @return true if the whole image is decoded at full resolution
+     */
+    public boolean isDefault()
+    {
+        return sourceRegion == null && subsampling == 1;
+    }
+
+    /**
+     * Returns true if the filter has applied the source region and the subsampling, i.e. the
+     * decoded data contains only the selected pixels. If false, the decoded data contains the whole
+     * image at full resolution.
+     *
+     * @return true if the decoded data is already subsampled
+     */
+    public boolean isFilterSubsampled()
+    {
+        return filterSubsampled;
+    }
+
+    /**
+     * Called by a filter which has applied the source region and the subsampling.
+     */
+    void setFilterSubsampled(boolean filterSubsampled)
+    {
+        this.filterSubsampled = filterSubsampled;
+    }
+}
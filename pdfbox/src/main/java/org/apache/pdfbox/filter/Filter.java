@@ -16,12 +16,14 @@
  */
 package org.apache.pdfbox.filter;
 
+import java.awt.Rectangle;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 
 import org.apache.commons.logging.Log;
@@ -60,6 +62,25 @@ public abstract class Filter
     public abstract DecodeResult decode(InputStream encoded, OutputStream decoded, COSDictionary parameters,
                             int index) throws IOException;
 
+    /**
+     * Decodes data, using the given options if the filter supports them. Only image filters which
+     * can decode a part of an image or decode it at a lower resolution do so, they call
+     * {@link DecodeOptions#setFilterSubsampled(boolean)} then. The default implementation
+     * ignores the options.
+     * @param encoded the encoded byte stream
+     * @param decoded the stream where decoded data will be written
+     * @param parameters the parameters used for decoding
+     * @param index the index to the filter being decoded
+     * @param options the decode options
+     * @return repaired parameters dictionary, or the original parameters dictionary
+     * @throws IOException if the stream cannot be decoded
+     */
+    public DecodeResult decode(InputStream encoded, OutputStream decoded, COSDictionary parameters,
+                            int index, DecodeOptions options) throws IOException
+    {
+        return decode(encoded, decoded, parameters, index);
+    }
+
     /**
      * Encodes data.
      * @param input the byte stream to encode
@@ -103,6 +124,40 @@ public abstract class Filter
         return new COSDictionary();
     }
 
+    /**
+     * Returns the read parameters for the first image of the given reader, with the source region
+     * and the subsampling of the given options. The options are only applied, and marked as
+     * applied, if the image has the size given in the stream parameters and the source region lies
+     * within it.
+     *
+     * @param reader the image reader, its input must have been set
+     * @param parameters the stream parameters
+     * @param options the decode options
+     * @return the read parameters
+     * @throws IOException if the size of the image can't be read
+     */
+    static ImageReadParam getReadParam(ImageReader reader, COSDictionary parameters,
+                                       DecodeOptions options) throws IOException
+    {
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (options.isDefault())
+        {
+            return param;
+        }
+        Rectangle bounds = new Rectangle(reader.getWidth(0), reader.getHeight(0));
+        Rectangle region = options.getSourceRegion();
+        if (bounds.width != parameters.getInt(COSName.WIDTH, COSName.W, -1) ||
+            bounds.height != parameters.getInt(COSName.HEIGHT, COSName.H, -1) ||
+            region != null && !bounds.contains(region))
+        {
+            return param;
+        }
+        param.setSourceRegion(region != null ? region : bounds);
+        param.setSourceSubsampling(options.getSubsampling(), options.getSubsampling(), 0, 0);
+        options.setFilterSubsampled(true);
+        return param;
+    }
+
     /**
      * Finds a suitable image reader for a format.
      *
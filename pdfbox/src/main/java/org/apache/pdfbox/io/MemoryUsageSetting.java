@@ -37,6 +37,20 @@ public final class MemoryUsageSetting
     
     /** directory to be used for scratch file */
     private File tempDir;
+
+    /** if <code>true</code> input files are memory mapped instead of read through a page cache */
+    private boolean useMemoryMappedInput;
+
+    /** pool providing off-heap main-memory pages; <code>null</code> for heap pages */
+    private OffHeapPagePool offHeapPagePool;
+
+    /** maximum number of parsed objects kept by the parser; <code>-1</code> means all objects
+     *  are parsed when loading */
+    private int maxParsedObjects = -1;
+
+    /** maximum number of bytes of decoded object streams kept by the parser; <code>0</code>
+     *  means the data isn't kept */
+    private long maxObjectStreamCacheBytes = 0;
     
     /**
      * Private constructor for setup buffering memory usage called by one of the setup methods.
@@ -183,6 +197,11 @@ public final class MemoryUsageSetting
         MemoryUsageSetting copy = new MemoryUsageSetting( useMainMemory, useTempFile,
                                                           newMaxMainMemoryBytes, newMaxStorageBytes );
         copy.tempDir = tempDir;
+        copy.useMemoryMappedInput = useMemoryMappedInput;
+        copy.offHeapPagePool = offHeapPagePool;
+        copy.maxParsedObjects = maxParsedObjects;
+        copy.maxObjectStreamCacheBytes = maxObjectStreamCacheBytes <= 0 ? 0 :
+                                         maxObjectStreamCacheBytes / parallelUseCount;
         
         return copy;
     }
@@ -200,6 +219,119 @@ public final class MemoryUsageSetting
         return this;
     }
     
+    /**
+     * Sets whether PDF files loaded from the file system are mapped into memory, see
+     * {@link RandomAccessMemoryMappedFile}. This avoids copying the file through a page cache and
+     * is recommended for large files. Memory mapped data doesn't count for the main-memory
+     * restrictions of this setting as it isn't part of the Java heap.
+     * 
+     * @param useMemoryMappedInput <code>true</code> to map input files into memory
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setUseMemoryMappedInput(boolean useMemoryMappedInput)
+    {
+        this.useMemoryMappedInput = useMemoryMappedInput;
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if PDF files loaded from the file system are to be mapped into
+     * memory.
+     * 
+     * @return <code>true</code> if input files are mapped into memory
+     */
+    public boolean useMemoryMappedInput()
+    {
+        return useMemoryMappedInput;
+    }
+
+    /**
+     * Sets a pool of off-heap pages to be used for main-memory buffering instead of allocating
+     * the pages on the Java heap. The same pool should be used for all documents so that the
+     * pages are reused; its maximum size limits the off-heap memory of all documents together.
+     * The main-memory restriction of this setting still applies to each single document.
+     * 
+     * @param offHeapPagePool the pool to take main-memory pages from, or <code>null</code> to
+     *                        use pages on the Java heap
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setOffHeapPagePool(OffHeapPagePool offHeapPagePool)
+    {
+        this.offHeapPagePool = offHeapPagePool;
+        return this;
+    }
+
+    /**
+     * Returns the pool of off-heap pages to be used for main-memory buffering or
+     * <code>null</code> if pages are allocated on the Java heap.
+     * 
+     * @return the off-heap page pool or <code>null</code>
+     */
+    public OffHeapPagePool getOffHeapPagePool()
+    {
+        return offHeapPagePool;
+    }
+
+    /**
+     * Sets the maximum number of objects the parser keeps parsed. By default (<code>-1</code>)
+     * all objects of a document are parsed when it is loaded. With <code>0</code> or more the
+     * objects are parsed when they are first needed, and with a positive number the objects
+     * parsed first are dropped again when there are more than that, to be parsed once more when
+     * they are needed again. This keeps the heap usage of large documents low. Objects which are
+     * changed are kept, and so are objects which are still in use, e.g. by the PD model. Streams
+     * are never dropped, as their data is buffered by the scratch file anyway.
+     * 
+     * @param maxParsedObjects the maximum number of parsed objects, <code>0</code> for no limit,
+     *                         or <code>-1</code> to parse all objects when loading
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setMaxParsedObjects(int maxParsedObjects)
+    {
+        this.maxParsedObjects = maxParsedObjects < 0 ? -1 : maxParsedObjects;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of objects the parser keeps parsed, <code>0</code> for no limit,
+     * or <code>-1</code> if all objects are parsed when loading.
+     * 
+     * @return the maximum number of parsed objects
+     */
+    public int getMaxParsedObjects()
+    {
+        return maxParsedObjects;
+    }
+
+    /**
+     * Sets the maximum number of bytes of decoded object stream data the parser keeps, if the
+     * objects are parsed on demand, see {@link #setMaxParsedObjects(int)}. Objects in object
+     * streams are then parsed from the kept data instead of decoding the stream once more, which
+     * speeds up the random access to documents with cross-reference streams. The data is kept on
+     * the Java heap and doesn't count for the main-memory restriction of this setting.
+     * 
+     * @param maxObjectStreamCacheBytes the maximum number of bytes, <code>0</code> to not keep
+     *                                  the data
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setMaxObjectStreamCacheBytes(long maxObjectStreamCacheBytes)
+    {
+        this.maxObjectStreamCacheBytes = Math.max(0, maxObjectStreamCacheBytes);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of bytes of decoded object stream data the parser keeps,
+     * <code>0</code> if the data isn't kept.
+     */
+    public long getMaxObjectStreamCacheBytes()
+    {
+        return maxObjectStreamCacheBytes;
+    }
+
     /**
      * Returns <code>true</code> if main-memory is to be used.
      * 
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of fixed size pages held in direct (off-heap) memory, to be used by {@link ScratchFile}
+ * instead of one <code>byte[]</code> per page on the Java heap. Set it with
+ * {@link MemoryUsageSetting#setOffHeapPagePool(OffHeapPagePool)}.
+ * 
+ * <p>One pool is meant to be shared by all documents of an application; the maximum size is a
+ * global limit for all of them. Memory is reserved in slabs of {@value #SLAB_SIZE} bytes which
+ * are kept for the lifetime of the pool, pages released by a closed {@link ScratchFile} are
+ * reused by the next one. If the pool is exhausted, scratch files fall back to heap pages.</p>
+ * 
+ * <p>The occupancy getters can be used to size the pool. This class is thread safe.</p>
+ */
+public final class OffHeapPagePool
+{
+    /** size of a page, same as the page size of {@link ScratchFile} */
+    static final int PAGE_SIZE = 4096;
+    private static final int SLAB_SIZE = 1024 * 1024;
+    private static final int PAGES_PER_SLAB = SLAB_SIZE / PAGE_SIZE;
+
+    private final long maxBytes;
+    private final Queue<ByteBuffer> freePages = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final Object slabLock = new Object();
+    /** only to be changed under synchronization of {@link #slabLock} */
+    private volatile long reservedBytes;
+    private final AtomicLong usedPages = new AtomicLong();
+    private final AtomicLong peakUsedPages = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    /**
+     * Creates a pool which will reserve at most the given number of bytes of direct memory.
+     * 
+     * @param maxBytes maximum size of the pool; it is rounded down to full slabs of
+     *                 {@value #SLAB_SIZE} bytes, but at least one slab is allowed
+     */
+    public OffHeapPagePool(long maxBytes)
+    {
+        this.maxBytes = Math.max(SLAB_SIZE, maxBytes - maxBytes % SLAB_SIZE);
+    }
+
+    /**
+     * Takes a page from the pool.
+     * 
+     * @return a cleared page of {@link #PAGE_SIZE} bytes, or <code>null</code> if the pool has
+     *         reached its maximum size
+     */
+    ByteBuffer acquire()
+    {
+        ByteBuffer page = freePages.poll();
+        while (page == null)
+        {
+            if (!reserveSlab())
+            {
+                exhaustedCount.incrementAndGet();
+                return null;
+            }
+            page = freePages.poll();
+        }
+        long used = usedPages.incrementAndGet();
+        long peak = peakUsedPages.get();
+        while (used > peak && !peakUsedPages.compareAndSet(peak, used))
+        {
+            peak = peakUsedPages.get();
+        }
+        page.clear();
+        return page;
+    }
+
+    /**
+     * Returns a page to the pool. The page must not be used after calling this method.
+     * 
+     * @param page a page obtained from {@link #acquire()}
+     */
+    void release(ByteBuffer page)
+    {
+        usedPages.decrementAndGet();
+        freePages.add(page);
+    }
+
+    /**
+     * Reserves one more slab and splits it into pages.
+     * 
+     * @return <code>false</code> if the pool has reached its maximum size
+     */
+    private boolean reserveSlab()
+    {
+        synchronized (slabLock)
+        {
+            // another thread may have added pages in the meantime
+            if (!freePages.isEmpty())
+            {
+                return true;
+            }
+            if (reservedBytes + SLAB_SIZE > maxBytes)
+            {
+                return false;
+            }
+            ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+            for (int i = 0; i < PAGES_PER_SLAB; i++)
+            {
+                slab.limit((i + 1) * PAGE_SIZE);
+                slab.position(i * PAGE_SIZE);
+                freePages.add(slab.slice());
+            }
+            reservedBytes += SLAB_SIZE;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the maximum number of bytes this pool may reserve.
+     * 
+     * @return the maximum number of bytes
+     */
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory reserved by this pool so far.
+     * 
+     * @return the number of reserved bytes
+     */
+    public long getReservedBytes()
+    {
+        return reservedBytes;
+    }
+
+    /**
+     * Returns the number of bytes currently held by scratch file pages.
+     * 
+     * @return the number of bytes in use
+     */
+    public long getUsedBytes()
+    {
+        return usedPages.get() * PAGE_SIZE;
+    }
+
+    /**
+     * Returns the highest number of bytes held by scratch file pages at the same time.
+     * 
+     * @return the peak number of bytes in use
+     */
+    public long getPeakUsedBytes()
+    {
+        return peakUsedPages.get() * PAGE_SIZE;
+    }
+
+    /**
+     * Returns how often a page was requested while the pool was exhausted, i.e. how often a
+     * scratch file had to fall back to a heap page. If this is not zero the pool is too small.
+     * 
+     * @return the number of requests which found the pool exhausted
+     */
+    public long getExhaustedCount()
+    {
+        return exhaustedCount.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OffHeapPagePool used=" + getUsedBytes() + ", peak=" + getPeakUsedBytes() +
+               ", reserved=" + reservedBytes + ", max=" + maxBytes +
+               ", exhausted=" + getExhaustedCount();
+    }
+}
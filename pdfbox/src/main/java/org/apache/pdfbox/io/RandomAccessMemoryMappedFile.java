@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link RandomAccessRead} implementation which maps the given file into memory. As opposed to
+ * {@link RandomAccessBufferedFileInputStream} there is no page cache and no copying; seeking is
+ * free and reading is done directly from the operating system's file cache. This pays off for
+ * large files and for parsers which jump around a lot, e.g. when reading object streams.
+ *
+ * <p>Files larger than 1 GB are split into several mapped segments, so that files of any size
+ * can be read.
+ *
+ * <p>The methods which use the current position, e.g. {@link #read()}, {@link #seek(long)} and
+ * {@link #read(byte[], int, int)}, aren't thread safe, as for every other {@link RandomAccessRead}:
+ * they must be called by one thread at a time, and not at the same time as {@link #close()}. They
+ * don't lock, so that reading a single byte costs no more than reading it from a byte array.
+ * Other threads may read with {@link #read(long, byte[], int, int)}, which doesn't use the current
+ * position and may also be called while the file is being closed.
+ *
+ * <p>The mapping is released when this object is closed. Closing waits for the reads of
+ * {@link #read(long, byte[], int, int)} which are in progress on other threads, and all reads
+ * after closing fail with an IOException, as accessing memory which has been unmapped would crash
+ * the JVM. The file must not be truncated while it is mapped.
+ */
+public class RandomAccessMemoryMappedFile implements RandomAccessRead
+{
+    private static final Log LOG = LogFactory.getLog(RandomAccessMemoryMappedFile.class);
+
+    // 1 GB segments, ByteBuffers are limited to Integer.MAX_VALUE
+    private static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long fileLength;
+
+    // positional reads hold the read lock, so that the segments aren't unmapped while they are
+    // being read, close() holds the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MappedByteBuffer[] segments;
+    private volatile boolean closed;
+
+    // only used by the thread which currently reads, see the class comment
+    private long position;
+
+    /**
+     * Create a memory mapped random access for the given file.
+     *
+     * @param file the file to be read.
+     * @throws IOException if something went wrong while mapping the given file.
+     */
+    public RandomAccessMemoryMappedFile(File file) throws IOException
+    {
+        this(file, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Create a memory mapped random access for the given file using segments of the given size.
+     *
+     * @param file the file to be read.
+     * @param segmentShift the size of the segments, as a power of two.
+     * @throws IOException if something went wrong while mapping the given file.
+     */
+    RandomAccessMemoryMappedFile(File file, int segmentShift) throws IOException
+    {
+        if (segmentShift < 1 || segmentShift > DEFAULT_SEGMENT_SHIFT)
+        {
+            throw new IllegalArgumentException("Invalid segment shift " + segmentShift);
+        }
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+
+        java.io.RandomAccessFile raFile = new java.io.RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raFile.getChannel();
+            fileLength = channel.size();
+            long segmentSize = 1L << segmentShift;
+            int segmentCount = (int) ((fileLength + segmentSize - 1) >>> segmentShift);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++)
+            {
+                long offset = (long) i << segmentShift;
+                long size = Math.min(segmentSize, fileLength - offset);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            }
+        }
+        finally
+        {
+            // the mapping stays valid after the channel has been closed
+            raFile.close();
+        }
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(long newPosition) throws IOException
+    {
+        checkClosed();
+        if (newPosition < 0)
+        {
+            throw new IOException("Invalid position " + newPosition);
+        }
+        position = newPosition;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        // no lock, this must not be called while the file is being closed
+        checkClosed();
+        if (position >= fileLength)
+        {
+            return -1;
+        }
+        int b = segments[(int) (position >>> segmentShift)].get((int) (position & segmentMask));
+        position++;
+        return b & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException
+    {
+        int bytesRead = read(position, b, offset, length);
+        if (bytesRead > 0)
+        {
+            position += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Reads bytes at the given position without using or changing the position of this file, so
+     * that several threads can read at the same time.
+     *
+     * @param position the position to read from
+     * @param b the buffer to read into
+     * @param offset the offset in the buffer
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read, or -1 if the position is at or beyond the end of the file
+     * @throws IOException if the file has been closed
+     */
+    public int read(long position, byte[] b, int offset, int length) throws IOException
+    {
+        lock.readLock().lock();
+        try
+        {
+            checkClosed();
+            if (position < 0)
+            {
+                throw new IOException("Invalid position " + position);
+            }
+            if (position >= fileLength)
+            {
+                return -1;
+            }
+            int toRead = (int) Math.min(length, fileLength - position);
+            int bytesRead = 0;
+            while (bytesRead < toRead)
+            {
+                // a duplicate has its own position
+                ByteBuffer segment = segments[(int) (position >>> segmentShift)].duplicate();
+                int segmentOffset = (int) (position & segmentMask);
+                int chunk = Math.min(toRead - bytesRead, segment.limit() - segmentOffset);
+                segment.position(segmentOffset);
+                segment.get(b, offset + bytesRead, chunk);
+                bytesRead += chunk;
+                position += chunk;
+            }
+            return bytesRead;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+        checkClosed();
+        return fileLength;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        int result = read();
+        if (result != -1)
+        {
+            rewind(1);
+        }
+        return result;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException
+    {
+        seek(getPosition() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException
+    {
+        byte[] b = new byte[length];
+        int bytesRead = 0;
+        while (bytesRead < length)
+        {
+            int count = read(b, bytesRead, length - bytesRead);
+            if (count < 0)
+            {
+                throw new EOFException();
+            }
+            bytesRead += count;
+        }
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        checkClosed();
+        return position >= fileLength;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        checkClosed();
+        return (int) Math.min(fileLength - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        // waits for the positional reads in progress
+        lock.writeLock().lock();
+        try
+        {
+            if (!closed)
+            {
+                closed = true;
+                for (MappedByteBuffer segment : segments)
+                {
+                    unmap(segment);
+                }
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkClosed() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("RandomAccessMemoryMappedFile already closed");
+        }
+    }
+
+    /**
+     * Releases the mapping right away instead of waiting for the garbage collector, which may
+     * take a long time and keeps the file locked on some platforms. This uses internal APIs and
+     * is therefore done on a best effort basis.
+     */
+    private static void unmap(MappedByteBuffer buffer)
+    {
+        try
+        {
+            try
+            {
+                // JDK 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                        java.nio.ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            }
+            catch (NoSuchMethodException ex)
+            {
+                // JDK 6 to 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                {
+                    Method clean = cleaner.getClass().getMethod("clean");
+                    clean.setAccessible(true);
+                    clean.invoke(cleaner);
+                }
+            }
+        }
+        catch (Exception ex)
+        {
+            LOG.debug("Couldn't unmap buffer, it will be released by the garbage collector", ex);
+        }
+    }
+}
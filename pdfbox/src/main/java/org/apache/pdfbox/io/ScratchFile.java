@@ -20,7 +20,17 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.BitSet;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,7 +43,8 @@ import org.apache.commons.logging.LogFactory;
  * <p>Pages can be stored in main memory or in a temporary file. A mixed mode
  * is supported storing a certain amount of pages in memory and only the
  * additional ones in temporary file (defined by maximum main memory to
- * be used).</p>
+ * be used). Main memory pages are allocated on the Java heap unless an
+ * {@link OffHeapPagePool} is configured.</p>
  * 
  * <p>Pages can be marked as 'free' in order to re-use them. For in-memory pages
  * this will release the used memory while for pages in temporary file this
@@ -46,35 +57,49 @@ import org.apache.commons.logging.LogFactory;
  * on the maximum memory usage and allows processing large files for which we
  * otherwise would get an {@link OutOfMemoryError} in case of using {@link RandomAccessBuffer}.</p>
  * 
- * <p>This base class for providing pages is thread safe (the buffer implementations are not).</p>
+ * <p>This base class for providing pages is thread safe (the buffer implementations are not).
+ * It is designed to be shared by many buffers used from different threads, e.g. when merging or
+ * rendering in parallel: the temporary file is accessed with positional reads and writes which
+ * don't need a lock, and free pages are managed by lock-free queues.</p>
  */
 public class ScratchFile implements Closeable
 {
     private static final Log LOG = LogFactory.getLog(ScratchFile.class);
 
-    /** number of pages by which we enlarge the scratch file (reduce I/O-operations) */
-    private static final int ENLARGE_PAGE_COUNT = 16;
-    /** in case of unrestricted main memory usage this is the initial number of pages
-     *  {@link #inMemoryPages} is setup for */
-    private static final int INIT_UNRESTRICTED_MAINMEM_PAGECOUNT = 100000;
+    /** number of page slots held by one chunk of {@link #inMemoryPages} */
+    private static final int PAGE_TABLE_CHUNK_SHIFT = 12;
+    private static final int PAGE_TABLE_CHUNK_SIZE = 1 << PAGE_TABLE_CHUNK_SHIFT;
+    private static final int PAGE_TABLE_CHUNK_MASK = PAGE_TABLE_CHUNK_SIZE - 1;
     private static final int PAGE_SIZE = 4096;
     
+    /** guards creation of the scratch file, growing of {@link #inMemoryPages} and closing */
     private final Object ioLock = new Object();
     private final File scratchFileDirectory;
-    /** scratch file; only to be accessed under synchronization of {@link #ioLock} */
+    /** scratch file; only to be created under synchronization of {@link #ioLock} */
     private File file;
-    /** random access to scratch file; only to be accessed under synchronization of {@link #ioLock} */
+    /** channel of the scratch file; positional reads and writes don't need synchronization */
+    private volatile FileChannel fileChannel;
     private java.io.RandomAccessFile raf;
-    private volatile int pageCount = 0;
-    private final BitSet freePages = new BitSet();
-    /** holds pointers to in-memory page content; will be initialized once in case of restricted
-     *  main memory, otherwise it is enlarged as needed and first initialized to a size of
-     *  {@link #INIT_UNRESTRICTED_MAINMEM_PAGECOUNT} */
-    private volatile byte[][] inMemoryPages;
+    /** number of pages handed out so far, including those which were freed again */
+    private final AtomicInteger pageCount = new AtomicInteger();
+    /** freed pages held in main memory; these are re-used first */
+    private final Queue<Integer> freeInMemoryPages = new ConcurrentLinkedQueue<Integer>();
+    /** freed pages held in the scratch file */
+    private final Queue<Integer> freeFilePages = new ConcurrentLinkedQueue<Integer>();
+    /** all pages in {@link #freeInMemoryPages} and {@link #freeFilePages}, so that a page which
+     *  is freed twice isn't queued twice and handed out to two buffers */
+    private final Set<Integer> freePages =
+            Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    /** holds pointers to in-memory page content, split into chunks of
+     *  {@link #PAGE_TABLE_CHUNK_SIZE} pages; chunks are created on demand and never replaced,
+     *  so that growing the table doesn't interfere with concurrent writes. A page is either a
+     *  <code>byte[]</code> on the heap or a {@link ByteBuffer} taken from {@link #offHeapPagePool}. */
+    private volatile AtomicReferenceArray<?>[] inMemoryPages;
+    /** pool providing off-heap pages or <code>null</code> */
+    private final OffHeapPagePool offHeapPagePool;
     private final int inMemoryMaxPageCount;
     private final int maxPageCount;
     private final boolean useScratchFile;
-    private final boolean maxMainMemoryIsRestricted;
 
     private volatile boolean isClosed = false;
     
@@ -107,7 +132,7 @@ public class ScratchFile implements Closeable
      */
     public ScratchFile(MemoryUsageSetting memUsageSetting) throws IOException
     {
-        maxMainMemoryIsRestricted = (!memUsageSetting.useMainMemory()) || memUsageSetting.isMainMemoryRestricted();
+        boolean maxMainMemoryIsRestricted = (!memUsageSetting.useMainMemory()) || memUsageSetting.isMainMemoryRestricted();
         useScratchFile = maxMainMemoryIsRestricted ? memUsageSetting.useTempFile() : false;
         scratchFileDirectory = useScratchFile ? memUsageSetting.getTempDir() : null;
 
@@ -125,9 +150,8 @@ public class ScratchFile implements Closeable
                                        (int) Math.min(Integer.MAX_VALUE, memUsageSetting.getMaxMainMemoryBytes() / PAGE_SIZE) :
                                        Integer.MAX_VALUE) :
                                    0;
-        inMemoryPages = new byte[maxMainMemoryIsRestricted ? inMemoryMaxPageCount : INIT_UNRESTRICTED_MAINMEM_PAGECOUNT][];
-        
-        freePages.set(0, inMemoryPages.length);
+        inMemoryPages = new AtomicReferenceArray<?>[inMemoryMaxPageCount > 0 ? 1 : 0];
+        offHeapPagePool = memUsageSetting.useMainMemory() ? memUsageSetting.getOffHeapPagePool() : null;
     }
 
     /**
@@ -154,113 +178,157 @@ public class ScratchFile implements Closeable
      * Returns a new free page, either from free page pool
      * or by enlarging scratch file (may be created).
      * 
+     * <p>In-memory pages are preferred over pages in the scratch file, the same way as pages
+     * with a lower index were preferred when using a single free page list.</p>
+     * 
      * @return index of new page
      */
     int getNewPage() throws IOException
     {
-        synchronized (freePages)
+        checkClosed();
+
+        Integer freePage = freeInMemoryPages.poll();
+        if (freePage != null)
         {
-            int idx = freePages.nextSetBit( 0 );
-            
-            if (idx < 0)
+            freePages.remove(freePage);
+            assignOffHeapPage(freePage);
+            return freePage;
+        }
+
+        int idx = allocatePage(Math.min(inMemoryMaxPageCount, maxPageCount));
+        if (idx >= 0)
+        {
+            ensureInMemoryPageSlot(idx);
+            assignOffHeapPage(idx);
+            return idx;
+        }
+
+        freePage = freeFilePages.poll();
+        if (freePage != null)
+        {
+            freePages.remove(freePage);
+            return freePage;
+        }
+
+        if (useScratchFile)
+        {
+            idx = allocatePage(maxPageCount);
+            if (idx >= 0)
             {
-                enlarge();
-                
-                idx = freePages.nextSetBit( 0 );
-                if (idx < 0)
-                {
-                    throw new IOException("Maximum allowed scratch file memory exceeded.");
-                }
+                ensureScratchFile();
+                return idx;
             }
-            
-            freePages.clear(idx);
-            
-            if (idx >= pageCount)
+        }
+
+        throw new IOException("Maximum allowed scratch file memory exceeded.");
+    }
+
+    /**
+     * Hands out a page which was never used before.
+     * 
+     * @param limit the page index which must not be reached
+     * @return the index of the new page or -1 if the limit has been reached
+     */
+    private int allocatePage(int limit)
+    {
+        while (true)
+        {
+            int count = pageCount.get();
+            if (count >= limit)
             {
-                pageCount = idx + 1;
+                return -1;
+            }
+            if (pageCount.compareAndSet(count, count + 1))
+            {
+                return count;
             }
-            
-            return idx;
         }
     }
 
     /**
-     * This will provide new free pages by either enlarging the scratch file 
-     * by a number of pages defined by {@link #ENLARGE_PAGE_COUNT} - in case
-     * scratch file usage is allowed - or increase the {@link #inMemoryPages}
-     * array in case main memory was not restricted. If neither of both is
-     * allowed/the case than free pages count won't be changed. The same is true
-     * if no new pages could be added because we reached the maximum of
-     * {@link Integer#MAX_VALUE} pages.
-     * 
-     * <p>If scratch file uage is allowed and scratch file does not exist already
-     * it will be created.</p>
-     * 
-     * <p>Only to be called under synchronization on {@link #freePages}.</p>
+     * Returns the chunk of {@link #inMemoryPages} holding the given page.
+     */
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<Object> getPageTableChunk(int pageIdx)
+    {
+        AtomicReferenceArray<?>[] chunks = inMemoryPages;
+        int chunkIdx = pageIdx >>> PAGE_TABLE_CHUNK_SHIFT;
+        return chunkIdx < chunks.length ? (AtomicReferenceArray<Object>) chunks[chunkIdx] : null;
+    }
+
+    /**
+     * Takes a page from the off-heap pool, if there is one, for the given in-memory page. If the
+     * pool is exhausted the page will be allocated on the heap when it is written.
+     */
+    private void assignOffHeapPage(int pageIdx)
+    {
+        if (offHeapPagePool != null)
+        {
+            getPageTableChunk(pageIdx).set(pageIdx & PAGE_TABLE_CHUNK_MASK, offHeapPagePool.acquire());
+        }
+    }
+
+    /**
+     * Makes sure that the chunk of {@link #inMemoryPages} holding the given page exists.
      */
-    private void enlarge() throws IOException
+    private void ensureInMemoryPageSlot(int pageIdx) throws IOException
     {
+        int chunkIdx = pageIdx >>> PAGE_TABLE_CHUNK_SHIFT;
+        AtomicReferenceArray<?>[] chunks = inMemoryPages;
+        if (chunkIdx < chunks.length && chunks[chunkIdx] != null)
+        {
+            return;
+        }
         synchronized (ioLock)
         {
             checkClosed();
-     
-            if (pageCount >= maxPageCount)
+            chunks = inMemoryPages;
+            if (chunkIdx >= chunks.length)
             {
-                return;
+                // grow the table of chunks; the chunks themselves are shared with the old table
+                int newLength = Math.max(chunks.length * 2, chunkIdx + 1);
+                AtomicReferenceArray<?>[] newChunks = new AtomicReferenceArray<?>[newLength];
+                System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+                chunks = newChunks;
+            }
+            if (chunks[chunkIdx] == null)
+            {
+                chunks[chunkIdx] = new AtomicReferenceArray<Object>(PAGE_TABLE_CHUNK_SIZE);
             }
+            inMemoryPages = chunks;
+        }
+    }
 
-            if (useScratchFile)
+    /**
+     * Creates the scratch file if it doesn't exist yet.
+     */
+    private void ensureScratchFile() throws IOException
+    {
+        if (fileChannel != null)
+        {
+            return;
+        }
+        synchronized (ioLock)
+        {
+            checkClosed();
+            if (fileChannel != null)
             {
-                // create scratch file is needed
-                if ( raf == null )
-                {
-                    file = File.createTempFile("PDFBox", ".tmp", scratchFileDirectory);
-                    try
-                    {
-                        raf = new java.io.RandomAccessFile(file, "rw");
-                    }
-                    catch (IOException e)
-                    {
-                        if (!file.delete())
-                        {
-                            LOG.warn("Error deleting scratch file: " + file.getAbsolutePath());
-                        }
-                        throw e;
-                    }
-                }
-                
-                long fileLen = raf.length();
-                long expectedFileLen = ((long)pageCount - inMemoryMaxPageCount) * PAGE_SIZE;
-                
-                if (expectedFileLen != fileLen)
-                {
-                    throw new IOException("Expected scratch file size of " + expectedFileLen + " but found " + fileLen);
-                }
-                    
-                // enlarge if we do not overflow
-                if (pageCount + ENLARGE_PAGE_COUNT > pageCount)
-                {
-                    fileLen += ENLARGE_PAGE_COUNT * PAGE_SIZE;
-        
-                    raf.setLength(fileLen);
-        
-                    freePages.set(pageCount, pageCount + ENLARGE_PAGE_COUNT);
-                }
+                return;
             }
-            else if (!maxMainMemoryIsRestricted)
+            file = File.createTempFile("PDFBox", ".tmp", scratchFileDirectory);
+            try
             {
-                // increase number of in-memory pages
-                int oldSize = inMemoryPages.length;
-                int newSize = (int) Math.min( ((long)oldSize) * 2, Integer.MAX_VALUE);  // this handles integer overflow
-                if (newSize > oldSize)
+                raf = new java.io.RandomAccessFile(file, "rw");
+            }
+            catch (IOException e)
+            {
+                if (!file.delete())
                 {
-                    byte[][] newInMemoryPages = new byte[newSize][];
-                    System.arraycopy(inMemoryPages, 0, newInMemoryPages, 0, oldSize);
-                    inMemoryPages = newInMemoryPages;
-                    
-                    freePages.set(oldSize, newSize);
+                    LOG.warn("Error deleting scratch file: " + file.getAbsolutePath());
                 }
+                throw e;
             }
+            fileChannel = raf.getChannel();
         }
     }
     
@@ -285,16 +353,12 @@ public class ScratchFile implements Closeable
      */
     byte[] readPage(int pageIdx) throws IOException
     {
-        if ((pageIdx < 0) || (pageIdx >= pageCount))
-        {
-            checkClosed();
-            throw new IOException("Page index out of range: " + pageIdx + ". Max value: " + (pageCount - 1) );
-        }
+        checkPageIndex(pageIdx);
         
         // check if we have the page in memory
         if (pageIdx < inMemoryMaxPageCount)
         {
-            byte[] page = inMemoryPages[pageIdx];
+            Object page = getPageTableChunk(pageIdx).get(pageIdx & PAGE_TABLE_CHUNK_MASK);
             
             // handle case that we are closed
             if (page == null)
@@ -302,23 +366,80 @@ public class ScratchFile implements Closeable
                 checkClosed();
                 throw new IOException("Requested page with index " + pageIdx + " was not written before.");
             }
-            
-            return page;
+            if (page instanceof byte[])
+            {
+                return (byte[]) page;
+            }
         }
-        
-        synchronized (ioLock)
+
+        byte[] page = new byte[PAGE_SIZE];
+        readPage(pageIdx, page);
+        return page;
+    }
+
+    /**
+     * Returns <code>true</code> if the content of the page with the specified index is copied
+     * when the page is written or read, i.e. if the array given to {@link #writePage(int, byte[])}
+     * may be reused and {@link #readPage(int, byte[])} can be used to read the page. Otherwise the
+     * array is stored as is.
+     * 
+     * @param pageIdx index of the page
+     * @return <code>true</code> if the page is stored in the scratch file or in off-heap memory
+     */
+    boolean isPageCopied(int pageIdx)
+    {
+        return pageIdx >= inMemoryMaxPageCount ||
+               getPageTableChunk(pageIdx).get(pageIdx & PAGE_TABLE_CHUNK_MASK) instanceof ByteBuffer;
+    }
+
+    /**
+     * Reads the page with specified index into the given array. Only to be used for pages for
+     * which {@link #isPageCopied(int)} returns <code>true</code>.
+     * 
+     * @param pageIdx index of page to read
+     * @param page byte array of size {@link #PAGE_SIZE} to be filled with the page data
+     * 
+     * @throws IOException
+     */
+    void readPage(int pageIdx, byte[] page) throws IOException
+    {
+        checkPageIndex(pageIdx);
+
+        if (pageIdx < inMemoryMaxPageCount)
         {
-            if (raf == null)
+            Object storedPage = getPageTableChunk(pageIdx).get(pageIdx & PAGE_TABLE_CHUNK_MASK);
+            if (!(storedPage instanceof ByteBuffer))
             {
                 checkClosed();
-                throw new IOException("Missing scratch file to read page with index " + pageIdx + " from.");
+                throw new IOException("Page with index " + pageIdx + " is not held in off-heap memory.");
             }
-            
-            byte[] page = new byte[PAGE_SIZE];
-            raf.seek(((long)pageIdx - inMemoryMaxPageCount) * PAGE_SIZE);
-            raf.readFully(page);
-            
-            return page;
+            ByteBuffer offHeapPage = (ByteBuffer) storedPage;
+            offHeapPage.clear();
+            offHeapPage.get(page);
+            return;
+        }
+        
+        if (fileChannel == null)
+        {
+            checkClosed();
+            throw new IOException("Missing scratch file to read page with index " + pageIdx + " from.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(page);
+        transferPage(buffer, ((long) pageIdx - inMemoryMaxPageCount) * PAGE_SIZE, false);
+        // clear what remains from a previous use of the array
+        while (buffer.hasRemaining())
+        {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void checkPageIndex(int pageIdx) throws IOException
+    {
+        if ((pageIdx < 0) || (pageIdx >= pageCount.get()))
+        {
+            checkClosed();
+            throw new IOException("Page index out of range: " + pageIdx + ". Max value: " + (pageCount.get() - 1) );
         }
     }
     
@@ -337,11 +458,7 @@ public class ScratchFile implements Closeable
      */
     void writePage(int pageIdx, byte[] page) throws IOException
     {
-        if ((pageIdx<0) || (pageIdx>=pageCount))
-        {
-            checkClosed();
-            throw new IOException("Page index out of range: " + pageIdx + ". Max value: " + (pageCount - 1) );
-        }
+        checkPageIndex(pageIdx);
         
         if (page.length != PAGE_SIZE)
         {
@@ -350,17 +467,18 @@ public class ScratchFile implements Closeable
         
         if (pageIdx < inMemoryMaxPageCount)
         {
-            if (maxMainMemoryIsRestricted)
+            // no synchronization needed, the chunk holding the page is never replaced
+            AtomicReferenceArray<Object> chunk = getPageTableChunk(pageIdx);
+            Object storedPage = chunk.get(pageIdx & PAGE_TABLE_CHUNK_MASK);
+            if (storedPage instanceof ByteBuffer)
             {
-                inMemoryPages[pageIdx] = page;
+                ByteBuffer offHeapPage = (ByteBuffer) storedPage;
+                offHeapPage.clear();
+                offHeapPage.put(page);
             }
             else
             {
-                // need synchronization since inMemoryPages may change
-                synchronized (ioLock)
-                {
-                    inMemoryPages[pageIdx] = page;
-                }
+                chunk.set(pageIdx & PAGE_TABLE_CHUNK_MASK, page);
             }
             
             // in case we were closed in between throw exception
@@ -368,11 +486,80 @@ public class ScratchFile implements Closeable
         }
         else
         {
-            synchronized (ioLock)
+            checkClosed();
+            ByteBuffer buffer = ByteBuffer.wrap(page);
+            transferPage(buffer, ((long) pageIdx - inMemoryMaxPageCount) * PAGE_SIZE, true);
+        }
+    }
+
+    /**
+     * Reads or writes a page of the scratch file at the given position.
+     * 
+     * <p>A thread which is interrupted during a read or write closes the channel, which then
+     * fails for all threads. The channel is therefore reopened and the transfer repeated, with
+     * the interrupt status of the thread being cleared during the transfer and restored
+     * afterwards.</p>
+     * 
+     * @param buffer the page data, or the buffer to read the page into
+     * @param position the position of the page in the scratch file
+     * @param write <code>true</code> to write the page, <code>false</code> to read it
+     * 
+     * @throws IOException if the transfer fails or this scratch file has been closed
+     */
+    private void transferPage(ByteBuffer buffer, long position, boolean write) throws IOException
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (buffer.hasRemaining())
             {
-                checkClosed();
-                raf.seek(((long)pageIdx - inMemoryMaxPageCount) * PAGE_SIZE);
-                raf.write(page);
+                FileChannel channel = fileChannel;
+                try
+                {
+                    if (write)
+                    {
+                        channel.write(buffer, position + buffer.position());
+                    }
+                    // a page which was allocated but never written lies beyond the end of the file
+                    else if (channel.read(buffer, position + buffer.position()) < 0)
+                    {
+                        break;
+                    }
+                }
+                catch (ClosedByInterruptException e)
+                {
+                    interrupted |= Thread.interrupted();
+                    reopenScratchFile(channel);
+                }
+                catch (ClosedChannelException e)
+                {
+                    // closed by an interrupt of another thread or by closing this scratch file
+                    reopenScratchFile(channel);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Opens the scratch file again if the given channel has been closed by an interrupt.
+     */
+    private void reopenScratchFile(FileChannel closedChannel) throws IOException
+    {
+        synchronized (ioLock)
+        {
+            checkClosed();
+            if (fileChannel == closedChannel)
+            {
+                LOG.debug("Reopening scratch file closed by an interrupt: " + file.getAbsolutePath());
+                raf = new java.io.RandomAccessFile(file, "rw");
+                fileChannel = raf.getChannel();
             }
         }
     }
@@ -435,30 +622,53 @@ public class ScratchFile implements Closeable
      */
     void markPagesAsFree(int[] pageIndexes, int off, int count) {
         
-        synchronized (freePages)
+        int currentPageCount = pageCount.get();
+        for (int aIdx = off; aIdx < count; aIdx++)
         {
-            for (int aIdx = off; aIdx < count; aIdx++)
+            int pageIdx = pageIndexes[aIdx];
+            // a page which is already free is ignored
+            if ((pageIdx>=0) && (pageIdx<currentPageCount) && freePages.add(pageIdx))
             {
-                int pageIdx = pageIndexes[aIdx];
-                if ((pageIdx>=0) && (pageIdx<pageCount) && (!freePages.get(pageIdx)))
+                if (pageIdx < inMemoryMaxPageCount)
                 {
-                    freePages.set(pageIdx);
-                    if (pageIdx < inMemoryMaxPageCount)
-                    {
-                        inMemoryPages[pageIdx] = null;  // remark: not in ioLock synchronization since behavior won't
-                                                        // change even in case of parallel called 'enlarge' method
-                    }
+                    releaseInMemoryPage(pageIdx);
+                    freeInMemoryPages.add(pageIdx);
+                }
+                else
+                {
+                    freeFilePages.add(pageIdx);
                 }
-                    
             }
         }
     }
     
+    /**
+     * Drops the content of the given in-memory page; off-heap pages are returned to the pool.
+     */
+    private void releaseInMemoryPage(int pageIdx)
+    {
+        AtomicReferenceArray<Object> chunk = getPageTableChunk(pageIdx);
+        if (chunk == null)
+        {
+            return;
+        }
+        // only one thread may return an off-heap page to the pool
+        Object storedPage = chunk.getAndSet(pageIdx & PAGE_TABLE_CHUNK_MASK, null);
+        if (storedPage instanceof ByteBuffer)
+        {
+            offHeapPagePool.release((ByteBuffer) storedPage);
+        }
+    }
+
     /**
      * Closes and deletes the temporary file. No further interaction with
      * the scratch file or associated buffers can happen after this method is called.
      * It also releases in-memory pages.
      * 
+     * <p>This method must not be called while other threads are still reading or writing buffers
+     * of this scratch file. Their off-heap pages are returned to the pool and may already be in
+     * use by another scratch file when a write in progress completes.</p>
+     * 
      * @throws IOException If there was a problem closing or deleting the temporary file.
      */
     @Override
@@ -499,11 +709,18 @@ public class ScratchFile implements Closeable
             }
         }
         
-        synchronized (freePages)
+        int inMemoryPageCount = Math.min(pageCount.getAndSet(0), inMemoryMaxPageCount);
+        if (offHeapPagePool != null)
         {
-            freePages.clear();
-            pageCount = 0;
+            // return the off-heap pages of all buffers which were not closed
+            for (int pageIdx = 0; pageIdx < inMemoryPageCount; pageIdx++)
+            {
+                releaseInMemoryPage(pageIdx);
+            }
         }
+        freeInMemoryPages.clear();
+        freeFilePages.clear();
+        freePages.clear();
         
         if (ioexc != null)
         {
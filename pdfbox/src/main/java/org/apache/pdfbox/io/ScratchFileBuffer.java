@@ -18,6 +18,7 @@ package org.apache.pdfbox.io;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +51,11 @@ class ScratchFileBuffer implements RandomAccess
      * The current page data.
      */
     private byte[] currentPage;
+    /**
+     * <code>true</code> if {@link #currentPage} is owned by this buffer and can be reused for
+     * another page, i.e. the page handler copies the page content instead of storing the array.
+     */
+    private boolean currentPageReusable = false;
     /**
      * The current position (for next read/write) of the buffer as an offset in the current page.
      */
@@ -129,10 +135,45 @@ class ScratchFileBuffer implements RandomAccess
         currentPagePositionInPageIndexes = pageCount;
         currentPageOffset = ((long)pageCount) * pageSize; 
         pageCount++;
-        currentPage = new byte[pageSize];
+        if (currentPageReusable && pageHandler.isPageCopied(newPageIdx))
+        {
+            Arrays.fill(currentPage, (byte) 0);
+        }
+        else
+        {
+            currentPage = new byte[pageSize];
+            currentPageReusable = pageHandler.isPageCopied(newPageIdx);
+        }
         positionInPage = 0;
     }
     
+    /**
+     * Makes the page with the given index the current page. If the page handler copies the page
+     * content, the array of the current page is reused if possible. The current page must have
+     * been written before if it was changed.
+     * 
+     * @param pageIdx the index of the page as known by the page handler
+     * 
+     * @throws IOException if reading the page fails
+     */
+    private void loadPage(int pageIdx) throws IOException
+    {
+        if (pageHandler.isPageCopied(pageIdx))
+        {
+            if (!currentPageReusable)
+            {
+                currentPage = new byte[pageSize];
+                currentPageReusable = true;
+            }
+            pageHandler.readPage(pageIdx, currentPage);
+        }
+        else
+        {
+            currentPage = pageHandler.readPage(pageIdx);
+            currentPageReusable = false;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -174,7 +215,7 @@ class ScratchFileBuffer implements RandomAccess
             if (currentPagePositionInPageIndexes+1 < pageCount)
             {
                 // we already have more pages assigned (there was a backward seek before)
-                currentPage = pageHandler.readPage(pageIndexes[++currentPagePositionInPageIndexes]);
+                loadPage(pageIndexes[++currentPagePositionInPageIndexes]);
                 currentPageOffset = ((long)currentPagePositionInPageIndexes) * pageSize;
                 positionInPage = 0;
             }
@@ -267,7 +308,7 @@ class ScratchFileBuffer implements RandomAccess
         // change to first page if we are not already there
         if (currentPagePositionInPageIndexes > 0)
         {
-            currentPage = pageHandler.readPage(pageIndexes[0]);
+            loadPage(pageIndexes[0]);
             currentPagePositionInPageIndexes = 0;
             currentPageOffset = 0;
         }
@@ -325,7 +366,7 @@ class ScratchFileBuffer implements RandomAccess
             
             int newPagePosition = (int) (seekToPosition / pageSize);
             
-            currentPage = pageHandler.readPage(pageIndexes[newPagePosition]);
+            loadPage(pageIndexes[newPagePosition]);
             currentPagePositionInPageIndexes = newPagePosition;
             currentPageOffset = ((long)currentPagePositionInPageIndexes) * pageSize;
             positionInPage = (int) (seekToPosition - currentPageOffset);
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.io.RandomAccessMemoryMappedFile;
+import org.apache.pdfbox.io.RandomAccessRead;
+
+/**
+ * Finds the markers the brute force search of a damaged file looks for, in a single pass over the
+ * file. The file is split into chunks which are scanned in parallel; each chunk is read with a few
+ * extra bytes, so that a marker which starts in a chunk is found even if it ends in the next one.
+ * The chunks of a memory mapped file are read by the scanning threads, the chunks of other files
+ * are read one after the other as they can't be read concurrently.
+ *
+ * <p>Only the positions of the markers are collected, the parser checks the bytes around them.
+ */
+final class BruteForceScanner
+{
+    /**
+     * The " obj" marker of an indirect object.
+     */
+    static final int OBJ = 0;
+
+    /**
+     * The "xref" marker of a cross-reference table.
+     */
+    static final int XREF_TABLE = 1;
+
+    /**
+     * The "/XRef" marker of a cross-reference stream.
+     */
+    static final int XREF_STREAM = 2;
+
+    private static final byte[][] MARKERS = {
+        { ' ', 'o', 'b', 'j' },
+        { 'x', 'r', 'e', 'f' },
+        { '/', 'X', 'R', 'e', 'f' } };
+
+    // the longest marker minus one
+    private static final int OVERLAP = 4;
+
+    private static final int CHUNK_SIZE = 1 << 22;
+
+    private final long[][] offsets;
+
+    private BruteForceScanner(long[][] offsets)
+    {
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the ascending positions of the given marker.
+     *
+     * @param marker one of {@link #OBJ}, {@link #XREF_TABLE} and {@link #XREF_STREAM}
+     * @return the positions of the first byte of the marker
+     */
+    long[] getOffsets(int marker)
+    {
+        return offsets[marker];
+    }
+
+    /**
+     * Scans the given source from the given position to its end. The position of the source is
+     * changed.
+     *
+     * @param source the source to scan
+     * @param start the position to start at
+     * @param threads the number of threads to scan with
+     * @param sharedExecutor the executor to scan with, null to start new threads if more than one
+     * is used. It isn't shut down.
+     * @return the positions of the markers
+     * @throws IOException if the source couldn't be read
+     */
+    static BruteForceScanner scan(final RandomAccessRead source, long start, int threads,
+            ExecutorService sharedExecutor) throws IOException
+    {
+        long length = source.length();
+        int chunkCount = (int) Math.max(0, (length - start + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        threads = Math.max(1, Math.min(threads, chunkCount));
+        final boolean concurrentReads = source instanceof RandomAccessMemoryMappedFile;
+
+        List<long[][]> results = new ArrayList<long[][]>(chunkCount);
+        ExecutorService executor = null;
+        if (threads > 1)
+        {
+            executor = sharedExecutor != null ? sharedExecutor
+                    : Executors.newFixedThreadPool(threads);
+        }
+        try
+        {
+            // scan a batch of chunks at a time, so that no more than one chunk per thread is read
+            for (int batchStart = 0; batchStart < chunkCount; batchStart += threads)
+            {
+                int batchEnd = Math.min(chunkCount, batchStart + threads);
+                List<Future<long[][]>> futures = new ArrayList<Future<long[][]>>(threads);
+                for (int chunk = batchStart; chunk < batchEnd; chunk++)
+                {
+                    final long chunkStart = start + (long) chunk * CHUNK_SIZE;
+                    final int size = (int) Math.min(CHUNK_SIZE, length - chunkStart);
+                    final int extra = (int) Math.min(OVERLAP, length - chunkStart - size);
+                    final byte[] data = concurrentReads && executor != null
+                            ? null : readChunk(source, chunkStart, size + extra);
+                    Callable<long[][]> task = new Callable<long[][]>()
+                    {
+                        @Override
+                        public long[][] call() throws IOException
+                        {
+                            byte[] bytes = data;
+                            if (bytes == null)
+                            {
+                                bytes = readChunk((RandomAccessMemoryMappedFile) source,
+                                        chunkStart, size + extra);
+                            }
+                            return scanChunk(bytes, size, chunkStart);
+                        }
+                    };
+                    if (executor == null)
+                    {
+                        results.add(call(task));
+                    }
+                    else
+                    {
+                        futures.add(executor.submit(task));
+                    }
+                }
+                for (Future<long[][]> future : futures)
+                {
+                    results.add(get(future));
+                }
+            }
+        }
+        finally
+        {
+            if (executor != null && executor != sharedExecutor)
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        // the chunks are in order, so the merged positions are ascending
+        long[][] offsets = new long[MARKERS.length][];
+        for (int marker = 0; marker < MARKERS.length; marker++)
+        {
+            int count = 0;
+            for (long[][] result : results)
+            {
+                count += result[marker].length;
+            }
+            offsets[marker] = new long[count];
+            count = 0;
+            for (long[][] result : results)
+            {
+                System.arraycopy(result[marker], 0, offsets[marker], count, result[marker].length);
+                count += result[marker].length;
+            }
+        }
+        return new BruteForceScanner(offsets);
+    }
+
+    /**
+     * Finds the markers which start in the first <code>size</code> bytes of the given data.
+     */
+    private static long[][] scanChunk(byte[] data, int size, long chunkStart)
+    {
+        long[][] found = new long[MARKERS.length][16];
+        int[] counts = new int[MARKERS.length];
+        int end = Math.min(size, data.length);
+        for (int i = 0; i < end; i++)
+        {
+            int marker;
+            switch (data[i])
+            {
+                case ' ':
+                    marker = OBJ;
+                    break;
+                case 'x':
+                    marker = XREF_TABLE;
+                    break;
+                case '/':
+                    marker = XREF_STREAM;
+                    break;
+                default:
+                    continue;
+            }
+            if (matches(data, i, MARKERS[marker]))
+            {
+                if (counts[marker] == found[marker].length)
+                {
+                    found[marker] = Arrays.copyOf(found[marker], counts[marker] * 2);
+                }
+                found[marker][counts[marker]++] = chunkStart + i;
+            }
+        }
+        for (int marker = 0; marker < MARKERS.length; marker++)
+        {
+            found[marker] = Arrays.copyOf(found[marker], counts[marker]);
+        }
+        return found;
+    }
+
+    private static boolean matches(byte[] data, int offset, byte[] marker)
+    {
+        if (offset + marker.length > data.length)
+        {
+            return false;
+        }
+        for (int i = 1; i < marker.length; i++)
+        {
+            if (data[offset + i] != marker[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] readChunk(RandomAccessRead source, long position, int length)
+            throws IOException
+    {
+        byte[] data = new byte[length];
+        source.seek(position);
+        int count = 0;
+        while (count < length)
+        {
+            int n = source.read(data, count, length - count);
+            if (n < 0)
+            {
+                break;
+            }
+            count += n;
+        }
+        return count < length ? Arrays.copyOf(data, count) : data;
+    }
+
+    private static byte[] readChunk(RandomAccessMemoryMappedFile source, long position, int length)
+            throws IOException
+    {
+        byte[] data = new byte[length];
+        int count = 0;
+        while (count < length)
+        {
+            int n = source.read(position + count, data, count, length - count);
+            if (n < 0)
+            {
+                break;
+            }
+            count += n;
+        }
+        return count < length ? Arrays.copyOf(data, count) : data;
+    }
+
+    private static long[][] call(Callable<long[][]> task) throws IOException
+    {
+        try
+        {
+            return task.call();
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    private static long[][] get(Future<long[][]> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning the file");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A SequentialSource backed by a byte array. The array and the position are accessible within the
+ * package, so that {@link PDFStreamParser} can tokenize the data without going through the
+ * interface for every byte. As with {@link RandomAccessSource}, unreading a byte simply moves the
+ * position back.
+ */
+final class ByteArraySource implements SequentialSource
+{
+    final byte[] data;
+    final int length;
+    int position;
+
+    /**
+     * Constructor.
+     *
+     * @param data The bytes to read, they are not copied.
+     */
+    ByteArraySource(byte[] data)
+    {
+        this.data = data;
+        this.length = data.length;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (position >= length)
+        {
+            return -1;
+        }
+        return data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int len) throws IOException
+    {
+        if (position >= length)
+        {
+            return -1;
+        }
+        int n = Math.min(len, length - position);
+        System.arraycopy(data, position, b, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        return position;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        if (position >= length)
+        {
+            return -1;
+        }
+        return data[position] & 0xff;
+    }
+
+    @Override
+    public void unread(int b) throws IOException
+    {
+        position--;
+    }
+
+    @Override
+    public void unread(byte[] bytes) throws IOException
+    {
+        position -= bytes.length;
+    }
+
+    @Override
+    public byte[] readFully(int len) throws IOException
+    {
+        if (len > length - position)
+        {
+            throw new EOFException("Premature end of buffer reached");
+        }
+        byte[] bytes = new byte[len];
+        System.arraycopy(data, position, bytes, 0, len);
+        position += len;
+        return bytes;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        return position >= length;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        // nothing to do
+    }
+}
@@ -16,7 +16,9 @@
  */
 package org.apache.pdfbox.pdfparser;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,6 +26,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +36,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSArray;
@@ -44,6 +49,8 @@ import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSObjectKey;
 import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.ICOSParser;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.pdfparser.XrefTrailerResolver.XRefType;
 import org.apache.pdfbox.pdmodel.encryption.SecurityHandler;
@@ -60,7 +67,7 @@ import static org.apache.pdfbox.util.Charsets.ISO_8859_1;
  * This class is a much enhanced version of <code>QuickParser</code> presented in <a
  * href="https://issues.apache.org/jira/browse/PDFBOX-1104">PDFBOX-1104</a> by Jeremy Villalobos.
  */
-public class COSParser extends BaseParser
+public class COSParser extends BaseParser implements ICOSParser
 {
     private static final String PDF_HEADER = "%PDF-";
     private static final String FDF_HEADER = "%FDF-";
@@ -69,7 +76,6 @@ public class COSParser extends BaseParser
     private static final String FDF_DEFAULT_VERSION = "1.0";
 
     private static final char[] XREF_TABLE = new char[] { 'x', 'r', 'e', 'f' };
-    private static final char[] XREF_STREAM = new char[] { '/', 'X', 'R', 'e', 'f' };
     private static final char[] STARTXREF = new char[] { 's','t','a','r','t','x','r','e','f' };
 
     private static final byte[] ENDSTREAM = new byte[] { E, N, D, S, T, R, E, A, M };
@@ -123,6 +129,42 @@ public class COSParser extends BaseParser
      */
     private boolean isLenient = true;
 
+    /**
+     * The maximum number of objects parsed on demand which are kept, 0 for no limit, -1 if all
+     * objects are parsed when loading.
+     */
+    private int maxParsedObjects = -1;
+
+    /**
+     * Serializes the parsing on demand, which may be requested by several threads.
+     */
+    private final Object onDemandLock = new Object();
+
+    /**
+     * The nesting depth of the current parsing on demand, 0 if none is going on.
+     */
+    private int onDemandDepth = 0;
+
+    /**
+     * The objects which have been parsed on demand and may be dropped again, oldest first.
+     */
+    private final Map<COSObjectKey, COSObject> parsedOnDemand =
+            new LinkedHashMap<COSObjectKey, COSObject>();
+
+    /**
+     * The offsets of the objects in the object streams, by the object number of the stream.
+     */
+    private final Map<Long, ObjectStreamIndex> objectStreamIndexes =
+            new HashMap<Long, ObjectStreamIndex>();
+
+    /**
+     * The decoded data of the most recently used object streams, in the order of their use.
+     */
+    private final LinkedHashMap<Long, byte[]> objectStreamData =
+            new LinkedHashMap<Long, byte[]>(16, 0.75f, true);
+    private long objectStreamDataBytes = 0;
+    private long maxObjectStreamCacheBytes = 0;
+
     protected boolean initialParseDone = false;
     /**
      * Contains all found objects of a brute force search.
@@ -131,6 +173,22 @@ public class COSParser extends BaseParser
     private List<Long> bfSearchXRefTablesOffsets = null;
     private List<Long> bfSearchXRefStreamsOffsets = null;
 
+    /**
+     * The positions of the markers found by the single pass over the file all brute force
+     * searches share.
+     */
+    private BruteForceScanner bfScanner = null;
+
+    /**
+     * The number of threads the brute force search scans the file with.
+     */
+    private int bruteForceSearchThreads = 1;
+
+    /**
+     * The executor the brute force search scans the file with, null to start its own threads.
+     */
+    private ExecutorService bruteForceSearchExecutor = null;
+
     /**
      * The security handler.
      */
@@ -474,6 +532,187 @@ public class COSParser extends BaseParser
         this.isLenient = lenient;
     }
 
+    /**
+     * Returns the maximum number of objects which are kept parsed.
+     *
+     * @return the maximum number of parsed objects, 0 for no limit, or -1 if all objects are
+     * parsed when loading
+     */
+    public int getMaxParsedObjects()
+    {
+        return maxParsedObjects;
+    }
+
+    /**
+     * Sets the maximum number of objects which are kept parsed. If this is -1 (the default), the
+     * whole document is parsed when loading. Otherwise the objects are parsed when they are first
+     * needed, and if there are more than the given number of them, the objects parsed first are
+     * dropped again and parsed once more when they are needed the next time. Streams, objects
+     * which have been changed since they were parsed and objects which are still in use elsewhere
+     * are never dropped.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param maxParsedObjects the maximum number of parsed objects, 0 for no limit, or -1 to
+     * parse all objects when loading
+     */
+    public void setMaxParsedObjects(int maxParsedObjects)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change the parsing mode after parsing");
+        }
+        this.maxParsedObjects = maxParsedObjects < 0 ? -1 : maxParsedObjects;
+    }
+
+    /**
+     * Returns the number of threads a damaged file is scanned with for its objects and
+     * cross-reference sections.
+     *
+     * @return the number of threads
+     */
+    public int getBruteForceSearchThreads()
+    {
+        return bruteForceSearchThreads;
+    }
+
+    /**
+     * Sets the number of threads a damaged file is scanned with for its objects and
+     * cross-reference sections, i.e. if the cross-reference information is broken and the parser
+     * is lenient. The file is read once and split into chunks which are scanned in parallel; the
+     * chunks of a memory mapped file are also read in parallel. The default is 1, i.e. the file
+     * is scanned within the parsing thread; more threads are only started for a damaged file and
+     * stopped when the scan is done.
+     *
+     * @param threads the number of threads, 1 to scan within the parsing thread
+     */
+    public void setBruteForceSearchThreads(int threads)
+    {
+        this.bruteForceSearchThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Returns the executor a damaged file is scanned with.
+     *
+     * @return the executor, or null if the parser starts its own threads
+     */
+    public ExecutorService getBruteForceSearchExecutor()
+    {
+        return bruteForceSearchExecutor;
+    }
+
+    /**
+     * Sets the executor a damaged file is scanned with instead of starting new threads. The
+     * number of chunks which are scanned at a time is still given by
+     * {@link #setBruteForceSearchThreads(int)}. The executor isn't shut down by the parser.
+     *
+     * @param executor the executor, null to start new threads if more than one is used
+     */
+    public void setBruteForceSearchExecutor(ExecutorService executor)
+    {
+        this.bruteForceSearchExecutor = executor;
+    }
+
+    /**
+     * Returns the maximum number of bytes of decoded object stream data which are kept.
+     *
+     * @return the maximum number of bytes, 0 if the data isn't kept
+     */
+    public long getMaxObjectStreamCacheBytes()
+    {
+        return maxObjectStreamCacheBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes of decoded object stream data which are kept, when the
+     * objects are parsed on demand, see {@link #setMaxParsedObjects(int)}. An object in an
+     * object stream is then parsed from the kept data instead of decoding the stream up to the
+     * object once more. The least recently used data is dropped first.
+     *
+     * @param maxObjectStreamCacheBytes the maximum number of bytes, 0 to not keep the data
+     */
+    public void setMaxObjectStreamCacheBytes(long maxObjectStreamCacheBytes)
+    {
+        this.maxObjectStreamCacheBytes = Math.max(0, maxObjectStreamCacheBytes);
+    }
+
+    /**
+     * Returns true if the objects are parsed when they are needed rather than when loading.
+     *
+     * @return true if the objects are parsed on demand
+     */
+    protected boolean isParsingOnDemand()
+    {
+        return maxParsedObjects >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public COSBase dereferenceCOSObject(COSObject obj) throws IOException
+    {
+        synchronized (onDemandLock)
+        {
+            if (!obj.isObjectNull())
+            {
+                // parsed by another thread in the meantime
+                return obj.getObject();
+            }
+            // keep the current position, this may be called in the middle of parsing
+            final long currentPosition = source.getPosition();
+            onDemandDepth++;
+            try
+            {
+                return parseObjectDynamically(obj, false);
+            }
+            finally
+            {
+                onDemandDepth--;
+                source.seek(currentPosition);
+                if (onDemandDepth == 0)
+                {
+                    dropParsedObjects();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remembers an object which has been parsed on demand, or whose dropped value has been
+     * restored, so that it can be dropped again.
+     */
+    private void registerParsedObject(COSObjectKey key, COSObject object, boolean parsed)
+    {
+        if (onDemandDepth > 0 && maxParsedObjects > 0 && !(object.getObject() instanceof COSStream))
+        {
+            // the data of a stream is kept in the scratch file anyway, parsing it again would
+            // only copy it once more
+            if (parsed)
+            {
+                object.markAsParsed();
+            }
+            parsedOnDemand.remove(key);
+            parsedOnDemand.put(key, object);
+        }
+    }
+
+    /**
+     * Drops the objects which have been parsed first, until no more than the maximum number of
+     * parsed objects are left. Objects which have been changed since they were parsed are kept,
+     * see {@link COSObject#dropObject()}.
+     */
+    private void dropParsedObjects()
+    {
+        Iterator<COSObject> iterator = parsedOnDemand.values().iterator();
+        while (parsedOnDemand.size() > maxParsedObjects && iterator.hasNext())
+        {
+            COSObject object = iterator.next();
+            iterator.remove();
+            object.dropObject();
+        }
+    }
+
     /**
      * Creates a unique object id using object number and object generation
      * number. (requires object number &lt; 2^31))
@@ -679,7 +918,13 @@ public class COSParser extends BaseParser
         final COSObjectKey objKey = new COSObjectKey(objNr, objGenNr);
         final COSObject pdfObject = document.getObjectFromPool(objKey);
 
-        if (pdfObject.getObject() == null)
+        // don't use getObject(), which would parse the object on demand
+        if (pdfObject.isObjectNull() && pdfObject.restoreDroppedObject() != null)
+        {
+            // dropped, but still in use elsewhere, where it may have been changed
+            registerParsedObject(objKey, pdfObject, false);
+        }
+        if (pdfObject.isObjectNull())
         {
             // not previously parsed
             // ---- read offset or object stream object number from xref table
@@ -724,15 +969,20 @@ public class COSParser extends BaseParser
             {
                 // offset of indirect object in file
                 parseFileObject(offsetOrObjstmObNr, objKey, pdfObject);
+                registerParsedObject(objKey, pdfObject, true);
             }
             else
             {
                 // xref value is object nr of object stream containing object to be parsed
                 // since our object was not found it means object stream was not parsed so far
-                parseObjectStream((int) -offsetOrObjstmObNr);
+                if (!isParsingOnDemand()
+                        || !parseObjectOfObjectStream(-offsetOrObjstmObNr, objKey, pdfObject))
+                {
+                    parseObjectStream((int) -offsetOrObjstmObNr);
+                }
             }
         }
-        return pdfObject.getObject();
+        return pdfObject.isObjectNull() ? null : pdfObject.getObject();
     }
 
     private void parseFileObject(Long offsetOrObjstmObNr, final COSObjectKey objKey, final COSObject pdfObject) throws IOException
@@ -817,6 +1067,133 @@ public class COSParser extends BaseParser
         }
     }
 
+    /**
+     * Parses a single object of an object stream, using the offset in the header of the stream
+     * rather than parsing all objects in front of it.
+     *
+     * @return true if the object has been parsed, false if the whole stream has to be parsed
+     */
+    private boolean parseObjectOfObjectStream(long objstmObjNr, COSObjectKey objKey,
+            COSObject pdfObject) throws IOException
+    {
+        final COSBase objstmBaseObj = parseObjectDynamically(objstmObjNr, 0, true);
+        if (!(objstmBaseObj instanceof COSStream))
+        {
+            return false;
+        }
+        COSStream objstm = (COSStream) objstmBaseObj;
+        COSBase object;
+        try
+        {
+            ObjectStreamIndex index = objectStreamIndexes.get(objstmObjNr);
+            if (index == null)
+            {
+                index = new PDFObjectStreamParser(objstm, document).parseIndex();
+                objectStreamIndexes.put(objstmObjNr, index);
+            }
+            int offset = index.getOffset(objKey.getNumber());
+            if (offset < 0)
+            {
+                return false;
+            }
+            InputStream input;
+            byte[] data = getObjectStreamData(objstmObjNr, objstm);
+            if (data != null)
+            {
+                input = new ByteArrayInputStream(data, offset, Math.max(0, data.length - offset));
+            }
+            else
+            {
+                // only decode the data up to the object
+                input = objstm.createInputStream();
+                if (skipFully(input, offset) < offset)
+                {
+                    input.close();
+                    return false;
+                }
+            }
+            object = new PDFObjectStreamParser(input, document).parseObject();
+        }
+        catch (IOException exception)
+        {
+            if (isLenient)
+            {
+                LOG.debug("Can't parse object " + objKey + " of object stream " + objstmObjNr
+                        + " by its offset, parsing the whole stream", exception);
+                return false;
+            }
+            throw exception;
+        }
+        if (object == null)
+        {
+            return false;
+        }
+        pdfObject.setObject(object);
+        registerParsedObject(objKey, pdfObject, true);
+        return true;
+    }
+
+    /**
+     * Returns the decoded data of the given object stream if it is to be kept, decoding it if
+     * it isn't kept yet.
+     *
+     * @return the decoded data, or null if it isn't to be kept
+     */
+    private byte[] getObjectStreamData(long objstmObjNr, COSStream objstm) throws IOException
+    {
+        if (maxObjectStreamCacheBytes <= 0)
+        {
+            return null;
+        }
+        byte[] data = objectStreamData.get(objstmObjNr);
+        if (data == null)
+        {
+            InputStream input = objstm.createInputStream();
+            try
+            {
+                data = IOUtils.toByteArray(input);
+            }
+            finally
+            {
+                input.close();
+            }
+            if (data.length > maxObjectStreamCacheBytes)
+            {
+                // don't evict everything else for it
+                return data;
+            }
+            objectStreamData.put(objstmObjNr, data);
+            objectStreamDataBytes += data.length;
+            Iterator<byte[]> iterator = objectStreamData.values().iterator();
+            while (objectStreamDataBytes > maxObjectStreamCacheBytes && iterator.hasNext())
+            {
+                objectStreamDataBytes -= iterator.next().length;
+                iterator.remove();
+            }
+        }
+        return data;
+    }
+
+    private static long skipFully(InputStream input, long count) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < count)
+        {
+            long n = input.skip(count - skipped);
+            if (n <= 0)
+            {
+                // skip() may return 0 before the end, read() tells the end apart
+                if (input.read() == -1)
+                {
+                    break;
+                }
+                n = 1;
+            }
+            skipped += n;
+        }
+        return skipped;
+    }
+
     private void parseObjectStream(int objstmObjNr) throws IOException
     {
         final COSBase objstmBaseObj = parseObjectDynamically(objstmObjNr, 0, true);
@@ -849,7 +1226,18 @@ public class COSParser extends BaseParser
                 if (offset != null && offset == -objstmObjNr)
                 {
                     COSObject stmObj = document.getObjectFromPool(stmObjKey);
-                    stmObj.setObject(next.getObject());
+                    if (isParsingOnDemand() && stmObj.isObjectNull()
+                            && stmObj.restoreDroppedObject() != null)
+                    {
+                        // dropped, but still in use elsewhere
+                        registerParsedObject(stmObjKey, stmObj, false);
+                    }
+                    else if (!isParsingOnDemand() || stmObj.isObjectNull())
+                    {
+                        // when parsing on demand, don't replace objects which are in use
+                        stmObj.setObject(next.getObject());
+                        registerParsedObject(stmObjKey, stmObj, true);
+                    }
                 }
             }
         }
@@ -874,7 +1262,7 @@ public class COSParser extends BaseParser
         else if (lengthBaseObj instanceof COSObject)
         {
             COSObject lengthObj = (COSObject) lengthBaseObj;
-            if (lengthObj.getObject() == null)
+            if (lengthObj.isObjectNull())
             {
                 // not read so far, keep current stream position
                 final long curFileOffset = source.getPosition();
@@ -882,7 +1270,7 @@ public class COSParser extends BaseParser
                 parseObjectDynamically(lengthObj, isObjectStream);
                 // reset current stream position
                 source.seek(curFileOffset);
-                if (lengthObj.getObject() == null)
+                if (lengthObj.isObjectNull())
                 {
                     throw new IOException("Length object content was not read.");
                 }
@@ -1401,66 +1789,76 @@ public class COSParser extends BaseParser
         {
             bfSearchCOSObjectKeyOffsets = new HashMap<COSObjectKey, Long>();
             long originOffset = source.getPosition();
-            long currentOffset = MINIMUM_SEARCH_OFFSET;
-            String objString = " obj";
-            char[] string = objString.toCharArray();
-            do
-            {
-                source.seek(currentOffset);
-                if (isString(string))
+            // the positions of " obj", the bytes in front of it are checked here
+            for (long currentOffset : bfScan().getOffsets(BruteForceScanner.OBJ))
+            {
+                long tempOffset = currentOffset - 1;
+                source.seek(tempOffset);
+                int genID = source.peek();
+                // is the next char a digit?
+                if (isDigit(genID))
                 {
-                    long tempOffset = currentOffset - 1;
+                    genID -= 48;
+                    tempOffset--;
                     source.seek(tempOffset);
-                    int genID = source.peek();
-                    // is the next char a digit?
-                    if (isDigit(genID))
+                    if (isSpace())
                     {
-                        genID -= 48;
-                        tempOffset--;
-                        source.seek(tempOffset);
-                        if (isSpace())
+                        while (tempOffset > MINIMUM_SEARCH_OFFSET && isSpace())
+                        {
+                            source.seek(--tempOffset);
+                        }
+                        int length = 0;
+                        while (tempOffset > MINIMUM_SEARCH_OFFSET && isDigit())
+                        {
+                            source.seek(--tempOffset);
+                            length++;
+                        }
+                        if (length > 0)
                         {
-                            while (tempOffset > MINIMUM_SEARCH_OFFSET && isSpace())
+                            source.read();
+                            byte[] objIDBytes = source.readFully(length);
+                            String objIdString = new String(objIDBytes, 0,
+                                    objIDBytes.length, ISO_8859_1);
+                            Long objectID;
+                            try
                             {
-                                source.seek(--tempOffset);
+                                objectID = Long.valueOf(objIdString);
                             }
-                            int length = 0;
-                            while (tempOffset > MINIMUM_SEARCH_OFFSET && isDigit())
+                            catch (NumberFormatException exception)
                             {
-                                source.seek(--tempOffset);
-                                length++;
+                                objectID = null;
                             }
-                            if (length > 0)
+                            if (objectID != null)
                             {
-                                source.read();
-                                byte[] objIDBytes = source.readFully(length);
-                                String objIdString = new String(objIDBytes, 0,
-                                        objIDBytes.length, ISO_8859_1);
-                                Long objectID;
-                                try
-                                {
-                                    objectID = Long.valueOf(objIdString);
-                                }
-                                catch (NumberFormatException exception)
-                                {
-                                    objectID = null;
-                                }
-                                if (objectID != null)
-                                {
-                                    bfSearchCOSObjectKeyOffsets.put(new COSObjectKey(objectID, genID), tempOffset+1);
-                                }
+                                bfSearchCOSObjectKeyOffsets.put(new COSObjectKey(objectID, genID), tempOffset+1);
                             }
                         }
                     }
                 }
-                currentOffset++;
             }
-            while (!source.isEOF());
             // reestablish origin position
             source.seek(originOffset);
         }
     }
 
+    /**
+     * Scans the whole file for the markers of the brute force searches, once for all of them.
+     *
+     * @return the positions of the markers
+     * @throws IOException if something went wrong
+     */
+    private BruteForceScanner bfScan() throws IOException
+    {
+        if (bfScanner == null)
+        {
+            long originOffset = source.getPosition();
+            bfScanner = BruteForceScanner.scan(source, MINIMUM_SEARCH_OFFSET,
+                    bruteForceSearchThreads, bruteForceSearchExecutor);
+            source.seek(originOffset);
+        }
+        return bfScanner;
+    }
+
     /**
      * Search for the offset of the given xref table/stream among those found by a brute force search.
      * 
@@ -1553,22 +1951,22 @@ public class COSParser extends BaseParser
             // a pdf may contain more than one xref entry
             bfSearchXRefTablesOffsets = new Vector<Long>();
             long originOffset = source.getPosition();
-            source.seek(MINIMUM_SEARCH_OFFSET);
             // search for xref tables
-            while (!source.isEOF())
+            long lastOffset = -1;
+            for (long newOffset : bfScan().getOffsets(BruteForceScanner.XREF_TABLE))
             {
-                if (isString(XREF_TABLE))
+                // the bytes of a found "xref" aren't searched again
+                if (lastOffset > -1 && newOffset < lastOffset + 5)
                 {
-                    long newOffset = source.getPosition();
-                    source.seek(newOffset - 1);
-                    // ensure that we don't read "startxref" instead of "xref"
-                    if (isWhitespace())
-                    {
-                        bfSearchXRefTablesOffsets.add(newOffset);
-                    }
-                    source.seek(newOffset + 4);
+                    continue;
+                }
+                lastOffset = newOffset;
+                source.seek(newOffset - 1);
+                // ensure that we don't read "startxref" instead of "xref"
+                if (isWhitespace())
+                {
+                    bfSearchXRefTablesOffsets.add(newOffset);
                 }
-                source.read();
             }
             source.seek(originOffset);
         }
@@ -1586,73 +1984,73 @@ public class COSParser extends BaseParser
             // a pdf may contain more than one /XRef entry
             bfSearchXRefStreamsOffsets = new Vector<Long>();
             long originOffset = source.getPosition();
-            source.seek(MINIMUM_SEARCH_OFFSET);
             // search for XRef streams
             String objString = " obj";
             char[] string = objString.toCharArray();
-            while (!source.isEOF())
+            long lastOffset = -1;
+            for (long xrefOffset : bfScan().getOffsets(BruteForceScanner.XREF_STREAM))
             {
-                if (isString(XREF_STREAM))
+                // the bytes of a found "/XRef" aren't searched again
+                if (lastOffset > -1 && xrefOffset < lastOffset + 6)
                 {
-                    // search backwards for the beginning of the stream
-                    long newOffset = -1;
-                    long xrefOffset = source.getPosition();
-                    boolean objFound = false;
-                    for (int i = 1; i < 30 && !objFound; i++)
+                    continue;
+                }
+                lastOffset = xrefOffset;
+                // search backwards for the beginning of the stream
+                long newOffset = -1;
+                boolean objFound = false;
+                for (int i = 1; i < 30 && !objFound; i++)
+                {
+                    long currentOffset = xrefOffset - (i * 10);
+                    if (currentOffset > 0)
                     {
-                        long currentOffset = xrefOffset - (i * 10);
-                        if (currentOffset > 0)
+                        source.seek(currentOffset);
+                        for (int j = 0; j < 10; j++)
                         {
-                            source.seek(currentOffset);
-                            for (int j = 0; j < 10; j++)
+                            if (isString(string))
                             {
-                                if (isString(string))
+                                long tempOffset = currentOffset - 1;
+                                source.seek(tempOffset);
+                                int genID = source.peek();
+                                // is the next char a digit?
+                                if (isDigit(genID))
                                 {
-                                    long tempOffset = currentOffset - 1;
+                                    genID -= 48;
+                                    tempOffset--;
                                     source.seek(tempOffset);
-                                    int genID = source.peek();
-                                    // is the next char a digit?
-                                    if (isDigit(genID))
+                                    if (isSpace())
                                     {
-                                        genID -= 48;
-                                        tempOffset--;
-                                        source.seek(tempOffset);
-                                        if (isSpace())
+                                        int length = 0;
+                                        source.seek(--tempOffset);
+                                        while (tempOffset > MINIMUM_SEARCH_OFFSET && isDigit())
                                         {
-                                            int length = 0;
                                             source.seek(--tempOffset);
-                                            while (tempOffset > MINIMUM_SEARCH_OFFSET && isDigit())
-                                            {
-                                                source.seek(--tempOffset);
-                                                length++;
-                                            }
-                                            if (length > 0)
-                                            {
-                                                source.read();
-                                                newOffset = source.getPosition();
-                                            }
+                                            length++;
+                                        }
+                                        if (length > 0)
+                                        {
+                                            source.read();
+                                            newOffset = source.getPosition();
                                         }
                                     }
-                                    LOG.debug("Fixed reference for xref stream " + xrefOffset
-                                            + " -> " + newOffset);
-                                    objFound = true;
-                                    break;
-                                }
-                                else
-                                {
-                                    currentOffset++;
-                                    source.read();
                                 }
+                                LOG.debug("Fixed reference for xref stream " + xrefOffset
+                                        + " -> " + newOffset);
+                                objFound = true;
+                                break;
+                            }
+                            else
+                            {
+                                currentOffset++;
+                                source.read();
                             }
                         }
                     }
-                    if (newOffset > -1)
-                    {
-                        bfSearchXRefStreamsOffsets.add(newOffset);
-                    }
-                    source.seek(xrefOffset + 5);
                 }
-                source.read();
+                if (newOffset > -1)
+                {
+                    bfSearchXRefStreamsOffsets.add(newOffset);
+                }
             }
             source.seek(originOffset);
         }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The header of an object stream, i.e. the offset of every object within the decoded stream
+ * data, so that a single object can be parsed without parsing the objects in front of it. The
+ * object numbers are kept sorted in a primitive array, as a stream may contain thousands of
+ * objects.
+ */
+final class ObjectStreamIndex
+{
+    private final long[] objectNumbers;
+    private final int[] offsets;
+
+    /**
+     * Constructor.
+     *
+     * @param objectNumbers the object numbers in the order of the header
+     * @param offsets the offsets of the objects within the decoded stream data, i.e. including
+     * the value of /First
+     * @param count the number of objects
+     */
+    ObjectStreamIndex(final long[] objectNumbers, int[] offsets, int count)
+    {
+        this.objectNumbers = new long[count];
+        this.offsets = new int[count];
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++)
+        {
+            sorted = objectNumbers[i - 1] <= objectNumbers[i];
+        }
+        if (sorted)
+        {
+            // the usual case
+            System.arraycopy(objectNumbers, 0, this.objectNumbers, 0, count);
+            System.arraycopy(offsets, 0, this.offsets, 0, count);
+        }
+        else
+        {
+            // stable, so that the last of duplicate object numbers is found
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++)
+            {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>()
+            {
+                @Override
+                public int compare(Integer i1, Integer i2)
+                {
+                    long n1 = objectNumbers[i1];
+                    long n2 = objectNumbers[i2];
+                    return n1 < n2 ? -1 : (n1 == n2 ? 0 : 1);
+                }
+            });
+            for (int i = 0; i < count; i++)
+            {
+                this.objectNumbers[i] = objectNumbers[order[i]];
+                this.offsets[i] = offsets[order[i]];
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the given object within the decoded stream data. If the header
+     * contains the object number more than once, the last one wins as if all objects were parsed.
+     *
+     * @param objectNumber the object number
+     * @return the offset of the object, or -1 if the stream doesn't contain it
+     */
+    int getOffset(long objectNumber)
+    {
+        int low = 0;
+        int high = objectNumbers.length;
+        // find the first entry which is greater than the object number
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (objectNumbers[mid] <= objectNumber)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        if (low > 0 && objectNumbers[low - 1] == objectNumber)
+        {
+            return offsets[low - 1];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of objects in the stream.
+     */
+    int size()
+    {
+        return objectNumbers.length;
+    }
+}
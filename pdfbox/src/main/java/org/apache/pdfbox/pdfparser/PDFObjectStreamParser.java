@@ -17,13 +17,16 @@
 package org.apache.pdfbox.pdfparser;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSStream;
 
@@ -57,6 +60,19 @@ public class PDFObjectStreamParser extends BaseParser
         this.document = document;
     }
 
+    /**
+     * Constructor for parsing a single object of an object stream, see {@link #parseObject()}.
+     *
+     * @param input the decoded data of the object stream, positioned at the object
+     * @param document The document for the current parsing.
+     */
+    PDFObjectStreamParser(InputStream input, COSDocument document)
+    {
+        super(new InputStreamSource(input));
+        this.stream = null;
+        this.document = document;
+    }
+
     /**
      * This will parse the tokens in the stream.  This will close the
      * stream when it is finished parsing.
@@ -112,6 +128,71 @@ public class PDFObjectStreamParser extends BaseParser
         }
     }
 
+    /**
+     * Reads the object numbers and offsets in the header of the stream without parsing the
+     * objects. This will close the stream when it is finished.
+     *
+     * @return the offsets of the objects
+     * @throws IOException If there is an error while parsing the header.
+     */
+    ObjectStreamIndex parseIndex() throws IOException
+    {
+        try
+        {
+            int numberOfObjects = stream.getInt(COSName.N);
+            int first = stream.getInt(COSName.FIRST);
+            if (numberOfObjects < 0 || first < 0)
+            {
+                throw new IOException("Invalid /N " + numberOfObjects + " or /First " + first
+                        + " of object stream");
+            }
+            // don't trust /N for the size of the arrays
+            long[] objectNumbers = new long[Math.min(numberOfObjects, 1024)];
+            int[] offsets = new int[objectNumbers.length];
+            for (int i = 0; i < numberOfObjects; i++)
+            {
+                if (i == objectNumbers.length)
+                {
+                    int capacity = (int) Math.min(numberOfObjects, 2L * i);
+                    objectNumbers = Arrays.copyOf(objectNumbers, capacity);
+                    offsets = Arrays.copyOf(offsets, capacity);
+                }
+                objectNumbers[i] = readObjectNumber();
+                long offset = readLong();
+                if (offset < 0 || first + offset > Integer.MAX_VALUE)
+                {
+                    throw new IOException("Invalid offset " + offset + " in object stream");
+                }
+                offsets[i] = (int) (first + offset);
+            }
+            return new ObjectStreamIndex(objectNumbers, offsets, numberOfObjects);
+        }
+        finally
+        {
+            seqSource.close();
+        }
+    }
+
+    /**
+     * Parses the object at the position of the data this parser has been created with. This will
+     * close the data when it is finished.
+     *
+     * @return the object, or null if there is none
+     * @throws IOException If there is an error while parsing the object.
+     */
+    COSBase parseObject() throws IOException
+    {
+        try
+        {
+            skipSpaces();
+            return parseDirObject();
+        }
+        finally
+        {
+            seqSource.close();
+        }
+    }
+
     /**
      * This will get the objects that were parsed from the stream.
      *
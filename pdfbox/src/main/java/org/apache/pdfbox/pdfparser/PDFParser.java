@@ -210,7 +210,13 @@ public class PDFParser extends COSParser
             root.setItem(COSName.TYPE, COSName.CATALOG);
         }
         COSObject catalogObj = document.getCatalog();
-        if (catalogObj != null && catalogObj.getObject() instanceof COSDictionary)
+        if (isParsingOnDemand())
+        {
+            // the objects are parsed when they are needed, they're decrypted when being parsed
+            document.setParser(this);
+            document.setDecrypted();
+        }
+        else if (catalogObj != null && catalogObj.getObject() instanceof COSDictionary)
         {
             parseDictObjects((COSDictionary) catalogObj.getObject(), (COSName[]) null);
             
@@ -19,12 +19,15 @@ package org.apache.pdfbox.pdfparser;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSBoolean;
@@ -35,6 +38,7 @@ import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.util.Charsets;
 
 /**
  * This will parse a PDF byte stream and extract operands and such.
@@ -51,6 +55,24 @@ public class PDFStreamParser extends BaseParser
     private final List<Object> streamObjects = new ArrayList<Object>( 100 );
     
     private static final int MAX_BIN_CHAR_TEST_LENGTH = 10;
+
+    // numbers with more digits don't fit into a long and are parsed the slow way
+    private static final int MAX_PRIMITIVE_DIGITS = 18;
+
+    // larger content streams are not read into memory at once
+    private static final int MAX_BUFFERED_LENGTH = 16 * 1024 * 1024;
+
+    // caches shared by all parsers, the entries are immutable so races only cost a cache miss
+    private static final int NAME_CACHE_SIZE = 1024;
+    private static final int OPERATOR_CACHE_SIZE = 256;
+
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+    private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] R = { 'R' };
+    private static final byte[] BI = { 'B', 'I' };
+    private static final CacheEntry[] NAME_CACHE = new CacheEntry[NAME_CACHE_SIZE];
+    private static final CacheEntry[] OPERATOR_CACHE = new CacheEntry[OPERATOR_CACHE_SIZE];
     private final byte[] binCharTestArr = new byte[MAX_BIN_CHAR_TEST_LENGTH];
     
     /**
@@ -82,25 +104,52 @@ public class PDFStreamParser extends BaseParser
     }
 
     /**
-     * Constructor.
+     * Constructor. Content streams of up to {@link #MAX_BUFFERED_LENGTH} bytes are read into
+     * memory so that {@link #parseNextOperator(OperandStack)} can tokenize them directly, larger
+     * ones are parsed while they are read.
      *
      * @param contentStream The content stream to parse.
      * @throws IOException If there is an error initializing the stream.
      */
     public PDFStreamParser(PDContentStream contentStream) throws IOException
     {
-        super(new InputStreamSource(contentStream.getContents()));
+        super(createSource(contentStream));
     }
     
     /**
      * Constructor.
      *
-     * @param bytes the bytes to parse.
+     * @param bytes the bytes to parse, they are not copied.
      * @throws IOException If there is an error initializing the stream.
      */
     public PDFStreamParser(byte[] bytes) throws IOException
     {
-        super(new InputStreamSource(new ByteArrayInputStream(bytes)));
+        super(new ByteArraySource(bytes));
+    }
+
+    private static SequentialSource createSource(PDContentStream contentStream)
+            throws IOException
+    {
+        InputStream input = contentStream.getContents();
+        if (input == null)
+        {
+            return new ByteArraySource(new byte[0]);
+        }
+        ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = input.read(buffer)) != -1)
+        {
+            buffered.write(buffer, 0, n);
+            if (buffered.size() > MAX_BUFFERED_LENGTH)
+            {
+                // continue with the rest of the stream instead of holding all of it
+                InputStream head = new ByteArrayInputStream(buffered.toByteArray());
+                return new InputStreamSource(new SequenceInputStream(head, input));
+            }
+        }
+        input.close();
+        return new ByteArraySource(buffered.toByteArray());
     }
 
     /**
@@ -348,6 +397,335 @@ public class PDFStreamParser extends BaseParser
         return retval;
     }
 
+    /**
+     * Parses the operands of the next operator onto the given stack and returns the operator. This
+     * gives the same operands as {@link #parseNextToken()}, but numbers and names are read without
+     * creating any objects, which makes a difference for content streams with millions of path
+     * operators.
+     *
+     * @param operands the stack to push the operands to, it is not cleared
+     * @return the next operator, or null if there are no more operators in the stream
+     * @throws IOException If an io error occurs while parsing the stream.
+     */
+    public Operator parseNextOperator(OperandStack operands) throws IOException
+    {
+        if (!(seqSource instanceof ByteArraySource))
+        {
+            return parseNextOperatorFromTokens(operands);
+        }
+        ByteArraySource source = (ByteArraySource) seqSource;
+        byte[] data = source.data;
+        while (true)
+        {
+            skipSpaces();
+            int start = source.position;
+            if (start >= source.length)
+            {
+                return null;
+            }
+            int c = data[start] & 0xff;
+            if (c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.')
+            {
+                readNumber(source, operands);
+            }
+            else if (c == '/')
+            {
+                operands.push(readName(source));
+            }
+            else if (c == 'I')
+            {
+                // inline image data
+                return (Operator) parseNextToken();
+            }
+            else if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '\'' || c == '"' ||
+                     c == '*')
+            {
+                // tokens starting like a keyword are read up to the end of a name, as in
+                // parseNextToken()
+                boolean keyword = c == 'n' || c == 't' || c == 'f' || c == 'R' || c == 'B';
+                int end = scanOperator(data, start, source.length, keyword);
+                source.position = end;
+                if (keyword)
+                {
+                    if (equals(data, start, end, NULL))
+                    {
+                        operands.push(COSNull.NULL);
+                        continue;
+                    }
+                    if (equals(data, start, end, TRUE))
+                    {
+                        operands.push(COSBoolean.TRUE);
+                        continue;
+                    }
+                    if (equals(data, start, end, FALSE))
+                    {
+                        operands.push(COSBoolean.FALSE);
+                        continue;
+                    }
+                    if (equals(data, start, end, R))
+                    {
+                        // a reference without an object
+                        operands.push(null);
+                        continue;
+                    }
+                    if (equals(data, start, end, BI))
+                    {
+                        source.position = start;
+                        return (Operator) parseNextToken();
+                    }
+                }
+                return getOperator(data, start, end);
+            }
+            else
+            {
+                Object token = parseNextToken();
+                if (token == null)
+                {
+                    return null;
+                }
+                if (token instanceof Operator)
+                {
+                    return (Operator) token;
+                }
+                pushToken(operands, token);
+            }
+        }
+    }
+
+    private Operator parseNextOperatorFromTokens(OperandStack operands) throws IOException
+    {
+        Object token = parseNextToken();
+        while (token != null)
+        {
+            if (token instanceof Operator)
+            {
+                return (Operator) token;
+            }
+            pushToken(operands, token);
+            token = parseNextToken();
+        }
+        return null;
+    }
+
+    private static void pushToken(OperandStack operands, Object token)
+    {
+        if (token instanceof COSObject)
+        {
+            operands.push(((COSObject) token).getObject());
+        }
+        else
+        {
+            operands.push((COSBase) token);
+        }
+    }
+
+    /**
+     * Reads a number the same way as {@link #parseNextToken()}: a sign, a dot or a digit followed
+     * by digits and at most one dot. Numbers with up to 18 digits are pushed as primitives, others
+     * go through {@link COSNumber#get(String)}.
+     */
+    private void readNumber(ByteArraySource source, OperandStack operands) throws IOException
+    {
+        byte[] data = source.data;
+        int length = source.length;
+        int start = source.position;
+        int c = data[start];
+        int pos = start + 1;
+        boolean negative = c == '-';
+        boolean dotRead = c == '.';
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        if (c >= '0' && c <= '9')
+        {
+            mantissa = c - '0';
+            digits = 1;
+        }
+        while (pos < length)
+        {
+            c = data[pos];
+            if (c >= '0' && c <= '9')
+            {
+                if (digits < MAX_PRIMITIVE_DIGITS)
+                {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                digits++;
+                if (dotRead)
+                {
+                    scale++;
+                }
+            }
+            else if (c == '.' && !dotRead)
+            {
+                dotRead = true;
+            }
+            else
+            {
+                break;
+            }
+            pos++;
+        }
+        source.position = pos;
+
+        if (digits == 0 || digits > MAX_PRIMITIVE_DIGITS || dotRead && negative && mantissa == 0)
+        {
+            // leniently parsed numbers, long numbers and -0.0 are left to COSNumber
+            operands.push(COSNumber.get(new String(data, start, pos - start, Charsets.ISO_8859_1)));
+        }
+        else if (dotRead)
+        {
+            operands.pushReal(negative ? -mantissa : mantissa, scale);
+        }
+        else
+        {
+            operands.pushInteger(negative ? -mantissa : mantissa);
+        }
+    }
+
+    /**
+     * Reads a name, names which are cached and consist of plain ASCII characters don't cost any
+     * allocation.
+     */
+    private COSName readName(ByteArraySource source) throws IOException
+    {
+        byte[] data = source.data;
+        int start = source.position + 1;
+        int pos = start;
+        int hash = 0;
+        while (pos < source.length)
+        {
+            int c = data[pos];
+            if (c == '#' || c < 0)
+            {
+                // escapes and non-ASCII names are decoded by the base parser
+                return parseCOSName();
+            }
+            if (isEndOfName(c))
+            {
+                break;
+            }
+            hash = 31 * hash + c;
+            pos++;
+        }
+        int index = hash & (NAME_CACHE_SIZE - 1);
+        CacheEntry entry = NAME_CACHE[index];
+        if (entry == null || !entry.matches(data, start, pos - start))
+        {
+            COSName name = COSName.getPDFName(
+                    new String(data, start, pos - start, Charsets.US_ASCII));
+            entry = new CacheEntry(Arrays.copyOfRange(data, start, pos), name);
+            NAME_CACHE[index] = entry;
+        }
+        source.position = pos;
+        return (COSName) entry.value;
+    }
+
+    /**
+     * Returns the end of an operator the same way as {@link #readOperator()}, or as
+     * {@link #readString()} for tokens which may be keywords.
+     */
+    private int scanOperator(byte[] data, int start, int length, boolean keyword)
+    {
+        int pos = start;
+        while (pos < length)
+        {
+            int c = data[pos] & 0xff;
+            if (keyword)
+            {
+                if (isEndOfName(c))
+                {
+                    break;
+                }
+                pos++;
+            }
+            else
+            {
+                if (isWhitespace(c) || isClosing(c) || c == '[' || c == '<' || c == '(' ||
+                    c == '/' || c >= '0' && c <= '9')
+                {
+                    break;
+                }
+                pos++;
+                // Type3 Glyph description has operators with a number in the name
+                if (c == 'd' && pos < length && (data[pos] == '0' || data[pos] == '1'))
+                {
+                    pos++;
+                }
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the operator with the given bytes as name, operators are cached.
+     */
+    private static Operator getOperator(byte[] data, int start, int end)
+    {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+        {
+            hash = 31 * hash + data[i];
+        }
+        int index = hash & (OPERATOR_CACHE_SIZE - 1);
+        CacheEntry entry = OPERATOR_CACHE[index];
+        if (entry == null || !entry.matches(data, start, end - start))
+        {
+            Operator operator = Operator.getOperator(
+                    new String(data, start, end - start, Charsets.ISO_8859_1));
+            entry = new CacheEntry(Arrays.copyOfRange(data, start, end), operator);
+            OPERATOR_CACHE[index] = entry;
+        }
+        return (Operator) entry.value;
+    }
+
+    private static boolean equals(byte[] data, int start, int end, byte[] keyword)
+    {
+        if (end - start != keyword.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < keyword.length; i++)
+        {
+            if (data[start + i] != keyword[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An immutable entry of the name and operator caches, keyed by the bytes of the token.
+     */
+    private static final class CacheEntry
+    {
+        private final byte[] key;
+        private final Object value;
+
+        CacheEntry(byte[] key, Object value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+
+        boolean matches(byte[] data, int offset, int length)
+        {
+            if (key.length != length)
+            {
+                return false;
+            }
+            for (int i = 0; i < length; i++)
+            {
+                if (key[i] != data[offset + i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * Looks up an amount of bytes if they contain only ASCII characters (no
      * control sequences etc.), and that these ASCII characters begin with a
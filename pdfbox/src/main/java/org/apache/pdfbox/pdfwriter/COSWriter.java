@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -219,15 +220,36 @@ public class COSWriter implements ICOSVisitor, Closeable
     private SignatureInterface signatureInterface;
     private byte[] incrementPart;
 
+    // object stream compression, only for full saves without encryption
+    private final CompressParameters compressParameters;
+    private boolean compress = false;
+    private COSWriterObjectStream currentObjectStream;
+
+    // compresses unfiltered streams ahead of their serialization, only for full saves
+    private Executor streamCompressionExecutor;
+    private COSWriterStreamCompressor streamCompressor;
+
     /**
      * COSWriter constructor comment.
      *
      * @param os The wrapped output stream.
      */
     public COSWriter(OutputStream os)
+    {
+        this(os, CompressParameters.NO_COMPRESSION);
+    }
+
+    /**
+     * COSWriter constructor for full saves with optional object stream compression.
+     *
+     * @param os The wrapped output stream.
+     * @param compressParameters The compression to apply, null for none.
+     */
+    public COSWriter(OutputStream os, CompressParameters compressParameters)
     {
         setOutput(os);
         setStandardOutput(new COSStandardOutputStream(output));
+        this.compressParameters = compressParameters;
     }
 
     /**
@@ -247,6 +269,7 @@ public class COSWriter implements ICOSVisitor, Closeable
         incrementalInput = inputData;
         incrementalOutput = outputStream;
         incrementalUpdate = true;
+        compressParameters = CompressParameters.NO_COMPRESSION;
     }
 
     private void prepareIncrement(PDDocument doc)
@@ -460,7 +483,7 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
     }
 
-    private void addObjectToWrite( COSBase object )
+    private void addObjectToWrite( COSBase object ) throws IOException
     {
         COSBase actual = object;
         if( actual instanceof COSObject )
@@ -494,6 +517,10 @@ public class COSWriter implements ICOSVisitor, Closeable
             {
                 actualsAdded.add( actual );
             }
+            if (streamCompressor != null && actual instanceof COSStream)
+            {
+                streamCompressor.enqueue((COSStream) actual);
+            }
         }
     }
 
@@ -518,6 +545,11 @@ public class COSWriter implements ICOSVisitor, Closeable
 
         // find the physical reference
         currentObjectKey = getObjectKey( obj );
+        if (compress && isObjectStreamCandidate(obj))
+        {
+            doWriteObjectToObjectStream(obj);
+            return;
+        }
         // add a x ref entry
         addXRefEntry( new COSWriterXRefEntry(getStandardOutput().getPos(), obj, currentObjectKey));
         // write the object
@@ -533,6 +565,81 @@ public class COSWriter implements ICOSVisitor, Closeable
         getStandardOutput().writeEOL();
     }
 
+    /**
+     * Objects with generation 0 which are neither streams nor signatures may be stored in an
+     * object stream. The signature must be written directly so that its byte range can be
+     * determined.
+     */
+    private boolean isObjectStreamCandidate(COSBase obj)
+    {
+        COSBase actual = obj;
+        if (actual instanceof COSObject)
+        {
+            actual = ((COSObject) actual).getObject();
+        }
+        if (actual == null || actual instanceof COSStream || currentObjectKey.getGeneration() != 0)
+        {
+            return false;
+        }
+        if (actual instanceof COSDictionary)
+        {
+            COSBase itemType = ((COSDictionary) actual).getItem(COSName.TYPE);
+            if (COSName.SIG.equals(itemType) || COSName.DOC_TIME_STAMP.equals(itemType))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serializes an object into the current object stream, which is written out once it is full.
+     */
+    private void doWriteObjectToObjectStream(COSBase obj) throws IOException
+    {
+        if (currentObjectStream == null)
+        {
+            currentObjectStream = new COSWriterObjectStream();
+        }
+        COSWriterObjectStream objectStream = currentObjectStream;
+        // reserves the number of the object stream when called for the first time
+        COSObjectKey objectStreamKey = getObjectKey(objectStream.getStream());
+        int index = objectStream.startObject(currentObjectKey.getNumber());
+        COSWriterXRefEntry entry = new COSWriterXRefEntry(index, obj, currentObjectKey);
+        entry.setObjectStreamKey(objectStreamKey);
+        addXRefEntry(entry);
+
+        COSStandardOutputStream fileOutput = getStandardOutput();
+        setStandardOutput(new COSStandardOutputStream(objectStream.getData()));
+        try
+        {
+            obj.accept(this);
+            getStandardOutput().writeEOL();
+        }
+        finally
+        {
+            setStandardOutput(fileOutput);
+        }
+
+        if (objectStream.size() >= compressParameters.getObjectStreamSize())
+        {
+            doWriteObjectStream();
+        }
+    }
+
+    /**
+     * Writes the current object stream to the file, if there is one.
+     */
+    private void doWriteObjectStream() throws IOException
+    {
+        if (currentObjectStream != null)
+        {
+            COSWriterObjectStream objectStream = currentObjectStream;
+            currentObjectStream = null;
+            doWriteObject(objectStream.finish());
+        }
+    }
+
     /**
      * This will write the header to the PDF document.
      *
@@ -549,7 +656,15 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
         else
         {
-            headerString = "%PDF-"+ Float.toString(pdDocument.getDocument().getVersion());
+            float version = pdDocument.getDocument().getVersion();
+            if (compress && version < 1.5f)
+            {
+                // object streams and xref streams were introduced with PDF 1.5, the header
+                // version is enough as a later catalog version overrides it, the document itself
+                // isn't changed
+                version = 1.5f;
+            }
+            headerString = "%PDF-"+ Float.toString(version);
         }
         getStandardOutput().write( headerString.getBytes(Charsets.ISO_8859_1) );
         
@@ -599,35 +714,7 @@ public class COSWriter implements ICOSVisitor, Closeable
             // the file uses XrefStreams, so we need to update
             // it with an xref stream. We create a new one and fill it
             // with data available here
-
-            // create a new XRefStrema object
-            PDFXRefStream pdfxRefStream = new PDFXRefStream();
-
-            // add all entries from the incremental update.
-            List<COSWriterXRefEntry> xRefEntries2 = getXRefEntries();
-            for ( COSWriterXRefEntry cosWriterXRefEntry : xRefEntries2 )
-            {
-                pdfxRefStream.addEntry(cosWriterXRefEntry);
-            }
-
-            COSDictionary trailer = doc.getTrailer();
-            if (incrementalUpdate)
-            {
-                // use previous startXref value as new PREV value
-                trailer.setLong(COSName.PREV, doc.getStartXref());
-            }
-            else
-            {
-                trailer.removeItem(COSName.PREV);
-            }
-            pdfxRefStream.addTrailerInfo(trailer);
-            // the size is the highest object number+1. we add one more
-            // for the xref stream object we are going to write
-            pdfxRefStream.setSize(getNumber() + 2);
-
-            setStartxref(getStandardOutput().getPos());
-            COSStream stream2 = pdfxRefStream.getStream();
-            doWriteObject(stream2);
+            doWriteXRefStream(doc);
         }
 
         if (!doc.isXRefStream() || hybridPrev != -1)
@@ -645,6 +732,39 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
     }
 
+    // writes an xref stream, which replaces both the "xref" table and the trailer
+    private void doWriteXRefStream(COSDocument doc) throws IOException
+    {
+        // create a new XRefStrema object
+        PDFXRefStream pdfxRefStream = new PDFXRefStream();
+
+        // add all entries from the incremental update.
+        List<COSWriterXRefEntry> xRefEntries2 = getXRefEntries();
+        for ( COSWriterXRefEntry cosWriterXRefEntry : xRefEntries2 )
+        {
+            pdfxRefStream.addEntry(cosWriterXRefEntry);
+        }
+
+        COSDictionary trailer = doc.getTrailer();
+        if (incrementalUpdate)
+        {
+            // use previous startXref value as new PREV value
+            trailer.setLong(COSName.PREV, doc.getStartXref());
+        }
+        else
+        {
+            trailer.removeItem(COSName.PREV);
+        }
+        pdfxRefStream.addTrailerInfo(trailer);
+        // the size is the highest object number+1. we add one more
+        // for the xref stream object we are going to write
+        pdfxRefStream.setSize(getNumber() + 2);
+
+        setStartxref(getStandardOutput().getPos());
+        COSStream stream2 = pdfxRefStream.getStream();
+        doWriteObject(stream2);
+    }
+
     // writes the "xref" table
     private void doWriteXRefTable() throws IOException
     {
@@ -1091,6 +1211,7 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
 
         doWriteBody(doc);
+        doWriteObjectStream();
 
         // get the previous trailer
         COSDictionary trailer = doc.getTrailer();
@@ -1101,7 +1222,11 @@ public class COSWriter implements ICOSVisitor, Closeable
             hybridPrev = trailer.getLong(COSName.XREF_STM);
         }
 
-        if(incrementalUpdate || doc.isXRefStream())
+        if (compress)
+        {
+            doWriteXRefStream(doc);
+        }
+        else if(incrementalUpdate || doc.isXRefStream())
         {
             doWriteXRefInc(doc, hybridPrev);
         }
@@ -1180,6 +1305,24 @@ public class COSWriter implements ICOSVisitor, Closeable
     @Override
     public Object visitFromStream(COSStream obj) throws IOException
     {
+        if (streamCompressor != null)
+        {
+            byte[] encoded = streamCompressor.take(obj);
+            if (encoded != null)
+            {
+                OutputStream out = obj.createRawOutputStream();
+                try
+                {
+                    out.write(encoded);
+                }
+                finally
+                {
+                    out.close();
+                }
+                obj.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+            }
+        }
+
         if (willEncrypt)
         {
             pdDocument.getEncryption().getSecurityHandler()
@@ -1307,6 +1450,12 @@ public class COSWriter implements ICOSVisitor, Closeable
             }
         }
 
+        compress = compressParameters != null && compressParameters.isCompress() &&
+                   !incrementalUpdate && !willEncrypt;
+        if (streamCompressionExecutor != null && !incrementalUpdate)
+        {
+            streamCompressor = new COSWriterStreamCompressor(streamCompressionExecutor);
+        }
         COSDocument cosDoc = pdDocument.getDocument();
         COSDictionary trailer = cosDoc.getTrailer();
         COSArray idArray = null;
@@ -1359,7 +1508,33 @@ public class COSWriter implements ICOSVisitor, Closeable
             idArray.add( secondID );
             trailer.setItem( COSName.ID, idArray );
         }
-        cosDoc.accept(this);
+        try
+        {
+            cosDoc.accept(this);
+        }
+        finally
+        {
+            if (streamCompressor != null)
+            {
+                streamCompressor.cancel();
+                streamCompressor = null;
+            }
+        }
+    }
+
+    /**
+     * Sets an executor to compress streams without any filter with the Flate filter while the
+     * document is saved, e.g. content streams which were created uncompressed. The streams are
+     * compressed ahead of their serialization on the executor, a limited number at a time. The
+     * output doesn't depend on the executor or on the timing of the workers. This only applies to
+     * full saves, not to incremental updates; metadata streams are not compressed.
+     *
+     * @param executor the executor to compress the streams on, or null to write them as they are
+     * (the default)
+     */
+    public void setStreamCompressionExecutor(Executor executor)
+    {
+        streamCompressionExecutor = executor;
     }
 
     /**
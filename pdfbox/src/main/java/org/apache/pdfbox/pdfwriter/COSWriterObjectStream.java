@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfwriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.util.Charsets;
+
+/**
+ * An object stream being filled by the {@link COSWriter}. The objects are serialized into a
+ * buffer one after the other; the stream itself is created once it is full.
+ */
+final class COSWriterObjectStream
+{
+    private final COSStream stream = new COSStream();
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private final List<Long> objectNumbers = new ArrayList<Long>();
+    private final List<Integer> offsets = new ArrayList<Integer>();
+
+    /**
+     * Returns the stream which will hold the objects, to reserve its object key.
+     */
+    COSStream getStream()
+    {
+        return stream;
+    }
+
+    /**
+     * Starts the next object, which is then to be written to {@link #getData()}.
+     *
+     * @param objectNumber the number of the object
+     * @return the index of the object within the stream
+     */
+    int startObject(long objectNumber)
+    {
+        objectNumbers.add(objectNumber);
+        offsets.add(data.size());
+        return objectNumbers.size() - 1;
+    }
+
+    /**
+     * Returns the buffer the objects are written to.
+     */
+    OutputStream getData()
+    {
+        return data;
+    }
+
+    /**
+     * Returns the number of objects in this stream.
+     */
+    int size()
+    {
+        return objectNumbers.size();
+    }
+
+    /**
+     * Writes the header and the objects to the stream, compressed with the Flate filter.
+     *
+     * @return the finished object stream
+     * @throws IOException if the stream could not be written
+     */
+    COSStream finish() throws IOException
+    {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < objectNumbers.size(); i++)
+        {
+            header.append(objectNumbers.get(i)).append(' ').append(offsets.get(i)).append(' ');
+        }
+        header.append('\n');
+        byte[] headerBytes = header.toString().getBytes(Charsets.US_ASCII);
+
+        stream.setItem(COSName.TYPE, COSName.OBJ_STM);
+        stream.setInt(COSName.N, objectNumbers.size());
+        stream.setInt(COSName.FIRST, headerBytes.length);
+        OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE);
+        try
+        {
+            out.write(headerBytes);
+            data.writeTo(out);
+        }
+        finally
+        {
+            out.close();
+        }
+        return stream;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfwriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.apache.pdfbox.io.IOUtils;
+
+/**
+ * Compresses the unfiltered streams of a document with the Flate filter on an executor, ahead of
+ * their serialization by the {@link COSWriter}. The streams are queued in the order the writer
+ * discovers them and at most a fixed number of them is compressed at the same time, so that the
+ * memory used for the buffers stays bounded.
+ *
+ * <p>The result doesn't depend on the executor: a stream which hasn't been submitted when it is
+ * needed is compressed on the writing thread, with the same deterministic encoder. Only the
+ * writing thread touches the streams themselves, the workers get copies of the raw data.
+ */
+final class COSWriterStreamCompressor
+{
+    private final Executor executor;
+    private final int maxPending;
+
+    private final Queue<COSStream> queued = new ArrayDeque<COSStream>();
+    private final Map<COSStream, FutureTask<byte[]>> pending =
+            new HashMap<COSStream, FutureTask<byte[]>>();
+    private final Set<COSStream> done = new HashSet<COSStream>();
+
+    /**
+     * Constructor.
+     *
+     * @param executor the executor the streams are compressed on
+     */
+    COSWriterStreamCompressor(Executor executor)
+    {
+        this.executor = executor;
+        this.maxPending = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Indicates whether the stream should be compressed, i.e. it doesn't have a filter yet. Metadata
+     * streams are left alone, so that they stay readable for tools which don't parse PDF.
+     */
+    static boolean isCandidate(COSStream stream)
+    {
+        return stream.getFilters() == null && !COSName.METADATA.equals(stream.getItem(COSName.TYPE));
+    }
+
+    /**
+     * Queues a stream which is going to be written and submits as many queued streams as the
+     * limit of pending streams allows.
+     *
+     * @param stream the stream
+     * @throws IOException if the data of a stream could not be read
+     */
+    void enqueue(COSStream stream) throws IOException
+    {
+        if (!done.contains(stream) && !pending.containsKey(stream) && isCandidate(stream))
+        {
+            queued.add(stream);
+        }
+        submit();
+    }
+
+    private void submit() throws IOException
+    {
+        while (pending.size() < maxPending && !queued.isEmpty())
+        {
+            COSStream stream = queued.poll();
+            if (done.contains(stream) || pending.containsKey(stream))
+            {
+                continue;
+            }
+            final byte[] data = readRaw(stream);
+            FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>()
+            {
+                @Override
+                public byte[] call() throws IOException
+                {
+                    return encode(data);
+                }
+            });
+            pending.put(stream, task);
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Returns the compressed data of a stream, waiting for its compression if necessary. A stream
+     * which wasn't submitted yet is compressed on the calling thread.
+     *
+     * @param stream the stream about to be written
+     * @return the Flate encoded data, or null if the stream shouldn't or can't be compressed
+     * @throws IOException if the stream could not be compressed
+     */
+    byte[] take(COSStream stream) throws IOException
+    {
+        if (!done.add(stream))
+        {
+            return null;
+        }
+        FutureTask<byte[]> task = pending.remove(stream);
+        byte[] encoded;
+        if (task != null)
+        {
+            encoded = getResult(task);
+        }
+        else if (isCandidate(stream))
+        {
+            encoded = encode(readRaw(stream));
+        }
+        else
+        {
+            encoded = null;
+        }
+        submit();
+        return encoded;
+    }
+
+    /**
+     * Cancels all pending compressions.
+     */
+    void cancel()
+    {
+        for (FutureTask<byte[]> task : pending.values())
+        {
+            task.cancel(false);
+        }
+        pending.clear();
+        queued.clear();
+    }
+
+    private static byte[] readRaw(COSStream stream) throws IOException
+    {
+        InputStream input = stream.createRawInputStream();
+        try
+        {
+            return IOUtils.toByteArray(input);
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    /**
+     * Encodes the data with the Flate filter, returns null if that doesn't make it any smaller.
+     */
+    private static byte[] encode(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(data.length / 2 + 64);
+        FilterFactory.INSTANCE.getFilter(COSName.FLATE_DECODE)
+                .encode(new ByteArrayInputStream(data), encoded, new COSDictionary(), 0);
+        return encoded.size() < data.length ? encoded.toByteArray() : null;
+    }
+
+    private static byte[] getResult(FutureTask<byte[]> task) throws IOException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing a stream");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class COSWriterXRefEntry implements Comparable<COSWriterXRefEntry>
     private COSBase object;
     private COSObjectKey key;
     private boolean free = false;
+    private COSObjectKey objectStreamKey;
     private static final COSWriterXRefEntry NULLENTRY;
     
     static 
@@ -111,6 +112,28 @@ public class COSWriterXRefEntry implements Comparable<COSWriterXRefEntry>
         free = newFree;
     }
 
+    /**
+     * Returns the key of the object stream which contains the object, or null if the object is
+     * written directly to the file. For objects in an object stream the offset is the index of the
+     * object within that stream.
+     *
+     * @return the key of the containing object stream, or null.
+     */
+    public COSObjectKey getObjectStreamKey()
+    {
+        return objectStreamKey;
+    }
+
+    /**
+     * Sets the key of the object stream which contains the object.
+     *
+     * @param objectStreamKey the key of the containing object stream, or null.
+     */
+    public void setObjectStreamKey(COSObjectKey objectStreamKey)
+    {
+        this.objectStreamKey = objectStreamKey;
+    }
+
     /**
      * This will set the object key.
      *
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfwriter;
+
+/**
+ * Controls how {@link COSWriter} compresses the structure of a document when saving it. With
+ * compression enabled, all objects which aren't streams are packed into compressed object streams
+ * and the cross-reference table is written as a compressed cross-reference stream, as defined in
+ * PDF 1.5. This usually saves a significant part of the file size of documents with many small
+ * objects, e.g. pages, annotations and fonts.
+ *
+ * <p>Compression is only applied when a document is saved completely. Incremental updates and
+ * encrypted documents are always written without object streams.
+ */
+public final class CompressParameters
+{
+    /**
+     * The default number of objects in one object stream.
+     */
+    public static final int DEFAULT_OBJECT_STREAM_SIZE = 100;
+
+    /**
+     * Compress the document with object streams of the default size.
+     */
+    public static final CompressParameters DEFAULT_COMPRESSION =
+            new CompressParameters(DEFAULT_OBJECT_STREAM_SIZE);
+
+    /**
+     * Don't use object streams or cross-reference streams, the way documents are saved by default.
+     */
+    public static final CompressParameters NO_COMPRESSION = new CompressParameters(0);
+
+    private final int objectStreamSize;
+
+    /**
+     * Creates compression parameters with the given object stream size.
+     *
+     * @param objectStreamSize the maximum number of objects in one object stream, 0 to disable
+     * compression
+     */
+    public CompressParameters(int objectStreamSize)
+    {
+        if (objectStreamSize < 0)
+        {
+            throw new IllegalArgumentException("objectStreamSize must not be negative: " +
+                    objectStreamSize);
+        }
+        this.objectStreamSize = objectStreamSize;
+    }
+
+    /**
+     * Returns the maximum number of objects in one object stream.
+     *
+     * @return the object stream size, 0 if compression is disabled
+     */
+    public int getObjectStreamSize()
+    {
+        return objectStreamSize;
+    }
+
+    /**
+     * Indicates whether object streams and a cross-reference stream should be written.
+     *
+     * @return true if compression is enabled
+     */
+    public boolean isCompress()
+    {
+        return objectStreamSize > 0;
+    }
+}
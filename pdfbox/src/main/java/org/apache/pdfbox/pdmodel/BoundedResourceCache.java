@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDICCBased;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+/**
+ * A resource cache with a fixed budget, as an alternative to the SoftReference based
+ * {@link DefaultResourceCache}. Each resource is weighed by an estimate of the memory it costs,
+ * e.g. the size of a decoded image or of an embedded font program, and the least recently used
+ * resources are evicted once the total weight exceeds the budget. Resources which are heavier than
+ * the whole budget are not cached at all.
+ *
+ * <p>As the resources are held by strong references, the memory used by the cache doesn't depend
+ * on the garbage collector. The cache is thread safe and counts its hits, misses and evictions so
+ * that its effectiveness can be monitored. Lookups don't lock, so that pages which are rendered in
+ * parallel don't wait for each other; only the eviction is done by one thread at a time. A
+ * resource which is looked up or added concurrently with an eviction may be evicted although it
+ * was just used.
+ *
+ * <p>Eviction is by recency only, resources aren't admitted by how often they were used.
+ *
+ * <pre>
+ * document.setResourceCache(new BoundedResourceCache(64 * 1024 * 1024));
+ * </pre>
+ */
+public class BoundedResourceCache implements ResourceCache
+{
+    /**
+     * The weight of resources which don't hold any significant data, e.g. graphics states.
+     */
+    protected static final long SMALL_RESOURCE_WEIGHT = 1024;
+
+    private enum Kind
+    {
+        FONT, COLORSPACE, XOBJECT, EXTGSTATE, SHADING, PATTERN, PROPERTIES
+    }
+
+    private final long maxWeight;
+    private final AtomicLong weight = new AtomicLong();
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    // the time of the last access of each entry, a counter instead of the clock
+    private final AtomicLong accessClock = new AtomicLong();
+
+    // evictions are done by one thread at a time
+    private final Object evictionLock = new Object();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a resource cache with the given budget.
+     *
+     * @param maxWeight the maximum total weight of the cached resources, roughly in bytes
+     */
+    public BoundedResourceCache(long maxWeight)
+    {
+        if (maxWeight <= 0)
+        {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public PDFont getFont(COSObject indirect)
+    {
+        return (PDFont) get(Kind.FONT, indirect);
+    }
+
+    @Override
+    public PDColorSpace getColorSpace(COSObject indirect)
+    {
+        return (PDColorSpace) get(Kind.COLORSPACE, indirect);
+    }
+
+    @Override
+    public PDExtendedGraphicsState getExtGState(COSObject indirect)
+    {
+        return (PDExtendedGraphicsState) get(Kind.EXTGSTATE, indirect);
+    }
+
+    @Override
+    public PDShading getShading(COSObject indirect)
+    {
+        return (PDShading) get(Kind.SHADING, indirect);
+    }
+
+    @Override
+    public PDAbstractPattern getPattern(COSObject indirect)
+    {
+        return (PDAbstractPattern) get(Kind.PATTERN, indirect);
+    }
+
+    @Override
+    public PDPropertyList getProperties(COSObject indirect)
+    {
+        return (PDPropertyList) get(Kind.PROPERTIES, indirect);
+    }
+
+    @Override
+    public PDXObject getXObject(COSObject indirect)
+    {
+        return (PDXObject) get(Kind.XOBJECT, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDFont font)
+    {
+        put(Kind.FONT, indirect, font, weigh(font));
+    }
+
+    @Override
+    public void put(COSObject indirect, PDColorSpace colorSpace)
+    {
+        put(Kind.COLORSPACE, indirect, colorSpace, weigh(colorSpace));
+    }
+
+    @Override
+    public void put(COSObject indirect, PDExtendedGraphicsState extGState)
+    {
+        put(Kind.EXTGSTATE, indirect, extGState, SMALL_RESOURCE_WEIGHT);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDShading shading)
+    {
+        put(Kind.SHADING, indirect, shading, SMALL_RESOURCE_WEIGHT);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDAbstractPattern pattern)
+    {
+        put(Kind.PATTERN, indirect, pattern, SMALL_RESOURCE_WEIGHT);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDPropertyList propertyList)
+    {
+        put(Kind.PROPERTIES, indirect, propertyList, SMALL_RESOURCE_WEIGHT);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDXObject xobject)
+    {
+        put(Kind.XOBJECT, indirect, xobject, weigh(xobject));
+    }
+
+    /**
+     * Estimates the memory used by a font, twice the size of its embedded font program as the
+     * parsed program is kept in memory too.
+     *
+     * @param font the font, may be null
+     * @return the weight of the font
+     */
+    protected long weigh(PDFont font)
+    {
+        long fontWeight = SMALL_RESOURCE_WEIGHT;
+        PDFontDescriptor fd = font != null ? font.getFontDescriptor() : null;
+        if (fd != null)
+        {
+            fontWeight += 2L * (length(fd.getFontFile()) + length(fd.getFontFile2()) +
+                                length(fd.getFontFile3()));
+        }
+        return fontWeight;
+    }
+
+    /**
+     * Estimates the memory used by a color space, which is the size of its ICC profile if it
+     * has one.
+     *
+     * @param colorSpace the color space, may be null
+     * @return the weight of the color space
+     */
+    protected long weigh(PDColorSpace colorSpace)
+    {
+        if (colorSpace instanceof PDICCBased)
+        {
+            return SMALL_RESOURCE_WEIGHT + 2L * length(((PDICCBased) colorSpace).getPDStream());
+        }
+        return SMALL_RESOURCE_WEIGHT;
+    }
+
+    /**
+     * Estimates the memory used by an XObject. For images this is the size of the decoded ARGB
+     * image, for forms the size of the content stream.
+     *
+     * @param xobject the XObject, may be null
+     * @return the weight of the XObject
+     */
+    protected long weigh(PDXObject xobject)
+    {
+        if (xobject instanceof PDImageXObject)
+        {
+            PDImageXObject image = (PDImageXObject) xobject;
+            return SMALL_RESOURCE_WEIGHT + 4L * Math.max(0, image.getWidth()) *
+                                                Math.max(0, image.getHeight());
+        }
+        if (xobject instanceof PDFormXObject)
+        {
+            return SMALL_RESOURCE_WEIGHT + length(xobject.getStream());
+        }
+        return SMALL_RESOURCE_WEIGHT;
+    }
+
+    private static long length(PDStream stream)
+    {
+        return stream != null ? Math.max(0, stream.getLength()) : 0;
+    }
+
+    private Object get(Kind kind, COSObject indirect)
+    {
+        Entry entry = entries.get(new Key(kind, indirect));
+        if (entry != null)
+        {
+            entry.lastAccess = accessClock.incrementAndGet();
+            hitCount.incrementAndGet();
+            return entry.resource;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    private void put(Kind kind, COSObject indirect, Object resource, long resourceWeight)
+    {
+        Key key = new Key(kind, indirect);
+        if (resourceWeight > maxWeight)
+        {
+            Entry old = entries.remove(key);
+            if (old != null)
+            {
+                weight.addAndGet(-old.weight);
+            }
+            return;
+        }
+        Entry entry = new Entry(resource, resourceWeight, accessClock.incrementAndGet());
+        Entry old = entries.put(key, entry);
+        long newWeight = weight.addAndGet(old != null ? resourceWeight - old.weight
+                                                      : resourceWeight);
+        if (newWeight > maxWeight)
+        {
+            evict();
+        }
+    }
+
+    /**
+     * Removes the least recently used resources until the total weight is within the budget.
+     */
+    private void evict()
+    {
+        synchronized (evictionLock)
+        {
+            if (weight.get() <= maxWeight)
+            {
+                // another thread has evicted already
+                return;
+            }
+            List<Map.Entry<Key, Entry>> eldest =
+                    new ArrayList<Map.Entry<Key, Entry>>(entries.entrySet());
+            Collections.sort(eldest, new Comparator<Map.Entry<Key, Entry>>()
+            {
+                @Override
+                public int compare(Map.Entry<Key, Entry> e1, Map.Entry<Key, Entry> e2)
+                {
+                    long a1 = e1.getValue().lastAccess;
+                    long a2 = e2.getValue().lastAccess;
+                    return a1 < a2 ? -1 : (a1 == a2 ? 0 : 1);
+                }
+            });
+            for (int i = 0; i < eldest.size() && weight.get() > maxWeight; i++)
+            {
+                Map.Entry<Key, Entry> candidate = eldest.get(i);
+                // the entry may have been replaced in the meantime
+                if (entries.remove(candidate.getKey(), candidate.getValue()))
+                {
+                    weight.addAndGet(-candidate.getValue().weight);
+                    evictionCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum total weight of the cached resources.
+     *
+     * @return the maximum total weight
+     */
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the current total weight of the cached resources.
+     *
+     * @return the total weight
+     */
+    public long getWeight()
+    {
+        return weight.get();
+    }
+
+    /**
+     * Returns the number of cached resources.
+     *
+     * @return the number of resources
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Returns how often a resource was found in this cache.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how often a resource was not found in this cache.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Returns how many resources have been evicted to stay within the budget.
+     *
+     * @return the number of evicted resources
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    /**
+     * Removes all resources from this cache. The statistics are kept.
+     */
+    public void clear()
+    {
+        synchronized (evictionLock)
+        {
+            for (Map.Entry<Key, Entry> entry : entries.entrySet())
+            {
+                if (entries.remove(entry.getKey(), entry.getValue()))
+                {
+                    weight.addAndGet(-entry.getValue().weight);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundedResourceCache{size=" + size() + ", weight=" + getWeight() +
+               ", maxWeight=" + maxWeight + ", hits=" + getHitCount() +
+               ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+    }
+
+    private static final class Key
+    {
+        private final Kind kind;
+        private final COSObject indirect;
+
+        Key(Kind kind, COSObject indirect)
+        {
+            this.kind = kind;
+            this.indirect = indirect;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return indirect.hashCode() * 31 + kind.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return kind == other.kind && indirect.equals(other.indirect);
+        }
+    }
+
+    private static final class Entry
+    {
+        private final Object resource;
+        private final long weight;
+        private volatile long lastAccess;
+
+        Entry(Object resource, long weight, long lastAccess)
+        {
+            this.resource = resource;
+            this.weight = weight;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -40,10 +40,12 @@ import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.io.RandomAccessBuffer;
 import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessMemoryMappedFile;
 import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdfparser.PDFParser;
 import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdfwriter.CompressParameters;
 import org.apache.pdfbox.pdmodel.common.COSArrayList;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.common.PDStream;
@@ -890,13 +892,23 @@ public class PDDocument implements Closeable
     public static PDDocument load(File file, String password, InputStream keyStore, String alias,
                                   MemoryUsageSetting memUsageSetting) throws IOException
     {
-        RandomAccessBufferedFileInputStream raFile = new RandomAccessBufferedFileInputStream(file);
+        RandomAccessRead raFile;
+        if (memUsageSetting.useMemoryMappedInput())
+        {
+            raFile = new RandomAccessMemoryMappedFile(file);
+        }
+        else
+        {
+            raFile = new RandomAccessBufferedFileInputStream(file);
+        }
         try
         {
             ScratchFile scratchFile = new ScratchFile(memUsageSetting);
             try
             {
                 PDFParser parser = new PDFParser(raFile, password, keyStore, alias, scratchFile);
+                parser.setMaxParsedObjects(memUsageSetting.getMaxParsedObjects());
+                parser.setMaxObjectStreamCacheBytes(memUsageSetting.getMaxObjectStreamCacheBytes());
                 parser.parse();
                 return parser.getPDDocument();
             }
@@ -1023,6 +1035,8 @@ public class PDDocument implements Closeable
         {
             RandomAccessRead source = scratchFile.createBuffer(input);
             PDFParser parser = new PDFParser(source, password, keyStore, alias, scratchFile);
+            parser.setMaxParsedObjects(memUsageSetting.getMaxParsedObjects());
+            parser.setMaxObjectStreamCacheBytes(memUsageSetting.getMaxObjectStreamCacheBytes());
             parser.parse();
             return parser.getPDDocument();
         }
@@ -1099,6 +1113,8 @@ public class PDDocument implements Closeable
         ScratchFile scratchFile = new ScratchFile(memUsageSetting);
         RandomAccessRead source = new RandomAccessBuffer(input);
         PDFParser parser = new PDFParser(source, password, keyStore, alias, scratchFile);
+        parser.setMaxParsedObjects(memUsageSetting.getMaxParsedObjects());
+        parser.setMaxObjectStreamCacheBytes(memUsageSetting.getMaxObjectStreamCacheBytes());
         parser.parse();
         return parser.getPDDocument();
     }
@@ -1124,7 +1140,21 @@ public class PDDocument implements Closeable
      */
     public void save(File file) throws IOException
     {
-        save(new BufferedOutputStream(new FileOutputStream(file)));
+        save(file, CompressParameters.NO_COMPRESSION);
+    }
+
+    /**
+     * Save the document to a file, packing its objects into compressed object streams if so
+     * requested.
+     * 
+     * @param file The file to save as.
+     * @param compressParameters The compression to apply.
+     *
+     * @throws IOException if the output could not be written
+     */
+    public void save(File file, CompressParameters compressParameters) throws IOException
+    {
+        save(new BufferedOutputStream(new FileOutputStream(file)), compressParameters);
     }
 
     /**
@@ -1135,6 +1165,21 @@ public class PDDocument implements Closeable
      * @throws IOException if the output could not be written
      */
     public void save(OutputStream output) throws IOException
+    {
+        save(output, CompressParameters.NO_COMPRESSION);
+    }
+
+    /**
+     * This will save the document to an output stream, packing its objects into compressed object
+     * streams if so requested. Object streams require PDF 1.5, the version of the document is
+     * raised accordingly.
+     * 
+     * @param output The stream to write to.
+     * @param compressParameters The compression to apply.
+     *
+     * @throws IOException if the output could not be written
+     */
+    public void save(OutputStream output, CompressParameters compressParameters) throws IOException
     {
         if (document.isClosed())
         {
@@ -1149,7 +1194,7 @@ public class PDDocument implements Closeable
         fontsToSubset.clear();
         
         // save PDF
-        COSWriter writer = new COSWriter(output);
+        COSWriter writer = new COSWriter(output, compressParameters);
         try
         {
             writer.write(this);
@@ -56,6 +56,7 @@ public class PDDocumentCatalog implements COSObjectable
     private final COSDictionary root;
     private final PDDocument document;
     private PDAcroForm cachedAcroForm;
+    private volatile PDPageTree cachedPages;
 
     /**
      * Constructor. AcroForm.
@@ -124,8 +125,15 @@ public class PDDocumentCatalog implements COSObjectable
      */
     public PDPageTree getPages()
     {
-        // todo: cache me?
-        return new PDPageTree((COSDictionary)root.getDictionaryObject(COSName.PAGES), document);
+        // the page tree is cached so that its page index is kept
+        COSDictionary pages = (COSDictionary)root.getDictionaryObject(COSName.PAGES);
+        PDPageTree tree = cachedPages;
+        if (tree == null || tree.getCOSObject() != pages)
+        {
+            tree = new PDPageTree(pages, document);
+            cachedPages = tree;
+        }
+        return tree;
     }
 
     /**
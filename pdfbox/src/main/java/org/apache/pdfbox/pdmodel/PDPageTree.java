@@ -17,7 +17,9 @@
 package org.apache.pdfbox.pdmodel;
 
 import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Queue;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
@@ -33,12 +35,19 @@ import java.util.List;
 /**
  * The page tree, which defines the ordering of pages in the document in an efficient manner.
  *
+ * <p>The first lookup of a page by index or of the index of a page builds an index of all pages,
+ * so that further lookups don't have to walk the tree. The index is dropped when the tree is
+ * modified through this class, or when the page count or the kids of the root change. A page found
+ * in the index is only taken if it is still in the same place of the tree, otherwise the tree is
+ * walked, so that changes made at the COS level below the root are seen too.
+ *
  * @author John Hewson
  */
 public class PDPageTree implements COSObjectable, Iterable<PDPage>
 {
     private final COSDictionary root;
     private final PDDocument document; // optional
+    private volatile PageIndex pageIndex;
 
     /**
      * Constructor for embedding.
@@ -206,7 +215,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public PDPage get(int index)
     {
-        COSDictionary dict = get(index + 1, root, 0);
+        COSDictionary dict = getPageDictionary(index);
 
         sanitizeType(dict);
 
@@ -228,6 +237,159 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         }
     }
     
+    /**
+     * Returns the COS page at the given index, from the page index if possible.
+     *
+     * @param index zero-based index
+     */
+    private COSDictionary getPageDictionary(int index)
+    {
+        PageIndex current = getPageIndex();
+        if (current.usable)
+        {
+            if (index < 0 || index >= current.pages.length)
+            {
+                throw new IndexOutOfBoundsException("Index out of bounds: " + (index + 1));
+            }
+            if (current.isInPlace(index, root))
+            {
+                return current.pages[index];
+            }
+            // the tree was changed below the root, the index is rebuilt by the next lookup
+            pageIndex = null;
+        }
+        return get(index + 1, root, 0);
+    }
+
+    /**
+     * Returns the index of all pages, building it if it doesn't exist yet or is out of date.
+     */
+    private PageIndex getPageIndex()
+    {
+        PageIndex current = pageIndex;
+        COSBase kids = root.getDictionaryObject(COSName.KIDS);
+        int count = root.getInt(COSName.COUNT, 0);
+        if (current == null || !current.isValid(kids, count))
+        {
+            List<Position> pages = new ArrayList<Position>(Math.max(0, count));
+            Map<COSDictionary, Position> nodes = new HashMap<COSDictionary, Position>();
+            collectPages(root, pages, nodes);
+            current = new PageIndex(kids, count, pages, nodes);
+            pageIndex = current;
+        }
+        return current;
+    }
+
+    private void collectPages(COSDictionary node, List<Position> pages,
+            Map<COSDictionary, Position> nodes)
+    {
+        List<COSDictionary> kids = getKids(node);
+        for (int i = 0, size = kids.size(); i < size; i++)
+        {
+            COSDictionary kid = kids.get(i);
+            Position position = new Position(kid, node, i);
+            if (isPageTreeNode(kid))
+            {
+                nodes.put(kid, position);
+                collectPages(kid, pages, nodes);
+            }
+            else
+            {
+                pages.add(position);
+            }
+        }
+    }
+
+    /**
+     * The place of a page or of a page tree node: its parent and its slot in the kids of the
+     * parent.
+     */
+    private static final class Position
+    {
+        private final COSDictionary node;
+        private final COSDictionary parent;
+        private final int slot;
+
+        private Position(COSDictionary node, COSDictionary parent, int slot)
+        {
+            this.node = node;
+            this.parent = parent;
+            this.slot = slot;
+        }
+
+        private boolean isInPlace()
+        {
+            COSBase kids = parent.getDictionaryObject(COSName.KIDS);
+            return kids instanceof COSArray && slot < ((COSArray) kids).size() &&
+                   ((COSArray) kids).getObject(slot) == node;
+        }
+    }
+
+    /**
+     * The pages of the tree in order and the index of each page. The index is stamped with the
+     * kids and the page count of the root at the time it was built, a cheap way of detecting
+     * most changes made at the COS level.
+     */
+    private static final class PageIndex
+    {
+        private final COSBase kids;
+        private final int kidsSize;
+        private final int count;
+        private final COSDictionary[] pages;
+        private final Position[] positions;
+        private final Map<COSDictionary, Position> nodes;
+        private final Map<COSDictionary, Integer> indexes;
+        // a tree with a wrong /Count is walked like before, as if there was no index
+        private final boolean usable;
+
+        private PageIndex(COSBase kids, int count, List<Position> positions,
+                Map<COSDictionary, Position> nodes)
+        {
+            this.kids = kids;
+            this.kidsSize = kids instanceof COSArray ? ((COSArray) kids).size() : -1;
+            this.count = count;
+            this.positions = positions.toArray(new Position[positions.size()]);
+            this.nodes = nodes;
+            this.pages = new COSDictionary[this.positions.length];
+            for (int i = 0; i < this.pages.length; i++)
+            {
+                this.pages[i] = this.positions[i].node;
+            }
+            this.indexes = new HashMap<COSDictionary, Integer>(this.pages.length * 2);
+            for (int i = this.pages.length - 1; i >= 0; i--)
+            {
+                // the first occurrence wins, as when searching the tree
+                indexes.put(this.pages[i], i);
+            }
+            this.usable = count == this.pages.length;
+        }
+
+        /**
+         * Returns true if the page with the given index and all its ancestors are still in the
+         * kids of their parents where they were when the index was built.
+         */
+        private boolean isInPlace(int index, COSDictionary root)
+        {
+            Position position = positions[index];
+            while (position.isInPlace())
+            {
+                if (position.parent == root)
+                {
+                    return true;
+                }
+                position = nodes.get(position.parent);
+            }
+            return false;
+        }
+
+        private boolean isValid(COSBase currentKids, int currentCount)
+        {
+            int currentKidsSize = currentKids instanceof COSArray ?
+                    ((COSArray) currentKids).size() : -1;
+            return kids == currentKids && kidsSize == currentKidsSize && count == currentCount;
+        }
+    }
+
     /**
      * Returns the given COS page using a depth-first search.
      *
@@ -316,6 +478,18 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public int indexOf(PDPage page)
     {
+        PageIndex current = getPageIndex();
+        Integer index = current.indexes.get(page.getCOSObject());
+        if (index != null)
+        {
+            if (current.isInPlace(index, root))
+            {
+                return index;
+            }
+            // the tree was changed below the root, the index is rebuilt by the next lookup
+            pageIndex = null;
+        }
+        // the page may have been added below the root, search the whole tree
         SearchContext context = new SearchContext(page);
         if (findPage(context, root))
         {
@@ -383,7 +557,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public void remove(int index)
     {
-        COSDictionary node = get(index + 1, root, 0);
+        COSDictionary node = getPageDictionary(index);
         remove(node);
     }
 
@@ -418,6 +592,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
             }
             while (node != null);
         }
+        pageIndex = null;
     }
 
     /**
@@ -447,6 +622,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
             }
         }
         while (node != null);
+        pageIndex = null;
     }
     
     /**
@@ -479,6 +655,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
             throw new IllegalArgumentException("attempted to insert before orphan page");
         }
         increaseParents(parentDict);
+        pageIndex = null;
     }
 
     /**
@@ -511,6 +688,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
             throw new IllegalArgumentException("attempted to insert before orphan page");
         }
         increaseParents(parentDict);
+        pageIndex = null;
     }
 
     private void increaseParents(COSDictionary parentDict)
@@ -201,7 +201,7 @@ public final class PDResources implements COSObjectable
         }
 
         // we can't cache PDPattern, because it holds page resources, see PDFBOX-2370
-        if (cache != null && !(colorSpace instanceof PDPattern))
+        if (cache != null && indirect != null && !(colorSpace instanceof PDPattern))
         {
             cache.put(indirect, colorSpace);
         }
@@ -244,7 +244,7 @@ public final class PDResources implements COSObjectable
             extGState = new PDExtendedGraphicsState(dict);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, extGState);
         }
@@ -277,7 +277,7 @@ public final class PDResources implements COSObjectable
             shading = PDShading.create(dict);
         }
         
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, shading);
         }
@@ -310,7 +310,7 @@ public final class PDResources implements COSObjectable
             pattern = PDAbstractPattern.create(dict);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, pattern);
         }
@@ -342,7 +342,7 @@ public final class PDResources implements COSObjectable
             propertyList = PDPropertyList.create(dict);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, propertyList);
         }
@@ -409,7 +409,7 @@ public final class PDResources implements COSObjectable
             xobject = PDXObject.createXObject(value, this);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             if (isAllowedCache(xobject))
             {
@@ -18,6 +18,7 @@ package org.apache.pdfbox.pdmodel.common.function;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.pdmodel.common.PDRange;
+import org.apache.pdfbox.pdmodel.common.function.type4.CompiledInstructionSequence;
 import org.apache.pdfbox.pdmodel.common.function.type4.ExecutionContext;
 import org.apache.pdfbox.pdmodel.common.function.type4.InstructionSequence;
 import org.apache.pdfbox.pdmodel.common.function.type4.InstructionSequenceBuilder;
@@ -38,6 +39,11 @@ public class PDFunctionType4 extends PDFunction
 
     private final InstructionSequence instructions;
 
+    // compiled on the first evaluation, for the number of input values given then; null if the
+    // instructions can't be compiled, then they are always interpreted
+    private volatile CompiledInstructionSequence compiledInstructions;
+    private volatile boolean compiled;
+
     /**
      * Constructor.
      *
@@ -66,11 +72,37 @@ public class PDFunctionType4 extends PDFunction
     public float[] eval(float[] input) throws IOException
     {
         //Setup the input values
-        ExecutionContext context = new ExecutionContext(OPERATORS);
+        float[] inputValues = new float[input.length];
         for (int i = 0; i < input.length; i++)
         {
             PDRange domain = getDomainForInput(i);
-            float value = clipToRange(input[i], domain.getMin(), domain.getMax());
+            inputValues[i] = clipToRange(input[i], domain.getMin(), domain.getMax());
+        }
+
+        //Execute the compiled function, if it fails the interpreter reports the error
+        int numberOfOutputValues = getNumberOfOutputParameters();
+        float[] outputValues = new float[numberOfOutputValues];
+        if (!compiled)
+        {
+            compiledInstructions = CompiledInstructionSequence.compile(instructions, input.length);
+            compiled = true;
+        }
+        CompiledInstructionSequence compiledSequence = compiledInstructions;
+        if (compiledSequence != null &&
+            compiledSequence.getNumberOfInputs() == inputValues.length &&
+            compiledSequence.execute(inputValues, outputValues))
+        {
+            for (int i = 0; i < numberOfOutputValues; i++)
+            {
+                PDRange range = getRangeForOutput(i);
+                outputValues[i] = clipToRange(outputValues[i], range.getMin(), range.getMax());
+            }
+            return outputValues;
+        }
+
+        ExecutionContext context = new ExecutionContext(OPERATORS);
+        for (float value : inputValues)
+        {
             context.getStack().push(value);
         }
 
@@ -78,7 +110,6 @@ public class PDFunctionType4 extends PDFunction
         instructions.execute(context);
 
         //Extract the output values
-        int numberOfOutputValues = getNumberOfOutputParameters();
         int numberOfActualOutputValues = context.getStack().size();
         if (numberOfActualOutputValues < numberOfOutputValues)
         {
@@ -87,7 +118,6 @@ public class PDFunctionType4 extends PDFunction
                     + " values but the Range entry indicates that "
                     + numberOfOutputValues + " values be returned.");
         }
-        float[] outputValues = new float[numberOfOutputValues];
         for (int i = numberOfOutputValues - 1; i >= 0; i--)
         {
             PDRange range = getRangeForOutput(i);
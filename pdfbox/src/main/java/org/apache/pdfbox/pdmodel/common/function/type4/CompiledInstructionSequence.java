@@ -0,0 +1,851 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.common.function.type4;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An instruction sequence compiled to a flat array of operation codes, which runs on a stack of
+ * primitive values instead of the boxed stack of the {@link ExecutionContext}. Procedures are
+ * compiled to jumps, so the sequence is executed in a single loop.
+ *
+ * <p>The stack depth at every instruction is computed when compiling, so the stack has a fixed
+ * size. Sequences for which this isn't possible aren't compiled, e.g. those whose procedures
+ * change the stack depth by a different amount depending on the condition, or whose
+ * "copy" operand isn't a literal. Values keep their type at run time, so the results are the same
+ * as those of the interpreter. If the interpreter would fail, e.g. because an operand has the
+ * wrong type, {@link #execute(float[], float[])} returns false and the caller should run the
+ * interpreter instead, so that it fails with its usual exception.
+ */
+public final class CompiledInstructionSequence
+{
+    // value types
+    private static final byte INT = 0;
+    private static final byte REAL = 1;
+    private static final byte BOOL = 2;
+
+    // operation codes of the operators
+    private static final int ABS = 0;
+    private static final int ADD = 1;
+    private static final int ATAN = 2;
+    private static final int CEILING = 3;
+    private static final int COS = 4;
+    private static final int CVI = 5;
+    private static final int CVR = 6;
+    private static final int DIV = 7;
+    private static final int EXP = 8;
+    private static final int FLOOR = 9;
+    private static final int IDIV = 10;
+    private static final int LN = 11;
+    private static final int LOG = 12;
+    private static final int MOD = 13;
+    private static final int MUL = 14;
+    private static final int NEG = 15;
+    private static final int ROUND = 16;
+    private static final int SIN = 17;
+    private static final int SQRT = 18;
+    private static final int SUB = 19;
+    private static final int TRUNCATE = 20;
+    private static final int AND = 21;
+    private static final int BITSHIFT = 22;
+    private static final int EQ = 23;
+    private static final int GE = 24;
+    private static final int GT = 25;
+    private static final int LE = 26;
+    private static final int LT = 27;
+    private static final int NE = 28;
+    private static final int NOT = 29;
+    private static final int OR = 30;
+    private static final int XOR = 31;
+    private static final int DUP = 32;
+    private static final int EXCH = 33;
+    private static final int INDEX = 34;
+    private static final int POP = 35;
+    private static final int ROLL = 36;
+
+    // operation codes with an operand
+    private static final int PUSH_INT = 37;
+    private static final int PUSH_REAL = 38;
+    private static final int PUSH_BOOL = 39;
+    private static final int COPY = 40;
+    private static final int JUMP = 41;
+    private static final int JUMP_IF_FALSE = 42;
+
+    private static final Map<String, Integer> OPERATORS = new HashMap<String, Integer>();
+
+    // the number of values each operator pops and pushes, indexed by operation code
+    private static final int[] POPS = new int[ROLL + 1];
+    private static final int[] PUSHES = new int[ROLL + 1];
+
+    static
+    {
+        addOperator("abs", ABS, 1, 1);
+        addOperator("add", ADD, 2, 1);
+        addOperator("atan", ATAN, 2, 1);
+        addOperator("ceiling", CEILING, 1, 1);
+        addOperator("cos", COS, 1, 1);
+        addOperator("cvi", CVI, 1, 1);
+        addOperator("cvr", CVR, 1, 1);
+        addOperator("div", DIV, 2, 1);
+        addOperator("exp", EXP, 2, 1);
+        addOperator("floor", FLOOR, 1, 1);
+        addOperator("idiv", IDIV, 2, 1);
+        addOperator("ln", LN, 1, 1);
+        addOperator("log", LOG, 1, 1);
+        addOperator("mod", MOD, 2, 1);
+        addOperator("mul", MUL, 2, 1);
+        addOperator("neg", NEG, 1, 1);
+        addOperator("round", ROUND, 1, 1);
+        addOperator("sin", SIN, 1, 1);
+        addOperator("sqrt", SQRT, 1, 1);
+        addOperator("sub", SUB, 2, 1);
+        addOperator("truncate", TRUNCATE, 1, 1);
+        addOperator("and", AND, 2, 1);
+        addOperator("bitshift", BITSHIFT, 2, 1);
+        addOperator("eq", EQ, 2, 1);
+        addOperator("ge", GE, 2, 1);
+        addOperator("gt", GT, 2, 1);
+        addOperator("le", LE, 2, 1);
+        addOperator("lt", LT, 2, 1);
+        addOperator("ne", NE, 2, 1);
+        addOperator("not", NOT, 1, 1);
+        addOperator("or", OR, 2, 1);
+        addOperator("xor", XOR, 2, 1);
+        addOperator("dup", DUP, 1, 2);
+        addOperator("exch", EXCH, 2, 2);
+        // the index is checked at run time
+        addOperator("index", INDEX, 1, 1);
+        addOperator("pop", POP, 1, 0);
+        // the rolled values are checked at run time
+        addOperator("roll", ROLL, 2, 0);
+    }
+
+    private static void addOperator(String name, int code, int pops, int pushes)
+    {
+        OPERATORS.put(name, code);
+        POPS[code] = pops;
+        PUSHES[code] = pushes;
+    }
+
+    private final int numberOfInputs;
+    private final int stackSize;
+    private final int[] code;
+
+    private CompiledInstructionSequence(int numberOfInputs, int stackSize, int[] code)
+    {
+        this.numberOfInputs = numberOfInputs;
+        this.stackSize = stackSize;
+        this.code = code;
+    }
+
+    /**
+     * Compiles the given instruction sequence.
+     *
+     * @param sequence the instruction sequence of a type 4 function
+     * @param numberOfInputs the number of input values on the stack when the function starts
+     * @return the compiled sequence, or null if the sequence can't be compiled
+     */
+    public static CompiledInstructionSequence compile(InstructionSequence sequence,
+                                                      int numberOfInputs)
+    {
+        List<Object> instructions = sequence.getInstructions();
+        // the usual case, the function is a single procedure which is executed at the end
+        if (instructions.size() == 1 && instructions.get(0) instanceof InstructionSequence)
+        {
+            instructions = ((InstructionSequence) instructions.get(0)).getInstructions();
+        }
+        Compiler compiler = new Compiler(numberOfInputs);
+        if (!compiler.compile(instructions))
+        {
+            return null;
+        }
+        return new CompiledInstructionSequence(numberOfInputs, compiler.maxDepth,
+                Arrays.copyOf(compiler.code, compiler.length));
+    }
+
+    /**
+     * Returns the number of input values this sequence has been compiled for.
+     *
+     * @return the number of input values
+     */
+    public int getNumberOfInputs()
+    {
+        return numberOfInputs;
+    }
+
+    /**
+     * Executes the sequence.
+     *
+     * @param input the input values, these must be {@link #getNumberOfInputs()} values
+     * @param output receives the values at the top of the stack after the execution, the top value
+     * last
+     * @return true if the sequence has been executed, false if it fails and the interpreter should
+     * be run instead
+     */
+    //
+    // WARNING: this method is performance sensitive, modify with care!
+    //
+    public boolean execute(float[] input, float[] output)
+    {
+        double[] values = new double[stackSize];
+        byte[] types = new byte[stackSize];
+        for (int i = 0; i < numberOfInputs; i++)
+        {
+            values[i] = input[i];
+            types[i] = REAL;
+        }
+        int sp = numberOfInputs;
+        int pc = 0;
+        while (pc < code.length)
+        {
+            switch (code[pc++])
+            {
+                case PUSH_INT:
+                    values[sp] = code[pc++];
+                    types[sp++] = INT;
+                    break;
+                case PUSH_REAL:
+                    values[sp] = Float.intBitsToFloat(code[pc++]);
+                    types[sp++] = REAL;
+                    break;
+                case PUSH_BOOL:
+                    values[sp] = code[pc++];
+                    types[sp++] = BOOL;
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_IF_FALSE:
+                    if (types[--sp] != BOOL)
+                    {
+                        return false;
+                    }
+                    pc = values[sp] != 0 ? pc + 1 : code[pc];
+                    break;
+                case COPY:
+                {
+                    int n = code[pc++];
+                    System.arraycopy(values, sp - n, values, sp, n);
+                    System.arraycopy(types, sp - n, types, sp, n);
+                    sp += n;
+                    break;
+                }
+                case DUP:
+                    values[sp] = values[sp - 1];
+                    types[sp] = types[sp - 1];
+                    sp++;
+                    break;
+                case EXCH:
+                    swap(values, types, sp - 1, sp - 2);
+                    break;
+                case POP:
+                    sp--;
+                    break;
+                case INDEX:
+                {
+                    if (types[sp - 1] == BOOL)
+                    {
+                        return false;
+                    }
+                    int n = (int) values[sp - 1];
+                    int index = sp - 2 - n;
+                    if (n < 0 || index < 0)
+                    {
+                        return false;
+                    }
+                    values[sp - 1] = values[index];
+                    types[sp - 1] = types[index];
+                    break;
+                }
+                case ROLL:
+                    sp -= 2;
+                    if (!roll(values, types, sp))
+                    {
+                        return false;
+                    }
+                    break;
+                case ADD:
+                case SUB:
+                case MUL:
+                {
+                    int op = code[pc - 1];
+                    sp--;
+                    byte t1 = types[sp - 1];
+                    byte t2 = types[sp];
+                    double v1 = values[sp - 1];
+                    double v2 = values[sp];
+                    if (t1 == BOOL || t2 == BOOL)
+                    {
+                        return false;
+                    }
+                    if (t1 == INT && t2 == INT)
+                    {
+                        long result;
+                        if (op == ADD)
+                        {
+                            result = (long) v1 + (long) v2;
+                        }
+                        else if (op == SUB)
+                        {
+                            result = (long) v1 - (long) v2;
+                        }
+                        else
+                        {
+                            result = (long) v1 * (long) v2;
+                        }
+                        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)
+                        {
+                            values[sp - 1] = (float) result;
+                            types[sp - 1] = REAL;
+                        }
+                        else
+                        {
+                            values[sp - 1] = result;
+                            types[sp - 1] = INT;
+                        }
+                    }
+                    else
+                    {
+                        if (op == ADD)
+                        {
+                            values[sp - 1] = (float) v1 + (float) v2;
+                        }
+                        else if (op == SUB)
+                        {
+                            values[sp - 1] = (float) v1 - (float) v2;
+                        }
+                        else
+                        {
+                            values[sp - 1] = (float) (v1 * v2);
+                        }
+                        types[sp - 1] = REAL;
+                    }
+                    break;
+                }
+                case DIV:
+                case EXP:
+                case ATAN:
+                {
+                    int op = code[pc - 1];
+                    sp--;
+                    if (types[sp - 1] == BOOL || types[sp] == BOOL)
+                    {
+                        return false;
+                    }
+                    double v1 = values[sp - 1];
+                    double v2 = values[sp];
+                    if (op == DIV)
+                    {
+                        values[sp - 1] = (float) v1 / (float) v2;
+                    }
+                    else if (op == EXP)
+                    {
+                        values[sp - 1] = (float) Math.pow(v1, v2);
+                    }
+                    else
+                    {
+                        float atan = (float) Math.atan2((float) v1, (float) v2);
+                        atan = (float) Math.toDegrees(atan) % 360;
+                        if (atan < 0)
+                        {
+                            atan = atan + 360;
+                        }
+                        values[sp - 1] = atan;
+                    }
+                    types[sp - 1] = REAL;
+                    break;
+                }
+                case IDIV:
+                case MOD:
+                case BITSHIFT:
+                {
+                    int op = code[pc - 1];
+                    sp--;
+                    if (types[sp - 1] != INT || types[sp] != INT)
+                    {
+                        return false;
+                    }
+                    int int1 = (int) values[sp - 1];
+                    int int2 = (int) values[sp];
+                    if (op == BITSHIFT)
+                    {
+                        values[sp - 1] = int2 < 0 ? int1 >> Math.abs(int2) : int1 << int2;
+                    }
+                    else if (int2 == 0)
+                    {
+                        return false;
+                    }
+                    else
+                    {
+                        values[sp - 1] = op == IDIV ? int1 / int2 : int1 % int2;
+                    }
+                    break;
+                }
+                case ABS:
+                case NEG:
+                case CEILING:
+                case FLOOR:
+                case ROUND:
+                case TRUNCATE:
+                {
+                    int op = code[pc - 1];
+                    byte type = types[sp - 1];
+                    double value = values[sp - 1];
+                    if (type == BOOL)
+                    {
+                        return false;
+                    }
+                    if (type == INT)
+                    {
+                        if (op == ABS)
+                        {
+                            values[sp - 1] = Math.abs((int) value);
+                        }
+                        else if (op == NEG)
+                        {
+                            if ((int) value == Integer.MIN_VALUE)
+                            {
+                                values[sp - 1] = -(float) value;
+                                types[sp - 1] = REAL;
+                            }
+                            else
+                            {
+                                values[sp - 1] = -value;
+                            }
+                        }
+                        // the rounding operators keep integers unchanged
+                    }
+                    else
+                    {
+                        float real = (float) value;
+                        switch (op)
+                        {
+                            case ABS:
+                                values[sp - 1] = Math.abs(real);
+                                break;
+                            case NEG:
+                                values[sp - 1] = -real;
+                                break;
+                            case CEILING:
+                                values[sp - 1] = (float) Math.ceil(value);
+                                break;
+                            case FLOOR:
+                                values[sp - 1] = (float) Math.floor(value);
+                                break;
+                            case ROUND:
+                                values[sp - 1] = (float) Math.round(value);
+                                break;
+                            default:
+                                values[sp - 1] = (float) (int) real;
+                                break;
+                        }
+                    }
+                    break;
+                }
+                case COS:
+                case SIN:
+                case SQRT:
+                case LN:
+                case LOG:
+                case CVR:
+                {
+                    int op = code[pc - 1];
+                    if (types[sp - 1] == BOOL)
+                    {
+                        return false;
+                    }
+                    double value = values[sp - 1];
+                    float real = (float) value;
+                    switch (op)
+                    {
+                        case COS:
+                            values[sp - 1] = (float) Math.cos(Math.toRadians(real));
+                            break;
+                        case SIN:
+                            values[sp - 1] = (float) Math.sin(Math.toRadians(real));
+                            break;
+                        case SQRT:
+                            if (real < 0)
+                            {
+                                return false;
+                            }
+                            values[sp - 1] = (float) Math.sqrt(real);
+                            break;
+                        case LN:
+                            values[sp - 1] = (float) Math.log(value);
+                            break;
+                        case LOG:
+                            values[sp - 1] = (float) Math.log10(value);
+                            break;
+                        default:
+                            values[sp - 1] = real;
+                            break;
+                    }
+                    types[sp - 1] = REAL;
+                    break;
+                }
+                case CVI:
+                    if (types[sp - 1] == BOOL)
+                    {
+                        return false;
+                    }
+                    values[sp - 1] = (int) values[sp - 1];
+                    types[sp - 1] = INT;
+                    break;
+                case EQ:
+                case NE:
+                {
+                    int op = code[pc - 1];
+                    sp--;
+                    byte t1 = types[sp - 1];
+                    byte t2 = types[sp];
+                    boolean equal;
+                    if (t1 != BOOL && t2 != BOOL)
+                    {
+                        equal = (float) values[sp - 1] == (float) values[sp];
+                    }
+                    else
+                    {
+                        equal = t1 == t2 && values[sp - 1] == values[sp];
+                    }
+                    values[sp - 1] = equal == (op == EQ) ? 1 : 0;
+                    types[sp - 1] = BOOL;
+                    break;
+                }
+                case GE:
+                case GT:
+                case LE:
+                case LT:
+                {
+                    int op = code[pc - 1];
+                    sp--;
+                    if (types[sp - 1] == BOOL || types[sp] == BOOL)
+                    {
+                        return false;
+                    }
+                    float num1 = (float) values[sp - 1];
+                    float num2 = (float) values[sp];
+                    boolean result;
+                    if (op == GE)
+                    {
+                        result = num1 >= num2;
+                    }
+                    else if (op == GT)
+                    {
+                        result = num1 > num2;
+                    }
+                    else if (op == LE)
+                    {
+                        result = num1 <= num2;
+                    }
+                    else
+                    {
+                        result = num1 < num2;
+                    }
+                    values[sp - 1] = result ? 1 : 0;
+                    types[sp - 1] = BOOL;
+                    break;
+                }
+                case AND:
+                case OR:
+                case XOR:
+                {
+                    int op = code[pc - 1];
+                    sp--;
+                    byte type = types[sp - 1];
+                    if (type == REAL || type != types[sp])
+                    {
+                        return false;
+                    }
+                    int int1 = (int) values[sp - 1];
+                    int int2 = (int) values[sp];
+                    if (op == AND)
+                    {
+                        values[sp - 1] = int1 & int2;
+                    }
+                    else if (op == OR)
+                    {
+                        values[sp - 1] = int1 | int2;
+                    }
+                    else
+                    {
+                        values[sp - 1] = int1 ^ int2;
+                    }
+                    break;
+                }
+                case NOT:
+                    if (types[sp - 1] == BOOL)
+                    {
+                        values[sp - 1] = values[sp - 1] != 0 ? 0 : 1;
+                    }
+                    else if (types[sp - 1] == INT)
+                    {
+                        // same as the interpreter
+                        values[sp - 1] = -(int) values[sp - 1];
+                    }
+                    else
+                    {
+                        return false;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation " + code[pc - 1]);
+            }
+        }
+
+        int n = output.length;
+        if (sp < n)
+        {
+            return false;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            if (types[sp - n + i] == BOOL)
+            {
+                return false;
+            }
+            output[i] = (float) values[sp - n + i];
+        }
+        return true;
+    }
+
+    private static void swap(double[] values, byte[] types, int i, int j)
+    {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        byte type = types[i];
+        types[i] = types[j];
+        types[j] = type;
+    }
+
+    private static void reverse(double[] values, byte[] types, int from, int to)
+    {
+        for (int i = from, j = to - 1; i < j; i++, j--)
+        {
+            swap(values, types, i, j);
+        }
+    }
+
+    /**
+     * Rolls the values below the operands at the given stack position the way the interpreter
+     * does.
+     */
+    private static boolean roll(double[] values, byte[] types, int sp)
+    {
+        if (types[sp] == BOOL || types[sp + 1] == BOOL)
+        {
+            return false;
+        }
+        int n = (int) values[sp];
+        int j = (int) values[sp + 1];
+        if (j == 0)
+        {
+            return true;
+        }
+        if (n < 0)
+        {
+            return false;
+        }
+        int moved = j > 0 ? n - j : n + j;
+        if (moved <= 0)
+        {
+            // the interpreter pops and pushes the same values
+            return Math.abs((long) j) <= sp;
+        }
+        if (n > sp)
+        {
+            return false;
+        }
+        // rotate the top n values, so that the one at the given offset comes first
+        int first = sp - n;
+        int offset = j > 0 ? n - j : -j;
+        reverse(values, types, first, first + offset);
+        reverse(values, types, first + offset, sp);
+        reverse(values, types, first, sp);
+        return true;
+    }
+
+    /**
+     * Compiles nested instruction sequences into a single code array, keeping track of the stack
+     * depth.
+     */
+    private static final class Compiler
+    {
+        private int[] code = new int[64];
+        private int length;
+        private int depth;
+        private int maxDepth;
+
+        Compiler(int numberOfInputs)
+        {
+            depth = numberOfInputs;
+            maxDepth = numberOfInputs;
+        }
+
+        boolean compile(List<Object> instructions)
+        {
+            int size = instructions.size();
+            for (int i = 0; i < size; i++)
+            {
+                Object instruction = instructions.get(i);
+                Object next = i + 1 < size ? instructions.get(i + 1) : null;
+                if (instruction instanceof InstructionSequence)
+                {
+                    if ("if".equals(next))
+                    {
+                        if (!compileIf((InstructionSequence) instruction))
+                        {
+                            return false;
+                        }
+                        i++;
+                    }
+                    else if (next instanceof InstructionSequence && i + 2 < size &&
+                             "ifelse".equals(instructions.get(i + 2)))
+                    {
+                        if (!compileIfElse((InstructionSequence) instruction,
+                                           (InstructionSequence) next))
+                        {
+                            return false;
+                        }
+                        i += 2;
+                    }
+                    else
+                    {
+                        // a procedure used in any other way
+                        return false;
+                    }
+                }
+                else if (instruction instanceof Integer)
+                {
+                    int value = (Integer) instruction;
+                    if ("copy".equals(next))
+                    {
+                        if (value > depth)
+                        {
+                            return false;
+                        }
+                        if (value > 0)
+                        {
+                            emit(COPY, value);
+                            push(value);
+                        }
+                        i++;
+                    }
+                    else
+                    {
+                        emit(PUSH_INT, value);
+                        push(1);
+                    }
+                }
+                else if (instruction instanceof Float)
+                {
+                    emit(PUSH_REAL, Float.floatToIntBits((Float) instruction));
+                    push(1);
+                }
+                else if (instruction instanceof Boolean)
+                {
+                    emit(PUSH_BOOL, (Boolean) instruction ? 1 : 0);
+                    push(1);
+                }
+                else if ("true".equals(instruction) || "false".equals(instruction))
+                {
+                    emit(PUSH_BOOL, "true".equals(instruction) ? 1 : 0);
+                    push(1);
+                }
+                else
+                {
+                    Integer op = OPERATORS.get(instruction);
+                    if (op == null || depth < POPS[op])
+                    {
+                        // "copy" without a literal operand, an unknown name, or a stack underflow
+                        return false;
+                    }
+                    emit(op);
+                    depth -= POPS[op];
+                    push(PUSHES[op]);
+                }
+            }
+            return true;
+        }
+
+        private boolean compileIf(InstructionSequence proc)
+        {
+            if (depth < 1)
+            {
+                return false;
+            }
+            depth--;
+            int before = depth;
+            int jump = emit(JUMP_IF_FALSE, 0);
+            if (!compile(proc.getInstructions()) || depth != before)
+            {
+                return false;
+            }
+            code[jump + 1] = length;
+            return true;
+        }
+
+        private boolean compileIfElse(InstructionSequence proc1, InstructionSequence proc2)
+        {
+            if (depth < 1)
+            {
+                return false;
+            }
+            depth--;
+            int before = depth;
+            int jumpToElse = emit(JUMP_IF_FALSE, 0);
+            if (!compile(proc1.getInstructions()))
+            {
+                return false;
+            }
+            int after = depth;
+            int jumpToEnd = emit(JUMP, 0);
+            code[jumpToElse + 1] = length;
+            depth = before;
+            if (!compile(proc2.getInstructions()) || depth != after)
+            {
+                return false;
+            }
+            code[jumpToEnd + 1] = length;
+            return true;
+        }
+
+        private void push(int count)
+        {
+            depth += count;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private int emit(int... values)
+        {
+            if (length + values.length > code.length)
+            {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, length + values.length));
+            }
+            int start = length;
+            for (int value : values)
+            {
+                code[length++] = value;
+            }
+            return start;
+        }
+    }
+}
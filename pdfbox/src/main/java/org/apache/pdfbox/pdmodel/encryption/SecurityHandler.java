@@ -29,9 +29,10 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -83,7 +84,10 @@ public abstract class SecurityHandler
     /** indicates if the Metadata have to be decrypted of not. */
     private boolean decryptMetadata;
 
-    private final Set<COSBase> objects = new HashSet<COSBase>();
+    // weak, so that objects which are dropped by a parser with a limit for the parsed objects
+    // can be collected
+    private final Set<COSBase> objects =
+            Collections.newSetFromMap(new WeakHashMap<COSBase, Boolean>());
 
     private boolean useAES;
 
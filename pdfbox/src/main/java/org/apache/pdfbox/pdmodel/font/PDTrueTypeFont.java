@@ -82,7 +82,7 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
     private CmapSubtable cmapWinUnicode = null;
     private CmapSubtable cmapWinSymbol = null;
     private CmapSubtable cmapMacRoman = null;
-    private boolean cmapInitialized = false;
+    private volatile boolean cmapInitialized = false;
     private Map<Integer, Integer> gidToCode; // for embedding
     private BoundingBox fontBBox;
 
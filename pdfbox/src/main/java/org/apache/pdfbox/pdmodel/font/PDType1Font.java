@@ -180,7 +180,7 @@ public class PDType1Font extends PDSimpleFont implements PDVectorFont
         isEmbedded = true;
         isDamaged = false;
         fontMatrixTransform = new AffineTransform();
-        codeToBytesMap = new HashMap<Integer,byte[]>();
+        codeToBytesMap = new ConcurrentHashMap<Integer,byte[]>();
     }
 
     /**
@@ -201,7 +201,7 @@ public class PDType1Font extends PDSimpleFont implements PDVectorFont
         isEmbedded = true;
         isDamaged = false;
         fontMatrixTransform = new AffineTransform();
-        codeToBytesMap = new HashMap<Integer,byte[]>();
+        codeToBytesMap = new ConcurrentHashMap<Integer,byte[]>();
     }
 
     /**
@@ -214,7 +214,7 @@ public class PDType1Font extends PDSimpleFont implements PDVectorFont
     public PDType1Font(COSDictionary fontDictionary) throws IOException
     {
         super(fontDictionary);
-        codeToBytesMap = new HashMap<Integer,byte[]>();
+        codeToBytesMap = new ConcurrentHashMap<Integer,byte[]>();
 
         PDFontDescriptor fd = getFontDescriptor();
         Type1Font t1 = null;
@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.graphics.color;
+
+import java.awt.Point;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The RGB values of an ICC profile, sampled on a regular grid of the 8 bit component values, so
+ * that images can be converted by interpolating between the grid points instead of running the
+ * colour management module of AWT for every image. The grid points are converted by AWT once,
+ * the same way as whole images, and the tables are shared between all colour spaces and
+ * documents with the same profile and rendering intent. They are kept as long as memory permits.
+ * The key of a profile is computed from its data as read, once, because AWT may change the data
+ * of a profile after it has been used.
+ *
+ * <p>Gray profiles have a point for every value. RGB profiles have 52 points per component and
+ * CMYK profiles 24, these are interpolated tetrahedrally in the first three components, and
+ * linearly in black.
+ */
+final class ICCColorTable
+{
+    private static final ConcurrentMap<String, SoftReference<ICCColorTable>> TABLES =
+            new ConcurrentHashMap<String, SoftReference<ICCColorTable>>();
+
+    // fractions between grid points are in 1/256ths
+    private static final int SHIFT = 8;
+    private static final int ONE = 1 << SHIFT;
+
+    private final int numComponents;
+
+    // the strides of the first three components, and of black
+    private final int strideX;
+    private final int strideY;
+    private final int strideZ;
+    private final int strideK;
+    private final int[] strides;
+
+    // the grid point below each 8 bit sample and the fraction of the way to the next one
+    private final int[] lowIndex = new int[256];
+    private final int[] fraction = new int[256];
+
+    // the packed RGB value of every grid point
+    private final int[] rgb;
+
+    /**
+     * Returns the table of the given ICC colour space, building it if none exists yet.
+     *
+     * @param colorSpace the PDF colour space, which converts the grid points
+     * @param awtColorSpace the ICC colour space
+     * @param key the key of the profile, see {@link #getKey(byte[])}
+     * @return the table, or null if the colour space doesn't have 1, 3 or 4 components
+     */
+    static ICCColorTable getInstance(PDColorSpace colorSpace, ICC_ColorSpace awtColorSpace,
+            String key)
+    {
+        if (getPointCount(awtColorSpace.getNumComponents()) < 0)
+        {
+            return null;
+        }
+        ICCColorTable table = null;
+        SoftReference<ICCColorTable> newReference = null;
+        while (true)
+        {
+            SoftReference<ICCColorTable> reference = TABLES.get(key);
+            ICCColorTable existing = reference != null ? reference.get() : null;
+            if (existing != null)
+            {
+                return existing;
+            }
+            if (table == null)
+            {
+                table = new ICCColorTable(colorSpace, awtColorSpace);
+                newReference = new SoftReference<ICCColorTable>(table);
+            }
+            // only store the table if no other thread has stored one in the meantime
+            if (reference == null ? TABLES.putIfAbsent(key, newReference) == null
+                    : TABLES.replace(key, reference, newReference))
+            {
+                return table;
+            }
+        }
+    }
+
+    /**
+     * The table of a colour space, which is only looked up once enough pixels have been converted
+     * to make up for building it.
+     */
+    static final class Lookup
+    {
+        private final String key;
+        private volatile ICCColorTable table;
+        private final AtomicLong convertedPixels = new AtomicLong();
+
+        /**
+         * Constructor.
+         *
+         * @param profileData the data of the ICC profile as read, before AWT has used it
+         */
+        Lookup(byte[] profileData)
+        {
+            key = getKey(profileData);
+        }
+
+        /**
+         * Returns the table of the given ICC colour space if the image can be converted with it.
+         *
+         * @param colorSpace the PDF colour space, which converts the grid points
+         * @param awtColorSpace the ICC colour space
+         * @param raster the image samples
+         * @return the table, or null if the image is to be converted by AWT
+         */
+        ICCColorTable get(PDColorSpace colorSpace, ICC_ColorSpace awtColorSpace, Raster raster)
+        {
+            ICCColorTable current = table;
+            if (current == null)
+            {
+                int points = getPointCount(awtColorSpace.getNumComponents());
+                long pixels = (long) raster.getWidth() * raster.getHeight();
+                if (points > 0 && convertedPixels.addAndGet(pixels) >= points)
+                {
+                    current = getInstance(colorSpace, awtColorSpace, key);
+                    table = current;
+                }
+            }
+            return current != null && current.isSupported(raster) ? current : null;
+        }
+    }
+
+    /**
+     * Returns the number of grid points for the given number of components.
+     *
+     * @param numComponents the number of components
+     * @return the number of grid points, or -1 if the number of components isn't supported
+     */
+    static int getPointCount(int numComponents)
+    {
+        int size = getSize(numComponents);
+        if (size < 0)
+        {
+            return -1;
+        }
+        int points = 1;
+        for (int c = 0; c < numComponents; c++)
+        {
+            points *= size;
+        }
+        return points;
+    }
+
+    // the number of grid points along each component
+    private static int getSize(int numComponents)
+    {
+        switch (numComponents)
+        {
+            case 1:
+                return 256;
+            case 3:
+                return 52;
+            case 4:
+                return 24;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the key of the tables of an ICC profile: the digest of the profile data, so that the
+     * data itself isn't kept, and the rendering intent of the profile header, which AWT uses.
+     *
+     * @param profileData the data of the ICC profile as read, before AWT has used it
+     * @return the key
+     */
+    static String getKey(byte[] profileData)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(profileData);
+            StringBuilder key = new StringBuilder(digest.length * 2 + 2);
+            for (byte b : digest)
+            {
+                key.append(Integer.toHexString(b >> 4 & 0xF)).append(Integer.toHexString(b & 0xF));
+            }
+            int intent = -1;
+            if (profileData.length >= ICC_Profile.icHdrRenderingIntent + 4)
+            {
+                // the intent is in the last two bytes of its big-endian field
+                intent = (profileData[ICC_Profile.icHdrRenderingIntent + 2] & 0xFF) << 8 |
+                         profileData[ICC_Profile.icHdrRenderingIntent + 3] & 0xFF;
+            }
+            return key.append('/').append(intent).toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // should never happen
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ICCColorTable(PDColorSpace colorSpace, ICC_ColorSpace awtColorSpace)
+    {
+        numComponents = awtColorSpace.getNumComponents();
+        int size = getSize(numComponents);
+
+        // the grid points are the 8 bit values closest to an even spacing
+        int[] nodes = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            nodes[i] = Math.round(i * 255f / (size - 1));
+        }
+        for (int sample = 0; sample < 256; sample++)
+        {
+            int low = 0;
+            while (low < size - 2 && nodes[low + 1] <= sample)
+            {
+                low++;
+            }
+            lowIndex[sample] = low;
+            fraction[sample] = ((sample - nodes[low]) * ONE + (nodes[low + 1] - nodes[low]) / 2) /
+                    (nodes[low + 1] - nodes[low]);
+        }
+
+        int points = getPointCount(numComponents);
+        strideK = 1;
+        strideZ = numComponents == 4 ? size : 1;
+        strideY = strideZ * size;
+        strideX = strideY * size;
+        strides = new int[] { strideX, strideY, strideZ, strideK };
+
+        // convert all grid points as one image, with a row for each value of the first component
+        int width = points / size;
+        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, width, size,
+                numComponents, new Point(0, 0));
+        int[] samples = new int[width];
+        for (int c = 0; c < numComponents; c++)
+        {
+            int stride = 1;
+            for (int i = c + 1; i < numComponents; i++)
+            {
+                stride *= size;
+            }
+            for (int y = 0; y < size; y++)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    int point = y * width + x;
+                    samples[x] = nodes[point / stride % size];
+                }
+                raster.setSamples(0, y, width, 1, c, samples);
+            }
+        }
+        BufferedImage image = colorSpace.toRGBImageAWT(raster, awtColorSpace);
+        rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Returns true if the given image can be converted with this table.
+     *
+     * @param raster the image samples
+     * @return true if the image has 8 bit samples and a band for each component
+     */
+    boolean isSupported(Raster raster)
+    {
+        return raster.getTransferType() == DataBuffer.TYPE_BYTE &&
+               raster.getNumBands() == numComponents;
+    }
+
+    /**
+     * Converts an image with 8 bit samples to RGB.
+     *
+     * @param raster the image samples, with one band for each component
+     * @return the RGB image
+     */
+    //
+    // WARNING: this method is performance sensitive, modify with care!
+    //
+    BufferedImage toRGBImage(Raster raster)
+    {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        BufferedImage rgbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) rgbImage.getRaster().getDataBuffer()).getData();
+
+        int[][] rows = new int[numComponents][width];
+        int[] fractions = new int[numComponents];
+        int[] sums = new int[3];
+        for (int y = 0; y < height; y++)
+        {
+            for (int c = 0; c < numComponents; c++)
+            {
+                raster.getSamples(0, y, width, 1, c, rows[c]);
+            }
+            int offset = y * width;
+            int pixel = 0;
+            for (int x = 0; x < width; x++)
+            {
+                if (x > 0 && isSamePixel(rows, x))
+                {
+                    pixels[offset + x] = pixel;
+                    continue;
+                }
+                if (numComponents == 1)
+                {
+                    pixel = rgb[clamp(rows[0][x])];
+                }
+                else
+                {
+                    pixel = interpolate(rows, x, fractions, sums);
+                }
+                pixels[offset + x] = pixel;
+            }
+        }
+        return rgbImage;
+    }
+
+    private boolean isSamePixel(int[][] rows, int x)
+    {
+        for (int c = 0; c < numComponents; c++)
+        {
+            if (rows[c][x] != rows[c][x - 1])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int clamp(int sample)
+    {
+        return Math.max(0, Math.min(255, sample));
+    }
+
+    // interpolates the pixel of 3 or 4 components at the given position
+    private int interpolate(int[][] rows, int x, int[] fractions, int[] sums)
+    {
+        int base = 0;
+        for (int c = 0; c < numComponents; c++)
+        {
+            int sample = clamp(rows[c][x]);
+            base += lowIndex[sample] * strides[c];
+            fractions[c] = fraction[sample];
+        }
+
+        tetrahedral(base, fractions[0], fractions[1], fractions[2], sums);
+        if (numComponents == 3)
+        {
+            int half = ONE / 2;
+            return toRGB(sums[0] + half >> SHIFT, sums[1] + half >> SHIFT,
+                    sums[2] + half >> SHIFT);
+        }
+
+        // interpolate linearly between the two black levels
+        int fk = fractions[3];
+        int r = sums[0] * (ONE - fk);
+        int g = sums[1] * (ONE - fk);
+        int b = sums[2] * (ONE - fk);
+        tetrahedral(base + strideK, fractions[0], fractions[1], fractions[2], sums);
+        r += sums[0] * fk;
+        g += sums[1] * fk;
+        b += sums[2] * fk;
+        int half = ONE * ONE / 2;
+        return toRGB(r + half >> 2 * SHIFT, g + half >> 2 * SHIFT, b + half >> 2 * SHIFT);
+    }
+
+    /**
+     * Interpolates within the cube at the given grid point, using the tetrahedron which contains
+     * the given fractions. The sums of the channels are scaled by {@link #ONE}.
+     */
+    private void tetrahedral(int base, int fx, int fy, int fz, int[] sums)
+    {
+        int v1;
+        int v2;
+        int w0;
+        int w1;
+        int w2;
+        int w3;
+        if (fx >= fy)
+        {
+            if (fy >= fz)
+            {
+                v1 = base + strideX;
+                v2 = v1 + strideY;
+                w0 = ONE - fx;
+                w1 = fx - fy;
+                w2 = fy - fz;
+                w3 = fz;
+            }
+            else if (fx >= fz)
+            {
+                v1 = base + strideX;
+                v2 = v1 + strideZ;
+                w0 = ONE - fx;
+                w1 = fx - fz;
+                w2 = fz - fy;
+                w3 = fy;
+            }
+            else
+            {
+                v1 = base + strideZ;
+                v2 = v1 + strideX;
+                w0 = ONE - fz;
+                w1 = fz - fx;
+                w2 = fx - fy;
+                w3 = fy;
+            }
+        }
+        else
+        {
+            if (fz >= fy)
+            {
+                v1 = base + strideZ;
+                v2 = v1 + strideY;
+                w0 = ONE - fz;
+                w1 = fz - fy;
+                w2 = fy - fx;
+                w3 = fx;
+            }
+            else if (fz >= fx)
+            {
+                v1 = base + strideY;
+                v2 = v1 + strideZ;
+                w0 = ONE - fy;
+                w1 = fy - fz;
+                w2 = fz - fx;
+                w3 = fx;
+            }
+            else
+            {
+                v1 = base + strideY;
+                v2 = v1 + strideX;
+                w0 = ONE - fy;
+                w1 = fy - fx;
+                w2 = fx - fz;
+                w3 = fz;
+            }
+        }
+        int c0 = rgb[base];
+        int c1 = rgb[v1];
+        int c2 = rgb[v2];
+        int c3 = rgb[base + strideX + strideY + strideZ];
+        sums[0] = w0 * (c0 >> 16 & 0xFF) + w1 * (c1 >> 16 & 0xFF) +
+                  w2 * (c2 >> 16 & 0xFF) + w3 * (c3 >> 16 & 0xFF);
+        sums[1] = w0 * (c0 >> 8 & 0xFF) + w1 * (c1 >> 8 & 0xFF) +
+                  w2 * (c2 >> 8 & 0xFF) + w3 * (c3 >> 8 & 0xFF);
+        sums[2] = w0 * (c0 & 0xFF) + w1 * (c1 & 0xFF) +
+                  w2 * (c2 & 0xFF) + w3 * (c3 & 0xFF);
+    }
+
+    private static int toRGB(int r, int g, int b)
+    {
+        return r << 16 | g << 8 | b;
+    }
+}
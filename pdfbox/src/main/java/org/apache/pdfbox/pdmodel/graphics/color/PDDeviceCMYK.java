@@ -45,6 +45,8 @@ public class PDDeviceCMYK extends PDDeviceColorSpace
 
     private final PDColor initialColor = new PDColor(new float[] { 0, 0, 0, 1 }, this);
     private volatile ICC_ColorSpace awtColorSpace;
+    // set before awtColorSpace
+    private ICCColorTable.Lookup colorTable;
 
     protected PDDeviceCMYK()
     {
@@ -73,6 +75,8 @@ public class PDDeviceCMYK extends PDDeviceColorSpace
             {
                 throw new IOException("Default CMYK color profile could not be loaded");
             }
+            // the profile hasn't been used yet, so its data is still as read
+            colorTable = new ICCColorTable.Lookup(iccProfile.getData());
             awtColorSpace = new ICC_ColorSpace(iccProfile);
 
             // there is a JVM bug which results in a CMMException which appears to be a race
@@ -139,6 +143,11 @@ public class PDDeviceCMYK extends PDDeviceColorSpace
     public BufferedImage toRGBImage(WritableRaster raster) throws IOException
     {
         init();
+        ICCColorTable table = colorTable.get(this, awtColorSpace, raster);
+        if (table != null)
+        {
+            return table.toRGBImage(raster);
+        }
         return toRGBImageAWT(raster, awtColorSpace);
     }
 }
@@ -26,6 +26,7 @@ import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
@@ -64,6 +65,10 @@ public class PDDeviceN extends PDSpecialColorSpace
     private PDColorSpace processColorSpace;
     private PDSeparation[] spotColorSpaces;
 
+    // the tint transform sampled on a grid, built once enough pixels have been converted
+    private volatile TintTransformGrid tintTransformGrid;
+    private final AtomicLong convertedPixels = new AtomicLong();
+
     /**
      * Creates a new DeviceN color space.
      */
@@ -226,27 +231,15 @@ public class PDDeviceN extends PDSpecialColorSpace
             WritableRaster componentRaster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE,
                 width, height, componentColorSpace.getNumberOfComponents(), new Point(0, 0));
 
-            int[] samples = new int[numColorants];
-            int[] componentSamples = new int[componentColorSpace.getNumberOfComponents()];
             boolean isProcessColorant = colorantToComponent[c] >= 0;
             int componentIndex = colorantToComponent[c];
+            // process color or spot color
+            int componentBand = isProcessColorant ? componentIndex : 0;
+            int[] samples = new int[width];
             for (int y = 0; y < height; y++)
             {
-                for (int x = 0; x < width; x++)
-                {
-                    raster.getPixel(x, y, samples);
-                    if (isProcessColorant)
-                    {
-                        // process color
-                        componentSamples[componentIndex] = samples[c];
-                    }
-                    else
-                    {
-                        // spot color
-                        componentSamples[0] = samples[c];
-                    }
-                    componentRaster.setPixel(x, y, componentSamples);
-                }
+                raster.getSamples(0, y, width, 1, c, samples);
+                componentRaster.setSamples(0, y, width, 1, componentBand, samples);
             }
 
             // convert single-component raster to RGB
@@ -254,22 +247,20 @@ public class PDDeviceN extends PDSpecialColorSpace
             WritableRaster rgbComponentRaster = rgbComponentImage.getRaster();
 
             // combine the RGB component with the RGB composite raster
-            int[] rgbChannel = new int[3];
-            int[] rgbComposite = new int[3];
+            int[] rgbChannel = new int[width * 3];
+            int[] rgbComposite = new int[width * 3];
             for (int y = 0; y < height; y++)
             {
-                for (int x = 0; x < width; x++)
-                {
-                    rgbComponentRaster.getPixel(x, y, rgbChannel);
-                    rgbRaster.getPixel(x, y, rgbComposite);
-
-                    // multiply (blend mode)
-                    rgbChannel[0] = rgbChannel[0] * rgbComposite[0] >> 8;
-                    rgbChannel[1] = rgbChannel[1] * rgbComposite[1] >> 8;
-                    rgbChannel[2] = rgbChannel[2] * rgbComposite[2] >> 8;
+                rgbComponentRaster.getPixels(0, y, width, 1, rgbChannel);
+                rgbRaster.getPixels(0, y, width, 1, rgbComposite);
 
-                    rgbRaster.setPixel(x, y, rgbChannel);
+                // multiply (blend mode)
+                for (int i = 0; i < rgbChannel.length; i++)
+                {
+                    rgbChannel[i] = rgbChannel[i] * rgbComposite[i] >> 8;
                 }
+
+                rgbRaster.setPixels(0, y, width, 1, rgbChannel);
             }
         }
 
@@ -284,6 +275,12 @@ public class PDDeviceN extends PDSpecialColorSpace
         int width = raster.getWidth();
         int height = raster.getHeight();
 
+        TintTransformGrid grid = getTintTransformGrid((long) width * height);
+        if (grid != null)
+        {
+            return grid.toRGBImage(raster);
+        }
+
         // use the tint transform to convert the sample into
         // the alternate color space (this is usually 1:many)
         BufferedImage rgbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
@@ -297,9 +294,6 @@ public class PDDeviceN extends PDSpecialColorSpace
             {
                 raster.getPixel(x, y, src);
 
-                int[] intSrc = new int[numSrcComponents];
-                raster.getPixel(x, y, intSrc);
-
                 // scale to 0..1
                 for (int s = 0; s < numSrcComponents; s++)
                 {
@@ -324,6 +318,34 @@ public class PDDeviceN extends PDSpecialColorSpace
         return rgbImage;
     }
 
+    /**
+     * Returns the grid of the tint transform, building it if the pixels converted by this colour
+     * space, including the given ones, are more than its points. Returns null if the grid isn't
+     * built yet or the number of colorants isn't supported.
+     */
+    private TintTransformGrid getTintTransformGrid(long pixels) throws IOException
+    {
+        TintTransformGrid grid = tintTransformGrid;
+        if (grid == null)
+        {
+            int numSrcComponents = getNumberOfComponents();
+            int points = TintTransformGrid.getPointCount(numSrcComponents);
+            if (points > 0 && convertedPixels.addAndGet(pixels) >= points)
+            {
+                grid = new TintTransformGrid(tintTransform, alternateColorSpace, numSrcComponents);
+                tintTransformGrid = grid;
+            }
+        }
+        return grid;
+    }
+
+    // drops the grid when the tint transform or the colour spaces change
+    private void resetTintTransformGrid()
+    {
+        tintTransformGrid = null;
+        convertedPixels.set(0);
+    }
+
     @Override
     public float[] toRGB(float[] value) throws IOException
     {
@@ -468,6 +490,7 @@ public class PDDeviceN extends PDSpecialColorSpace
     {
         COSArray namesArray = COSArrayList.convertStringListToCOSNameCOSArray(names);
         array.set(COLORANT_NAMES, namesArray);
+        resetTintTransformGrid();
     }
 
     /**
@@ -518,6 +541,7 @@ public class PDDeviceN extends PDSpecialColorSpace
     public void setAlternateColorSpace(PDColorSpace cs)
     {
         alternateColorSpace = cs;
+        resetTintTransformGrid();
         COSBase space = null;
         if (cs != null)
         {
@@ -550,6 +574,7 @@ public class PDDeviceN extends PDSpecialColorSpace
     public void setTintTransform(PDFunction tint)
     {
         tintTransform = tint;
+        resetTintTransformGrid();
         array.set(TINT_TRANSFORM, tint);
     }
 
@@ -62,6 +62,7 @@ public final class PDICCBased extends PDCIEBasedColorSpace
     private ICC_Profile iccProfile;
     private PDColorSpace alternateColorSpace;
     private ICC_ColorSpace awtColorSpace;
+    private ICCColorTable.Lookup colorTable;
     private PDColor initialColor;
 
     /**
@@ -113,13 +114,15 @@ public final class PDICCBased extends PDCIEBasedColorSpace
         try
         {
             input = this.stream.createInputStream();
+            // the data as read is the key of the colour table, see ICCColorTable
+            byte[] profileData = IOUtils.toByteArray(input);
 
             // if the embedded profile is sRGB then we can use Java's built-in profile, which
             // results in a large performance gain as it's our native color space, see PDFBOX-2587
             ICC_Profile profile;
             synchronized (LOG)
             {
-                profile = ICC_Profile.getInstance(input);
+                profile = ICC_Profile.getInstance(profileData);
             }
             if (is_sRGB(profile))
             {
@@ -130,6 +133,7 @@ public final class PDICCBased extends PDCIEBasedColorSpace
             {
                 awtColorSpace = new ICC_ColorSpace(profile);
                 iccProfile = profile;
+                colorTable = new ICCColorTable.Lookup(profileData);
             }
 
             // set initial colour
@@ -197,6 +201,14 @@ public final class PDICCBased extends PDCIEBasedColorSpace
     {
         if (awtColorSpace != null)
         {
+            // sRGB is converted fastest by AWT and has no table, other profiles are interpolated
+            // from a table
+            ICCColorTable table = colorTable == null ? null
+                    : colorTable.get(this, awtColorSpace, raster);
+            if (table != null)
+            {
+                return table.toRGBImage(raster);
+            }
             return toRGBImageAWT(raster, awtColorSpace);
         }
         else
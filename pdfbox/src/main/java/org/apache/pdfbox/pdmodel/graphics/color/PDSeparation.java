@@ -19,11 +19,10 @@ package org.apache.pdfbox.pdmodel.graphics.color;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
@@ -53,6 +52,9 @@ public class PDSeparation extends PDSpecialColorSpace
     private PDColorSpace alternateColorSpace = null;
     private PDFunction tintTransform = null;
 
+    // the alternate colour space components of every 8 bit tint, built on first use
+    private volatile byte[][] tintTable;
+
     /**
      * Creates a new Separation color space.
      */
@@ -125,23 +127,26 @@ public class PDSeparation extends PDSpecialColorSpace
         int numAltComponents = alternateColorSpace.getNumberOfComponents();
         int width = raster.getWidth();
         int height = raster.getHeight();
-        float[] samples = new float[1];
+        byte[][] table = getTintTable();
+        byte[][] altBanks = ((DataBufferByte) altRaster.getDataBuffer()).getBankData();
 
-        Map<Integer, int[]> calculatedValues = new HashMap<Integer, int[]>();
-        Integer hash;
+        int[] tints = new int[width];
         for (int y = 0; y < height; y++)
         {
+            raster.getSamples(0, y, width, 1, 0, tints);
             for (int x = 0; x < width; x++)
             {
-                raster.getPixel(x, y, samples);
-                int[] alt = calculatedValues.get(hash = Float.floatToIntBits(samples[0]));
-                if (alt == null)
+                tints[x] = Math.max(0, Math.min(255, tints[x]));
+            }
+            int offset = y * width;
+            for (int s = 0; s < numAltComponents; s++)
+            {
+                byte[] bank = altBanks[s];
+                byte[] components = table[s];
+                for (int x = 0; x < width; x++)
                 {
-                    alt = new int[numAltComponents];
-                    tintTransform(samples, alt);
-                    calculatedValues.put(hash, alt);
-                }                
-                altRaster.setPixel(x, y, alt);
+                    bank[offset + x] = components[tints[x]];
+                }
             }
         }
 
@@ -149,6 +154,33 @@ public class PDSeparation extends PDSpecialColorSpace
         return alternateColorSpace.toRGBImage(altRaster);
     }
 
+    /**
+     * Returns the alternate colour space components of every 8 bit tint, indexed by component
+     * and tint.
+     */
+    private byte[][] getTintTable() throws IOException
+    {
+        byte[][] table = tintTable;
+        if (table == null)
+        {
+            int numAltComponents = alternateColorSpace.getNumberOfComponents();
+            table = new byte[numAltComponents][256];
+            float[] samples = new float[1];
+            int[] alt = new int[numAltComponents];
+            for (int tint = 0; tint < 256; tint++)
+            {
+                samples[0] = tint;
+                tintTransform(samples, alt);
+                for (int s = 0; s < numAltComponents; s++)
+                {
+                    table[s][tint] = (byte) Math.max(0, Math.min(255, alt[s]));
+                }
+            }
+            tintTable = table;
+        }
+        return table;
+    }
+
     protected void tintTransform(float[] samples, int[] alt) throws IOException
     {
         samples[0] /= 255; // 0..1
@@ -195,6 +227,7 @@ public class PDSeparation extends PDSpecialColorSpace
     public void setAlternateColorSpace(PDColorSpace colorSpace)
     {
         alternateColorSpace = colorSpace;
+        tintTable = null;
         COSBase space = null;
         if (colorSpace != null)
         {
@@ -210,6 +243,7 @@ public class PDSeparation extends PDSpecialColorSpace
     public void setTintTransform(PDFunction tint)
     {
         tintTransform = tint;
+        tintTable = null;
         array.set(TINT_TRANSFORM, tint);
     }
 
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.graphics.color;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.common.function.PDFunction;
+
+/**
+ * The RGB values of a tint transform and its alternate colour space, sampled on a regular grid of
+ * the 8 bit colorant values. An image is converted by interpolating multilinearly between the grid
+ * points which surround each pixel, instead of evaluating the tint transform for every pixel.
+ *
+ * <p>The grid has at most {@link #MAX_POINTS} points, so it is exact for one and two colorants and
+ * coarser for more. Images with more than {@link #MAX_COMPONENTS} colorants aren't supported, as
+ * the number of points to interpolate between doubles with each colorant.
+ */
+final class TintTransformGrid
+{
+    /**
+     * The maximum number of grid points.
+     */
+    static final int MAX_POINTS = 1 << 16;
+
+    /**
+     * The maximum number of colorants.
+     */
+    static final int MAX_COMPONENTS = 8;
+
+    private final int numComponents;
+    private final int[] strides;
+    private final float[] rgb;
+
+    // the grid index below each 8 bit sample and the fraction of the way to the next one
+    private final int[] lowIndex = new int[256];
+    private final float[] fraction = new float[256];
+
+    /**
+     * Evaluates the tint transform at every grid point.
+     *
+     * @param tintTransform the tint transform
+     * @param alternateColorSpace the colour space of the tint transform's output
+     * @param numComponents the number of colorants, at most {@link #MAX_COMPONENTS}
+     * @throws IOException if the tint transform can't be evaluated
+     */
+    TintTransformGrid(PDFunction tintTransform, PDColorSpace alternateColorSpace,
+                      int numComponents) throws IOException
+    {
+        this.numComponents = numComponents;
+        int size = getSize(numComponents);
+
+        strides = new int[numComponents];
+        int points = 1;
+        for (int c = numComponents - 1; c >= 0; c--)
+        {
+            strides[c] = points;
+            points *= size;
+        }
+
+        for (int sample = 0; sample < 256; sample++)
+        {
+            float position = sample * (size - 1) / 255f;
+            int low = Math.min((int) position, size - 2);
+            lowIndex[sample] = low;
+            fraction[sample] = position - low;
+        }
+
+        rgb = new float[points * 3];
+        float[] value = new float[numComponents];
+        for (int point = 0; point < points; point++)
+        {
+            for (int c = 0; c < numComponents; c++)
+            {
+                value[c] = (float) (point / strides[c] % size) / (size - 1);
+            }
+            float[] rgbValue = alternateColorSpace.toRGB(tintTransform.eval(value));
+            System.arraycopy(rgbValue, 0, rgb, point * 3, 3);
+        }
+    }
+
+    /**
+     * Returns the number of grid points for the given number of colorants.
+     *
+     * @param numComponents the number of colorants
+     * @return the number of grid points, or -1 if the number of colorants isn't supported
+     */
+    static int getPointCount(int numComponents)
+    {
+        if (numComponents < 1 || numComponents > MAX_COMPONENTS)
+        {
+            return -1;
+        }
+        int size = getSize(numComponents);
+        int points = 1;
+        for (int c = 0; c < numComponents; c++)
+        {
+            points *= size;
+        }
+        return points;
+    }
+
+    // the number of grid points along each colorant, i.e. the largest n with n^c <= MAX_POINTS
+    private static int getSize(int numComponents)
+    {
+        int size = 256;
+        while (size > 2 && Math.pow(size, numComponents) > MAX_POINTS)
+        {
+            size--;
+        }
+        return size;
+    }
+
+    /**
+     * Converts an image with 8 bit samples of the colorants to RGB.
+     *
+     * @param raster the image samples
+     * @return the RGB image
+     */
+    //
+    // WARNING: this method is performance sensitive, modify with care!
+    //
+    BufferedImage toRGBImage(Raster raster)
+    {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        BufferedImage rgbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) rgbImage.getRaster().getDataBuffer()).getData();
+
+        int[] row = new int[width * numComponents];
+        int[] activeStrides = new int[numComponents];
+        float[] activeFractions = new float[numComponents];
+        float[] rgbValue = new float[3];
+        for (int y = 0; y < height; y++)
+        {
+            raster.getPixels(0, y, width, 1, row);
+            int pixel = 0;
+            for (int x = 0; x < width; x++)
+            {
+                int offset = x * numComponents;
+                if (x > 0 && isSamePixel(row, offset))
+                {
+                    pixels[y * width + x] = pixel;
+                    continue;
+                }
+
+                // only the colorants between two grid points need to be interpolated
+                int base = 0;
+                int active = 0;
+                for (int c = 0; c < numComponents; c++)
+                {
+                    int sample = Math.max(0, Math.min(255, row[offset + c]));
+                    base += lowIndex[sample] * strides[c];
+                    if (fraction[sample] != 0)
+                    {
+                        activeStrides[active] = strides[c];
+                        activeFractions[active] = fraction[sample];
+                        active++;
+                    }
+                }
+                interpolate(base, activeStrides, activeFractions, active, rgbValue);
+
+                pixel = toByte(rgbValue[0]) << 16 | toByte(rgbValue[1]) << 8 | toByte(rgbValue[2]);
+                pixels[y * width + x] = pixel;
+            }
+        }
+        return rgbImage;
+    }
+
+    // true if the pixel at the given offset has the same samples as the one before it
+    private boolean isSamePixel(int[] row, int offset)
+    {
+        for (int c = 0; c < numComponents; c++)
+        {
+            if (row[offset + c] != row[offset - numComponents + c])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // sums the grid points at the corners of the cell, weighted by their distance to the pixel
+    private void interpolate(int base, int[] activeStrides, float[] activeFractions, int active,
+                             float[] rgbValue)
+    {
+        float r = 0;
+        float g = 0;
+        float b = 0;
+        for (int corner = 0; corner < 1 << active; corner++)
+        {
+            int index = base;
+            float weight = 1;
+            for (int a = 0; a < active; a++)
+            {
+                if ((corner & 1 << a) != 0)
+                {
+                    index += activeStrides[a];
+                    weight *= activeFractions[a];
+                }
+                else
+                {
+                    weight *= 1 - activeFractions[a];
+                }
+            }
+            if (weight != 0)
+            {
+                index *= 3;
+                r += weight * rgb[index];
+                g += weight * rgb[index + 1];
+                b += weight * rgb[index + 2];
+            }
+        }
+        rgbValue[0] = r;
+        rgbValue[1] = g;
+        rgbValue[2] = b;
+    }
+
+    private static int toByte(float value)
+    {
+        // scale to 0..255
+        return Math.max(0, Math.min(255, (int) (value * 255f)));
+    }
+}
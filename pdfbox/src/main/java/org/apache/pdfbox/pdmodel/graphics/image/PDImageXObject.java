@@ -18,6 +18,7 @@ package org.apache.pdfbox.pdmodel.graphics.image;
 
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
@@ -28,7 +29,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.SoftReference;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.imageio.ImageIO;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -37,6 +40,7 @@ import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSInputStream;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.filter.DecodeOptions;
 import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDResources;
@@ -54,14 +58,16 @@ import org.apache.pdfbox.util.filetypedetector.FileTypeDetector;
  * @author John Hewson
  * @author Ben Litchfield
  */
-public final class PDImageXObject extends PDXObject implements PDImage
+public final class PDImageXObject extends PDXObject implements PDSubsamplingImage
 {
     /**
      * Log instance.
      */
     private static final Log LOG = LogFactory.getLog(PDImageXObject.class);
 
-    private SoftReference<BufferedImage> cachedImage;
+    // the whole image, by subsampling factor
+    private final Map<Integer, SoftReference<BufferedImage>> cachedImages =
+            new HashMap<Integer, SoftReference<BufferedImage>>();
     private PDColorSpace colorSpace;
     private final PDResources resources; // current resource dictionary (has color spaces)
 
@@ -144,7 +150,26 @@ public final class PDImageXObject extends PDXObject implements PDImage
      */
     public PDImageXObject(PDStream stream, PDResources resources) throws IOException
     {
-        this(stream, resources, stream.createInputStream());
+        super(stream, COSName.IMAGE);
+        this.resources = resources;
+
+        // only the JPX filter repairs the parameters, other images aren't decoded before they
+        // are needed, and then maybe only in parts
+        List<COSName> filters = stream.getFilters();
+        if (filters != null && !filters.isEmpty() &&
+            COSName.JPX_DECODE.equals(filters.get(filters.size() - 1)))
+        {
+            COSInputStream input = stream.createInputStream();
+            try
+            {
+                stream.getCOSObject().addAll(input.getDecodeResult().getParameters());
+                this.colorSpace = input.getDecodeResult().getJPXColorSpace();
+            }
+            finally
+            {
+                input.close();
+            }
+        }
     }
     
     /**
@@ -264,21 +289,6 @@ public final class PDImageXObject extends PDXObject implements PDImage
         throw new IllegalArgumentException("Image type not supported: " + file.getName());
     }
 
-    // repairs parameters using decode result
-    private PDImageXObject(PDStream stream, PDResources resources, COSInputStream input)
-    {
-        super(repair(stream, input), COSName.IMAGE);
-        this.resources = resources;
-        this.colorSpace = input.getDecodeResult().getJPXColorSpace();
-    }
-
-    // repairs parameters using decode result
-    private static PDStream repair(PDStream stream, COSInputStream input)
-    {
-        stream.getCOSObject().addAll(input.getDecodeResult().getParameters());
-        return stream;
-    }
-
     /**
      * Returns the metadata associated with this XObject, or null if there is none.
      * @return the metadata associated with this object.
@@ -327,23 +337,44 @@ public final class PDImageXObject extends PDXObject implements PDImage
     @Override
     public BufferedImage getImage() throws IOException
     {
-        if (cachedImage != null)
+        return getImage(null, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The whole image is cached via a SoftReference for every subsampling factor, parts of the
+     * image are not cached.
+     */
+    @Override
+    public BufferedImage getImage(Rectangle region, int subsampling) throws IOException
+    {
+        Rectangle bounds = new Rectangle(getWidth(), getHeight());
+        if (region != null && region.contains(bounds))
+        {
+            region = null;
+        }
+        if (region == null)
         {
-            BufferedImage cached = cachedImage.get();
-            if (cached != null)
+            synchronized (cachedImages)
             {
-                return cached;
+                SoftReference<BufferedImage> cachedImage = cachedImages.get(subsampling);
+                BufferedImage cached = cachedImage != null ? cachedImage.get() : null;
+                if (cached != null)
+                {
+                    return cached;
+                }
             }
         }
 
         // get image as RGB
-        BufferedImage image = SampledImageReader.getRGBImage(this, getColorKeyMask());
+        BufferedImage image = SampledImageReader.getRGBImage(this, region, subsampling,
+                getColorKeyMask());
 
         // soft mask (overrides explicit mask)
         PDImageXObject softMask = getSoftMask();
         if (softMask != null)
         {
-            image = applyMask(image, softMask.getOpaqueImage(), true);
+            image = applyMask(image, getMaskImage(softMask, region, subsampling), true);
         }
         else
         {
@@ -351,14 +382,71 @@ public final class PDImageXObject extends PDXObject implements PDImage
             PDImageXObject mask = getMask();
             if (mask != null && mask.isStencil())
             {
-                image = applyMask(image, mask.getOpaqueImage(), false);
+                image = applyMask(image, getMaskImage(mask, region, subsampling), false);
             }
         }
 
-        cachedImage = new SoftReference<BufferedImage>(image);
+        if (region == null)
+        {
+            synchronized (cachedImages)
+            {
+                cachedImages.put(subsampling, new SoftReference<BufferedImage>(image));
+            }
+        }
         return image;
     }
 
+    /**
+     * Returns the given mask for the given part of this image, at the same resolution as that
+     * part or at a higher one.
+     */
+    private BufferedImage getMaskImage(PDImageXObject mask, Rectangle region, int subsampling)
+            throws IOException
+    {
+        int width = getWidth();
+        int height = getHeight();
+        if (region == null && subsampling == 1)
+        {
+            return mask.getOpaqueImage();
+        }
+        if (mask.getWidth() == width && mask.getHeight() == height)
+        {
+            // the usual case, the pixels of the mask are the pixels of the image
+            return SampledImageReader.getRGBImage(mask, region, subsampling, null);
+        }
+
+        // read the whole mask at about the same resolution as this image
+        double scale = Math.min((double) mask.getWidth() / width,
+                                (double) mask.getHeight() / height);
+        int maskSubsampling = Math.max(1, (int) Math.floor(subsampling * scale));
+        BufferedImage maskImage = SampledImageReader.getRGBImage(mask, null, maskSubsampling,
+                null);
+        if (region == null)
+        {
+            // scaled to fit this image by applyMask
+            return maskImage;
+        }
+
+        // cut out the part of the region, keeping the resolution of the mask
+        Rectangle source = region.intersection(new Rectangle(width, height));
+        double scaleX = (double) maskImage.getWidth() / width;
+        double scaleY = (double) maskImage.getHeight() / height;
+        int cutWidth = Math.max(1, (int) Math.ceil(source.width * scaleX));
+        int cutHeight = Math.max(1, (int) Math.ceil(source.height * scaleY));
+        BufferedImage cut = new BufferedImage(cutWidth, cutHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = cut.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                           RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING,
+                           RenderingHints.VALUE_RENDER_QUALITY);
+        g.scale((double) cutWidth / source.width, (double) cutHeight / source.height);
+        g.translate(-source.x, -source.y);
+        g.scale(1 / scaleX, 1 / scaleY);
+        g.drawImage(maskImage, 0, 0, null);
+        g.dispose();
+        return cut;
+    }
+
     /**
      * {@inheritDoc}
      * The returned images are not cached.
@@ -571,6 +659,12 @@ public final class PDImageXObject extends PDXObject implements PDImage
         return getStream().createInputStream(stopFilters);
     }
 
+    @Override
+    public InputStream createSubsampledInputStream(DecodeOptions options) throws IOException
+    {
+        return getStream().createSubsampledInputStream(options);
+    }
+
     @Override
     public boolean isEmpty()
     {
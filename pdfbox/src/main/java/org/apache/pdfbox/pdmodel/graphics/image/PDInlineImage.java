@@ -17,6 +17,7 @@
 package org.apache.pdfbox.pdmodel.graphics.image;
 
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -27,6 +28,7 @@ import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.DecodeOptions;
 import org.apache.pdfbox.filter.DecodeResult;
 import org.apache.pdfbox.filter.Filter;
 import org.apache.pdfbox.filter.FilterFactory;
@@ -42,7 +44,7 @@ import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
  * @author Ben Litchfield
  * @author John Hewson
  */
-public final class PDInlineImage implements PDImage
+public final class PDInlineImage implements PDSubsamplingImage
 {
     // image parameters
     private final COSDictionary parameters;
@@ -320,6 +322,13 @@ public final class PDInlineImage implements PDImage
         return new ByteArrayInputStream(out.toByteArray());
     }
 
+    @Override
+    public InputStream createSubsampledInputStream(DecodeOptions options) throws IOException
+    {
+        // the data has been decoded already
+        return createInputStream();
+    }
+
     @Override
     public boolean isEmpty()
     {
@@ -340,6 +349,12 @@ public final class PDInlineImage implements PDImage
         return SampledImageReader.getRGBImage(this, getColorKeyMask());
     }
 
+    @Override
+    public BufferedImage getImage(Rectangle region, int subsampling) throws IOException
+    {
+        return SampledImageReader.getRGBImage(this, region, subsampling, getColorKeyMask());
+    }
+
     @Override
     public BufferedImage getStencilImage(Paint paint) throws IOException
     {
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.graphics.image;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.pdfbox.filter.DecodeOptions;
+
+/**
+ * An image which can be read in parts and at a lower resolution. The renderer only reads the
+ * visible part of such an image, at about the resolution of the device, if subsampling is allowed;
+ * other images are always read completely.
+ */
+public interface PDSubsamplingImage extends PDImage
+{
+    /**
+     * Returns a part of this image as an AWT buffered image with an (A)RGB color space, at full
+     * or at a lower resolution. With a subsampling factor of n only every n-th row and column is
+     * read, the returned image is n times smaller. This is for images which are drawn smaller
+     * than their resolution, or which are only partly visible.
+     * @param region the part of the image to read in image pixel coordinates, or null for the
+     * whole image. It is clipped to the bounds of the image and must intersect them.
+     * @param subsampling the subsampling factor, at least 1
+     * @return the content of the region of this image as a buffered image.
+     * @throws IOException if the image cannot be read
+     */
+    BufferedImage getImage(Rectangle region, int subsampling) throws IOException;
+
+    /**
+     * Returns an InputStream containing the image data, irrespective of whether this is an
+     * inline image or an image XObject. An image filter may use the given options to decode
+     * only a part of the image, see {@link DecodeOptions#isFilterSubsampled()}.
+     * @param options the decode options
+     * @return Decoded stream
+     * @throws IOException if the data could not be read.
+     */
+    InputStream createSubsampledInputStream(DecodeOptions options) throws IOException;
+}
@@ -19,20 +19,21 @@ package org.apache.pdfbox.pdmodel.graphics.image;
 import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
-import javax.imageio.stream.ImageInputStream;
-import javax.imageio.stream.MemoryCacheImageInputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.filter.DecodeOptions;
 import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
 import org.apache.pdfbox.pdmodel.graphics.color.PDIndexed;
@@ -78,19 +79,18 @@ final class SampledImageReader
         // set the alpha
         int width = masked.getWidth();
         int height = masked.getHeight();
-        WritableRaster raster = masked.getRaster();
+        int[] data = ((DataBufferInt) masked.getRaster().getDataBuffer()).getData();
         WritableRaster alpha = mask.getRaster();
 
-        final float[] transparent = new float[4];
-        float[] alphaPixel = null;
-        for (int y = 0; y < height; y++)
+        int[] alphaRow = new int[width];
+        for (int y = 0, idx = 0; y < height; y++, idx += width)
         {
+            alpha.getSamples(0, y, width, 1, 0, alphaRow);
             for (int x = 0; x < width; x++)
             {
-                alphaPixel = alpha.getPixel(x, y, alphaPixel);
-                if (alphaPixel[0] == 255)
+                if (alphaRow[x] == 255)
                 {
-                    raster.setPixel(x, y, transparent);
+                    data[idx + x] = 0;
                 }
             }
         }
@@ -108,6 +108,27 @@ final class SampledImageReader
      * @throws IOException if the image cannot be read
      */
     public static BufferedImage getRGBImage(PDImage pdImage, COSArray colorKey) throws IOException
+    {
+        return getRGBImage(pdImage, null, 1, colorKey);
+    }
+
+    /**
+     * Returns a part of the given image as an AWT buffered image with an RGB color space. With a
+     * subsampling factor of n only every n-th row and column of the part is read, starting with
+     * its first row and column. The image filter does this if it can, otherwise the rows and
+     * columns are skipped here.
+     * If a color key mask is provided then an ARGB image is returned instead.
+     * This method never returns null.
+     * @param pdImage the image to read
+     * @param region the part of the image to read, or null for the whole image. It is clipped to
+     * the bounds of the image and must intersect them.
+     * @param subsampling the subsampling factor, at least 1
+     * @param colorKey an optional color key mask
+     * @return content of the part of this image as an RGB buffered image
+     * @throws IOException if the image cannot be read
+     */
+    public static BufferedImage getRGBImage(PDImage pdImage, Rectangle region, int subsampling,
+                                            COSArray colorKey) throws IOException
     {
         if (pdImage.isEmpty())
         {
@@ -126,6 +147,19 @@ final class SampledImageReader
         {
             throw new IOException("image weight and height must be positive");
         }
+        if (subsampling < 1)
+        {
+            throw new IllegalArgumentException("subsampling must be at least 1: " + subsampling);
+        }
+
+        Rectangle bounds = new Rectangle(width, height);
+        Rectangle source = region != null ? region.intersection(bounds) : bounds;
+        if (source.isEmpty())
+        {
+            throw new IllegalArgumentException("region " + region + " is outside of the image");
+        }
+        final int outputWidth = (source.width + subsampling - 1) / subsampling;
+        final int outputHeight = (source.height + subsampling - 1) / subsampling;
 
         //
         // An AWT raster must use 8/16/32 bits per component. Images with < 8bpc
@@ -133,246 +167,364 @@ final class SampledImageReader
         // in depth to 8bpc as they will be drawn to TYPE_INT_RGB images anyway. All code
         // in PDColorSpace#toRGBImage expects and 8-bit range, i.e. 0-255.
         //
-        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, width, height,
-                numComponents, new Point(0, 0));
-
-        // convert image, faster path for non-decoded, non-colormasked 8-bit images
-        final float[] defaultDecode = pdImage.getColorSpace().getDefaultDecode(8);
-        if (bitsPerComponent == 8 && Arrays.equals(decode, defaultDecode) && colorKey == null)
-        {
-            return from8bit(pdImage, raster);
-        }
-        else if (bitsPerComponent == 1 && colorKey == null)
+        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, outputWidth,
+                outputHeight, numComponents, new Point(0, 0));
+
+        DecodeOptions options = source.equals(bounds) && subsampling == 1
+                ? DecodeOptions.DEFAULT : new DecodeOptions(source, subsampling);
+        InputStream input = pdImage instanceof PDSubsamplingImage
+                ? ((PDSubsamplingImage) pdImage).createSubsampledInputStream(options)
+                : pdImage.createInputStream();
+        try
         {
-            return from1Bit(pdImage, raster);
+            int inputWidth = width;
+            if (options.isFilterSubsampled())
+            {
+                // the filter has read the selected pixels only
+                inputWidth = outputWidth;
+                source = new Rectangle(outputWidth, outputHeight);
+                subsampling = 1;
+            }
+
+            // convert image, faster path for non-decoded, non-colormasked 8-bit images
+            final float[] defaultDecode = pdImage.getColorSpace().getDefaultDecode(8);
+            if (bitsPerComponent == 8 && Arrays.equals(decode, defaultDecode) && colorKey == null)
+            {
+                return from8bit(pdImage, input, raster, inputWidth, source, subsampling);
+            }
+            else if (bitsPerComponent == 1 && colorKey == null)
+            {
+                return from1Bit(pdImage, input, raster, inputWidth, source, subsampling);
+            }
+            else
+            {
+                return fromAny(pdImage, input, raster, colorKey, inputWidth, source, subsampling);
+            }
         }
-        else
+        finally
         {
-            return fromAny(pdImage, raster, colorKey);
+            IOUtils.closeQuietly(input);
         }
     }
-    
-    private static BufferedImage from1Bit(PDImage pdImage, WritableRaster raster)
+
+    // true if the given row of the input is read, see getRGBImage
+    private static boolean isRowRead(int y, Rectangle source, int subsampling)
+    {
+        return y >= source.y && (y - source.y) % subsampling == 0;
+    }
+
+    private static BufferedImage from1Bit(PDImage pdImage, InputStream input,
+            WritableRaster raster, int inputWidth, Rectangle source, int subsampling)
             throws IOException
     {
         final PDColorSpace colorSpace = pdImage.getColorSpace();
-        final int width = pdImage.getWidth();
-        final int height = pdImage.getHeight();
         final float[] decode = getDecodeArray(pdImage);
+        final int outputWidth = raster.getWidth();
+        final int outputHeight = raster.getHeight();
         byte[] output = ((DataBufferByte) raster.getDataBuffer()).getData();
+        final boolean isIndexed = colorSpace instanceof PDIndexed;
 
-        // read bit stream
-        InputStream iis = null;
-        try
+        int rowLen = inputWidth / 8;
+        if (inputWidth % 8 > 0)
         {
-            // create stream
-            iis = pdImage.createInputStream();
-            final boolean isIndexed = colorSpace instanceof PDIndexed;
-
-            int rowLen = width / 8;
-            if (width % 8 > 0)
-            {
-                rowLen++;
-            }
+            rowLen++;
+        }
 
-            // read stream
-            byte value0;
-            byte value1;
-            if (isIndexed || decode[0] < decode[1])
-            {
-                value0 = 0;
-                value1 = (byte) 255;
-            }
-            else
-            {
-                value0 = (byte) 255;
-                value1 = 0;
-            }
-            byte[] buff = new byte[rowLen];
-            int idx = 0;
-            for (int y = 0; y < height; y++)
+        // read stream
+        byte value0;
+        byte value1;
+        if (isIndexed || decode[0] < decode[1])
+        {
+            value0 = 0;
+            value1 = (byte) 255;
+        }
+        else
+        {
+            value0 = (byte) 255;
+            value1 = 0;
+        }
+        byte[] buff = new byte[rowLen];
+        int lastRow = source.y + (outputHeight - 1) * subsampling;
+        for (int y = 0; y <= lastRow; y++)
+        {
+            int readLen = (int) IOUtils.populateBuffer(input, buff);
+            if (isRowRead(y, source, subsampling))
             {
-                int x = 0;
-                int readLen = iis.read(buff);
-                for (int r = 0; r < rowLen && r < readLen; r++)
+                int idx = (y - source.y) / subsampling * outputWidth;
+                for (int x = 0; x < outputWidth; x++)
                 {
-                    int value = buff[r];
-                    int mask = 128;
-                    for (int i = 0; i < 8; i++)
+                    int inputX = source.x + x * subsampling;
+                    if (inputX / 8 >= readLen)
                     {
-                        int bit = value & mask;
-                        mask >>= 1;
-                        output[idx++] = bit == 0 ? value0 : value1;
-                        x++;
-                        if (x == width)
-                        {
-                            break;
-                        }
+                        break;
                     }
-                }
-                if (readLen != rowLen)
-                {
-                    LOG.warn("premature EOF, image will be incomplete");
-                    break;
+                    int bit = buff[inputX / 8] & (0x80 >> (inputX % 8));
+                    output[idx++] = bit == 0 ? value0 : value1;
                 }
             }
-
-            // use the color space to convert the image to RGB
-            BufferedImage rgbImage = colorSpace.toRGBImage(raster);
-
-            return rgbImage;
-        }
-        finally
-        {
-            if (iis != null)
+            if (readLen != rowLen)
             {
-                iis.close();
+                LOG.warn("premature EOF, image will be incomplete");
+                break;
             }
         }
+
+        // use the color space to convert the image to RGB
+        return colorSpace.toRGBImage(raster);
     }
 
     // faster, 8-bit non-decoded, non-colormasked image conversion
-    private static BufferedImage from8bit(PDImage pdImage, WritableRaster raster)
+    private static BufferedImage from8bit(PDImage pdImage, InputStream input,
+            WritableRaster raster, int inputWidth, Rectangle source, int subsampling)
             throws IOException
     {
-        InputStream input = pdImage.createInputStream();
-        try
+        // get the raster's underlying byte buffer
+        byte[][] banks = ((DataBufferByte) raster.getDataBuffer()).getBankData();
+        final int outputWidth = raster.getWidth();
+        final int outputHeight = raster.getHeight();
+        final int numComponents = pdImage.getColorSpace().getNumberOfComponents();
+        final int rowLen = inputWidth * numComponents;
+        final int step = numComponents * subsampling;
+        byte[] row = new byte[rowLen];
+        int lastRow = source.y + (outputHeight - 1) * subsampling;
+        for (int y = 0; y <= lastRow; y++)
         {
-            // get the raster's underlying byte buffer
-            byte[][] banks = ((DataBufferByte) raster.getDataBuffer()).getBankData();
-            final int width = pdImage.getWidth();
-            final int height = pdImage.getHeight();
-            final int numComponents = pdImage.getColorSpace().getNumberOfComponents();
-            int max = width * height;
-            byte[] tempBytes = new byte[numComponents];
-            for (int i = 0; i < max; i++)
+            int readLen = (int) IOUtils.populateBuffer(input, row);
+            if (readLen != rowLen)
             {
-                input.read(tempBytes);
-                for (int c = 0; c < numComponents; c++)
+                Arrays.fill(row, readLen, rowLen, (byte) 0);
+            }
+            if (isRowRead(y, source, subsampling))
+            {
+                int idx = (y - source.y) / subsampling * outputWidth;
+                int start = source.x * numComponents;
+                if (step == 1)
+                {
+                    // one component, every pixel
+                    System.arraycopy(row, start, banks[0], idx, outputWidth);
+                }
+                else
                 {
-                    banks[c][i] = tempBytes[0+c];
+                    for (int c = 0; c < numComponents; c++)
+                    {
+                        byte[] bank = banks[c];
+                        for (int x = 0, offset = start + c; x < outputWidth; x++, offset += step)
+                        {
+                            bank[idx + x] = row[offset];
+                        }
+                    }
                 }
             }
-            // use the color space to convert the image to RGB
-            return pdImage.getColorSpace().toRGBImage(raster);
-        }
-        finally
-        {
-            IOUtils.closeQuietly(input);
+            if (readLen != rowLen)
+            {
+                LOG.warn("premature EOF, image will be incomplete");
+                break;
+            }
         }
-    }    
+        // use the color space to convert the image to RGB
+        return pdImage.getColorSpace().toRGBImage(raster);
+    }
     
-    // slower, general-purpose image conversion from any image format
-    private static BufferedImage fromAny(PDImage pdImage, WritableRaster raster, COSArray colorKey)
-            throws IOException
+    // general-purpose image conversion from any image format, a row at a time
+    private static BufferedImage fromAny(PDImage pdImage, InputStream input,
+            WritableRaster raster, COSArray colorKey, int inputWidth, Rectangle source,
+            int subsampling) throws IOException
     {
         final PDColorSpace colorSpace = pdImage.getColorSpace();
         final int numComponents = colorSpace.getNumberOfComponents();
-        final int width = pdImage.getWidth();
-        final int height = pdImage.getHeight();
+        final int outputWidth = raster.getWidth();
+        final int outputHeight = raster.getHeight();
         final int bitsPerComponent = pdImage.getBitsPerComponent();
         final float[] decode = getDecodeArray(pdImage);
-
-        // read bit stream
-        ImageInputStream iis = null;
-        try
+        final boolean isIndexed = colorSpace instanceof PDIndexed;
+        final float sampleMax = (float)Math.pow(2, bitsPerComponent) - 1f;
+        byte[][] banks = ((DataBufferByte) raster.getDataBuffer()).getBankData();
+
+        // the decoded value of every sample value, if there are fewer of them than pixels
+        byte[][] lookup = null;
+        if (bitsPerComponent <= 8 || bitsPerComponent <= 16 &&
+            (long) outputWidth * outputHeight >= 1 << bitsPerComponent)
         {
-            // create stream
-            iis = new MemoryCacheImageInputStream(pdImage.createInputStream());
-            final float sampleMax = (float)Math.pow(2, bitsPerComponent) - 1f;
-            final boolean isIndexed = colorSpace instanceof PDIndexed;
-
-            // init color key mask
-            float[] colorKeyRanges = null;
-            BufferedImage colorKeyMask = null;
-            if (colorKey != null)
+            lookup = new byte[numComponents][1 << bitsPerComponent];
+            for (int c = 0; c < numComponents; c++)
             {
-                colorKeyRanges = colorKey.toFloatArray();
-                colorKeyMask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                for (int value = 0; value < lookup[c].length; value++)
+                {
+                    lookup[c][value] = decodeSample(value, decode[c * 2], decode[c * 2 + 1],
+                            sampleMax, isIndexed);
+                }
             }
+        }
 
-            // calculate row padding
-            int padding = 0;
-            if (width * numComponents * bitsPerComponent % 8 > 0)
+        // init color key mask
+        float[] colorKeyRanges = null;
+        BufferedImage colorKeyMask = null;
+        byte[] colorKeyData = null;
+        if (colorKey != null)
+        {
+            colorKeyRanges = colorKey.toFloatArray();
+            colorKeyMask = new BufferedImage(outputWidth, outputHeight,
+                    BufferedImage.TYPE_BYTE_GRAY);
+            colorKeyData = ((DataBufferByte) colorKeyMask.getRaster().getDataBuffer()).getData();
+        }
+
+        // rows are padded to the nearest byte, only the samples of the selected pixels are
+        // unpacked from a row
+        final int rowLen = (int) (((long) inputWidth * numComponents * bitsPerComponent + 7) / 8);
+        final int firstSample = source.x * numComponents;
+        final int sampleCount = ((outputWidth - 1) * subsampling + 1) * numComponents;
+        final int step = numComponents * subsampling;
+        byte[] row = new byte[rowLen];
+        int[] samples = new int[sampleCount];
+        int lastRow = source.y + (outputHeight - 1) * subsampling;
+        for (int y = 0; y <= lastRow; y++)
+        {
+            int readLen = (int) IOUtils.populateBuffer(input, row);
+            if (readLen != rowLen)
             {
-                padding = 8 - (width * numComponents * bitsPerComponent % 8);
+                Arrays.fill(row, readLen, rowLen, (byte) 0);
             }
-
-            // read stream
-            byte[] srcColorValues = new byte[numComponents];
-            byte[] alpha = new byte[1];
-            for (int y = 0; y < height; y++)
+            if (isRowRead(y, source, subsampling))
             {
-                for (int x = 0; x < width; x++)
+                int idx = (y - source.y) / subsampling * outputWidth;
+                unpackSamples(row, bitsPerComponent, firstSample, samples);
+                for (int c = 0; c < numComponents; c++)
                 {
-                    boolean isMasked = true;
-                    for (int c = 0; c < numComponents; c++)
+                    byte[] bank = banks[c];
+                    if (lookup != null)
                     {
-                        int value = (int)iis.readBits(bitsPerComponent);
-
-                        // color key mask requires values before they are decoded
-                        if (colorKeyRanges != null)
+                        byte[] table = lookup[c];
+                        for (int x = 0, i = c; x < outputWidth; x++, i += step)
                         {
-                            isMasked &= value >= colorKeyRanges[c * 2] &&
-                                        value <= colorKeyRanges[c * 2 + 1];
+                            bank[idx + x] = table[samples[i]];
                         }
-
-                        // decode array
-                        final float dMin = decode[c * 2];
-                        final float dMax = decode[(c * 2) + 1];
-
-                        // interpolate to domain
-                        float output = dMin + (value * ((dMax - dMin) / sampleMax));
-
-                        if (isIndexed)
+                    }
+                    else
+                    {
+                        float dMin = decode[c * 2];
+                        float dMax = decode[c * 2 + 1];
+                        for (int x = 0, i = c; x < outputWidth; x++, i += step)
                         {
-                            // indexed color spaces get the raw value, because the TYPE_BYTE
-                            // below cannot be reversed by the color space without it having
-                            // knowledge of the number of bits per component
-                            srcColorValues[c] = (byte)Math.round(output);
+                            bank[idx + x] = decodeSample(samples[i], dMin, dMax, sampleMax,
+                                    isIndexed);
                         }
-                        else
-                        {
-                            // interpolate to TYPE_BYTE
-                            int outputByte = Math.round(((output - Math.min(dMin, dMax)) /
-                                    Math.abs(dMax - dMin)) * 255f);
+                    }
+                }
 
-                            srcColorValues[c] = (byte)outputByte;
+                // color key mask requires values before they are decoded
+                if (colorKeyData != null)
+                {
+                    for (int x = 0, i = 0; x < outputWidth; x++, i += step)
+                    {
+                        boolean isMasked = true;
+                        for (int c = 0; c < numComponents; c++)
+                        {
+                            int value = samples[i + c];
+                            isMasked &= value >= colorKeyRanges[c * 2] &&
+                                        value <= colorKeyRanges[c * 2 + 1];
                         }
+                        colorKeyData[idx + x] = (byte) (isMasked ? 255 : 0);
                     }
-                    raster.setDataElements(x, y, srcColorValues);
+                }
+            }
+            if (readLen != rowLen)
+            {
+                LOG.warn("premature EOF, image will be incomplete");
+                break;
+            }
+        }
+
+        // use the color space to convert the image to RGB
+        BufferedImage rgbImage = colorSpace.toRGBImage(raster);
+
+        // apply color mask, if any
+        if (colorKeyMask != null)
+        {
+            return applyColorKeyMask(rgbImage, colorKeyMask);
+        }
+        else
+        {
+            return rgbImage;
+        }
+    }
 
-                    // set alpha channel in color key mask, if any
-                    if (colorKeyMask != null)
+    /**
+     * Unpacks samples of the given bit depth from a row, starting with the sample with the given
+     * index, until the array of samples is full. There is a loop for each of the usual bit
+     * depths, these are simple enough to be compiled into vector instructions.
+     */
+    private static void unpackSamples(byte[] row, int bitsPerComponent, int first, int[] samples)
+    {
+        int count = samples.length;
+        switch (bitsPerComponent)
+        {
+            case 8:
+                for (int i = 0; i < count; i++)
+                {
+                    samples[i] = row[first + i] & 0xff;
+                }
+                break;
+            case 16:
+                for (int i = 0, j = first * 2; i < count; i++, j += 2)
+                {
+                    samples[i] = (row[j] & 0xff) << 8 | row[j + 1] & 0xff;
+                }
+                break;
+            case 1:
+                for (int i = 0, j = first; i < count; i++, j++)
+                {
+                    samples[i] = row[j >> 3] >> (7 - (j & 7)) & 1;
+                }
+                break;
+            case 2:
+                for (int i = 0, j = first; i < count; i++, j++)
+                {
+                    samples[i] = row[j >> 2] >> (6 - ((j & 3) << 1)) & 3;
+                }
+                break;
+            case 4:
+                for (int i = 0, j = first; i < count; i++, j++)
+                {
+                    samples[i] = row[j >> 1] >> (4 - ((j & 1) << 2)) & 15;
+                }
+                break;
+            default:
+                // any other bit depth, up to 32 bits
+                for (int i = 0; i < count; i++)
+                {
+                    long bit = (long) (first + i) * bitsPerComponent;
+                    long value = 0;
+                    for (int n = 0; n < bitsPerComponent; n++, bit++)
                     {
-                        alpha[0] = (byte)(isMasked ? 255 : 0);
-                        colorKeyMask.getRaster().setDataElements(x, y, alpha);
+                        value = value << 1 | row[(int) (bit >> 3)] >> (7 - (bit & 7)) & 1;
                     }
+                    samples[i] = (int) value;
                 }
+                break;
+        }
+    }
 
-                // rows are padded to the nearest byte
-                iis.readBits(padding);
-            }
-
-            // use the color space to convert the image to RGB
-            BufferedImage rgbImage = colorSpace.toRGBImage(raster);
+    /**
+     * Maps a sample value to the decode range and then to a byte. Indexed color spaces get the
+     * raw value, because the byte cannot be reversed by the color space without it having
+     * knowledge of the number of bits per component.
+     */
+    private static byte decodeSample(int value, float dMin, float dMax, float sampleMax,
+                                     boolean isIndexed)
+    {
+        // interpolate to domain
+        float output = dMin + (value * ((dMax - dMin) / sampleMax));
 
-            // apply color mask, if any
-            if (colorKeyMask != null)
-            {
-                return applyColorKeyMask(rgbImage, colorKeyMask);
-            }
-            else
-            {
-                return rgbImage;
-            }
+        if (isIndexed)
+        {
+            return (byte)Math.round(output);
         }
-        finally
+        else
         {
-            if (iis != null)
-            {
-                iis.close();
-            }
+            // interpolate to TYPE_BYTE
+            int outputByte = Math.round(((output - Math.min(dMin, dMax)) /
+                    Math.abs(dMax - dMin)) * 255f);
+            return (byte)outputByte;
         }
     }
 
@@ -387,25 +539,21 @@ final class SampledImageReader
         BufferedImage masked = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
 
         WritableRaster src = image.getRaster();
-        WritableRaster dest = masked.getRaster();
-        WritableRaster alpha = mask.getRaster();
+        int[] dest = ((DataBufferInt) masked.getRaster().getDataBuffer()).getData();
+        byte[] alpha = ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
 
-        float[] rgb = new float[3];
-        float[] rgba = new float[4];
-        float[] alphaPixel = null;
-        for (int y = 0; y < height; y++)
+        int[] r = new int[width];
+        int[] g = new int[width];
+        int[] b = new int[width];
+        for (int y = 0, idx = 0; y < height; y++, idx += width)
         {
+            src.getSamples(0, y, width, 1, 0, r);
+            src.getSamples(0, y, width, 1, 1, g);
+            src.getSamples(0, y, width, 1, 2, b);
             for (int x = 0; x < width; x++)
             {
-                src.getPixel(x, y, rgb);
-
-                rgba[0] = rgb[0];
-                rgba[1] = rgb[1];
-                rgba[2] = rgb[2];
-                alphaPixel = alpha.getPixel(x, y, alphaPixel);
-                rgba[3] = 255 - alphaPixel[0];
-
-                dest.setPixel(x, y, rgba);
+                int a = 255 - (alpha[idx + x] & 0xff);
+                dest[idx + x] = a << 24 | (r[x] & 0xff) << 16 | (g[x] & 0xff) << 8 | b[x] & 0xff;
             }
         }
 
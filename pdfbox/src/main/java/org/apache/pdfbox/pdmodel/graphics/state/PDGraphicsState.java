@@ -18,8 +18,14 @@ package org.apache.pdfbox.pdmodel.graphics.state;
 
 import java.awt.BasicStroke;
 import java.awt.Composite;
+import java.awt.Shape;
 import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.pdfbox.cos.COSBase;
 
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
@@ -38,7 +44,13 @@ import org.apache.pdfbox.util.Matrix;
  */
 public class PDGraphicsState implements Cloneable
 {
+    // the clipping path is kept as the intersection of a rectangle, of an area for the other
+    // paths which have been intersected so far and of a list of paths which haven't been
+    // intersected yet, so that clipping is cheap until a shape is needed
     private boolean isClippingPathDirty;
+    private Rectangle2D clippingRectangle;
+    private Area clippingArea;
+    private List<Shape> pendingClippingPaths = Collections.emptyList();
     private Area clippingPath;
     private Matrix currentTransformationMatrix = new Matrix();
     private PDColor strokingColor = PDDeviceGray.INSTANCE.getInitialColor();
@@ -75,7 +87,12 @@ public class PDGraphicsState implements Cloneable
      */
     public PDGraphicsState(PDRectangle page)
     {
-        clippingPath = new Area(page.toGeneralPath());
+        float x1 = page.getLowerLeftX();
+        float y1 = page.getLowerLeftY();
+        float x2 = page.getUpperRightX();
+        float y2 = page.getUpperRightY();
+        clippingRectangle = new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2),
+                Math.abs((double) x2 - x1), Math.abs((double) y2 - y1));
     }
 
     /**
@@ -454,8 +471,10 @@ public class PDGraphicsState implements Cloneable
             clone.strokingColor = strokingColor; // immutable
             clone.nonStrokingColor = nonStrokingColor; // immutable
             clone.lineDashPattern = lineDashPattern; // immutable
-            clone.clippingPath = clippingPath; // not cloned, see intersectClippingPath
+            // the clipping path is never modified in place, only the list of pending paths has
+            // to be copied before either state adds a path to it, see intersectClippingPath
             clone.isClippingPathDirty = false;
+            isClippingPathDirty = false;
             return clone;
         }
         catch (CloneNotSupportedException e)
@@ -551,7 +570,16 @@ public class PDGraphicsState implements Cloneable
      */
     public void intersectClippingPath(GeneralPath path)
     {
-        intersectClippingPath(new Area(path));
+        Rectangle2D rectangle = toRectangle(path);
+        if (rectangle != null)
+        {
+            intersectClippingRectangle(rectangle);
+        }
+        else
+        {
+            // copy the path, the caller may reuse it
+            addClippingPath(new GeneralPath(path));
+        }
     }
 
     /**
@@ -560,31 +588,154 @@ public class PDGraphicsState implements Cloneable
      */
     public void intersectClippingPath(Area area)
     {
-        // lazy cloning of clipping path for performance
-        if (!isClippingPathDirty)
+        if (area.isRectangular())
+        {
+            intersectClippingRectangle(area.getBounds2D());
+        }
+        else
+        {
+            addClippingPath((Area) area.clone());
+        }
+    }
+
+    private void intersectClippingRectangle(Rectangle2D rectangle)
+    {
+        Rectangle2D intersection = new Rectangle2D.Double();
+        Rectangle2D.intersect(clippingRectangle, rectangle, intersection);
+        if (intersection.isEmpty())
         {
-            // deep copy (can't use clone() as it performs only a shallow copy)
-            Area cloned = new Area();
-            cloned.add(clippingPath);
-            clippingPath = cloned;
+            intersection.setRect(intersection.getX(), intersection.getY(), 0, 0);
+        }
+        clippingRectangle = intersection;
+        clippingPath = null;
+    }
 
+    private void addClippingPath(Shape path)
+    {
+        // lazy copying of the list for performance
+        if (!isClippingPathDirty)
+        {
+            pendingClippingPaths = new ArrayList<Shape>(pendingClippingPaths);
             isClippingPathDirty = true;
         }
+        pendingClippingPaths.add(path);
+        clippingPath = null;
+    }
 
-        // intersection as usual
-        clippingPath.intersect(area);
+    /**
+     * Returns the path as a rectangle if it is a single axis-aligned rectangle, null otherwise.
+     */
+    private static Rectangle2D toRectangle(GeneralPath path)
+    {
+        float[] coords = new float[6];
+        float[] xs = new float[5];
+        float[] ys = new float[5];
+        int points = 0;
+        boolean closed = false;
+        for (PathIterator iterator = path.getPathIterator(null); !iterator.isDone();
+             iterator.next())
+        {
+            int type = iterator.currentSegment(coords);
+            if (closed || type == PathIterator.SEG_MOVETO && points > 0)
+            {
+                // more than one subpath
+                return null;
+            }
+            if (type == PathIterator.SEG_CLOSE)
+            {
+                closed = true;
+            }
+            else if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO)
+            {
+                if (points == xs.length)
+                {
+                    return null;
+                }
+                xs[points] = coords[0];
+                ys[points] = coords[1];
+                points++;
+            }
+            else
+            {
+                return null;
+            }
+        }
+        if (points == 5 && xs[4] == xs[0] && ys[4] == ys[0])
+        {
+            points = 4;
+        }
+        if (points != 4)
+        {
+            return null;
+        }
+        boolean verticalFirst =
+                xs[0] == xs[1] && ys[1] == ys[2] && xs[2] == xs[3] && ys[3] == ys[0];
+        boolean horizontalFirst =
+                ys[0] == ys[1] && xs[1] == xs[2] && ys[2] == ys[3] && xs[3] == xs[0];
+        if (!verticalFirst && !horizontalFirst)
+        {
+            return null;
+        }
+        double minX = Math.min(xs[0], xs[2]);
+        double minY = Math.min(ys[0], ys[2]);
+        return new Rectangle2D.Double(minX, minY, Math.max(xs[0], xs[2]) - minX,
+                Math.max(ys[0], ys[2]) - minY);
     }
 
     /**
-     * This will get the current clipping path. Do not modify this Area object!
+     * This will get the current clipping path. The paths which have been intersected with it
+     * since the last call are intersected now. Do not modify this Area object!
      *
      * @return The current clipping path.
      */
     public Area getCurrentClippingPath()
     {
+        if (clippingPath == null)
+        {
+            Area area;
+            if (clippingArea == null)
+            {
+                area = new Area(clippingRectangle);
+            }
+            else
+            {
+                area = (Area) clippingArea.clone();
+                if (!clippingRectangle.contains(area.getBounds2D()))
+                {
+                    area.intersect(new Area(clippingRectangle));
+                }
+            }
+            if (!pendingClippingPaths.isEmpty())
+            {
+                for (Shape path : pendingClippingPaths)
+                {
+                    area.intersect(path instanceof Area ? (Area) path : new Area(path));
+                }
+                clippingArea = area;
+                pendingClippingPaths = Collections.emptyList();
+                isClippingPathDirty = false;
+            }
+            clippingPath = area;
+        }
         return clippingPath;
     }
 
+    /**
+     * This will get the current clipping path as a shape, which is a rectangle as long as only
+     * axis-aligned rectangles have been intersected with the clipping path. The same object is
+     * returned until the clipping path changes. Do not modify this Shape object!
+     *
+     * @return The current clipping path.
+     */
+    public Shape getCurrentClippingShape()
+    {
+        if (clippingArea == null && pendingClippingPaths.isEmpty())
+        {
+            return clippingRectangle;
+        }
+        return getCurrentClippingPath();
+    }
+
     public Composite getStrokingJavaComposite()
     {
         return BlendComposite.getInstance(blendMode, (float) alphaConstant);
@@ -18,38 +18,98 @@ package org.apache.pdfbox.rendering;
 
 import java.awt.geom.GeneralPath;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.apache.pdfbox.pdmodel.font.PDVectorFont;
 
 /**
- * A simple glyph outline cache.
+ * A bounded glyph outline cache, shared by all pages rendered by a {@link PDFRenderer}.
+ * Glyphs are identified by the dictionary of their font and their character code, so they
+ * survive the font objects themselves being dropped from the document's resource cache.
+ *
+ * <p>The cache is thread safe. The least recently used glyphs are evicted once the maximum
+ * number of entries has been reached. One instance may be shared by the renderers of several
+ * documents, see {@link PDFRenderer#setGlyphCache(GlyphCache)}; note that the font dictionaries
+ * of closed documents are only released once their glyphs have been evicted.
  *
  * @author John Hewson
  */
-final class GlyphCache
+public final class GlyphCache
 {
     private static final Log LOG = LogFactory.getLog(GlyphCache.class);
-    
-    private final PDVectorFont font;
-    private final Map<Integer, GeneralPath> cache = new HashMap<Integer, GeneralPath>();
 
-    public GlyphCache(PDVectorFont font)
+    /**
+     * The default maximum number of glyphs, enough for the text of a typical document.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // a power of two, the cache is locked per segment
+    private static final int SEGMENT_COUNT = 16;
+
+    private final int maxEntries;
+    private final Segment[] segments;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a glyph cache holding up to {@link #DEFAULT_MAX_ENTRIES} glyphs.
+     */
+    public GlyphCache()
     {
-        this.font = font;
+        this(DEFAULT_MAX_ENTRIES);
     }
-    
-    public GeneralPath getPathForCharacterCode(int code)
+
+    /**
+     * Creates a glyph cache holding up to the given number of glyphs.
+     *
+     * @param maxEntries the maximum number of glyphs to keep
+     */
+    public GlyphCache(int maxEntries)
     {
-        GeneralPath path = cache.get(code);
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        segments = new Segment[SEGMENT_COUNT];
+        int segmentCapacity = Math.max(1, (maxEntries + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++)
+        {
+            segments[i] = new Segment(segmentCapacity, evictionCount);
+        }
+    }
+
+    /**
+     * Returns the normalized outline of the glyph for the given character code, reading it from
+     * the font on a cache miss. The returned path is shared and must not be modified.
+     *
+     * @param font the font
+     * @param code the character code
+     * @return the glyph outline, an empty path if it could not be read
+     */
+    public GeneralPath getPathForCharacterCode(PDVectorFont font, int code)
+    {
+        GlyphKey key = new GlyphKey(((PDFont) font).getCOSObject(), code);
+        Segment segment = segments[key.segmentIndex()];
+        GeneralPath path;
+        synchronized (segment)
+        {
+            path = segment.get(key);
+        }
         if (path != null)
         {
+            hitCount.incrementAndGet();
             return path;
         }
+        missCount.incrementAndGet();
 
         try
         {
@@ -68,8 +128,12 @@ final class GlyphCache
                 }
             }
 
+            // the glyph is read outside of the lock, two threads may both read it on a miss
             path = font.getNormalizedPath(code);
-            cache.put(code, path);
+            synchronized (segment)
+            {
+                segment.put(key, path);
+            }
             return path;
         }
         catch (IOException e)
@@ -79,4 +143,153 @@ final class GlyphCache
             return new GeneralPath();
         }
     }
+
+    /**
+     * Returns the maximum number of glyphs in this cache.
+     *
+     * @return the maximum number of glyphs
+     */
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the number of glyphs currently in this cache.
+     *
+     * @return the number of glyphs
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns how often a glyph was found in this cache.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how often a glyph had to be read from its font.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Returns how many glyphs have been evicted to stay within the maximum size.
+     *
+     * @return the number of evicted glyphs
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    /**
+     * Removes all glyphs from this cache. The statistics are kept.
+     */
+    public void clear()
+    {
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GlyphCache{size=" + size() + ", maxEntries=" + maxEntries +
+               ", hits=" + getHitCount() + ", misses=" + getMissCount() +
+               ", evictions=" + getEvictionCount() + "}";
+    }
+
+    /**
+     * Identifies a glyph by the identity of its font dictionary and its character code.
+     */
+    private static final class GlyphKey
+    {
+        private final COSDictionary font;
+        private final int code;
+        private final int hash;
+
+        GlyphKey(COSDictionary font, int code)
+        {
+            this.font = font;
+            this.code = code;
+            this.hash = System.identityHashCode(font) * 31 + code;
+        }
+
+        int segmentIndex()
+        {
+            return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof GlyphKey))
+            {
+                return false;
+            }
+            GlyphKey other = (GlyphKey) obj;
+            return font == other.font && code == other.code;
+        }
+    }
+
+    /**
+     * One part of the cache, a LinkedHashMap in access order which drops its eldest entry when
+     * it grows beyond its capacity. Access must be synchronized on the segment.
+     */
+    private static final class Segment extends LinkedHashMap<GlyphKey, GeneralPath>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final AtomicLong evictionCount;
+
+        Segment(int capacity, AtomicLong evictionCount)
+        {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GlyphKey, GeneralPath> eldest)
+        {
+            if (size() > capacity)
+            {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
 }
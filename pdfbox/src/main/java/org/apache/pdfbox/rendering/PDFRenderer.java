@@ -20,20 +20,34 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.PDSubsamplingImage;
 
 /**
  * Renders a PDF document to an AWT BufferedImage.
  * This class may be overridden in order to perform custom rendering.
  *
+ * <p>Several pages of the same document may be rendered at the same time, see
+ * {@link #renderImages(int, int, float, ImageType, Executor)}. Each page gets its own
+ * {@link PageDrawer}, the document is only read.
+ *
  * @author John Hewson
  */
 public class PDFRenderer
 {
     protected final PDDocument document;
-    // TODO keep rendering state such as caches here
+    private GlyphCache glyphCache = new GlyphCache();
+    private boolean subsamplingAllowed = false;
 
     /**
      * Creates a new PDFRenderer.
@@ -44,6 +58,58 @@ public class PDFRenderer
         this.document = document;
     }
 
+    /**
+     * Returns the glyph outline cache used by this renderer.
+     *
+     * @return the glyph cache
+     */
+    public GlyphCache getGlyphCache()
+    {
+        return glyphCache;
+    }
+
+    /**
+     * Sets the glyph outline cache used by this renderer. By default each renderer has its own
+     * cache. Setting the same cache on several renderers puts one bound on the memory used for the
+     * glyphs of all of them, and lets renderers of the same document share their glyphs. This must
+     * not be called while pages are being rendered.
+     *
+     * @param glyphCache the glyph cache
+     */
+    public void setGlyphCache(GlyphCache glyphCache)
+    {
+        if (glyphCache == null)
+        {
+            throw new IllegalArgumentException("glyphCache must not be null");
+        }
+        this.glyphCache = glyphCache;
+    }
+
+    /**
+     * Returns true if images may be read at a lower resolution or in parts, see
+     * {@link #setSubsamplingAllowed(boolean)}.
+     *
+     * @return true if subsampling is allowed
+     */
+    public boolean isSubsamplingAllowed()
+    {
+        return subsamplingAllowed;
+    }
+
+    /**
+     * Sets whether images which are drawn smaller than their resolution may be read at a lower
+     * resolution, and whether images which are only partly visible may be read in parts. This is
+     * much faster for large images rendered at a low resolution, e.g. for thumbnails, but the
+     * quality is lower, as rows and columns of an image are skipped instead of being interpolated.
+     * It applies to images which implement {@link PDSubsamplingImage}. It is off by default.
+     *
+     * @param subsamplingAllowed true to allow subsampling
+     */
+    public void setSubsamplingAllowed(boolean subsamplingAllowed)
+    {
+        this.subsamplingAllowed = subsamplingAllowed;
+    }
+
     /**
      * Returns the given page as an RGB image at 72 DPI
      * @param pageIndex the zero-based index of the page to be converted.
@@ -105,8 +171,150 @@ public class PDFRenderer
     public BufferedImage renderImage(int pageIndex, float scale, ImageType imageType)
             throws IOException
     {
-        PDPage page = document.getPage(pageIndex);
+        return renderImage(document.getPage(pageIndex), scale, imageType);
+    }
 
+    /**
+     * Renders the given range of pages at the given DPI in parallel and returns the images in page
+     * order. All images are held in memory, use
+     * {@link #renderImages(int, int, float, ImageType, Executor, RenderCallback)} for documents
+     * with many pages.
+     *
+     * @param fromPageIndex the zero-based index of the first page to render (inclusive)
+     * @param toPageIndex the zero-based index of the last page to render (exclusive)
+     * @param dpi the DPI (dots per inch) to render at
+     * @param imageType the type of image to return
+     * @param executor the executor which runs the rendering tasks, one per page
+     * @return the rendered page images, in page order
+     * @throws IOException if the PDF cannot be read
+     */
+    public List<BufferedImage> renderImages(int fromPageIndex, int toPageIndex, float dpi,
+                                            ImageType imageType, Executor executor)
+            throws IOException
+    {
+        final List<BufferedImage> images = new ArrayList<BufferedImage>(
+                Math.max(0, toPageIndex - fromPageIndex));
+        renderImages(fromPageIndex, toPageIndex, dpi, imageType, executor, new RenderCallback()
+        {
+            @Override
+            public void pageRendered(int pageIndex, BufferedImage image)
+            {
+                images.add(image);
+            }
+        });
+        return images;
+    }
+
+    /**
+     * Renders the given range of pages at the given DPI in parallel and passes the images to the
+     * given callback in page order. Only a few pages more than the executor can render at the same
+     * time are kept in memory, so this can be used for documents of any size.
+     *
+     * <p>The pages are rendered by the given executor, e.g. a fixed thread pool. The callback is
+     * called on the current thread. If rendering a page fails, the pages which haven't been
+     * started yet are cancelled and the exception is thrown.
+     *
+     * @param fromPageIndex the zero-based index of the first page to render (inclusive)
+     * @param toPageIndex the zero-based index of the last page to render (exclusive)
+     * @param dpi the DPI (dots per inch) to render at
+     * @param imageType the type of image to create
+     * @param executor the executor which runs the rendering tasks, one per page
+     * @param callback receives the rendered page images
+     * @throws IOException if the PDF cannot be read or the callback failed
+     */
+    public void renderImages(int fromPageIndex, int toPageIndex, float dpi,
+                             final ImageType imageType, Executor executor,
+                             RenderCallback callback) throws IOException
+    {
+        if (fromPageIndex < 0 || fromPageIndex > toPageIndex ||
+            toPageIndex > document.getNumberOfPages())
+        {
+            throw new IllegalArgumentException("Invalid page range " + fromPageIndex + " - " +
+                    toPageIndex + " for " + document.getNumberOfPages() + " pages");
+        }
+
+        // look up the pages on this thread first, the page tree may be repaired while it is
+        // walked; the rendering threads then find the pages in the page index
+        for (int i = fromPageIndex; i < toPageIndex; i++)
+        {
+            document.getPage(i);
+        }
+
+        final float scale = dpi / 72f;
+        int maxPagesInFlight = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        LinkedList<FutureTask<BufferedImage>> inFlight =
+                new LinkedList<FutureTask<BufferedImage>>();
+        int next = 0;
+        try
+        {
+            int pageCount = toPageIndex - fromPageIndex;
+            for (int i = 0; i < pageCount; i++)
+            {
+                while (next < pageCount && inFlight.size() < maxPagesInFlight)
+                {
+                    final int pageIndex = fromPageIndex + next++;
+                    FutureTask<BufferedImage> task = new FutureTask<BufferedImage>(
+                            new Callable<BufferedImage>()
+                    {
+                        @Override
+                        public BufferedImage call() throws IOException
+                        {
+                            // through the public method, which subclasses may override
+                            return renderImage(pageIndex, scale, imageType);
+                        }
+                    });
+                    inFlight.add(task);
+                    executor.execute(task);
+                }
+                callback.pageRendered(fromPageIndex + i, getRenderedImage(inFlight.removeFirst()));
+            }
+        }
+        finally
+        {
+            // pages which are being rendered right now run to completion, the others never start
+            for (FutureTask<BufferedImage> task : inFlight)
+            {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private static BufferedImage getRenderedImage(FutureTask<BufferedImage> task)
+            throws IOException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ex = new InterruptedIOException("Rendering was interrupted");
+            ex.initCause(e);
+            throw ex;
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private BufferedImage renderImage(PDPage page, float scale, ImageType imageType)
+            throws IOException
+    {
         PDRectangle cropbBox = page.getCropBox();
         float widthPt = cropbBox.getWidth();
         float heightPt = cropbBox.getHeight();
@@ -22,6 +22,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsDevice;
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
@@ -29,14 +30,13 @@ import java.awt.TexturePaint;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
@@ -57,6 +57,7 @@ import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
 import org.apache.pdfbox.pdmodel.graphics.color.PDPattern;
 import org.apache.pdfbox.pdmodel.graphics.form.PDTransparencyGroup;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.image.PDSubsamplingImage;
 import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
 import org.apache.pdfbox.pdmodel.graphics.pattern.PDShadingPattern;
 import org.apache.pdfbox.pdmodel.graphics.pattern.PDTilingPattern;
@@ -100,14 +101,11 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     private GeneralPath linePath = new GeneralPath();
     
     // last clipping path
-    private Area lastClip;
+    private Shape lastClip;
     
     // buffered clipping area for text being drawn
     private Area textClippingArea;
 
-    // glyph caches
-    private final Map<PDFont, GlyphCache> glyphCaches = new HashMap<PDFont, GlyphCache>();
-
     /**
      * Constructor.
      *
@@ -210,7 +208,7 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         GeneralPath oldLinePath = linePath;
         linePath = new GeneralPath();
 
-        Area oldLastClip = lastClip;
+        Shape oldLastClip = lastClip;
         lastClip = null;
 
         setRenderingHints();
@@ -272,7 +270,7 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     // Graphics2D#getClip() returns a new object instead of the same one passed to setClip
     private void setClip()
     {
-        Area clippingPath = getGraphicsState().getCurrentClippingPath();
+        Shape clippingPath = getGraphicsState().getCurrentClippingShape();
         if (clippingPath != lastClip)
         {
             graphics.setClip(clippingPath);
@@ -325,16 +323,9 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         AffineTransform at = textRenderingMatrix.createAffineTransform();
         at.concatenate(font.getFontMatrix().createAffineTransform());
 
-        // create cache if it does not exist
+        // the glyph cache is shared by all pages of the renderer
         PDVectorFont vectorFont = ((PDVectorFont)font);
-        GlyphCache cache = glyphCaches.get(font);
-        if (cache == null)
-        {
-            cache = new GlyphCache(vectorFont);
-            glyphCaches.put(font, cache);
-        }
-        
-        GeneralPath path = cache.getPathForCharacterCode(code);
+        GeneralPath path = renderer.getGlyphCache().getPathForCharacterCode(vectorFont, code);
         drawGlyph(path, font, code, displacement, at);
     }
 
@@ -724,6 +715,24 @@ public class PageDrawer extends PDFGraphicsStreamEngine
             // draw the image
             drawBufferedImage(image, at);
         }
+        else if (renderer.isSubsamplingAllowed() && pdImage instanceof PDSubsamplingImage)
+        {
+            // read only the visible part of the image, at about the resolution of the device
+            PDSubsamplingImage subsamplingImage = (PDSubsamplingImage) pdImage;
+            setClip();
+            Rectangle region = getVisibleRegion(pdImage, at);
+            if (region == null)
+            {
+                drawBufferedImage(subsamplingImage.getImage(null, getSubsampling(pdImage, at)),
+                        at);
+            }
+            else if (!region.isEmpty())
+            {
+                BufferedImage image = subsamplingImage.getImage(region,
+                        getSubsampling(pdImage, at));
+                drawBufferedImage(image, getRegionTransform(pdImage, at, region));
+            }
+        }
         else
         {
             // draw the image
@@ -738,6 +747,89 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         }
     }
 
+    /**
+     * Returns the subsampling factor for drawing the given image with the given transform, so that
+     * the subsampled image still has at least the resolution of the device.
+     */
+    private int getSubsampling(PDImage pdImage, AffineTransform at)
+    {
+        AffineTransform device = new AffineTransform(graphics.getTransform());
+        device.concatenate(at);
+        // the size of the image on the device
+        double width = Math.hypot(device.getScaleX(), device.getShearY());
+        double height = Math.hypot(device.getShearX(), device.getScaleY());
+        double subsampling = Math.min(pdImage.getWidth() / width, pdImage.getHeight() / height);
+        if (subsampling < 2 || Double.isNaN(subsampling))
+        {
+            return 1;
+        }
+        return (int) Math.min(subsampling, Math.min(pdImage.getWidth(), pdImage.getHeight()));
+    }
+
+    /**
+     * Returns the part of the given image which lies within the current clip, in image pixel
+     * coordinates and with a margin for the interpolation. Returns null if most of the image is
+     * visible, the whole image is read then as it can be cached, and an empty rectangle if
+     * nothing is visible.
+     */
+    private Rectangle getVisibleRegion(PDImage pdImage, AffineTransform at)
+    {
+        Shape clip = graphics.getClip();
+        if (clip == null)
+        {
+            return null;
+        }
+        int width = pdImage.getWidth();
+        int height = pdImage.getHeight();
+
+        // image pixel coordinates to user space, the image is drawn into the unit square
+        AffineTransform imageTransform = new AffineTransform(at);
+        imageTransform.translate(0, 1);
+        imageTransform.scale(1.0 / width, -1.0 / height);
+        Rectangle2D bounds;
+        try
+        {
+            bounds = imageTransform.createInverse().createTransformedShape(clip.getBounds2D())
+                    .getBounds2D();
+        }
+        catch (NoninvertibleTransformException e)
+        {
+            return null;
+        }
+
+        // keep the grid of the subsampled pixels of the whole image, and a margin of two of them
+        int step = getSubsampling(pdImage, at);
+        int margin = 2 * step;
+        int x0 = (int) Math.max(0, Math.floor((bounds.getMinX() - margin) / step) * step);
+        int y0 = (int) Math.max(0, Math.floor((bounds.getMinY() - margin) / step) * step);
+        int x1 = (int) Math.min(width, Math.ceil(bounds.getMaxX() + margin));
+        int y1 = (int) Math.min(height, Math.ceil(bounds.getMaxY() + margin));
+        if (x1 <= x0 || y1 <= y0)
+        {
+            return new Rectangle();
+        }
+        Rectangle region = new Rectangle(x0, y0, x1 - x0, y1 - y0);
+        if ((long) region.width * region.height * 2 > (long) width * height)
+        {
+            return null;
+        }
+        return region;
+    }
+
+    /**
+     * Returns the transform which draws the given region of the image into the unit square.
+     */
+    private AffineTransform getRegionTransform(PDImage pdImage, AffineTransform at,
+                                               Rectangle region)
+    {
+        double width = pdImage.getWidth();
+        double height = pdImage.getHeight();
+        AffineTransform regionTransform = new AffineTransform(at);
+        regionTransform.translate(region.x / width, 1 - region.getMaxY() / height);
+        regionTransform.scale(region.width / width, region.height / height);
+        return regionTransform;
+    }
+
     private void drawBufferedImage(BufferedImage image, AffineTransform at) throws IOException
     {
         graphics.setComposite(getGraphicsState().getNonStrokingJavaComposite());
@@ -867,7 +959,7 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         graphics.setPaint(paint);
         graphics.setClip(null);
         lastClip = null;
-        graphics.fill(getGraphicsState().getCurrentClippingPath());
+        graphics.fill(getGraphicsState().getCurrentClippingShape());
     }
 
     @Override
@@ -1113,7 +1205,7 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         private TransparencyGroup(PDTransparencyGroup form, boolean isSoftMask) throws IOException
         {
             Graphics2D g2dOriginal = graphics;
-            Area lastClipOriginal = lastClip;
+            Shape lastClipOriginal = lastClip;
 
             // get the CTM x Form Matrix transform
             Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.util.Arrays;
+
+/**
+ * The characters shown on a page, indexed by position in a uniform grid, for finding duplicate
+ * overlapping text. The positions are kept in primitive arrays and the grid cells are hashed into
+ * chains of array indexes, so that neither adding nor looking up a character allocates.
+ */
+final class CharacterGrid
+{
+    private static final float CELL_SIZE = 8;
+
+    // a lookup which covers more cells than this scans all characters instead
+    private static final int MAX_CELLS_PER_LOOKUP = 64;
+
+    private String[] characters = new String[64];
+    private float[] xs = new float[64];
+    private float[] ys = new float[64];
+    private int[] next = new int[64];
+    private int[] heads = newHeads(128);
+    private int size;
+
+    /**
+     * Removes all characters, keeping the allocated arrays for the next page.
+     */
+    void clear()
+    {
+        if (size > 0)
+        {
+            Arrays.fill(characters, 0, size, null);
+            Arrays.fill(heads, -1);
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns true if the same character has been added at a position in the half-open ranges
+     * [x - tolerance, x + tolerance) and [y - tolerance, y + tolerance).
+     */
+    boolean containsNear(String character, float x, float y, float tolerance)
+    {
+        float minX = x - tolerance;
+        float maxX = x + tolerance;
+        float minY = y - tolerance;
+        float maxY = y + tolerance;
+        if (!(minX < maxX) || !(minY < maxY))
+        {
+            // empty range, also if the tolerance is NaN
+            return false;
+        }
+        double cellsX = Math.floor(maxX / CELL_SIZE) - Math.floor(minX / CELL_SIZE) + 1;
+        double cellsY = Math.floor(maxY / CELL_SIZE) - Math.floor(minY / CELL_SIZE) + 1;
+        if (cellsX * cellsY > MAX_CELLS_PER_LOOKUP)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                if (matches(i, character, minX, maxX, minY, maxY))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        // count the cells rather than comparing them, the cell of a huge coordinate saturates
+        long cellX0 = cell(minX);
+        long cellY0 = cell(minY);
+        for (int dx = 0; dx < (int) cellsX; dx++)
+        {
+            for (int dy = 0; dy < (int) cellsY; dy++)
+            {
+                for (int i = heads[bucket(cellX0 + dx, cellY0 + dy)]; i != -1; i = next[i])
+                {
+                    if (matches(i, character, minX, maxX, minY, maxY))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a character at the given position.
+     */
+    void add(String character, float x, float y)
+    {
+        if (size == xs.length)
+        {
+            int capacity = size * 2;
+            characters = Arrays.copyOf(characters, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        characters[size] = character;
+        xs[size] = x;
+        ys[size] = y;
+        link(size);
+        size++;
+        if (size > heads.length / 4 * 3)
+        {
+            heads = newHeads(heads.length * 2);
+            for (int i = 0; i < size; i++)
+            {
+                link(i);
+            }
+        }
+    }
+
+    private boolean matches(int i, String character, float minX, float maxX, float minY, float maxY)
+    {
+        float x = xs[i];
+        float y = ys[i];
+        return x >= minX && x < maxX && y >= minY && y < maxY && character.equals(characters[i]);
+    }
+
+    private void link(int i)
+    {
+        int bucket = bucket(cell(xs[i]), cell(ys[i]));
+        next[i] = heads[bucket];
+        heads[bucket] = i;
+    }
+
+    private int bucket(long cellX, long cellY)
+    {
+        long hash = cellX * 0x9E3779B97F4A7C15L + cellY * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash ^ (hash >>> 32)) & (heads.length - 1);
+    }
+
+    private static long cell(float value)
+    {
+        // NaN maps to cell 0, where it is never matched
+        return (long) Math.floor(value / CELL_SIZE);
+    }
+
+    private static int[] newHeads(int length)
+    {
+        int[] heads = new int[length];
+        Arrays.fill(heads, -1);
+        return heads;
+    }
+}
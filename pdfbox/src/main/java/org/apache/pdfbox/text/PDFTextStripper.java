@@ -19,6 +19,7 @@ package org.apache.pdfbox.text;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.LineNumberReader;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -31,11 +32,12 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.SortedSet;
+import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
@@ -46,7 +48,6 @@ import org.apache.pdfbox.pdmodel.PDPageTree;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 import org.apache.pdfbox.pdmodel.interactive.pagenavigation.PDThreadBead;
-import org.apache.pdfbox.util.QuickSort;
 
 /**
  * This class will take a pdf document and strip out all of the text and ignore the formatting and such. Please note; it
@@ -56,6 +57,9 @@ import org.apache.pdfbox.util.QuickSort;
  * The basic flow of this process is that we get a document and use a series of processXXX() functions that work on
  * smaller and smaller chunks of the page. Eventually, we fully process each page and then print it.
  *
+ * <p>A stripper must only be used by one thread at a time. To extract the pages of one document in parallel, see
+ * {@link #writeText(PDDocument, Writer, Executor)}, which uses a separate stripper for every page.
+ *
  * @author Ben Litchfield
  */
 public class PDFTextStripper extends LegacyPDFStreamEngine
@@ -194,7 +198,12 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
      */
     protected ArrayList<List<TextPosition>> charactersByArticle = new ArrayList<List<TextPosition>>();
 
-    private Map<String, TreeMap<Float, TreeSet<Float>>> characterListMapping = new HashMap<String, TreeMap<Float, TreeSet<Float>>>();
+    /**
+     * The characters shown on the current page, for suppressing duplicate overlapping text.
+     */
+    private final CharacterGrid shownCharacters = new CharacterGrid();
+
+    private final TextPositionSorter textPositionSorter = new TextPositionSorter();
 
     protected PDDocument document;
     protected Writer output;
@@ -236,10 +245,7 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
         {
             charactersByArticle.clear();
         }
-        if (characterListMapping != null)
-        {
-            characterListMapping.clear();
-        }
+        shownCharacters.clear();
     }
 
     /**
@@ -255,6 +261,14 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
         resetEngine();
         document = doc;
         output = outputStream;
+        applyAddMoreFormatting();
+        startDocument(document);
+        processPages(document.getPages());
+        endDocument(document);
+    }
+
+    private void applyAddMoreFormatting()
+    {
         if (getAddMoreFormatting())
         {
             paragraphEnd = lineSeparator;
@@ -262,11 +276,384 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             articleStart = lineSeparator;
             articleEnd = lineSeparator;
         }
+    }
+
+    /**
+     * This will return the text of a document, extracting the pages in parallel. See
+     * {@link #writeText(PDDocument, Writer, Executor)}.
+     *
+     * @param doc The document to get the text from.
+     * @param executor The executor which extracts the pages, one task per page.
+     * @return The text of the PDF document.
+     * @throws IOException if the doc state is invalid or it is encrypted.
+     */
+    public String getText(PDDocument doc, Executor executor) throws IOException
+    {
+        StringWriter outputStream = new StringWriter();
+        writeText(doc, outputStream, executor);
+        return outputStream.toString();
+    }
+
+    /**
+     * This will take a PDDocument and write the text of that document to the print writer, like
+     * {@link #writeText(PDDocument, Writer)}, but the pages are extracted in parallel on the given executor,
+     * e.g. a fixed thread pool. Every page is extracted by its own stripper, see {@link #createPageStripper()},
+     * and the text is written in page order on the current thread. Subclasses which don't provide such strippers
+     * are extracted one page after another by this stripper. At most twice as many pages as there are
+     * processors are extracted ahead of the one being written.
+     *
+     * <p>Unlike with a sequential extraction, a paragraph or an article never continues from one page to the
+     * next one, so the output may differ slightly where the text of a page ends in the middle of a paragraph.
+     *
+     * @param doc The document to get the data from.
+     * @param outputStream The location to put the text.
+     * @param executor The executor which extracts the pages, one task per page.
+     *
+     * @throws IOException If the doc is in an invalid state.
+     */
+    public void writeText(PDDocument doc, final Writer outputStream, Executor executor)
+            throws IOException
+    {
+        resetEngine();
+        document = doc;
+        output = outputStream;
         startDocument(document);
-        processPages(document.getPages());
+        extractPages(doc, executor, new PageTextCallback()
+        {
+            @Override
+            public void pageExtracted(int pageNumber, String text) throws IOException
+            {
+                outputStream.write(text);
+            }
+        });
         endDocument(document);
     }
 
+    /**
+     * Extracts the text of the pages between the start and the end page in parallel and passes it to the given
+     * callback in page order, on the current thread. Every page is extracted by its own stripper, see
+     * {@link #createPageStripper()}; if there is none, the pages are extracted one after another on the current
+     * thread. If the extraction of a page fails, the pages which haven't been started yet are cancelled and the
+     * exception is thrown.
+     *
+     * @param doc The document to get the text from.
+     * @param executor The executor which extracts the pages, one task per page.
+     * @param callback Receives the text of the pages.
+     *
+     * @throws IOException If the doc is in an invalid state or the callback failed.
+     */
+    public void extractPages(final PDDocument doc, Executor executor, PageTextCallback callback)
+            throws IOException
+    {
+        // look up the pages on this thread, the page tree may be repaired while it is walked
+        PDPageTree pages = doc.getPages();
+        document = doc;
+        resolveBookmarkPageNumbers(pages);
+        List<PDPage> selectedPages = new ArrayList<PDPage>();
+        List<Integer> selectedPageNumbers = new ArrayList<Integer>();
+        int pageNumber = 0;
+        for (PDPage page : pages)
+        {
+            pageNumber++;
+            if (isInPageRange(pageNumber) && page.hasContents())
+            {
+                selectedPages.add(page);
+                selectedPageNumbers.add(pageNumber);
+            }
+        }
+
+        PDFTextStripper firstStripper = createPageStripper();
+        if (firstStripper == null)
+        {
+            extractPagesSequentially(selectedPages, selectedPageNumbers, callback);
+            return;
+        }
+
+        int maxPagesInFlight = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        LinkedList<FutureTask<String>> inFlight = new LinkedList<FutureTask<String>>();
+        int next = 0;
+        try
+        {
+            for (int i = 0; i < selectedPages.size(); i++)
+            {
+                while (next < selectedPages.size() && inFlight.size() < maxPagesInFlight)
+                {
+                    final PDPage page = selectedPages.get(next);
+                    final int number = selectedPageNumbers.get(next);
+                    final PDFTextStripper stripper = next == 0 ? firstStripper : createPageStripper();
+                    next++;
+                    FutureTask<String> task = new FutureTask<String>(new Callable<String>()
+                    {
+                        @Override
+                        public String call() throws IOException
+                        {
+                            StringWriter writer = new StringWriter();
+                            stripper.writePageText(doc, page, number, writer);
+                            return writer.toString();
+                        }
+                    });
+                    inFlight.add(task);
+                    executor.execute(task);
+                }
+                callback.pageExtracted(selectedPageNumbers.get(i), getPageText(inFlight.removeFirst()));
+            }
+        }
+        finally
+        {
+            // pages which are being extracted right now run to completion, the others never start
+            for (FutureTask<String> task : inFlight)
+            {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Creates the stripper which extracts the text of one page for {@link #extractPages(PDDocument, Executor,
+     * PageTextCallback)}. It is called on the thread which started the extraction, the stripper is then used by one
+     * of the threads of the executor.
+     *
+     * <p>The default implementation returns a PDFTextStripper with the settings of this one. Subclasses may change
+     * how the text is written, so for them it returns null and the pages are extracted sequentially by this
+     * stripper. Subclasses which can extract pages in parallel override this method and return an instance of their
+     * own class, see {@link #copySettings(PDFTextStripper)}.
+     *
+     * @return a new stripper with the same settings, or null if the pages have to be extracted by this stripper
+     * @throws IOException If the stripper could not be created.
+     */
+    protected PDFTextStripper createPageStripper() throws IOException
+    {
+        if (getClass() != PDFTextStripper.class)
+        {
+            return null;
+        }
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.copySettings(this);
+        return stripper;
+    }
+
+    /**
+     * Extracts the given pages one after another with this stripper, for subclasses which don't create page
+     * strippers.
+     */
+    private void extractPagesSequentially(List<PDPage> pages, List<Integer> pageNumbers,
+            PageTextCallback callback) throws IOException
+    {
+        Writer documentOutput = output;
+        applyAddMoreFormatting();
+        try
+        {
+            for (int i = 0; i < pages.size(); i++)
+            {
+                StringWriter pageOutput = new StringWriter();
+                output = pageOutput;
+                currentPageNo = pageNumbers.get(i);
+                processPage(pages.get(i));
+                callback.pageExtracted(currentPageNo, pageOutput.toString());
+            }
+        }
+        finally
+        {
+            output = documentOutput;
+        }
+    }
+
+    /**
+     * Copies the settings of the given stripper to this one, i.e. everything which can be set with the setters of
+     * this class, except the page range and the bookmarks.
+     *
+     * @param other the stripper to copy the settings from
+     */
+    protected void copySettings(PDFTextStripper other)
+    {
+        lineSeparator = other.lineSeparator;
+        wordSeparator = other.wordSeparator;
+        paragraphStart = other.paragraphStart;
+        paragraphEnd = other.paragraphEnd;
+        pageStart = other.pageStart;
+        pageEnd = other.pageEnd;
+        articleStart = other.articleStart;
+        articleEnd = other.articleEnd;
+        suppressDuplicateOverlappingText = other.suppressDuplicateOverlappingText;
+        shouldSeparateByBeads = other.shouldSeparateByBeads;
+        sortByPosition = other.sortByPosition;
+        addMoreFormatting = other.addMoreFormatting;
+        indentThreshold = other.indentThreshold;
+        dropThreshold = other.dropThreshold;
+        spacingTolerance = other.spacingTolerance;
+        averageCharTolerance = other.averageCharTolerance;
+        listOfPatterns = other.listOfPatterns;
+    }
+
+    /**
+     * Writes the text of a single page, as the page with the given number of a sequential extraction.
+     */
+    private void writePageText(PDDocument doc, PDPage page, int pageNumber, Writer outputStream)
+            throws IOException
+    {
+        resetEngine();
+        document = doc;
+        output = outputStream;
+        applyAddMoreFormatting();
+        startPage = 1;
+        endPage = Integer.MAX_VALUE;
+        startBookmarkPageNumber = -1;
+        endBookmarkPageNumber = -1;
+        currentPageNo = pageNumber;
+        processPage(page);
+    }
+
+    private static String getPageText(FutureTask<String> task) throws IOException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ex = new InterruptedIOException("Text extraction was interrupted");
+            ex.initCause(e);
+            throw ex;
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns an iterator over the text of the pages between the start and the end page. The pages are extracted one
+     * at a time when {@link Iterator#next()} is called, and the page tree is walked only once, so that a document can
+     * be indexed page by page without the text of the whole document in memory. The stripper keeps no characters of
+     * a page once its text has been returned. To also bound the memory used by fonts and other page resources, use a
+     * {@link org.apache.pdfbox.pdmodel.BoundedResourceCache} as the resource cache of the document.
+     *
+     * <p>The concatenated text of the pages is the text which {@link #getText(PDDocument)} returns, except for what
+     * subclasses write in {@link #startDocument(PDDocument)} and {@link #endDocument(PDDocument)}, which aren't
+     * called. The stripper must not be used otherwise until the iteration is finished. If the extraction of a page
+     * fails, {@link Iterator#next()} throws a {@link PageTextException} with the IOException as its cause.
+     *
+     * @param doc The document to get the text from.
+     * @param withTextPositions true if the results should include the characters of each page
+     * @return an iterator over the text of the pages which have contents
+     * @throws IOException If the bookmarks of the page range could not be resolved.
+     */
+    public Iterator<PageText> pageIterator(PDDocument doc, boolean withTextPositions) throws IOException
+    {
+        resetEngine();
+        document = doc;
+        applyAddMoreFormatting();
+        PDPageTree pages = doc.getPages();
+        resolveBookmarkPageNumbers(pages);
+        return new PageTextIterator(pages.iterator(), withTextPositions);
+    }
+
+    /**
+     * Iterator which extracts the text of one page at a time.
+     */
+    private final class PageTextIterator implements Iterator<PageText>
+    {
+        private final Iterator<PDPage> pages;
+        private final boolean withTextPositions;
+        private final StringWriter pageOutput = new StringWriter();
+        private int pageNumber;
+        private PDPage nextPage;
+
+        private PageTextIterator(Iterator<PDPage> pages, boolean withTextPositions)
+        {
+            this.pages = pages;
+            this.withTextPositions = withTextPositions;
+            nextPage = findNextPage();
+        }
+
+        private PDPage findNextPage()
+        {
+            while (pages.hasNext())
+            {
+                PDPage page = pages.next();
+                pageNumber++;
+                if (isInPageRange(pageNumber) && page.hasContents())
+                {
+                    return page;
+                }
+                if (pageNumber > endPage)
+                {
+                    break;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return nextPage != null;
+        }
+
+        @Override
+        public PageText next()
+        {
+            if (nextPage == null)
+            {
+                throw new NoSuchElementException();
+            }
+            PDPage page = nextPage;
+            int number = pageNumber;
+            pageOutput.getBuffer().setLength(0);
+            output = pageOutput;
+            currentPageNo = number;
+            List<List<TextPosition>> textPositions = null;
+            try
+            {
+                processPage(page);
+                if (withTextPositions)
+                {
+                    textPositions = new ArrayList<List<TextPosition>>(charactersByArticle.size());
+                    for (List<TextPosition> article : charactersByArticle)
+                    {
+                        textPositions.add(new ArrayList<TextPosition>(article));
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                throw new PageTextException(number, e);
+            }
+            finally
+            {
+                // release the characters of the page now rather than when the next page starts
+                for (List<TextPosition> article : charactersByArticle)
+                {
+                    article.clear();
+                }
+                shownCharacters.clear();
+                beadRectangles = null;
+            }
+            nextPage = findNextPage();
+            return new PageText(number, pageOutput.toString(), textPositions);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * This will process all of the pages and the text that is in them.
      *
@@ -275,6 +662,22 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
      * @throws IOException If there is an error parsing the text.
      */
     protected void processPages(PDPageTree pages) throws IOException
+    {
+        resolveBookmarkPageNumbers(pages);
+        for (PDPage page : pages)
+        {
+            currentPageNo++;
+            if (page.hasContents())
+            {
+                processPage(page);
+            }
+        }
+    }
+
+    /**
+     * Sets the page numbers of the start and end bookmarks, -1 if they are undefined.
+     */
+    private void resolveBookmarkPageNumbers(PDPageTree pages) throws IOException
     {
         PDPage startBookmarkPage = startBookmark == null ? null
                 : startBookmark.findDestinationPage(document);
@@ -310,15 +713,13 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             startBookmarkPageNumber = 0;
             endBookmarkPageNumber = 0;
         }
+    }
 
-        for (PDPage page : pages)
-        {
-            currentPageNo++;
-            if (page.hasContents())
-            {
-                processPage(page);
-            }
-        }
+    private boolean isInPageRange(int pageNumber)
+    {
+        return pageNumber >= startPage && pageNumber <= endPage
+                && (startBookmarkPageNumber == -1 || pageNumber >= startBookmarkPageNumber)
+                && (endBookmarkPageNumber == -1 || pageNumber <= endBookmarkPageNumber);
     }
 
     /**
@@ -354,9 +755,7 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
     @Override
     public void processPage(PDPage page) throws IOException
     {
-        if (currentPageNo >= startPage && currentPageNo <= endPage
-                && (startBookmarkPageNumber == -1 || currentPageNo >= startBookmarkPageNumber)
-                && (endBookmarkPageNumber == -1 || currentPageNo <= endBookmarkPageNumber))
+        if (isInPageRange(currentPageNo))
         {
             startPage(page);
 
@@ -387,7 +786,7 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
                     }
                 }
             }
-            characterListMapping.clear();
+            shownCharacters.clear();
             super.processPage(page);
             writePage();
             endPage(page);
@@ -524,18 +923,17 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
         {
             if (getSortByPosition())
             {
-                TextPositionComparator comparator = new TextPositionComparator();
-
                 // because the TextPositionComparator is not transitive, but
                 // JDK7+ enforces transitivity on comparators, we need to use
-                // a custom quicksort implementation (which is slower, unfortunately).
+                // a custom quicksort implementation, which sorts on precomputed
+                // coordinates to make up for the lack of a better algorithm.
                 if (useCustomQuickSort)
                 {
-                    QuickSort.sort(textList, comparator);
+                    textPositionSorter.sort(textList);
                 }
                 else
                 {
-                    Collections.sort(textList, comparator);
+                    Collections.sort(textList, new TextPositionComparator());
                 }
             }
             
@@ -818,13 +1216,6 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             String textCharacter = text.getUnicode();
             float textX = text.getX();
             float textY = text.getY();
-            TreeMap<Float, TreeSet<Float>> sameTextCharacters = characterListMapping
-                    .get(textCharacter);
-            if (sameTextCharacters == null)
-            {
-                sameTextCharacters = new TreeMap<Float, TreeSet<Float>>();
-                characterListMapping.put(textCharacter, sameTextCharacters);
-            }
             // RDD - Here we compute the value that represents the end of the rendered
             // text. This value is used to determine whether subsequent text rendered
             // on the same line overwrites the current text.
@@ -835,29 +1226,11 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             // the TJ just backs up to compensate after each character). Also, we subtract
             // an amount to allow for kerning (a percentage of the width of the last
             // character).
-            boolean suppressCharacter = false;
             float tolerance = text.getWidth() / textCharacter.length() / 3.0f;
 
-            SortedMap<Float, TreeSet<Float>> xMatches = sameTextCharacters.subMap(textX - tolerance,
-                    textX + tolerance);
-            for (TreeSet<Float> xMatch : xMatches.values())
+            if (!shownCharacters.containsNear(textCharacter, textX, textY, tolerance))
             {
-                SortedSet<Float> yMatches = xMatch.subSet(textY - tolerance, textY + tolerance);
-                if (!yMatches.isEmpty())
-                {
-                    suppressCharacter = true;
-                    break;
-                }
-            }
-            if (!suppressCharacter)
-            {
-                TreeSet<Float> ySet = sameTextCharacters.get(textX);
-                if (ySet == null)
-                {
-                    ySet = new TreeSet<Float>();
-                    sameTextCharacters.put(textX, ySet);
-                }
-                ySet.add(textY);
+                shownCharacters.add(textCharacter, textX, textY);
                 showCharacter = true;
             }
         }
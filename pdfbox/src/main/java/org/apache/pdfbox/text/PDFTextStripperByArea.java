@@ -21,13 +21,18 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 
 /**
  * This will extract text from a specified region in the PDF.
  *
+ * <p>The regions are indexed by position, so that only the few regions near a character are tested, which keeps the
+ * extraction fast with hundreds of regions.
+ *
  * @author Ben Litchfield
  */
 public class PDFTextStripperByArea extends PDFTextStripper
@@ -38,6 +43,10 @@ public class PDFTextStripperByArea extends PDFTextStripper
             = new HashMap<String, ArrayList<List<TextPosition>>>();
     private final Map<String, StringWriter> regionText = new HashMap<String, StringWriter>();
 
+    // the regions in the order of regionArea.keySet(), and an index over their rectangles
+    private String[] indexedRegions;
+    private RegionIndex regionIndex;
+
     /**
      * Constructor.
      * @throws IOException If there is an error loading properties.
@@ -69,6 +78,7 @@ public class PDFTextStripperByArea extends PDFTextStripper
     {
         regions.add( regionName );
         regionArea.put( regionName, rect );
+        regionIndex = null;
     }
 
     /**
@@ -80,6 +90,7 @@ public class PDFTextStripperByArea extends PDFTextStripper
     {
         regions.remove(regionName);
         regionArea.remove(regionName);
+        regionIndex = null;
     }
     
     /**
@@ -114,8 +125,6 @@ public class PDFTextStripperByArea extends PDFTextStripper
     {
         for (String region : regions)
         {
-            setStartPage(getCurrentPageNo());
-            setEndPage(getCurrentPageNo());
             //reset the stored text for the region so this class
             //can be reused.
             String regionName = region;
@@ -124,11 +133,78 @@ public class PDFTextStripperByArea extends PDFTextStripper
             regionCharacterList.put( regionName, regionCharactersByArticle );
             regionText.put( regionName, new StringWriter() );
         }
+        // the rectangles may have been changed since the last page
+        regionIndex = null;
         
         if( page.hasContents() )
         {
-            processPage( page );
+            // the page is processed whatever its number, the page range is kept for
+            // extractRegions(PDDocument, RegionTextCallback)
+            int startPage = getStartPage();
+            int endPage = getEndPage();
+            setStartPage(getCurrentPageNo());
+            setEndPage(getCurrentPageNo());
+            try
+            {
+                processPage( page );
+            }
+            finally
+            {
+                setStartPage( startPage );
+                setEndPage( endPage );
+            }
+        }
+    }
+
+    /**
+     * Extracts the regions of every page between the start and the end page, in one walk over the pages of the
+     * document, and passes their text to the given callback. This is the same as calling
+     * {@link #extractRegions(PDPage)} for every page, and the text is also available with
+     * {@link #getTextForRegion(String)} while the callback is called.
+     *
+     * @param document The document to extract the regions from.
+     * @param callback Receives the text of the regions of every page.
+     * @throws IOException If there is an error while extracting text, or if the callback failed.
+     */
+    public void extractRegions( PDDocument document, RegionTextCallback callback ) throws IOException
+    {
+        int startPage = getStartPage();
+        int endPage = getEndPage();
+        int pageNumber = 0;
+        for (PDPage page : document.getPages())
+        {
+            pageNumber++;
+            if (pageNumber < startPage)
+            {
+                continue;
+            }
+            if (pageNumber > endPage)
+            {
+                break;
+            }
+            extractRegions( page );
+            Map<String, String> textByRegion = new LinkedHashMap<String, String>();
+            for (String region : regions)
+            {
+                textByRegion.put( region, getTextForRegion( region ) );
+            }
+            callback.regionsExtracted( pageNumber, textByRegion );
+        }
+    }
+
+    private RegionIndex getRegionIndex()
+    {
+        if (regionIndex == null)
+        {
+            indexedRegions = regionArea.keySet().toArray(new String[regionArea.size()]);
+            List<Rectangle2D> rects = new ArrayList<Rectangle2D>(indexedRegions.length);
+            for (String region : indexedRegions)
+            {
+                rects.add( regionArea.get( region ) );
+            }
+            regionIndex = new RegionIndex( rects );
         }
+        return regionIndex;
     }
 
     
@@ -138,12 +214,16 @@ public class PDFTextStripperByArea extends PDFTextStripper
     @Override
     protected void processTextPosition( TextPosition text )
     {
-        for (String region : regionArea.keySet())
+        RegionIndex index = getRegionIndex();
+        float x = text.getX();
+        float y = text.getY();
+        // the candidates are in the order of the regions, which decides the region of
+        // duplicate overlapping text
+        for (int i : index.candidates( x, y ))
         {
-            Rectangle2D rect = regionArea.get( region );
-            if( rect.contains( text.getX(), text.getY() ) )
+            if( index.get( i ).contains( x, y ) )
             {
-                charactersByArticle = regionCharacterList.get( region );
+                charactersByArticle = regionCharacterList.get( indexedRegions[i] );
                 super.processTextPosition( text );
             }
         }
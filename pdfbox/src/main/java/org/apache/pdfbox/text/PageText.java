@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.util.List;
+
+/**
+ * The text of one page, as returned by the iterator of
+ * {@link PDFTextStripper#pageIterator(org.apache.pdfbox.pdmodel.PDDocument, boolean)}.
+ */
+public final class PageText
+{
+    private final int pageNumber;
+    private final String text;
+    private final List<List<TextPosition>> textPositions;
+
+    PageText(int pageNumber, String text, List<List<TextPosition>> textPositions)
+    {
+        this.pageNumber = pageNumber;
+        this.text = text;
+        this.textPositions = textPositions;
+    }
+
+    /**
+     * Returns the one-based number of the page.
+     *
+     * @return the page number
+     */
+    public int getPageNumber()
+    {
+        return pageNumber;
+    }
+
+    /**
+     * Returns the text of the page, including the page start and page end strings.
+     *
+     * @return the text of the page
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Returns the characters of the page, one list per article, see
+     * {@link PDFTextStripper#getCharactersByArticle()}.
+     *
+     * @return the characters of the page, or null if the text positions weren't requested
+     */
+    public List<List<TextPosition>> getTextPositions()
+    {
+        return textPositions;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageText{pageNumber=" + pageNumber + ", length=" + text.length() + "}";
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.io.IOException;
+
+/**
+ * Receives the text of the pages extracted by
+ * {@link PDFTextStripper#extractPages(org.apache.pdfbox.pdmodel.PDDocument,
+ * java.util.concurrent.Executor, PageTextCallback)}.
+ */
+public interface PageTextCallback
+{
+    /**
+     * Called once for every extracted page, in page order and on the thread which started the
+     * extraction. Pages outside of the page range of the stripper and pages without contents are
+     * skipped.
+     *
+     * @param pageNumber the one-based number of the page
+     * @param text the text of the page, including the page start and page end strings
+     * @throws IOException if the text could not be processed, this stops the extraction
+     */
+    void pageExtracted(int pageNumber, String text) throws IOException;
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the iterator of
+ * {@link PDFTextStripper#pageIterator(org.apache.pdfbox.pdmodel.PDDocument, boolean)} when the
+ * text of a page could not be extracted. The cause is the IOException of the extraction.
+ */
+public final class PageTextException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int pageNumber;
+
+    /**
+     * Constructor.
+     *
+     * @param pageNumber the one-based number of the page
+     * @param cause the exception thrown while extracting the page
+     */
+    public PageTextException(int pageNumber, IOException cause)
+    {
+        super("Could not extract the text of page " + pageNumber, cause);
+        this.pageNumber = pageNumber;
+    }
+
+    /**
+     * Returns the one-based number of the page which could not be extracted.
+     *
+     * @return the page number
+     */
+    public int getPageNumber()
+    {
+        return pageNumber;
+    }
+
+    /**
+     * Returns the exception thrown while extracting the page.
+     *
+     * @return the cause of this exception
+     */
+    @Override
+    public IOException getCause()
+    {
+        return (IOException) super.getCause();
+    }
+}
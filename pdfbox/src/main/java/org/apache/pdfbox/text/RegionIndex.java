@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * A uniform grid over the regions of a {@link PDFTextStripperByArea}, so that only the regions
+ * which overlap the grid cell of a character have to be tested. Every cell lists the indexes of
+ * its regions in ascending order, i.e. in the order in which the regions were given.
+ */
+final class RegionIndex
+{
+    private static final int[] NO_REGIONS = new int[0];
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private final Rectangle2D[] rects;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final int columns;
+    private final int rows;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int[][] cells;
+
+    RegionIndex(List<Rectangle2D> regions)
+    {
+        rects = regions.toArray(new Rectangle2D[regions.size()]);
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (Rectangle2D rect : rects)
+        {
+            if (isIndexed(rect))
+            {
+                x0 = Math.min(x0, rect.getMinX());
+                y0 = Math.min(y0, rect.getMinY());
+                x1 = Math.max(x1, rect.getMaxX());
+                y1 = Math.max(y1, rect.getMaxY());
+            }
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+
+        int side = (int) Math.ceil(Math.sqrt(rects.length));
+        side = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, side));
+        double width = maxX - minX;
+        double height = maxY - minY;
+        columns = width > 0 && width < Double.POSITIVE_INFINITY ? side : 1;
+        rows = height > 0 && height < Double.POSITIVE_INFINITY ? side : 1;
+        cellWidth = width / columns;
+        cellHeight = height / rows;
+
+        // count the regions of every cell first, then fill the cells in region order
+        int[] counts = new int[columns * rows];
+        for (Rectangle2D rect : rects)
+        {
+            if (isIndexed(rect))
+            {
+                forEachCell(rect, counts, null, -1);
+            }
+        }
+        cells = new int[columns * rows][];
+        for (int i = 0; i < cells.length; i++)
+        {
+            cells[i] = counts[i] == 0 ? NO_REGIONS : new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < rects.length; i++)
+        {
+            if (isIndexed(rects[i]))
+            {
+                forEachCell(rects[i], counts, cells, i);
+            }
+        }
+    }
+
+    /**
+     * Returns the indexes of the regions which may contain the given point, in ascending order.
+     * The caller has to test the regions with {@link Rectangle2D#contains(double, double)}.
+     */
+    int[] candidates(double x, double y)
+    {
+        if (!(x >= minX && x <= maxX && y >= minY && y <= maxY))
+        {
+            // also if there are no regions, or if a coordinate is NaN
+            return NO_REGIONS;
+        }
+        return cells[row(y) * columns + column(x)];
+    }
+
+    /**
+     * Returns the region with the given index.
+     */
+    Rectangle2D get(int index)
+    {
+        return rects[index];
+    }
+
+    /**
+     * Returns false for regions which can't contain any point, these are left out of the grid.
+     */
+    private static boolean isIndexed(Rectangle2D rect)
+    {
+        return rect.getWidth() > 0 && rect.getHeight() > 0
+                && !Double.isNaN(rect.getMaxX()) && !Double.isNaN(rect.getMaxY());
+    }
+
+    private void forEachCell(Rectangle2D rect, int[] counts, int[][] cells, int region)
+    {
+        int column0 = column(rect.getMinX());
+        int column1 = column(rect.getMaxX());
+        int row0 = row(rect.getMinY());
+        int row1 = row(rect.getMaxY());
+        for (int row = row0; row <= row1; row++)
+        {
+            for (int column = column0; column <= column1; column++)
+            {
+                int cell = row * columns + column;
+                if (cells != null)
+                {
+                    cells[cell][counts[cell]] = region;
+                }
+                counts[cell]++;
+            }
+        }
+    }
+
+    private int column(double x)
+    {
+        if (columns == 1)
+        {
+            return 0;
+        }
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / cellWidth)));
+    }
+
+    private int row(double y)
+    {
+        if (rows == 1)
+        {
+            return 0;
+        }
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellHeight)));
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Receives the text of the regions of every page extracted by
+ * {@link PDFTextStripperByArea#extractRegions(org.apache.pdfbox.pdmodel.PDDocument,
+ * RegionTextCallback)}.
+ */
+public interface RegionTextCallback
+{
+    /**
+     * Called once for every page, in page order.
+     *
+     * @param pageNumber the one-based number of the page
+     * @param textByRegion the text of every region of the page, by region name, in the order in
+     * which the regions were added
+     * @throws IOException if the text could not be processed, this stops the extraction
+     */
+    void regionsExtracted(int pageNumber, Map<String, String> textByRegion) throws IOException;
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorts text positions in the order of {@link TextPositionComparator}. The direction adjusted
+ * coordinates of every text position are computed once and kept in parallel arrays, and an array
+ * of indexes is sorted with the same quicksort as {@link org.apache.pdfbox.util.QuickSort}, so
+ * that the result is exactly the one of sorting the list with the comparator, which isn't
+ * transitive. The arrays are reused for the following pages.
+ */
+final class TextPositionSorter
+{
+    private TextPosition[] positions = new TextPosition[0];
+    private float[] dirs = new float[0];
+    private float[] xs = new float[0];
+    private float[] yBottoms = new float[0];
+    private float[] yTops = new float[0];
+    private int[] order = new int[0];
+    private int[] stack = new int[64];
+
+    /**
+     * Sorts the given list in place.
+     */
+    void sort(List<TextPosition> list)
+    {
+        int size = list.size();
+        if (size < 2)
+        {
+            return;
+        }
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++)
+        {
+            TextPosition position = list.get(i);
+            positions[i] = position;
+            dirs[i] = position.getDir();
+            xs[i] = position.getXDirAdj();
+            yBottoms[i] = position.getYDirAdj();
+            // note that the coordinates have been adjusted so 0,0 is in upper left
+            yTops[i] = yBottoms[i] - position.getHeightDir();
+            order[i] = i;
+        }
+        quicksort(size);
+        for (int i = 0; i < size; i++)
+        {
+            list.set(i, positions[order[i]]);
+        }
+        // don't keep the text positions of this page alive
+        Arrays.fill(positions, 0, size, null);
+    }
+
+    private void ensureCapacity(int size)
+    {
+        if (positions.length < size)
+        {
+            int capacity = Math.max(size, positions.length * 2);
+            positions = new TextPosition[capacity];
+            dirs = new float[capacity];
+            xs = new float[capacity];
+            yBottoms = new float[capacity];
+            yTops = new float[capacity];
+            order = new int[capacity];
+        }
+    }
+
+    /**
+     * Same as TextPositionComparator.compare(), for the text positions with the given indexes.
+     */
+    private int compare(int pos1, int pos2)
+    {
+        // only compare text that is in the same direction
+        if (dirs[pos1] < dirs[pos2])
+        {
+            return -1;
+        }
+        else if (dirs[pos1] > dirs[pos2])
+        {
+            return 1;
+        }
+
+        float pos1YBottom = yBottoms[pos1];
+        float pos2YBottom = yBottoms[pos2];
+        float pos1YTop = yTops[pos1];
+        float pos2YTop = yTops[pos2];
+
+        float yDifference = Math.abs(pos1YBottom - pos2YBottom);
+
+        // we will do a simple tolerance comparison
+        if (yDifference < .1 ||
+            pos2YBottom >= pos1YTop && pos2YBottom <= pos1YBottom ||
+            pos1YBottom >= pos2YTop && pos1YBottom <= pos2YBottom)
+        {
+            float x1 = xs[pos1];
+            float x2 = xs[pos2];
+            if (x1 < x2)
+            {
+                return -1;
+            }
+            else if (x1 > x2)
+            {
+                return 1;
+            }
+            else
+            {
+                return 0;
+            }
+        }
+        else if (pos1YBottom < pos2YBottom)
+        {
+            return -1;
+        }
+        else
+        {
+            return 1;
+        }
+    }
+
+    private void quicksort(int size)
+    {
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size;
+        while (top > 0)
+        {
+            int right = stack[--top];
+            int left = stack[--top];
+            if (right - left < 2)
+            {
+                continue;
+            }
+            int p = left + ((right - left) / 2);
+            p = partition(p, left, right);
+
+            if (top + 4 > stack.length)
+            {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = p + 1;
+            stack[top++] = right;
+
+            stack[top++] = left;
+            stack[top++] = p;
+        }
+    }
+
+    private int partition(int p, int start, int end)
+    {
+        int l = start;
+        int h = end - 2;
+        int piv = order[p];
+        swap(p, end - 1);
+
+        while (l < h)
+        {
+            if (compare(order[l], piv) <= 0)
+            {
+                l++;
+            }
+            else if (compare(piv, order[h]) <= 0)
+            {
+                h--;
+            }
+            else
+            {
+                swap(l, h);
+            }
+        }
+        int idx = h;
+        if (compare(order[h], piv) < 0)
+        {
+            idx++;
+        }
+        swap(end - 1, idx);
+        return idx;
+    }
+
+    private void swap(int i, int j)
+    {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+}
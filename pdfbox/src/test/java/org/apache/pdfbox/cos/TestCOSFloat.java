@@ -300,6 +300,99 @@ public class TestCOSFloat extends TestCOSNumber
         writePDFTester.runTest(0.000000000000000000000000000000001f);
     }
 
+    /**
+     * Tests that parsing a number gives the same values as BigDecimal and keeps the text.
+     */
+    public void testParse() throws IOException
+    {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 10000; i++)
+        {
+            int digits = 1 + rnd.nextInt(20);
+            StringBuilder sb = new StringBuilder();
+            if (rnd.nextBoolean())
+            {
+                sb.append('-');
+            }
+            for (int j = 0; j < digits; j++)
+            {
+                sb.append((char) ('0' + rnd.nextInt(10)));
+            }
+            sb.insert(sb.length() - rnd.nextInt(digits + 1), '.');
+            String text = sb.toString();
+            BigDecimal expected = new BigDecimal(text);
+            COSFloat cosFloat = new COSFloat(text);
+            assertEquals(text, expected.floatValue(), cosFloat.floatValue());
+            assertEquals(text, expected.doubleValue(), cosFloat.doubleValue());
+            assertEquals(text, (int) expected.doubleValue(), cosFloat.intValue());
+            assertEquals("COSFloat{" + text + "}", cosFloat.toString());
+        }
+        assertEquals(1.5e10f, new COSFloat("1.5E10").floatValue());
+        assertEquals(0.1f, new COSFloat("0.100000000000000000000001").floatValue());
+        assertEquals(Float.MAX_VALUE, new COSFloat("1e40").floatValue());
+        assertEquals(-Float.MIN_NORMAL, new COSFloat("-1e-50").floatValue());
+        assertEquals(0f, new COSFloat("-0.000").floatValue());
+    }
+
+    /**
+     * Tests that the text of a well-formed number is written as it was read.
+     */
+    public void testParseKeepsText() throws IOException
+    {
+        String[] texts = { "+1.50", ".5", "5.", "-.25", "007.100", "1E5", "1.5e-3", "-0.0" };
+        for (String text : texts)
+        {
+            COSFloat cosFloat = new COSFloat(text);
+            assertEquals(text, new BigDecimal(text).floatValue(), cosFloat.floatValue());
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            cosFloat.writePDF(baos);
+            assertEquals(text, baos.toString("ISO-8859-1"));
+        }
+    }
+
+    /**
+     * Tests the repair of malformed numbers.
+     */
+    public void testParseMalformed() throws IOException
+    {
+        // PDFBOX-2990, PDFBOX-3369, PDFBOX-3500
+        assertMalformed("0.00000-33917698", -0.0000033917698f, "-0.0000033917698");
+        assertMalformed("0.00-35095424", -0.0035095424f, "-0.0035095424");
+        assertMalformed("0.-262", -0.262f, "-0.262");
+        // PDFBOX-4289
+        assertMalformed("--16.33", -16.33f, "-16.33");
+        assertMalformed("1.2.3", 1.2f, "1.2");
+        assertMalformed("4.5-", 4.5f, "4.5");
+        assertMalformed("-4.5-", -4.5f, "-4.5");
+        assertMalformed("1.5e", 1.5f, "1.5");
+
+        assertInvalid("--");
+        assertInvalid("-.");
+        assertInvalid("1.5x");
+        assertInvalid("Infinity");
+    }
+
+    private static void assertMalformed(String text, float expected, String written)
+            throws IOException
+    {
+        COSFloat cosFloat = new COSFloat(text);
+        assertEquals(text, expected, cosFloat.floatValue());
+        assertEquals("COSFloat{" + written + "}", cosFloat.toString());
+    }
+
+    private static void assertInvalid(String text)
+    {
+        try
+        {
+            new COSFloat(text);
+            fail("IOException expected for " + text);
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
     private String floatToString(float value)
     {
         // use a BigDecimal as intermediate state to avoid 
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.cos;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Test class for the dropping of parsed values of {@link COSObject}.
+ */
+public class TestCOSObject
+{
+    /**
+     * A value which hasn't been changed since it was parsed is dropped, and it is restored if it
+     * is still in use.
+     */
+    @Test
+    public void testDropUnmodified() throws IOException
+    {
+        COSDictionary dictionary = createParsedValue();
+        COSObject object = new COSObject(dictionary);
+        object.markAsParsed();
+        assertTrue(object.dropObject());
+        assertTrue(object.isObjectNull());
+        assertSame(dictionary, object.restoreDroppedObject());
+        assertSame(dictionary, object.getObject());
+        assertNull(object.restoreDroppedObject());
+
+        // the restored value may still be dropped
+        assertTrue(object.dropObject());
+    }
+
+    /**
+     * Values which have been changed anywhere within since they were parsed are never dropped.
+     */
+    @Test
+    public void testKeepModified() throws IOException
+    {
+        COSDictionary dictionary = createParsedValue();
+        COSObject object = new COSObject(dictionary);
+        object.markAsParsed();
+        dictionary.setInt(COSName.ROTATE, 90);
+        assertFalse(object.dropObject());
+        assertSame(dictionary, object.getObject());
+        // and it stays so
+        assertFalse(object.dropObject());
+
+        dictionary = createParsedValue();
+        object.setObject(dictionary);
+        object.markAsParsed();
+        ((COSArray) dictionary.getDictionaryObject(COSName.MEDIA_BOX)).set(0, COSInteger.ONE);
+        assertFalse(object.dropObject());
+
+        dictionary = createParsedValue();
+        object.setObject(dictionary);
+        object.markAsParsed();
+        ((COSDictionary) dictionary.getDictionaryObject(COSName.RESOURCES)).removeItem(COSName.FONT);
+        assertFalse(object.dropObject());
+
+        dictionary = createParsedValue();
+        object.setObject(dictionary);
+        object.markAsParsed();
+        ((COSString) dictionary.getDictionaryObject(COSName.T)).setValue(new byte[] { 'b' });
+        assertFalse(object.dropObject());
+
+        dictionary = createParsedValue();
+        object.setObject(dictionary);
+        object.markAsParsed();
+        dictionary.setNeedToBeUpdated(true);
+        assertFalse(object.dropObject());
+    }
+
+    /**
+     * Changes through the views of dictionaries and the iterators of arrays count as well, but
+     * just reading through them doesn't.
+     */
+    @Test
+    public void testKeepModifiedThroughViews() throws IOException
+    {
+        COSDictionary dictionary = createParsedValue();
+        COSObject object = new COSObject(dictionary);
+        object.markAsParsed();
+        for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet())
+        {
+            assertTrue(dictionary.entrySet().contains(entry));
+        }
+        for (COSBase value : dictionary.getValues())
+        {
+            assertTrue(dictionary.getValues().contains(value));
+        }
+        assertTrue(dictionary.keySet().contains(COSName.T));
+        assertTrue(object.dropObject());
+
+        dictionary = createParsedValue();
+        object.setObject(dictionary);
+        object.markAsParsed();
+        for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet())
+        {
+            if (COSName.T.equals(entry.getKey()))
+            {
+                entry.setValue(new COSString("b"));
+            }
+        }
+        assertFalse(object.dropObject());
+
+        dictionary = createParsedValue();
+        object.setObject(dictionary);
+        object.markAsParsed();
+        Iterator<COSBase> iterator =
+                ((COSArray) dictionary.getDictionaryObject(COSName.MEDIA_BOX)).iterator();
+        iterator.next();
+        iterator.remove();
+        assertFalse(object.dropObject());
+    }
+
+    /**
+     * Values which have been set rather than parsed are never dropped.
+     */
+    @Test
+    public void testKeepReplaced() throws IOException
+    {
+        COSObject object = new COSObject(createParsedValue());
+        assertFalse(object.dropObject());
+        object.markAsParsed();
+        object.setObject(createParsedValue());
+        assertFalse(object.dropObject());
+        assertFalse(object.isObjectNull());
+    }
+
+    private static COSDictionary createParsedValue()
+    {
+        COSDictionary dictionary = new COSDictionary();
+        COSArray mediaBox = new COSArray();
+        mediaBox.setFloatArray(new float[] { 0, 0, 612, 792 });
+        dictionary.setItem(COSName.MEDIA_BOX, mediaBox);
+        COSDictionary resources = new COSDictionary();
+        resources.setItem(COSName.FONT, new COSDictionary());
+        dictionary.setItem(COSName.RESOURCES, resources);
+        dictionary.setItem(COSName.T, new COSString("a"));
+        return dictionary;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * This is a unit test for {@link RandomAccessMemoryMappedFile}.
+ */
+public class TestRandomAccessMemoryMappedFile extends TestCase
+{
+    private final File testResultsDir = new File("target/test-output");
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        testResultsDir.mkdirs();
+    }
+
+    /**
+     * Reads a file which is split into many tiny segments, so that most reads cross a segment
+     * boundary.
+     * 
+     * @throws IOException
+     */
+    public void testReadAcrossSegments() throws IOException
+    {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) i;
+        }
+        File file = createFile("mapped-segments.bin", data);
+
+        // 16 byte segments
+        RandomAccessMemoryMappedFile mapped = new RandomAccessMemoryMappedFile(file, 4);
+        assertEquals(1000, mapped.length());
+        for (int i = 0; i < data.length; i++)
+        {
+            assertEquals(i & 0xff, mapped.read());
+        }
+        assertEquals(-1, mapped.read());
+        assertTrue(mapped.isEOF());
+
+        mapped.seek(10);
+        byte[] buffer = new byte[100];
+        assertEquals(100, mapped.read(buffer, 0, 100));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 10, 110), buffer));
+        assertEquals(110, mapped.getPosition());
+        assertEquals(110, mapped.peek());
+        assertEquals(110, mapped.getPosition());
+
+        mapped.rewind(15);
+        assertEquals(95, mapped.read());
+
+        mapped.seek(990);
+        assertEquals(10, mapped.read(buffer, 0, 100));
+        assertEquals(0, mapped.available());
+        assertEquals(-1, mapped.read(buffer, 0, 100));
+
+        mapped.seek(1);
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 1, 999), mapped.readFully(998)));
+
+        mapped.close();
+        assertTrue(mapped.isClosed());
+        try
+        {
+            mapped.read();
+            fail("IOException expected");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+        file.delete();
+    }
+
+    /**
+     * Reads at given positions, across segment boundaries and at the end of the file, without
+     * changing the position of the file.
+     *
+     * @throws IOException
+     */
+    public void testPositionalRead() throws IOException
+    {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 7);
+        }
+        File file = createFile("mapped-positional.bin", data);
+
+        // 16 byte segments
+        RandomAccessMemoryMappedFile mapped = new RandomAccessMemoryMappedFile(file, 4);
+        mapped.seek(123);
+        byte[] buffer = new byte[110];
+        assertEquals(100, mapped.read(5, buffer, 10, 100));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 5, 105),
+                Arrays.copyOfRange(buffer, 10, 110)));
+        assertEquals(123, mapped.getPosition());
+
+        // within a single segment
+        assertEquals(3, mapped.read(33, buffer, 0, 3));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 33, 36),
+                Arrays.copyOfRange(buffer, 0, 3)));
+
+        // only the bytes up to the end of the file are read
+        assertEquals(8, mapped.read(992, buffer, 0, 100));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 992, 1000),
+                Arrays.copyOfRange(buffer, 0, 8)));
+        assertEquals(-1, mapped.read(1000, buffer, 0, 100));
+        assertEquals(0, mapped.read(0, buffer, 0, 0));
+        try
+        {
+            mapped.read(-1, buffer, 0, 10);
+            fail("IOException expected");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+        assertEquals(123, mapped.getPosition());
+        assertEquals(data[123] & 0xff, mapped.read());
+
+        mapped.close();
+        try
+        {
+            mapped.read(0, buffer, 0, 10);
+            fail("IOException expected");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+        file.delete();
+    }
+
+    /**
+     * Closes the file while other threads read from it. Every read either returns the right data
+     * or fails with an IOException.
+     * 
+     * @throws Exception
+     */
+    public void testCloseWhileReading() throws Exception
+    {
+        final byte[] data = new byte[1 << 16];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 31);
+        }
+        File file = createFile("mapped-close.bin", data);
+        final RandomAccessMemoryMappedFile mapped = new RandomAccessMemoryMappedFile(file, 12);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++)
+        {
+            readers[t] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    byte[] buffer = new byte[5000];
+                    try
+                    {
+                        for (int position = 0; ; position = (position + 7919) % 60000)
+                        {
+                            mapped.read(position, buffer, 0, buffer.length);
+                            if (!Arrays.equals(Arrays.copyOfRange(data, position,
+                                    position + buffer.length), buffer))
+                            {
+                                failure.set(new AssertionError("wrong data at " + position));
+                                return;
+                            }
+                        }
+                    }
+                    catch (IOException ex)
+                    {
+                        // expected once the file is closed
+                    }
+                    catch (Throwable ex)
+                    {
+                        failure.set(ex);
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        Thread.sleep(50);
+        mapped.close();
+        for (Thread reader : readers)
+        {
+            reader.join();
+        }
+        assertNull(failure.get());
+        file.delete();
+    }
+
+    /**
+     * Test an empty file.
+     * 
+     * @throws IOException
+     */
+    public void testEmptyFile() throws IOException
+    {
+        File file = createFile("mapped-empty.bin", new byte[0]);
+        RandomAccessMemoryMappedFile mapped = new RandomAccessMemoryMappedFile(file);
+        assertEquals(0, mapped.length());
+        assertTrue(mapped.isEOF());
+        assertEquals(-1, mapped.read());
+        assertEquals(-1, mapped.peek());
+        mapped.close();
+        file.delete();
+    }
+
+    /**
+     * Load a PDF through a memory mapped file.
+     * 
+     * @throws IOException
+     */
+    public void testLoadDocument() throws IOException
+    {
+        File file = new File("src/test/resources/org/apache/pdfbox/pdmodel/page_tree_multiple_levels.pdf");
+        PDDocument document = PDDocument.load(file,
+                MemoryUsageSetting.setupMainMemoryOnly().setUseMemoryMappedInput(true));
+        PDDocument reference = PDDocument.load(file);
+        assertEquals(reference.getNumberOfPages(), document.getNumberOfPages());
+        reference.close();
+        document.close();
+    }
+
+    private File createFile(String name, byte[] data) throws IOException
+    {
+        File file = new File(testResultsDir, name);
+        FileOutputStream fos = new FileOutputStream(file);
+        try
+        {
+            fos.write(data);
+        }
+        finally
+        {
+            fos.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * This is a unit test for {@link ScratchFile} and {@link ScratchFileBuffer}.
+ */
+public class TestScratchFile extends TestCase
+{
+    private static final int THREAD_COUNT = 16;
+
+    public void testMainMemoryOnly() throws Exception
+    {
+        testConcurrentBuffers(MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    public void testTempFileOnly() throws Exception
+    {
+        testConcurrentBuffers(MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    public void testMixed() throws Exception
+    {
+        // 64 pages in memory, the rest goes to the scratch file
+        testConcurrentBuffers(MemoryUsageSetting.setupMixed(64 * 4096));
+    }
+
+    public void testOffHeapPages() throws Exception
+    {
+        OffHeapPagePool pool = new OffHeapPagePool(1024 * 1024);
+        testConcurrentBuffers(MemoryUsageSetting.setupMainMemoryOnly().setOffHeapPagePool(pool));
+        assertEquals(0, pool.getUsedBytes());
+        assertTrue(pool.getPeakUsedBytes() > 0);
+        assertEquals(1024 * 1024, pool.getReservedBytes());
+    }
+
+    public void testOffHeapPagesMixed() throws Exception
+    {
+        OffHeapPagePool pool = new OffHeapPagePool(1024 * 1024);
+        testConcurrentBuffers(MemoryUsageSetting.setupMixed(64 * 4096).setOffHeapPagePool(pool));
+        assertEquals(0, pool.getUsedBytes());
+        assertEquals(0, pool.getExhaustedCount());
+    }
+
+    /**
+     * Test that heap pages are used when the off-heap pool is exhausted, and that pages of a
+     * scratch file which is closed without closing its buffers are returned to the pool.
+     * 
+     * @throws IOException
+     */
+    public void testOffHeapPoolExhausted() throws IOException
+    {
+        // the smallest possible pool has 256 pages
+        OffHeapPagePool pool = new OffHeapPagePool(1);
+        assertEquals(1024 * 1024, pool.getMaxBytes());
+        ScratchFile scratchFile = new ScratchFile(
+                MemoryUsageSetting.setupMainMemoryOnly().setOffHeapPagePool(pool));
+        int length = 300 * 4096;
+        RandomAccess buffer = scratchFile.createBuffer();
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = (byte) (i / 4096 + i);
+        }
+        buffer.write(data);
+        assertEquals(1024 * 1024, pool.getUsedBytes());
+        assertTrue(pool.getExhaustedCount() > 0);
+
+        buffer.seek(0);
+        byte[] read = new byte[length];
+        int offset = 0;
+        while (offset < length)
+        {
+            offset += buffer.read(read, offset, length - offset);
+        }
+        assertTrue(Arrays.equals(data, read));
+
+        scratchFile.close();
+        assertEquals(0, pool.getUsedBytes());
+    }
+
+    /**
+     * Test that the storage limit is enforced.
+     * 
+     * @throws IOException
+     */
+    public void testStorageRestricted() throws IOException
+    {
+        ScratchFile scratchFile = new ScratchFile(MemoryUsageSetting.setupMainMemoryOnly(4 * 4096));
+        RandomAccess buffer = scratchFile.createBuffer();
+        buffer.write(new byte[4 * 4096 - 1]);
+        try
+        {
+            buffer.write(new byte[4096]);
+            fail("IOException expected");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+        buffer.close();
+
+        // the pages of the closed buffer are available again
+        buffer = scratchFile.createBuffer();
+        buffer.write(new byte[3 * 4096]);
+        buffer.close();
+        scratchFile.close();
+    }
+
+    /**
+     * Test that a page which is freed twice is handed out only once.
+     * 
+     * @throws IOException
+     */
+    public void testDoubleFree() throws IOException
+    {
+        checkDoubleFree(MemoryUsageSetting.setupMainMemoryOnly());
+        checkDoubleFree(MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    private void checkDoubleFree(MemoryUsageSetting setting) throws IOException
+    {
+        ScratchFile scratchFile = new ScratchFile(setting);
+        int page = scratchFile.getNewPage();
+        scratchFile.markPagesAsFree(new int[] { page, page }, 0, 2);
+        scratchFile.markPagesAsFree(new int[] { page }, 0, 1);
+        assertEquals(page, scratchFile.getNewPage());
+        assertTrue(scratchFile.getNewPage() != page);
+
+        // the page can be freed again after it has been reused
+        scratchFile.markPagesAsFree(new int[] { page }, 0, 1);
+        assertEquals(page, scratchFile.getNewPage());
+        scratchFile.close();
+    }
+
+    /**
+     * Test that a thread which is interrupted while using the scratch file doesn't break the
+     * buffers of other threads.
+     * 
+     * @throws Exception
+     */
+    public void testInterrupted() throws Exception
+    {
+        final ScratchFile scratchFile = new ScratchFile(MemoryUsageSetting.setupTempFileOnly());
+        final byte[] data = new byte[10 * 4096];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 13);
+        }
+        RandomAccess buffer = scratchFile.createBuffer();
+        buffer.write(data);
+
+        final boolean[] interrupted = new boolean[1];
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Thread.currentThread().interrupt();
+                try
+                {
+                    writeAndVerify(scratchFile, 5, data.length);
+                }
+                catch (IOException ex)
+                {
+                    throw new RuntimeException(ex);
+                }
+                interrupted[0] = Thread.interrupted();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertTrue(interrupted[0]);
+
+        // the buffer written before is still readable
+        buffer.seek(0);
+        byte[] read = new byte[data.length];
+        int offset = 0;
+        while (offset < read.length)
+        {
+            offset += buffer.read(read, offset, read.length - offset);
+        }
+        assertTrue(Arrays.equals(data, read));
+        buffer.close();
+        scratchFile.close();
+    }
+
+    /**
+     * Many threads write and read buffers of the same scratch file at the same time. Buffers are
+     * closed and recreated so that freed pages are reused.
+     */
+    private void testConcurrentBuffers(MemoryUsageSetting setting) throws Exception
+    {
+        final ScratchFile scratchFile = new ScratchFile(setting);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < THREAD_COUNT; t++)
+            {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        for (int round = 0; round < 20; round++)
+                        {
+                            writeAndVerify(scratchFile, seed * 31 + round, 5 * 4096 + 123);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException ex)
+                {
+                    throw (Exception) ex.getCause();
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            scratchFile.close();
+        }
+        try
+        {
+            scratchFile.createBuffer();
+            fail("IOException expected");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+    }
+
+    private static void writeAndVerify(ScratchFile scratchFile, int seed, int length)
+            throws IOException
+    {
+        RandomAccess buffer = scratchFile.createBuffer();
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = (byte) (seed + i * 7);
+        }
+        buffer.write(data);
+        assertEquals(length, buffer.length());
+
+        buffer.seek(0);
+        byte[] read = new byte[length];
+        int offset = 0;
+        while (offset < length)
+        {
+            offset += buffer.read(read, offset, length - offset);
+        }
+        for (int i = 0; i < length; i++)
+        {
+            assertEquals("Wrong byte at " + i, data[i], read[i]);
+        }
+        buffer.close();
+    }
+}
@@ -16,9 +16,15 @@
 package org.apache.pdfbox.pdfparser;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import junit.framework.TestCase;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.util.Charsets;
 
 
 import static org.junit.Assert.assertArrayEquals;
@@ -85,6 +91,85 @@ public class PDFStreamParserTest extends TestCase
         testInlineImage2ops("ID\n12EI5EI          Q   ", "12EI5", "Q");
     }
 
+    /**
+     * Tests that parseNextOperator() returns the same operators and operands as the tokens of
+     * parseNextToken().
+     *
+     * @throws IOException
+     */
+    public void testParseNextOperator() throws IOException
+    {
+        testSameOperators("q 1 0 0 1 72.5 -10 cm 0 0 m 10.25 .5 l -.5 +3 -0 0.000 4. 5 c h S Q");
+        testSameOperators("/F1 12 Tf [(Hello) -250 (World)] TJ (a\\) b) Tj <414243> Tj");
+        testSameOperators("/P <</MCID 3 /Lang (en)>> BDC /Name#20Space /N#41me Do EMC");
+        testSameOperators("true false null 1 0 R d0 750 0 0 -10 500 700 d1 T* ' \" f* B*");
+        testSameOperators("BI /W 2 /H 1 /BPC 8 /CS /G ID\n12EI 0.1 g 1 1 1 rg");
+        testSameOperators("1234567890123456789 0.1234567890123456789 12345678901234567890 Tc");
+        testSameOperators("--1 1.2.3 4- 5.6.7- -.0 . Tc % comment\n0.5 w");
+        testSameOperators("/Span<</ActualText(\u00fe\u00ff)>>BDC/F2 1 Tf(x)Tj EMC\n0 0 10 10 re W n");
+        testSameOperators("0 0 m 1 1 l");
+    }
+
+    private void testSameOperators(String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(Charsets.ISO_8859_1);
+        List<String> expected = new ArrayList<String>();
+        PDFStreamParser tokenParser = new PDFStreamParser(bytes);
+        List<COSBase> arguments = new ArrayList<COSBase>();
+        Object token;
+        while ((token = tokenParser.parseNextToken()) != null)
+        {
+            if (token instanceof Operator)
+            {
+                expected.add(describe((Operator) token, arguments));
+                arguments = new ArrayList<COSBase>();
+            }
+            else if (token instanceof COSObject)
+            {
+                arguments.add(((COSObject) token).getObject());
+            }
+            else
+            {
+                arguments.add((COSBase) token);
+            }
+        }
+
+        List<String> actual = new ArrayList<String>();
+        PDFStreamParser operatorParser = new PDFStreamParser(bytes);
+        OperandStack operands = new OperandStack();
+        Operator operator;
+        while ((operator = operatorParser.parseNextOperator(operands)) != null)
+        {
+            actual.add(describe(operator, operands.asList()));
+            operands.clear();
+        }
+        assertEquals(s, expected, actual);
+    }
+
+    private static String describe(Operator operator, List<COSBase> operands)
+    {
+        // the operands may differ in the text of real numbers, e.g. ".5" and "0.5"
+        StringBuilder sb = new StringBuilder();
+        for (COSBase operand : operands)
+        {
+            if (operand instanceof COSFloat)
+            {
+                sb.append("COSFloat{").append(((COSFloat) operand).floatValue()).append("} ");
+            }
+            else
+            {
+                sb.append(operand).append(' ');
+            }
+        }
+        String description = sb + operator.getName();
+        if (operator.getImageData() != null)
+        {
+            description += " " + new String(operator.getImageData(), Charsets.ISO_8859_1) +
+                    " " + operator.getImageParameters();
+        }
+        return description;
+    }
+
     // checks whether there are two operators, one inline image and the named operator
     private void testInlineImage2ops(String s, String imageDataString, String opName) throws IOException
     {
@@ -21,20 +21,29 @@
 
 package org.apache.pdfbox.pdfparser;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.pdfbox.cos.COSDocument;
 import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessBuffer;
 import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
 import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -114,6 +123,157 @@ public class TestPDFParser
         PDDocument.load(TestPDFParser.class.getResourceAsStream("MissingCatalog.pdf")).close();        
     }
 
+    /**
+     * Loading with a limit for the parsed objects must give the same text as loading the whole
+     * document, also if the objects are in object streams, with or without keeping the decoded
+     * object streams.
+     */
+    @Test
+    public void testPDFParserParseOnDemand() throws IOException
+    {
+        String[] fileNames = { "PDFBOX-3110-poems-beads.pdf",
+                "PDFBOX-3498-Y5TLCWTIAE3FYDVJTV2TXRZGXLEDUNSW.pdf" };
+        for (String fileName : fileNames)
+        {
+            File file = new File("src/test/resources/input", fileName);
+            String expected = extractText(file, MemoryUsageSetting.setupMainMemoryOnly());
+            String withoutLimit = extractText(file,
+                    MemoryUsageSetting.setupMainMemoryOnly().setMaxParsedObjects(0));
+            String withLimit = extractText(file,
+                    MemoryUsageSetting.setupMainMemoryOnly().setMaxParsedObjects(4));
+            String withCache = extractText(file, MemoryUsageSetting.setupMainMemoryOnly()
+                    .setMaxParsedObjects(4).setMaxObjectStreamCacheBytes(1024 * 1024));
+            assertEquals(fileName, expected, withoutLimit);
+            assertEquals(fileName, expected, withLimit);
+            assertEquals(fileName, expected, withCache);
+        }
+    }
+
+    /**
+     * The brute force scan must find the markers which straddle the chunks it scans in parallel,
+     * the same as a single thread does.
+     */
+    @Test
+    public void testBruteForceScan() throws IOException
+    {
+        // a little more than three chunks of 4 MB, which start at 6
+        byte[] data = new byte[(13 << 20) + 3];
+        Arrays.fill(data, (byte) '.');
+        long[] objects = { 10, (4 << 20) + 4, data.length - 4 };
+        long[] xrefTables = { 100, (8 << 20) + 3 };
+        long[] xrefStreams = { 200, (12 << 20) + 2 };
+        for (long offset : objects)
+        {
+            System.arraycopy(" obj".getBytes("ISO-8859-1"), 0, data, (int) offset, 4);
+        }
+        for (long offset : xrefTables)
+        {
+            System.arraycopy("xref".getBytes("ISO-8859-1"), 0, data, (int) offset, 4);
+        }
+        for (long offset : xrefStreams)
+        {
+            System.arraycopy("/XRef".getBytes("ISO-8859-1"), 0, data, (int) offset, 5);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            for (int threads : new int[] { 1, 3 })
+            {
+                for (ExecutorService sharedExecutor : new ExecutorService[] { null, executor })
+                {
+                    BruteForceScanner scanner = BruteForceScanner.scan(
+                            new RandomAccessBuffer(data), 6, threads, sharedExecutor);
+                    assertArrayEquals(objects, scanner.getOffsets(BruteForceScanner.OBJ));
+                    assertArrayEquals(xrefTables,
+                            scanner.getOffsets(BruteForceScanner.XREF_TABLE));
+                    assertArrayEquals(xrefStreams,
+                            scanner.getOffsets(BruteForceScanner.XREF_STREAM));
+                }
+            }
+            // the shared executor isn't shut down
+            assertFalse(executor.isShutdown());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The last of duplicate object numbers in the header of an object stream wins, the same as
+     * when all objects of the stream are parsed.
+     */
+    @Test
+    public void testObjectStreamIndexDuplicates()
+    {
+        long[] objectNumbers = { 7, 3, 5, 3, 9, 7 };
+        int[] offsets = { 10, 20, 30, 40, 50, 60 };
+        ObjectStreamIndex index = new ObjectStreamIndex(objectNumbers, offsets, 6);
+        assertEquals(6, index.size());
+        assertEquals(40, index.getOffset(3));
+        assertEquals(30, index.getOffset(5));
+        assertEquals(60, index.getOffset(7));
+        assertEquals(50, index.getOffset(9));
+        assertEquals(-1, index.getOffset(4));
+        assertEquals(-1, index.getOffset(10));
+
+        // sorted headers are taken as they are
+        index = new ObjectStreamIndex(new long[] { 1, 2, 2, 4 }, new int[] { 1, 2, 3, 4 }, 4);
+        assertEquals(3, index.getOffset(2));
+        assertEquals(-1, index.getOffset(0));
+    }
+
+    /**
+     * Pages which are changed while loading with a low limit for the parsed objects must keep
+     * their changes when the document is saved, also after their objects were to be dropped.
+     */
+    @Test
+    public void testPDFParserParseOnDemandModifyAndSave() throws IOException
+    {
+        String[] fileNames = { "PDFBOX-3110-poems-beads.pdf",
+                "PDFBOX-3498-Y5TLCWTIAE3FYDVJTV2TXRZGXLEDUNSW.pdf" };
+        for (String fileName : fileNames)
+        {
+            File file = new File("src/test/resources/input", fileName);
+            PDDocument doc = PDDocument.load(file,
+                    MemoryUsageSetting.setupMainMemoryOnly().setMaxParsedObjects(2));
+            int pageCount = doc.getNumberOfPages();
+            for (int i = 0; i < pageCount; i++)
+            {
+                doc.getPage(i).setRotation(90);
+                doc.getPage(i).getCOSObject().setInt("TestPageNumber", i);
+            }
+            // parse many other objects, so that the pages would be dropped
+            new PDFTextStripper().getText(doc);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            doc.save(baos);
+            doc.close();
+
+            doc = PDDocument.load(baos.toByteArray());
+            assertEquals(fileName, pageCount, doc.getNumberOfPages());
+            for (int i = 0; i < pageCount; i++)
+            {
+                PDPage page = doc.getPage(i);
+                assertEquals(fileName, 90, page.getRotation());
+                assertEquals(fileName, i, page.getCOSObject().getInt("TestPageNumber"));
+            }
+            doc.close();
+        }
+    }
+
+    private String extractText(File file, MemoryUsageSetting memUsageSetting) throws IOException
+    {
+        PDDocument doc = PDDocument.load(file, memUsageSetting);
+        try
+        {
+            return new PDFTextStripper().getText(doc);
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+
     private void executeParserTest(RandomAccessRead source, MemoryUsageSetting memUsageSetting) throws IOException
     {
         ScratchFile scratchFile = new ScratchFile(memUsageSetting);
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfwriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationText;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.util.Charsets;
+import org.junit.Test;
+
+/**
+ * Tests saving documents with object streams and cross-reference streams.
+ */
+public class COSWriterCompressionTest
+{
+    private static final File INPUT_DIR = new File("src/test/resources/input");
+
+    @Test
+    public void testCompressedSave() throws IOException
+    {
+        PDDocument document = createDocument(250);
+        byte[] plain = save(document, CompressParameters.NO_COMPRESSION);
+        byte[] compressed = save(document, new CompressParameters(50));
+        // the version is only raised in the saved file
+        assertEquals(1.4f, document.getVersion(), 0);
+        document.close();
+
+        String plainText = new String(plain, Charsets.ISO_8859_1);
+        String compressedText = new String(compressed, Charsets.ISO_8859_1);
+        assertFalse(plainText.contains("/ObjStm"));
+        assertTrue(compressedText.contains("/ObjStm"));
+        assertTrue(compressedText.contains("/XRef"));
+        assertTrue(compressedText.startsWith("%PDF-1.5"));
+        assertTrue("compressed: " + compressed.length + ", plain: " + plain.length,
+                compressed.length < plain.length);
+
+        PDDocument reloaded = PDDocument.load(compressed);
+        try
+        {
+            assertEquals(1.5f, reloaded.getVersion(), 0);
+            assertEquals(250, reloaded.getNumberOfPages());
+            assertEquals("Compression test", reloaded.getDocumentInformation().getTitle());
+            assertEquals(1, reloaded.getPage(249).getAnnotations().size());
+            assertEquals("Note 249",
+                    reloaded.getPage(249).getAnnotations().get(0).getContents());
+        }
+        finally
+        {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    public void testCompressedRoundTripKeepsText() throws IOException
+    {
+        File file = new File(INPUT_DIR, "FC60_Times.pdf");
+        PDDocument document = PDDocument.load(file);
+        String expected = new PDFTextStripper().getText(document);
+        byte[] compressed = save(document, CompressParameters.DEFAULT_COMPRESSION);
+        document.close();
+
+        PDDocument reloaded = PDDocument.load(compressed);
+        try
+        {
+            assertEquals(expected, new PDFTextStripper().getText(reloaded));
+
+            // saving the compressed document again must work as well
+            byte[] again = save(reloaded, CompressParameters.DEFAULT_COMPRESSION);
+            PDDocument reloadedAgain = PDDocument.load(again);
+            assertEquals(expected, new PDFTextStripper().getText(reloadedAgain));
+            reloadedAgain.close();
+        }
+        finally
+        {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    public void testParallelStreamCompression() throws IOException
+    {
+        byte[] plain = saveWithStreamCompression(null);
+        byte[] inline = saveWithStreamCompression(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        byte[] parallel;
+        try
+        {
+            parallel = saveWithStreamCompression(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // the output doesn't depend on the executor
+        assertArrayEquals(inline, parallel);
+        assertTrue("parallel: " + parallel.length + ", plain: " + plain.length,
+                parallel.length < plain.length);
+
+        PDDocument reloaded = PDDocument.load(parallel);
+        try
+        {
+            assertEquals(100, reloaded.getNumberOfPages());
+            COSStream contents = (COSStream) reloaded.getPage(42).getCOSObject()
+                    .getDictionaryObject(COSName.CONTENTS);
+            assertEquals(COSName.FLATE_DECODE, contents.getFilters());
+            String text = new String(new PDStream(contents).toByteArray(), Charsets.ISO_8859_1);
+            assertTrue(text, text.contains("100 100 200 42 re"));
+        }
+        finally
+        {
+            reloaded.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeObjectStreamSize()
+    {
+        new CompressParameters(-1);
+    }
+
+    private static PDDocument createDocument(int pageCount) throws IOException
+    {
+        PDDocument document = new PDDocument();
+        document.getDocumentInformation().setTitle("Compression test");
+        for (int i = 0; i < pageCount; i++)
+        {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(document, page);
+            contents.fillRect(100, 100, 200, i);
+            contents.close();
+
+            PDAnnotationText annotation = new PDAnnotationText();
+            annotation.setContents("Note " + i);
+            List<PDAnnotation> annotations = new ArrayList<PDAnnotation>();
+            annotations.add(annotation);
+            page.setAnnotations(annotations);
+        }
+        return document;
+    }
+
+    private static byte[] saveWithStreamCompression(Executor executor) throws IOException
+    {
+        PDDocument document = new PDDocument();
+        try
+        {
+            document.setDocumentId(0L);
+            for (int i = 0; i < 100; i++)
+            {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                PDPageContentStream contents =
+                        new PDPageContentStream(document, page, AppendMode.OVERWRITE, false);
+                for (int j = 0; j < 50; j++)
+                {
+                    contents.fillRect(100, 100, 200, i);
+                }
+                contents.close();
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            COSWriter writer = new COSWriter(baos);
+            try
+            {
+                writer.setStreamCompressionExecutor(executor);
+                writer.write(document);
+            }
+            finally
+            {
+                writer.close();
+            }
+            return baos.toByteArray();
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    private static byte[] save(PDDocument document, CompressParameters compressParameters)
+            throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.save(baos, compressParameters);
+        return baos.toByteArray();
+    }
+}
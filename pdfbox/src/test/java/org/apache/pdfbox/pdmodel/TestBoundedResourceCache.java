@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.junit.Test;
+
+/**
+ * Tests the weighted eviction and the statistics of {@link BoundedResourceCache}.
+ */
+public class TestBoundedResourceCache
+{
+    @Test
+    public void testHitsAndMisses() throws IOException
+    {
+        BoundedResourceCache cache = new BoundedResourceCache(1024 * 1024);
+        COSObject indirect = new COSObject(new COSDictionary());
+        PDExtendedGraphicsState extGState = new PDExtendedGraphicsState();
+
+        assertNull(cache.getExtGState(indirect));
+        cache.put(indirect, extGState);
+        assertSame(extGState, cache.getExtGState(indirect));
+        // the same object as another kind of resource is a different entry
+        assertNull(cache.getShading(indirect));
+
+        assertEquals(1, cache.size());
+        assertEquals(BoundedResourceCache.SMALL_RESOURCE_WEIGHT, cache.getWeight());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.put(indirect, extGState);
+        assertEquals(1, cache.size());
+        assertEquals(BoundedResourceCache.SMALL_RESOURCE_WEIGHT, cache.getWeight());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException
+    {
+        BoundedResourceCache cache =
+                new BoundedResourceCache(3 * BoundedResourceCache.SMALL_RESOURCE_WEIGHT);
+        COSObject[] indirects = new COSObject[4];
+        for (int i = 0; i < indirects.length; i++)
+        {
+            indirects[i] = new COSObject(new COSDictionary());
+        }
+        cache.put(indirects[0], new PDExtendedGraphicsState());
+        cache.put(indirects[1], new PDExtendedGraphicsState());
+        cache.put(indirects[2], new PDExtendedGraphicsState());
+        // touch the first one, so that the second one is the eldest
+        cache.getExtGState(indirects[0]);
+        cache.put(indirects[3], new PDExtendedGraphicsState());
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.getExtGState(indirects[1]));
+        assertTrue(cache.getExtGState(indirects[0]) != null);
+        assertTrue(cache.getExtGState(indirects[3]) != null);
+    }
+
+    /**
+     * Many threads look up and add resources at the same time. The weight must stay within the
+     * budget and match the cached resources.
+     */
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        final BoundedResourceCache cache =
+                new BoundedResourceCache(50 * BoundedResourceCache.SMALL_RESOURCE_WEIGHT);
+        final COSObject[] indirects = new COSObject[200];
+        for (int i = 0; i < indirects.length; i++)
+        {
+            indirects[i] = new COSObject(new COSDictionary());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 8; t++)
+            {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        for (int i = 0; i < 5000; i++)
+                        {
+                            COSObject indirect = indirects[(i * 7 + seed * 31) % indirects.length];
+                            if (cache.getExtGState(indirect) == null)
+                            {
+                                cache.put(indirect, new PDExtendedGraphicsState());
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertTrue(cache.getWeight() <= cache.getMaxWeight());
+        assertEquals(cache.size() * BoundedResourceCache.SMALL_RESOURCE_WEIGHT, cache.getWeight());
+        assertEquals(8 * 5000, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void testImagesWeighedByDecodedSize() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        try
+        {
+            PDImageXObject small = LosslessFactory.createFromImage(document,
+                    new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+            PDImageXObject big = LosslessFactory.createFromImage(document,
+                    new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB));
+            BoundedResourceCache cache = new BoundedResourceCache(20000);
+            COSObject smallRef = new COSObject(small.getCOSObject());
+            COSObject bigRef = new COSObject(big.getCOSObject());
+
+            cache.put(smallRef, small);
+            assertEquals(BoundedResourceCache.SMALL_RESOURCE_WEIGHT + 400, cache.getWeight());
+
+            // 40000 bytes decoded, more than the whole budget
+            cache.put(bigRef, big);
+            assertNull(cache.getXObject(bigRef));
+            assertSame(small, cache.getXObject(smallRef));
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testRenderingWithBoundedCache() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        try
+        {
+            PDImageXObject image = LosslessFactory.createFromImage(document,
+                    new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB));
+            for (int i = 0; i < 3; i++)
+            {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                PDPageContentStream contents = new PDPageContentStream(document, page);
+                contents.drawImage(image, 10, 10);
+                contents.close();
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            document.close();
+
+            document = PDDocument.load(baos.toByteArray());
+            BoundedResourceCache cache = new BoundedResourceCache(1024 * 1024);
+            document.setResourceCache(cache);
+            for (PDPage page : document.getPages())
+            {
+                PDResources resources = page.getResources();
+                for (COSName name : resources.getXObjectNames())
+                {
+                    resources.getXObject(name);
+                }
+            }
+            assertEquals(1, cache.size());
+            assertEquals(2, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+}
@@ -17,8 +17,15 @@
 package org.apache.pdfbox.pdmodel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
 
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
@@ -83,4 +90,142 @@ public class TestPDPageTree
         doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("with_outline.pdf"));
         assertEquals(-1, doc.getPages().indexOf(new PDPage()));
     }
+
+    @Test
+    public void indexedLookupInDeepTree() throws IOException
+    {
+        doc = new PDDocument();
+        for (int i = 0; i < 50; i++)
+        {
+            doc.addPage(new PDPage());
+        }
+        // build the index for the flat tree, then replace the tree at the COS level
+        assertEquals(49, doc.getPages().indexOf(doc.getPage(49)));
+        deepenPageTree(doc.getPages().getCOSObject(), 3);
+
+        List<COSDictionary> expected = new ArrayList<COSDictionary>();
+        for (PDPage page : doc.getPages())
+        {
+            expected.add(page.getCOSObject());
+        }
+        assertEquals(50, expected.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertSame(expected.get(i), doc.getPage(i).getCOSObject());
+            assertEquals(i, doc.getPages().indexOf(doc.getPage(i)));
+        }
+    }
+
+    @Test
+    public void indexUpdatedAfterModification() throws IOException
+    {
+        doc = new PDDocument();
+        PDPage first = new PDPage();
+        PDPage second = new PDPage();
+        doc.addPage(first);
+        doc.addPage(second);
+        assertEquals(1, doc.getPages().indexOf(second));
+
+        PDPage inserted = new PDPage();
+        doc.getPages().insertBefore(inserted, second);
+        assertEquals(1, doc.getPages().indexOf(inserted));
+        assertEquals(2, doc.getPages().indexOf(second));
+        assertSame(second.getCOSObject(), doc.getPage(2).getCOSObject());
+
+        doc.removePage(0);
+        assertEquals(-1, doc.getPages().indexOf(first));
+        assertEquals(0, doc.getPages().indexOf(inserted));
+        assertSame(second.getCOSObject(), doc.getPage(1).getCOSObject());
+
+        PDPage last = new PDPage();
+        doc.addPage(last);
+        assertEquals(2, doc.getPages().indexOf(last));
+        assertSame(last.getCOSObject(), doc.getPage(2).getCOSObject());
+    }
+
+    @Test
+    public void indexUpdatedAfterModificationBelowRoot() throws IOException
+    {
+        doc = new PDDocument();
+        for (int i = 0; i < 9; i++)
+        {
+            doc.addPage(new PDPage());
+        }
+        deepenPageTree(doc.getPages().getCOSObject(), 3);
+        PDPage first = doc.getPage(0);
+        PDPage second = doc.getPage(1);
+        assertEquals(1, doc.getPages().indexOf(second));
+
+        // swap two pages of an intermediate node, the root doesn't change
+        COSDictionary node = (COSDictionary) first.getCOSObject().getDictionaryObject(COSName.PARENT);
+        COSArray kids = (COSArray) node.getDictionaryObject(COSName.KIDS);
+        kids.set(0, second.getCOSObject());
+        kids.set(1, first.getCOSObject());
+        assertSame(second.getCOSObject(), doc.getPage(0).getCOSObject());
+        assertSame(first.getCOSObject(), doc.getPage(1).getCOSObject());
+        assertEquals(0, doc.getPages().indexOf(second));
+        assertEquals(1, doc.getPages().indexOf(first));
+
+        // add a page to an intermediate node and update the counts, but not the kids of the root
+        PDPage added = new PDPage();
+        added.getCOSObject().setItem(COSName.PARENT, node);
+        kids.add(0, added.getCOSObject());
+        node.setInt(COSName.COUNT, node.getInt(COSName.COUNT) + 1);
+        COSDictionary root = doc.getPages().getCOSObject();
+        root.setInt(COSName.COUNT, root.getInt(COSName.COUNT) + 1);
+        assertEquals(0, doc.getPages().indexOf(added));
+        assertSame(added.getCOSObject(), doc.getPage(0).getCOSObject());
+        assertSame(first.getCOSObject(), doc.getPage(2).getCOSObject());
+        assertEquals(2, doc.getPages().indexOf(first));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void indexOutOfBounds() throws IOException
+    {
+        doc = new PDDocument();
+        doc.addPage(new PDPage());
+        doc.getPage(1);
+    }
+
+    /**
+     * Replaces the kids of the given root with a balanced tree of intermediate nodes.
+     */
+    private static void deepenPageTree(COSDictionary root, int fanOut)
+    {
+        COSArray kids = (COSArray) root.getDictionaryObject(COSName.KIDS);
+        List<COSDictionary> level = new ArrayList<COSDictionary>();
+        for (int i = 0; i < kids.size(); i++)
+        {
+            level.add((COSDictionary) kids.getObject(i));
+        }
+        while (level.size() > fanOut)
+        {
+            List<COSDictionary> parents = new ArrayList<COSDictionary>();
+            for (int i = 0; i < level.size(); i += fanOut)
+            {
+                COSDictionary node = new COSDictionary();
+                node.setItem(COSName.TYPE, COSName.PAGES);
+                COSArray nodeKids = new COSArray();
+                int count = 0;
+                for (int j = i; j < Math.min(i + fanOut, level.size()); j++)
+                {
+                    COSDictionary kid = level.get(j);
+                    kid.setItem(COSName.PARENT, node);
+                    nodeKids.add(kid);
+                    count += kid.getInt(COSName.COUNT, 1);
+                }
+                node.setItem(COSName.KIDS, nodeKids);
+                node.setInt(COSName.COUNT, count);
+                parents.add(node);
+            }
+            level = parents;
+        }
+        COSArray rootKids = new COSArray();
+        for (COSDictionary kid : level)
+        {
+            kid.setItem(COSName.PARENT, root);
+            rootKids.add(kid);
+        }
+        root.setItem(COSName.KIDS, rootKids);
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.common.function.type4;
+
+import java.util.Random;
+import java.util.Stack;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that compiled instruction sequences give the same results as the interpreter.
+ *
+ */
+public class TestCompiledInstructionSequence extends TestCase
+{
+
+    /**
+     * Compares the operators with the interpreter.
+     * @throws Exception if an error occurs
+     */
+    public void testOperators() throws Exception
+    {
+        checkSame("5 6 add 5 0.23 add 2147483645 2147483645 add -2147483647 2 sub");
+        checkSame("-3 abs 2.1 abs -2.1 abs -7.5 abs -2147483648 abs");
+        checkSame("-3 neg 2.1 neg -2147483648 neg");
+        checkSame("5 3 and 5 3 or 5 3 xor 5 not 1 3 bitshift 16 -2 bitshift");
+        checkSame("3.2 ceiling -3.2 ceiling 4 ceiling 3.2 floor -3.8 floor 4 floor");
+        checkSame("3.2 round 6.5 round -4.8 round -6.5 round 4 round");
+        checkSame("3.2 truncate -3.8 truncate 4 truncate");
+        checkSame("0 cos 90 cos 0 sin 90 sin 16 sqrt 2 sqrt 10 ln 100 log");
+        checkSame("0 1 atan 1 0 atan -100 0 atan 4 4 atan -4 -4 atan");
+        checkSame("-47.8 cvi 520.9 cvi 7 cvr 7.5 cvr");
+        checkSame("3 2 div 4 2 div 9 0.5 exp -9 -1 exp");
+        checkSame("3 2 idiv 4 2 idiv -5 2 idiv 5 3 mod -5 3 mod");
+        checkSame("3 4 mul 6.6 2 mul 65536 65536 mul 0.1 0.3 mul");
+    }
+
+    /**
+     * Compares the stack operators with the interpreter.
+     * @throws Exception if an error occurs
+     */
+    public void testStackOperators() throws Exception
+    {
+        checkSame("1 2 3 4 2 copy 0 copy");
+        checkSame("1 2.5 3 dup 4 exch pop");
+        checkSame("1 2 3 4 0 index 3 index");
+        checkSame("1 2 3 4 5 3 1 roll");
+        checkSame("1 2 3 4 5 3 -1 roll");
+        checkSame("1 2 3 4 5 5 -7 roll");
+        checkSame("1 2 3 4 5 3 0 roll");
+        checkSame("1 2 3 4 5 2 3 roll");
+        checkSame("1 2 3 4 5 2 -3 roll");
+    }
+
+    /**
+     * Compares procedures with the interpreter.
+     * @throws Exception if an error occurs
+     */
+    public void testConditionals() throws Exception
+    {
+        checkSame("{ 1 2 eq { 5 } { 6 } ifelse 2 2 eq { 5 } { 6 } ifelse }");
+        checkSame("{ 0 1 1.0 eq { 7 add } if true false eq { 8 add } if "
+                + "1 true eq { 9 add } if }");
+        checkSame("{ 1 2 lt 3 4 gt and { 1 } { 0 } ifelse true not { 1 } { 2 } ifelse }");
+        checkSame("{ 0 1 2 ne { 1 add } if 2 1 ge { 2 add } if 1 1 le { 4 add } if "
+                + "2 1 gt { 8 add } if 1 2 gt { 16 add } if }");
+        checkSame("{ true { false { 3 } { 4 } ifelse } { 5 } ifelse }");
+    }
+
+    /**
+     * Sequences which fail in the interpreter also fail when they are compiled.
+     * @throws Exception if an error occurs
+     */
+    public void testFailures() throws Exception
+    {
+        checkSame("3 4 eq 3 4 ne");
+        checkSame("2.5 2 idiv");
+        checkSame("1 0 idiv");
+        checkSame("-1 sqrt");
+        checkSame("true 1 add");
+        checkSame("1 2 7 index");
+        checkSame("1 2 3 7 2 roll");
+        checkSame("{ 0 1 { 2 add } if }");
+    }
+
+    /**
+     * Sequences whose stack depth isn't known when compiling aren't compiled.
+     * @throws Exception if an error occurs
+     */
+    public void testNotCompiled() throws Exception
+    {
+        assertNull(compile("1 2 3 2 1 add copy", 0));
+        assertNull(compile("{ 1 2 lt { 5 } if }", 0));
+        assertNull(compile("{ 1 { 2 } if }", 0));
+        assertNull(compile("{ 1 2 lt { 5 } { 6 7 } ifelse }", 0));
+        assertNull(compile("{ { 1 } }", 0));
+        assertNull(compile("{ 1 foo }", 0));
+        assertNull(compile("{ add }", 1));
+    }
+
+    /**
+     * Compares functions of the input values with the interpreter.
+     * @throws Exception if an error occurs
+     */
+    public void testFunctions() throws Exception
+    {
+        String[] functions = {
+            "{ 2 copy mul 3 1 roll add 2 div }",
+            "{ dup 0.5 gt { 1 exch sub } if 360 mul sin }",
+            "{ 1 exch sub 3 1 roll 1 exch sub exch 1 exch sub 2 copy gt { exch } if pop }",
+            "{ 100 mul cvi 7 mod exch 100 mul round cvi 3 idiv add cvr 10 div }",
+            "{ 2 copy ge { 0.25 exp } { 2 exp 0.5 mul } ifelse exch atan 360 div }"
+        };
+        Random random = new Random(4711);
+        for (String function : functions)
+        {
+            for (int i = 0; i < 1000; i++)
+            {
+                float[] input = { random.nextFloat(), random.nextFloat() };
+                checkSame(function, input);
+            }
+            checkSame(function, 0, 0);
+            checkSame(function, 1, 1);
+        }
+    }
+
+    private static CompiledInstructionSequence compile(String text, int numberOfInputs)
+    {
+        return CompiledInstructionSequence.compile(InstructionSequenceBuilder.parse(text),
+                numberOfInputs);
+    }
+
+    /**
+     * Runs the sequence both compiled and interpreted and compares the resulting stacks, or checks
+     * that the compiled sequence fails if the interpreter does or its results aren't numbers.
+     */
+    private static void checkSame(String text, float... input)
+    {
+        InstructionSequence sequence = InstructionSequenceBuilder.parse(text);
+        CompiledInstructionSequence compiled =
+                CompiledInstructionSequence.compile(sequence, input.length);
+        assertNotNull(text, compiled);
+
+        ExecutionContext context = new ExecutionContext(new Operators());
+        for (float value : input)
+        {
+            context.getStack().push(value);
+        }
+        Stack<Object> stack = context.getStack();
+        boolean interpreted;
+        try
+        {
+            sequence.execute(context);
+            interpreted = true;
+            for (Object value : stack)
+            {
+                interpreted &= value instanceof Number;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            interpreted = false;
+        }
+
+        float[] output = new float[stack.size()];
+        assertEquals(text, interpreted, compiled.execute(input, output));
+        for (int i = 0; interpreted && i < output.length; i++)
+        {
+            float expected = ((Number) stack.get(i)).floatValue();
+            assertEquals(text, Float.floatToIntBits(expected), Float.floatToIntBits(output[i]));
+        }
+    }
+}
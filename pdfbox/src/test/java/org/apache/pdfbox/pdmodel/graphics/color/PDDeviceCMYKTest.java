@@ -17,7 +17,21 @@
 
 package org.apache.pdfbox.pdmodel.graphics.color;
 
+import java.awt.Point;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import junit.framework.TestCase;
 
 /**
@@ -31,7 +45,130 @@ public class PDDeviceCMYKTest extends TestCase
     {
         PDDeviceCMYK.INSTANCE = new CustomDeviceCMYK();
     }
-    
+
+    /**
+     * Images converted with the colour table of the CMYK profile are close to images converted by
+     * AWT, except at the edge of the RGB gamut, where the table can't follow the clipping exactly.
+     */
+    public void testToRGBImage() throws IOException
+    {
+        PDDeviceCMYK cmyk = new CustomDeviceCMYK();
+        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, 256, 256, 4,
+                new Point(0, 0));
+        Random random = new Random(4711);
+        for (int y = 0; y < 256; y++)
+        {
+            for (int x = 0; x < 256; x++)
+            {
+                if (y < 128)
+                {
+                    // gradients
+                    raster.setPixel(x, y, new int[] { x, y * 2, 255 - x, x * y % 256 });
+                }
+                else
+                {
+                    for (int c = 0; c < 4; c++)
+                    {
+                        raster.setSample(x, y, c, random.nextInt(256));
+                    }
+                }
+            }
+        }
+
+        ICC_Profile profile = cmyk.getICCProfile();
+        String key = ICCColorTable.getKey(profile.getData());
+        ICC_ColorSpace awtColorSpace = new ICC_ColorSpace(profile);
+        BufferedImage image = ICCColorTable.getInstance(cmyk, awtColorSpace, key)
+                .toRGBImage(raster);
+        BufferedImage expected = cmyk.toRGBImageAWT(raster, awtColorSpace);
+        long error = 0;
+        for (int y = 0; y < 256; y++)
+        {
+            for (int x = 0; x < 256; x++)
+            {
+                int pixel = image.getRGB(x, y);
+                int expectedPixel = expected.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8)
+                {
+                    int difference = Math.abs((pixel >> shift & 0xFF) -
+                                              (expectedPixel >> shift & 0xFF));
+                    assertTrue(difference <= 20);
+                    error += difference;
+                }
+            }
+        }
+        // most channels are within rounding
+        assertTrue(error < 256 * 256 * 3 / 2);
+    }
+
+    /**
+     * The table is only looked up after enough pixels were converted, and threads which build the
+     * table at the same time all get the same one.
+     */
+    public void testColorTableLookup() throws Exception
+    {
+        final PDDeviceCMYK cmyk = new CustomDeviceCMYK();
+        ICC_Profile profile = cmyk.getICCProfile();
+        final byte[] profileData = profile.getData();
+        final ICC_ColorSpace awtColorSpace = new ICC_ColorSpace(profile);
+        // 24 grid points per component
+        int points = 24 * 24 * 24 * 24;
+        ICCColorTable.Lookup lookup = new ICCColorTable.Lookup(profileData);
+        WritableRaster small = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, 16, 16, 4,
+                new Point(0, 0));
+        assertNull(lookup.get(cmyk, awtColorSpace, small));
+        WritableRaster large = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, points / 16, 16, 4,
+                new Point(0, 0));
+        ICCColorTable table = lookup.get(cmyk, awtColorSpace, large);
+        assertNotNull(table);
+        assertSame(table, lookup.get(cmyk, awtColorSpace, small));
+        // other colour spaces with the same profile data share the table
+        assertSame(table, new ICCColorTable.Lookup(profileData).get(cmyk, awtColorSpace, large));
+
+        // rasters which aren't 8 bit are converted by AWT
+        WritableRaster ushort = Raster.createBandedRaster(DataBuffer.TYPE_USHORT, 16, 16, 4,
+                new Point(0, 0));
+        assertNull(lookup.get(cmyk, awtColorSpace, ushort));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<ICCColorTable>> futures = new ArrayList<Future<ICCColorTable>>();
+            for (int i = 0; i < 8; i++)
+            {
+                futures.add(executor.submit(new Callable<ICCColorTable>()
+                {
+                    @Override
+                    public ICCColorTable call()
+                    {
+                        return ICCColorTable.getInstance(cmyk, awtColorSpace,
+                                ICCColorTable.getKey(profileData));
+                    }
+                }));
+            }
+            for (Future<ICCColorTable> future : futures)
+            {
+                assertSame(table, future.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Profiles which only differ in the rendering intent have different tables.
+     */
+    public void testColorTableKey() throws IOException
+    {
+        byte[] profileData = new CustomDeviceCMYK().getICCProfile().getData();
+        String key = ICCColorTable.getKey(profileData);
+        assertEquals(key, ICCColorTable.getKey(profileData.clone()));
+        profileData[ICC_Profile.icHdrRenderingIntent + 3] ^= 1;
+        assertFalse(key.equals(ICCColorTable.getKey(profileData)));
+    }
+
     private static class CustomDeviceCMYK extends PDDeviceCMYK
     {
         protected CustomDeviceCMYK() throws IOException
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.graphics.color;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.common.function.PDFunction;
+
+/**
+ * Tests the conversion of DeviceN and Separation images to RGB.
+ */
+public class PDDeviceNTest extends TestCase
+{
+    /**
+     * The grid of two colorants has a point for every 8 bit value, so images converted with it
+     * are the same as images converted pixel by pixel, also for a non-linear tint transform.
+     */
+    public void testTwoColorants() throws IOException
+    {
+        PDDeviceN deviceN = createDeviceN(2, "{ 2 copy mul }");
+
+        // too small to build the grid
+        checkImage(deviceN, createRaster(2, 16, 16), 0);
+
+        // large enough to build the grid
+        checkImage(deviceN, createRaster(2, 256, 256), 0);
+
+        // converted with the grid
+        checkImage(deviceN, createRaster(2, 16, 16), 0);
+    }
+
+    /**
+     * The grid of four colorants is interpolated, which is exact for a linear tint transform, up
+     * to rounding.
+     */
+    public void testFourColorants() throws IOException
+    {
+        PDDeviceN deviceN = createDeviceN(4, "{ pop }");
+        checkImage(deviceN, createRaster(4, 256, 256), 1);
+        checkImage(deviceN, createRaster(4, 31, 7), 1);
+    }
+
+    /**
+     * Tests that a Separation image gets the colours of its tint transform.
+     */
+    public void testSeparation() throws IOException
+    {
+        PDSeparation separation = new PDSeparation();
+        separation.setColorantName("Spot");
+        separation.setAlternateColorSpace(PDDeviceRGB.INSTANCE);
+        separation.setTintTransform(createFunction(1, "{ dup 0.5 mul 1 index 1 exch sub }"));
+
+        WritableRaster raster = createRaster(1, 256, 1);
+        for (int x = 0; x < 256; x++)
+        {
+            raster.setSample(x, 0, 0, x);
+        }
+        BufferedImage image = separation.toRGBImage(raster);
+        for (int x = 0; x < 256; x++)
+        {
+            int rgb = image.getRGB(x, 0);
+            assertEquals(x, rgb >> 16 & 0xFF, 1);
+            assertEquals(x / 2, rgb >> 8 & 0xFF, 1);
+            assertEquals(255 - x, rgb & 0xFF, 1);
+        }
+    }
+
+    private static PDDeviceN createDeviceN(int numColorants, String function) throws IOException
+    {
+        PDDeviceN deviceN = new PDDeviceN();
+        String[] names = new String[numColorants];
+        for (int c = 0; c < numColorants; c++)
+        {
+            names[c] = "Colorant" + c;
+        }
+        deviceN.setColorantNames(Arrays.asList(names));
+        deviceN.setAlternateColorSpace(PDDeviceRGB.INSTANCE);
+        deviceN.setTintTransform(createFunction(numColorants, function));
+        return deviceN;
+    }
+
+    private static PDFunction createFunction(int numInputs, String function) throws IOException
+    {
+        COSStream stream = new COSStream();
+        stream.setInt("FunctionType", 4);
+        float[] domain = new float[numInputs * 2];
+        for (int i = 0; i < numInputs; i++)
+        {
+            domain[i * 2 + 1] = 1;
+        }
+        COSArray domainArray = new COSArray();
+        domainArray.setFloatArray(domain);
+        stream.setItem("Domain", domainArray);
+        COSArray rangeArray = new COSArray();
+        rangeArray.setFloatArray(new float[] { 0, 1, 0, 1, 0, 1 });
+        stream.setItem("Range", rangeArray);
+
+        OutputStream out = stream.createOutputStream();
+        out.write(function.getBytes("US-ASCII"));
+        out.close();
+
+        return PDFunction.create(stream);
+    }
+
+    private static WritableRaster createRaster(int numColorants, int width, int height)
+    {
+        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, width, height,
+                numColorants, new Point(0, 0));
+        Random random = new Random(width * height);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                for (int c = 0; c < numColorants; c++)
+                {
+                    raster.setSample(x, y, c, random.nextInt(256));
+                }
+            }
+        }
+        return raster;
+    }
+
+    // compares the image with the colours of its pixels, converted one by one
+    private static void checkImage(PDDeviceN deviceN, WritableRaster raster, int delta)
+            throws IOException
+    {
+        BufferedImage image = deviceN.toRGBImage(raster);
+        int numColorants = raster.getNumBands();
+        float[] value = new float[numColorants];
+        for (int y = 0; y < raster.getHeight(); y++)
+        {
+            for (int x = 0; x < raster.getWidth(); x++)
+            {
+                for (int c = 0; c < numColorants; c++)
+                {
+                    value[c] = raster.getSample(x, y, c) / 255f;
+                }
+                float[] rgb = deviceN.toRGB(value);
+                int pixel = image.getRGB(x, y);
+                assertEquals((int) (rgb[0] * 255f), pixel >> 16 & 0xFF, delta);
+                assertEquals((int) (rgb[1] * 255f), pixel >> 8 & 0xFF, delta);
+                assertEquals((int) (rgb[2] * 255f), pixel & 0xFF, delta);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.apache.pdfbox.pdmodel.graphics.image;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -30,6 +31,7 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
 import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
 
+import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.checkSubsampled;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.colorCount;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.doWritePDF;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.validate;
@@ -81,6 +83,25 @@ public class JPEGFactoryTest extends TestCase
         checkJpegStream(testResultsDir, "jpeg256stream.pdf", JPEGFactoryTest.class.getResourceAsStream("jpeg256.jpg"));
     }
 
+    /**
+     * Tests reading parts of color and gray JPEG files at a lower resolution, these are
+     * subsampled by the image reader.
+     */
+    public void testSubsampledImage() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        for (String name : new String[] { "jpeg.jpg", "jpeg256.jpg" })
+        {
+            InputStream stream = JPEGFactoryTest.class.getResourceAsStream(name);
+            PDImageXObject ximage = JPEGFactory.createFromStream(document, stream);
+            stream.close();
+            checkSubsampled(ximage, new Rectangle(0, 0, 344, 287), 2);
+            checkSubsampled(ximage, new Rectangle(10, 20, 100, 50), 3);
+            checkSubsampled(ximage, new Rectangle(300, 280, 44, 7), 1);
+        }
+        document.close();
+    }
+
     /**
      * Tests RGB JPEGFactory#createFromImage(PDDocument document, BufferedImage
      * image) with color JPEG image
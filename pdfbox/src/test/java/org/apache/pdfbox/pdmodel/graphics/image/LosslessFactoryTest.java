@@ -19,6 +19,7 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -26,6 +27,8 @@ import java.io.IOException;
 import java.util.Random;
 import javax.imageio.ImageIO;
 import junit.framework.TestCase;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSInteger;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -33,6 +36,7 @@ import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
 import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
 import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.checkIdent;
+import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.checkSubsampled;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.colorCount;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.doWritePDF;
 import static org.apache.pdfbox.pdmodel.graphics.image.ValidateXImage.validate;
@@ -221,6 +225,98 @@ public class LosslessFactoryTest extends TestCase
         doWritePDF(document, ximage, testResultsDir, "4babgr.pdf");
     }
 
+    /**
+     * Tests reading parts of lossless images at a lower resolution, and rendering with
+     * subsampling.
+     *
+     * @throws java.io.IOException
+     */
+    public void testSubsampledImage() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        BufferedImage image = ImageIO.read(this.getClass().getResourceAsStream("png.png"));
+        int w = image.getWidth();
+        int h = image.getHeight();
+
+        BufferedImage grayImage = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics g = grayImage.getGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        BufferedImage bitonalImage = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_BINARY);
+        g = bitonalImage.getGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        BufferedImage argbImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        g = argbImage.getGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        for (int x = 0; x < w; ++x)
+        {
+            for (int y = 0; y < h; ++y)
+            {
+                argbImage.setRGB(x, y, (argbImage.getRGB(x, y) & 0xFFFFFF) | ((y / 10 * 10) << 24));
+            }
+        }
+
+        Rectangle[] regions = { new Rectangle(0, 0, w, h), new Rectangle(3, 5, w / 2, h / 3),
+                                new Rectangle(w - 7, h - 4, 7, 4) };
+        for (BufferedImage bim : new BufferedImage[] { image, grayImage, bitonalImage, argbImage })
+        {
+            PDImageXObject ximage = LosslessFactory.createFromImage(document, bim);
+            for (Rectangle region : regions)
+            {
+                for (int subsampling = 1; subsampling <= 3; subsampling++)
+                {
+                    checkSubsampled(ximage, region, subsampling);
+                }
+            }
+        }
+
+        // the general conversion, as there is a decode array
+        PDImageXObject ximage = LosslessFactory.createFromImage(document, image);
+        COSArray decode = new COSArray();
+        for (int i = 0; i < 3; i++)
+        {
+            decode.add(COSInteger.ONE);
+            decode.add(COSInteger.ZERO);
+        }
+        ximage.setDecode(decode);
+        checkSubsampled(ximage, regions[1], 3);
+
+        // an image which is drawn small, and one which is mostly outside of the page
+        PDPage page = new PDPage();
+        document.addPage(page);
+        PDPageContentStream contentStream = new PDPageContentStream(document, page, AppendMode.APPEND, false);
+        contentStream.drawImage(ximage, 200, 300, w / 8, h / 8);
+        contentStream.drawImage(ximage, -w * 4, -h * 4, w * 5, h * 5);
+        contentStream.close();
+        File pdfFile = new File(testResultsDir, "subsampled.pdf");
+        document.save(pdfFile);
+        document.close();
+
+        document = PDDocument.load(pdfFile, (String)null);
+        PDFRenderer renderer = new PDFRenderer(document);
+        BufferedImage expected = renderer.renderImage(0, 0.5f);
+        renderer.setSubsamplingAllowed(true);
+        BufferedImage actual = renderer.renderImage(0, 0.5f);
+        document.close();
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        long difference = 0;
+        for (int y = 0; y < expected.getHeight(); ++y)
+        {
+            for (int x = 0; x < expected.getWidth(); ++x)
+            {
+                Color c1 = new Color(expected.getRGB(x, y));
+                Color c2 = new Color(actual.getRGB(x, y));
+                difference += Math.abs(c1.getRed() - c2.getRed()) +
+                              Math.abs(c1.getGreen() - c2.getGreen()) +
+                              Math.abs(c1.getBlue() - c2.getBlue());
+            }
+        }
+        assertTrue(difference / (expected.getWidth() * expected.getHeight()) < 3);
+    }
+
     /**
      * Tests LosslessFactoryTest#createFromImage(PDDocument document,
      * BufferedImage image) with transparent GIF
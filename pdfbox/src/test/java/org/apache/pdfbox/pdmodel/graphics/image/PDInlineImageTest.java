@@ -183,5 +183,95 @@ public class PDInlineImageTest extends TestCase
         document.close();
 
     }
-}
 
+    /**
+     * Tests that gray images with 2, 4 and 16 bits per component, with and without a decode array,
+     * give the same pixels as the equivalent 8 bit image, also if rows don't end at a byte
+     * boundary.
+     */
+    public void testBitsPerComponent() throws IOException
+    {
+        int width = 7;
+        int height = 5;
+        for (int bpc : new int[] { 2, 4, 16 })
+        {
+            int max = (1 << bpc) - 1;
+            int[] samples = new int[width * height];
+            for (int i = 0; i < samples.length; ++i)
+            {
+                samples[i] = (i * 7 + i / width) % (max + 1);
+            }
+            for (boolean inverted : new boolean[] { false, true })
+            {
+                byte[] data8 = new byte[width * height];
+                for (int i = 0; i < samples.length; ++i)
+                {
+                    int value = Math.round(samples[i] * 255f / max);
+                    data8[i] = (byte) (inverted ? 255 - value : value);
+                }
+                BufferedImage expected =
+                        new PDInlineImage(createGrayDictionary(width, height, 8, false), data8, null)
+                        .getImage();
+                BufferedImage image =
+                        new PDInlineImage(createGrayDictionary(width, height, bpc, inverted),
+                                pack(samples, width, height, bpc), null)
+                        .getImage();
+                assertEquals(width, image.getWidth());
+                assertEquals(height, image.getHeight());
+                for (int y = 0; y < height; ++y)
+                {
+                    for (int x = 0; x < width; ++x)
+                    {
+                        assertEquals("bpc " + bpc + " at " + x + "," + y,
+                                expected.getRGB(x, y), image.getRGB(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    private static COSDictionary createGrayDictionary(int width, int height, int bpc,
+                                                      boolean inverted)
+    {
+        COSDictionary dict = new COSDictionary();
+        dict.setBoolean(COSName.IM, false);
+        dict.setInt(COSName.W, width);
+        dict.setInt(COSName.H, height);
+        dict.setInt(COSName.BPC, bpc);
+        dict.setItem(COSName.CS, COSName.DEVICEGRAY);
+        if (inverted)
+        {
+            COSArray decodeArray = new COSArray();
+            decodeArray.add(COSInteger.ONE);
+            decodeArray.add(COSInteger.ZERO);
+            dict.setItem(COSName.DECODE, decodeArray);
+        }
+        return dict;
+    }
+
+    // packs the samples into rows which start at a byte boundary
+    private static byte[] pack(int[] samples, int width, int height, int bpc)
+    {
+        int rowbytes = (width * bpc + 7) / 8;
+        byte[] data = new byte[rowbytes * height];
+        for (int y = 0; y < height; ++y)
+        {
+            for (int x = 0; x < width; ++x)
+            {
+                int value = samples[y * width + x];
+                if (bpc == 16)
+                {
+                    data[y * rowbytes + x * 2] = (byte) (value >> 8);
+                    data[y * rowbytes + x * 2 + 1] = (byte) value;
+                }
+                else
+                {
+                    int bit = x * bpc;
+                    int shift = 8 - bpc - bit % 8;
+                    data[y * rowbytes + bit / 8] |= value << shift;
+                }
+            }
+        }
+        return data;
+    }
+}
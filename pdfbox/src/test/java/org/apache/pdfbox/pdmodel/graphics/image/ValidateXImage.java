@@ -15,6 +15,7 @@
  */
 package org.apache.pdfbox.pdmodel.graphics.image;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -150,6 +151,26 @@ public class ValidateXImage
         }
     }
 
-    
+    /**
+     * Checks that a part of the image, read at the given subsampling, has the pixels of the whole
+     * image.
+     */
+    static void checkSubsampled(PDSubsamplingImage ximage, Rectangle region, int subsampling)
+            throws IOException
+    {
+        BufferedImage image = ximage.getImage();
+        BufferedImage part = ximage.getImage(region, subsampling);
+        assertEquals((region.width + subsampling - 1) / subsampling, part.getWidth());
+        assertEquals((region.height + subsampling - 1) / subsampling, part.getHeight());
+        for (int y = 0; y < part.getHeight(); ++y)
+        {
+            for (int x = 0; x < part.getWidth(); ++x)
+            {
+                int expected = image.getRGB(region.x + x * subsampling, region.y + y * subsampling);
+                assertEquals(String.format("(%d,%d) %08X != %08X", x, y, expected, part.getRGB(x, y)),
+                        expected, part.getRGB(x, y));
+            }
+        }
+    }
 
 }
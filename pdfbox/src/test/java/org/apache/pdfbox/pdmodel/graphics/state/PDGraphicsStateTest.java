@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.graphics.state;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Rectangle2D;
+import junit.framework.TestCase;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * Tests the clipping path of PDGraphicsState.
+ */
+public class PDGraphicsStateTest extends TestCase
+{
+    public void testRectangularClipping()
+    {
+        PDGraphicsState state = new PDGraphicsState(new PDRectangle(612, 792));
+        Shape page = state.getCurrentClippingShape();
+        assertEquals(new Rectangle2D.Double(0, 0, 612, 792), page);
+        assertSame(page, state.getCurrentClippingShape());
+
+        state.intersectClippingPath(new PDRectangle(100, 100, 200, 300).toGeneralPath());
+        state.intersectClippingPath(rectangle(150, 50, 500, 200));
+        Shape clip = state.getCurrentClippingShape();
+        assertTrue(clip instanceof Rectangle2D);
+        assertEquals(new Rectangle2D.Double(150, 100, 150, 150), clip);
+        assertTrue(new Area(clip).equals(state.getCurrentClippingPath()));
+
+        state.intersectClippingPath(rectangle(700, 700, 10, 10));
+        assertTrue(state.getCurrentClippingPath().isEmpty());
+    }
+
+    public void testClippingPath()
+    {
+        PDGraphicsState state = new PDGraphicsState(new PDRectangle(612, 792));
+        GeneralPath ellipse = new GeneralPath(new Ellipse2D.Double(100, 100, 200, 100));
+        GeneralPath path = new GeneralPath(ellipse);
+        state.intersectClippingPath(path);
+        // the state must not depend on the path given by the caller
+        path.reset();
+        state.intersectClippingPath(rectangle(150, 0, 500, 792));
+
+        Area expected = new Area(new Rectangle2D.Double(0, 0, 612, 792));
+        expected.intersect(new Area(ellipse));
+        expected.intersect(new Area(rectangle(150, 0, 500, 792)));
+        Area clip = state.getCurrentClippingPath();
+        assertTrue(expected.equals(clip));
+        assertSame(clip, state.getCurrentClippingPath());
+        assertSame(clip, state.getCurrentClippingShape());
+    }
+
+    public void testCloneKeepsClippingPath()
+    {
+        PDGraphicsState state = new PDGraphicsState(new PDRectangle(612, 792));
+        state.intersectClippingPath(new GeneralPath(new Ellipse2D.Double(0, 0, 300, 300)));
+        Area parentClip = state.getCurrentClippingPath();
+
+        PDGraphicsState clone = state.clone();
+        clone.intersectClippingPath(new GeneralPath(new Ellipse2D.Double(100, 100, 300, 300)));
+        clone.intersectClippingPath(rectangle(0, 0, 200, 200));
+        Area cloneClip = clone.getCurrentClippingPath();
+        assertFalse(cloneClip.equals(parentClip));
+
+        // further clipping of the parent doesn't affect the clone and vice versa
+        state.intersectClippingPath(new GeneralPath(new Ellipse2D.Double(10, 10, 50, 50)));
+        assertSame(cloneClip, clone.getCurrentClippingPath());
+        Area expected = new Area(new Rectangle2D.Double(0, 0, 612, 792));
+        expected.intersect(new Area(new GeneralPath(new Ellipse2D.Double(0, 0, 300, 300))));
+        expected.intersect(new Area(new GeneralPath(new Ellipse2D.Double(10, 10, 50, 50))));
+        assertTrue(expected.equals(state.getCurrentClippingPath()));
+    }
+
+    private static GeneralPath rectangle(float x, float y, float width, float height)
+    {
+        GeneralPath path = new GeneralPath();
+        path.moveTo(x, y);
+        path.lineTo(x, y + height);
+        path.lineTo(x + width, y + height);
+        path.lineTo(x + width, y);
+        path.closePath();
+        return path;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.GeneralPath;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the bounded, shared glyph cache.
+ */
+public class GlyphCacheTest
+{
+    private PDDocument document;
+    private PDType0Font font;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        document = new PDDocument();
+        InputStream is = PDDocument.class.getResourceAsStream(
+                "/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf");
+        font = PDType0Font.load(document, is);
+        is.close();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        document.close();
+    }
+
+    @Test
+    public void testHitsAndMisses()
+    {
+        GlyphCache cache = new GlyphCache();
+        GeneralPath path = cache.getPathForCharacterCode(font, 36);
+        assertFalse(path.getBounds2D().isEmpty());
+        assertSame(path, cache.getPathForCharacterCode(font, 36));
+        cache.getPathForCharacterCode(font, 37);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.getPathForCharacterCode(font, 36);
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testBounded()
+    {
+        GlyphCache cache = new GlyphCache(32);
+        for (int code = 1; code <= 500; code++)
+        {
+            cache.getPathForCharacterCode(font, code);
+        }
+        assertTrue(cache.size() <= 32);
+        assertEquals(500, cache.getMissCount());
+        assertEquals(500 - cache.size(), cache.getEvictionCount());
+
+        // the most recently used glyph is still there
+        cache.getPathForCharacterCode(font, 500);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testSharedBetweenPagesAndRenderers() throws IOException
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            PDPage page = new PDPage(PDRectangle.A6);
+            document.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(document, page);
+            contents.beginText();
+            contents.setFont(font, 12);
+            contents.newLineAtOffset(20, 350);
+            contents.showText("The same glyphs on every page");
+            contents.endText();
+            contents.close();
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.save(baos);
+
+        PDDocument doc = PDDocument.load(baos.toByteArray());
+        try
+        {
+            PDFRenderer renderer = new PDFRenderer(doc);
+            GlyphCache cache = renderer.getGlyphCache();
+            renderer.renderImage(0);
+            long misses = cache.getMissCount();
+            assertTrue(misses > 0);
+
+            renderer.renderImage(1);
+            renderer.renderImage(2);
+            assertEquals(misses, cache.getMissCount());
+            assertTrue(cache.getHitCount() > 0);
+
+            PDFRenderer other = new PDFRenderer(doc);
+            other.setGlyphCache(cache);
+            other.renderImage(0);
+            assertEquals(misses, cache.getMissCount());
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+}
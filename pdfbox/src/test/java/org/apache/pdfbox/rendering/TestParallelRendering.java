@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.rendering;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Renders pages which share a font and an image on several threads and compares the result
+ * with rendering them one after another.
+ */
+public class TestParallelRendering
+{
+    private static final int PAGE_COUNT = 12;
+
+    private PDDocument document;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        document = PDDocument.load(createDocument());
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        executor.shutdownNow();
+        document.close();
+    }
+
+    @Test
+    public void testRenderImages() throws IOException
+    {
+        PDFRenderer renderer = new PDFRenderer(document);
+        List<BufferedImage> images = renderer.renderImages(0, PAGE_COUNT, 50, ImageType.RGB,
+                executor);
+        assertEquals(PAGE_COUNT, images.size());
+        for (int i = 0; i < PAGE_COUNT; i++)
+        {
+            assertSameImage(renderer.renderImageWithDPI(i, 50, ImageType.RGB), images.get(i));
+        }
+    }
+
+    @Test
+    public void testRenderImagesCallback() throws IOException
+    {
+        PDFRenderer renderer = new PDFRenderer(document);
+        final List<Integer> pageIndexes = new ArrayList<Integer>();
+        renderer.renderImages(3, 9, 36, ImageType.GRAY, executor, new RenderCallback()
+        {
+            @Override
+            public void pageRendered(int pageIndex, BufferedImage image)
+            {
+                assertEquals(BufferedImage.TYPE_BYTE_GRAY, image.getType());
+                pageIndexes.add(pageIndex);
+            }
+        });
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 3; i < 9; i++)
+        {
+            expected.add(i);
+        }
+        assertEquals(expected, pageIndexes);
+    }
+
+    @Test
+    public void testCallbackFailure() throws IOException
+    {
+        PDFRenderer renderer = new PDFRenderer(document);
+        try
+        {
+            renderer.renderImages(0, PAGE_COUNT, 36, ImageType.RGB, executor, new RenderCallback()
+            {
+                @Override
+                public void pageRendered(int pageIndex, BufferedImage image) throws IOException
+                {
+                    if (pageIndex == 2)
+                    {
+                        throw new IOException("disk full");
+                    }
+                }
+            });
+            fail("IOException expected");
+        }
+        catch (IOException e)
+        {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOverriddenRenderImage() throws IOException
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        PDFRenderer renderer = new PDFRenderer(document)
+        {
+            @Override
+            public BufferedImage renderImage(int pageIndex, float scale, ImageType imageType)
+                    throws IOException
+            {
+                calls.incrementAndGet();
+                return super.renderImage(pageIndex, scale, imageType);
+            }
+        };
+        renderer.renderImages(0, PAGE_COUNT, 36, ImageType.RGB, executor);
+        assertEquals(PAGE_COUNT, calls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPageRange() throws IOException
+    {
+        new PDFRenderer(document).renderImages(0, PAGE_COUNT + 1, 72, ImageType.RGB, executor);
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual)
+    {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int w = expected.getWidth();
+        int h = expected.getHeight();
+        assertArrayEquals(expected.getRGB(0, 0, w, h, null, 0, w),
+                actual.getRGB(0, 0, w, h, null, 0, w));
+    }
+
+    private static byte[] createDocument() throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        try
+        {
+            InputStream is = PDDocument.class.getResourceAsStream(
+                    "/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf");
+            PDFont font = PDType0Font.load(doc, is);
+            is.close();
+
+            BufferedImage bim = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < bim.getHeight(); y++)
+            {
+                for (int x = 0; x < bim.getWidth(); x++)
+                {
+                    bim.setRGB(x, y, (x * 4) << 16 | (y * 4) << 8 | (x + y) * 2);
+                }
+            }
+            PDImageXObject image = LosslessFactory.createFromImage(doc, bim);
+
+            for (int i = 0; i < PAGE_COUNT; i++)
+            {
+                PDPage page = new PDPage(PDRectangle.A6);
+                doc.addPage(page);
+                PDPageContentStream contents = new PDPageContentStream(doc, page);
+                contents.drawImage(image, 20, 20 + i * 10, 100, 100);
+                contents.beginText();
+                contents.setFont(font, 14);
+                contents.newLineAtOffset(20, 350);
+                contents.showText("Page " + (i + 1) + " of a document rendered in parallel");
+                contents.endText();
+                contents.close();
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            doc.save(baos);
+            return baos.toByteArray();
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Test that {@link CharacterGrid} finds the same duplicates as the map of sorted sets which
+ * PDFTextStripper used before.
+ */
+public class TestCharacterGrid extends TestCase
+{
+    private static final String[] CHARACTERS = { "a", "b", "fi" };
+
+    /**
+     * Adds random characters with many equal coordinates, so that characters lie exactly on the
+     * bounds of the ranges, and compares which ones are duplicates.
+     */
+    public void testSameDuplicatesAsSortedMaps()
+    {
+        Random random = new Random(815);
+        CharacterGrid grid = new CharacterGrid();
+        for (int round = 0; round < 200; round++)
+        {
+            // the grid is reused, as for the pages of a document
+            grid.clear();
+            Map<String, TreeMap<Float, TreeSet<Float>>> reference =
+                    new HashMap<String, TreeMap<Float, TreeSet<Float>>>();
+            for (int i = 0; i < 300; i++)
+            {
+                String character = CHARACTERS[random.nextInt(CHARACTERS.length)];
+                float x = (random.nextInt(200) - 50) * 0.5f;
+                float y = (random.nextInt(200) - 50) * 0.5f;
+                float tolerance = createTolerance(random);
+                boolean expected = containsNear(reference, character, x, y, tolerance);
+                assertEquals("round " + round + ", character " + i, expected,
+                        grid.containsNear(character, x, y, tolerance));
+                if (!expected)
+                {
+                    add(reference, character, x, y);
+                    grid.add(character, x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the bounds of the ranges and an empty range.
+     */
+    public void testBounds()
+    {
+        CharacterGrid grid = new CharacterGrid();
+        grid.add("a", 10, 20);
+        assertTrue(grid.containsNear("a", 10, 20, 0.5f));
+        assertFalse(grid.containsNear("b", 10, 20, 0.5f));
+        // the lower bounds are included, the upper ones are not
+        assertTrue(grid.containsNear("a", 11, 21, 1));
+        assertFalse(grid.containsNear("a", 9, 20, 1));
+        assertFalse(grid.containsNear("a", 10, 19, 1));
+        assertFalse(grid.containsNear("a", 10, 20, 0));
+        // a range which covers many cells
+        assertTrue(grid.containsNear("a", 500, 500, 1000));
+        grid.clear();
+        assertFalse(grid.containsNear("a", 10, 20, 0.5f));
+    }
+
+    private static float createTolerance(Random random)
+    {
+        switch (random.nextInt(4))
+        {
+            case 0:
+                return 0;
+            case 1:
+                return random.nextInt(4) * 0.5f;
+            case 2:
+                return random.nextFloat() * 3;
+            default:
+                // scans all characters
+                return 50 + random.nextInt(50);
+        }
+    }
+
+    private static boolean containsNear(Map<String, TreeMap<Float, TreeSet<Float>>> reference,
+            String character, float x, float y, float tolerance)
+    {
+        TreeMap<Float, TreeSet<Float>> sameCharacters = reference.get(character);
+        if (sameCharacters == null)
+        {
+            return false;
+        }
+        SortedMap<Float, TreeSet<Float>> xMatches =
+                sameCharacters.subMap(x - tolerance, x + tolerance);
+        for (TreeSet<Float> xMatch : xMatches.values())
+        {
+            if (!xMatch.subSet(y - tolerance, y + tolerance).isEmpty())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void add(Map<String, TreeMap<Float, TreeSet<Float>>> reference,
+            String character, float x, float y)
+    {
+        TreeMap<Float, TreeSet<Float>> sameCharacters = reference.get(character);
+        if (sameCharacters == null)
+        {
+            sameCharacters = new TreeMap<Float, TreeSet<Float>>();
+            reference.put(character, sameCharacters);
+        }
+        TreeSet<Float> ySet = sameCharacters.get(x);
+        if (ySet == null)
+        {
+            ySet = new TreeSet<Float>();
+            sameCharacters.put(x, ySet);
+        }
+        ySet.add(y);
+    }
+}
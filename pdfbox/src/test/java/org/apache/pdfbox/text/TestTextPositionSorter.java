@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.QuickSort;
+
+/**
+ * Test that {@link TextPositionSorter} sorts like {@link QuickSort} with the
+ * {@link TextPositionComparator}, which isn't transitive.
+ */
+public class TestTextPositionSorter extends TestCase
+{
+    // text matrices for the directions 0, 90, 180 and 270
+    private static final float[][] DIRECTIONS = {
+        { 10, 0, 0, 10 }, { 0, 10, -10, 0 }, { -10, 0, 0, -10 }, { 0, -10, 10, 0 } };
+
+    /**
+     * Sorts random text positions with many equal coordinates and overlapping heights.
+     */
+    public void testSameOrderAsQuickSort()
+    {
+        Random random = new Random(4711);
+        TextPositionSorter sorter = new TextPositionSorter();
+        for (int round = 0; round < 500; round++)
+        {
+            int size = random.nextInt(200);
+            boolean rotated = round % 2 == 1;
+            List<TextPosition> expected = new ArrayList<TextPosition>(size);
+            for (int i = 0; i < size; i++)
+            {
+                expected.add(createTextPosition(random, rotated));
+            }
+            List<TextPosition> actual = new ArrayList<TextPosition>(expected);
+            QuickSort.sort(expected, new TextPositionComparator());
+            // the sorter is reused, as for the pages of a document
+            sorter.sort(actual);
+            for (int i = 0; i < size; i++)
+            {
+                assertSame("round " + round + ", index " + i, expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    /**
+     * Test lists which are too short to be sorted.
+     */
+    public void testShortLists()
+    {
+        TextPositionSorter sorter = new TextPositionSorter();
+        List<TextPosition> list = new ArrayList<TextPosition>();
+        sorter.sort(list);
+        assertTrue(list.isEmpty());
+        TextPosition position = createTextPosition(new Random(1), false);
+        list.add(position);
+        sorter.sort(list);
+        assertSame(position, list.get(0));
+    }
+
+    private static TextPosition createTextPosition(Random random, boolean rotated)
+    {
+        float[] m = DIRECTIONS[rotated ? random.nextInt(DIRECTIONS.length) : 0];
+        // coordinates on a coarse grid give many ties
+        float x = random.nextInt(40) * 2.5f;
+        float y = random.nextInt(20) * 2.5f;
+        Matrix textMatrix = new Matrix(m[0], m[1], m[2], m[3], x, y);
+        float height = random.nextInt(4) * 2.5f;
+        return new TextPosition(0, 200, 200, textMatrix, x + 5, y, height, 5, 2.5f, "a",
+                new int[] { 'a' }, null, 10, 10);
+    }
+}
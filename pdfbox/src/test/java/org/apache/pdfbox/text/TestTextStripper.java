@@ -21,6 +21,7 @@ import difflib.DeleteDelta;
 import difflib.DiffUtils;
 import difflib.InsertDelta;
 import difflib.Patch;
+import java.awt.geom.Rectangle2D;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -34,9 +35,15 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -45,6 +52,7 @@ import junit.framework.TestSuite;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.TestPDPageTree;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
@@ -569,6 +577,177 @@ public class TestTextStripper extends TestCase
         }
     }
     
+    /**
+     * Test that extracting the pages in parallel gives the same text as a sequential extraction,
+     * with and without sorting and with a page range.
+     *
+     * @throws IOException
+     */
+    public void testParallelExtraction() throws IOException
+    {
+        PDDocument doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("with_outline.pdf"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            for (boolean sort : new boolean[] { false, true })
+            {
+                stripper.setSortByPosition(sort);
+                assertEquals(stripper.getText(doc), stripper.getText(doc, executor));
+            }
+
+            stripper.setStartPage(2);
+            stripper.setEndPage(3);
+            String expected = stripper.getText(doc);
+            final List<Integer> pageNumbers = new LinkedList<Integer>();
+            final StringBuilder sb = new StringBuilder();
+            stripper.extractPages(doc, executor, new PageTextCallback()
+            {
+                @Override
+                public void pageExtracted(int pageNumber, String text)
+                {
+                    pageNumbers.add(pageNumber);
+                    sb.append(text);
+                }
+            });
+            assertEquals(expected, sb.toString());
+            assertEquals(Arrays.asList(2, 3), pageNumbers);
+        }
+        finally
+        {
+            executor.shutdown();
+            doc.close();
+        }
+    }
+
+    /**
+     * Test that extracting the regions of all pages in one pass gives the same text as
+     * extracting them page by page.
+     *
+     * @throws IOException
+     */
+    public void testExtractRegionsOfDocument() throws IOException
+    {
+        PDDocument doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("with_outline.pdf"));
+        try
+        {
+            PDFTextStripperByArea areaStripper = new PDFTextStripperByArea();
+            for (int i = 0; i < 5; i++)
+            {
+                for (int j = 0; j < 8; j++)
+                {
+                    areaStripper.addRegion("r" + i + "_" + j, new Rectangle2D.Float(i * 120, j * 100, 130, 110));
+                }
+            }
+            final List<Map<String, String>> expected = new ArrayList<Map<String, String>>();
+            for (PDPage page : doc.getPages())
+            {
+                areaStripper.extractRegions(page);
+                Map<String, String> textByRegion = new LinkedHashMap<String, String>();
+                for (String region : areaStripper.getRegions())
+                {
+                    textByRegion.put(region, areaStripper.getTextForRegion(region));
+                }
+                expected.add(textByRegion);
+            }
+
+            final List<Integer> pageNumbers = new ArrayList<Integer>();
+            areaStripper.extractRegions(doc, new RegionTextCallback()
+            {
+                @Override
+                public void regionsExtracted(int pageNumber, Map<String, String> textByRegion)
+                {
+                    assertEquals(expected.get(pageNumber - 1), textByRegion);
+                    pageNumbers.add(pageNumber);
+                }
+            });
+            assertEquals(doc.getNumberOfPages(), pageNumbers.size());
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+
+    /**
+     * Test that iterating over the pages gives the same text as extracting the whole document,
+     * with and without a page range.
+     *
+     * @throws IOException
+     */
+    public void testPageIterator() throws IOException
+    {
+        PDDocument doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("with_outline.pdf"));
+        try
+        {
+            String expected = stripper.getText(doc);
+            StringBuilder sb = new StringBuilder();
+            int pageNumber = 0;
+            Iterator<PageText> it = stripper.pageIterator(doc, false);
+            while (it.hasNext())
+            {
+                PageText pageText = it.next();
+                assertTrue(pageText.getPageNumber() > pageNumber);
+                assertNull(pageText.getTextPositions());
+                pageNumber = pageText.getPageNumber();
+                sb.append(pageText.getText());
+            }
+            assertEquals(expected, sb.toString());
+
+            stripper.setStartPage(2);
+            stripper.setEndPage(3);
+            expected = stripper.getText(doc);
+            sb.setLength(0);
+            List<Integer> pageNumbers = new LinkedList<Integer>();
+            it = stripper.pageIterator(doc, true);
+            while (it.hasNext())
+            {
+                PageText pageText = it.next();
+                pageNumbers.add(pageText.getPageNumber());
+                assertFalse(pageText.getTextPositions().isEmpty());
+                assertFalse(pageText.getTextPositions().get(0).isEmpty());
+                sb.append(pageText.getText());
+            }
+            assertEquals(expected, sb.toString());
+            assertEquals(Arrays.asList(2, 3), pageNumbers);
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+
+    /**
+     * Test that a subclass which doesn't create page strippers gets its pages extracted one after
+     * another by itself.
+     *
+     * @throws IOException
+     */
+    public void testParallelExtractionSubclass() throws IOException
+    {
+        PDDocument doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("with_outline.pdf"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            PDFTextStripper subclass = new PDFTextStripper()
+            {
+                @Override
+                protected void writeString(String text) throws IOException
+                {
+                    super.writeString(text.toUpperCase());
+                }
+            };
+            subclass.setStartPage(2);
+            String expected = subclass.getText(doc);
+            assertEquals(expected, subclass.getText(doc, executor));
+            assertEquals(2, subclass.getStartPage());
+        }
+        finally
+        {
+            executor.shutdown();
+            doc.close();
+        }
+    }
+
     /**
      * Test to validate text extraction of file set.
      *
@@ -23,6 +23,8 @@ import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
@@ -50,6 +52,7 @@ public final class ExtractText
     private static final String IGNORE_BEADS = "-ignoreBeads";
     private static final String DEBUG = "-debug";
     private static final String HTML = "-html";
+    private static final String THREADS = "-threads";
     
     private static final String STD_ENCODING = "UTF-8";
 
@@ -101,6 +104,7 @@ public final class ExtractText
         String ext = ".txt";
         int startPage = 1;
         int endPage = Integer.MAX_VALUE;
+        int threads = 1;
         for( int i=0; i<args.length; i++ )
         {
             if( args[i].equals( PASSWORD ) )
@@ -156,6 +160,15 @@ public final class ExtractText
                 }
                 endPage = Integer.parseInt( args[i] );
             }
+            else if( args[i].equals( THREADS ) )
+            {
+                i++;
+                if( i >= args.length )
+                {
+                    usage();
+                }
+                threads = Integer.parseInt( args[i] );
+            }
             else if( args[i].equals( CONSOLE ) )
             {
                 toConsole = true;
@@ -182,6 +195,7 @@ public final class ExtractText
 
             Writer output = null;
             PDDocument document = null;
+            ExecutorService executor = null;
             try
             {
                 long startTime = startProcessing("Loading PDF "+pdfFile);
@@ -233,8 +247,13 @@ public final class ExtractText
                     System.err.println("Writing to "+outputFile);
                 }
                 
+                if (threads > 1)
+                {
+                    executor = Executors.newFixedThreadPool(threads);
+                }
+
                 // Extract text for main document:
-                stripper.writeText( document, output );
+                writeText( stripper, document, output, executor );
                 
                 // ... also for any embedded PDFs:
                 PDDocumentCatalog catalog = document.getDocumentCatalog();
@@ -273,7 +292,7 @@ public final class ExtractText
                                     }
                                     try 
                                     {
-                                        stripper.writeText( subDoc, output );
+                                        writeText( stripper, subDoc, output, executor );
                                     } 
                                     finally 
                                     {
@@ -288,12 +307,29 @@ public final class ExtractText
             }
             finally
             {
+                if (executor != null)
+                {
+                    executor.shutdown();
+                }
                 IOUtils.closeQuietly(output);
                 IOUtils.closeQuietly(document);
             }
         }
     }
 
+    private static void writeText(PDFTextStripper stripper, PDDocument document, Writer output,
+            ExecutorService executor) throws IOException
+    {
+        if (executor == null)
+        {
+            stripper.writeText( document, output );
+        }
+        else
+        {
+            stripper.writeText( document, output, executor );
+        }
+    }
+
     private long startProcessing(String message) 
     {
         if (debug) 
@@ -329,6 +365,7 @@ public final class ExtractText
             + "  -debug                       : Enables debug output about the time consumption of every stage\n"
             + "  -startPage <number>          : The first page to start extraction(1 based)\n"
             + "  -endPage <number>            : The last page to extract(inclusive)\n"
+            + "  -threads <number>            : The number of pages to extract in parallel\n"
             + "  <inputfile>                  : The PDF document to use\n"
             + "  [output-text-file]           : The file to write the text to";
         
@@ -92,6 +92,17 @@ public class PDFText2HTML extends PDFTextStripper
         super.writeString("</body></html>");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected PDFTextStripper createPageStripper() throws IOException
+    {
+        PDFText2HTML stripper = new PDFText2HTML();
+        stripper.copySettings(this);
+        return stripper;
+    }
+
     /**
      * This method will attempt to guess the title of the document using
      * either the document properties or the first lines of text.
@@ -21,6 +21,8 @@ import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.imageio.ImageIO;
 
@@ -29,6 +31,7 @@ import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderCallback;
 import org.apache.pdfbox.tools.imageio.ImageIOUtil;
 
 /**
@@ -51,6 +54,7 @@ public final class PDFToImage
     private static final String DPI = "-dpi";
     private static final String CROPBOX = "-cropbox";
     private static final String TIME = "-time";
+    private static final String THREADS = "-threads";
 
     /**
      * private constructor.
@@ -85,6 +89,7 @@ public final class PDFToImage
         float cropBoxUpperRightX = 0;
         float cropBoxUpperRightY = 0;
         boolean showTime = false;
+        int threads = 1;
         try
         {
             dpi = Toolkit.getDefaultToolkit().getScreenResolution();
@@ -167,6 +172,15 @@ public final class PDFToImage
             {
                 showTime = true;
             }
+            else if( args[i].equals( THREADS ) )
+            {
+                i++;
+                if( i >= args.length )
+                {
+                    usage();
+                }
+                threads = Integer.parseInt( args[i] );
+            }
             else
             {
                 if( pdfFile == null )
@@ -228,15 +242,30 @@ public final class PDFToImage
                 long startTime = System.nanoTime();
 
                 // render the pages
-                boolean success = true;
                 endPage = Math.min(endPage, document.getNumberOfPages());
                 PDFRenderer renderer = new PDFRenderer(document);
-                for (int i = startPage - 1; i < endPage; i++)
+                ImageWriter writer = new ImageWriter(outputPrefix, imageFormat, dpi);
+                if (threads > 1)
                 {
-                    BufferedImage image = renderer.renderImageWithDPI(i, dpi, imageType);
-                    String fileName = outputPrefix + (i + 1) + "." + imageFormat;
-                    success &= ImageIOUtil.writeImage(image, fileName, dpi);
+                    ExecutorService executor = Executors.newFixedThreadPool(threads);
+                    try
+                    {
+                        renderer.renderImages(startPage - 1, endPage, dpi, imageType, executor,
+                                writer);
+                    }
+                    finally
+                    {
+                        executor.shutdown();
+                    }
                 }
+                else
+                {
+                    for (int i = startPage - 1; i < endPage; i++)
+                    {
+                        writer.pageRendered(i, renderer.renderImageWithDPI(i, dpi, imageType));
+                    }
+                }
+                boolean success = writer.success;
 
                 // performance stats
                 long endTime = System.nanoTime();
@@ -282,6 +311,7 @@ public final class PDFToImage
             + "  -dpi <int>                       : The DPI of the output image\n"
             + "  -cropbox <int> <int> <int> <int> : The page area to export\n"
             + "  -time                            : Prints timing information to stdout\n"
+            + "  -threads <int>                   : The number of pages to render in parallel\n"
             + "  <inputfile>                      : The PDF document to use\n";
         
         System.err.println(message);
@@ -306,6 +336,31 @@ public final class PDFToImage
         return retval.toString();
     }
 
+    /**
+     * Writes each rendered page to its own file.
+     */
+    private static final class ImageWriter implements RenderCallback
+    {
+        private final String outputPrefix;
+        private final String imageFormat;
+        private final int dpi;
+        private boolean success = true;
+
+        ImageWriter(String outputPrefix, String imageFormat, int dpi)
+        {
+            this.outputPrefix = outputPrefix;
+            this.imageFormat = imageFormat;
+            this.dpi = dpi;
+        }
+
+        @Override
+        public void pageRendered(int pageIndex, BufferedImage image) throws IOException
+        {
+            String fileName = outputPrefix + (pageIndex + 1) + "." + imageFormat;
+            success &= ImageIOUtil.writeImage(image, fileName, dpi);
+        }
+    }
+
     private static void changeCropBox(PDDocument document, float a, float b, float c, float d)
     {
         for (PDPage page : document.getPages())